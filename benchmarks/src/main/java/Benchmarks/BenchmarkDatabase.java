@@ -0,0 +1,194 @@
+package Benchmarks;
+
+import Config.ConnectionPool;
+import Models.Client;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+
+/**
+ * Wbudowana baza H2 (tryb zgodności z MariaDB) dla benchmarków.
+ * Schemat tworzony jest przez Hibernate z mapowań encji aplikacji, a dane
+ * wstawiane są wsadowo przez JDBC - przy milionie klientów zasilanie przez
+ * encje trwałoby dłużej niż same pomiary.
+ * <p>
+ * Rozkład zapisów odwzorowuje rzeczywisty grafik: każdy klient chodzi na kilka
+ * różnych zajęć, a popularność zajęć jest nierówna (kilka aktywności skupia
+ * większość zapisów).
+ */
+final class BenchmarkDatabase {
+
+    private static final Logger LOGGER = Logger.getLogger(BenchmarkDatabase.class.getName());
+
+    /** Adres bazy w pamięci; DB_CLOSE_DELAY utrzymuje ją między połączeniami puli. */
+    private static final String JDBC_URL = "jdbc:h2:mem:isdd_bench;MODE=MariaDB;DB_CLOSE_DELAY=-1";
+
+    private static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final StandardServiceRegistry registry;
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+
+    private BenchmarkDatabase(StandardServiceRegistry registry, SessionFactory sessionFactory, DataSource dataSource) {
+        this.registry = registry;
+        this.sessionFactory = sessionFactory;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Tworzy bazę, schemat i fabrykę sesji skonfigurowaną jak w aplikacji
+     * (hibernate.cfg.xml, pula HikariCP, cache drugiego poziomu).
+     */
+    static BenchmarkDatabase create() {
+        DataSource dataSource = ConnectionPool.create(JDBC_URL, "sa", "");
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .configure("hibernate.cfg.xml")
+                .applySetting("hibernate.connection.datasource", dataSource)
+                .applySetting("hibernate.hbm2ddl.auto", "create")
+                .applySetting("hibernate.show_sql", "false")
+                .build();
+        SessionFactory sessionFactory = new MetadataSources(registry).buildMetadata().buildSessionFactory();
+        return new BenchmarkDatabase(registry, sessionFactory, dataSource);
+    }
+
+    SessionFactory sessionFactory() {
+        return sessionFactory;
+    }
+
+    /** Numer członkowski klienta o podanym indeksie (stała szerokość - porządek zgodny z liczbowym). */
+    static String memberNumber(int index) {
+        return String.format("S%07d", index + 1);
+    }
+
+    /** Kod aktywności o podanym indeksie. */
+    static String activityCode(int index) {
+        return String.format("AC%03d", index + 1);
+    }
+
+    /**
+     * Wypełnia bazę danymi testowymi.
+     *
+     * @param clients Liczba klientów.
+     * @param trainers Liczba trenerów.
+     * @param activities Liczba aktywności.
+     * @param enrollmentsPerClient Liczba zajęć, na które zapisany jest każdy klient.
+     */
+    void seed(int clients, int trainers, int activities, int enrollmentsPerClient) throws SQLException {
+        long start = System.nanoTime();
+        Random random = new Random(42);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO TRAINER (t_cod, t_name, t_idNumber, t_phoneNumber, t_email, t_date, t_nick) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < trainers; i++) {
+                    ps.setString(1, String.format("T%03d", i + 1));
+                    ps.setString(2, "Trainer " + i);
+                    ps.setString(3, String.format("%08dT", i));
+                    ps.setString(4, "600" + String.format("%06d", i));
+                    ps.setString(5, "trainer" + i + "@gym.test");
+                    ps.setObject(6, LocalDate.of(2020, 1, 1));
+                    ps.setString(7, "t" + i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO ACTIVITY (a_id, a_name, a_description, a_price, a_day, a_hour, a_trainerInCharge) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < activities; i++) {
+                    ps.setString(1, activityCode(i));
+                    ps.setString(2, "Activity " + i);
+                    ps.setString(3, "Benchmark activity");
+                    ps.setInt(4, 20 + random.nextInt(60));
+                    ps.setString(5, DAYS[i % DAYS.length]);
+                    ps.setInt(6, 8 + (i / DAYS.length) % 14);
+                    ps.setString(7, String.format("T%03d", i % trainers + 1));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            char[] categories = {'A', 'B', 'C', 'D', 'E'};
+            try (PreparedStatement client = connection.prepareStatement(
+                    "INSERT INTO CLIENT (m_num, m_name, m_id, m_birthdate, m_phone, m_emailMember, "
+                    + "m_startingDateMember, m_categoryMember, m_numSeq) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement performs = connection.prepareStatement(
+                    "INSERT INTO PERFORMS (p_id, p_num) VALUES (?, ?)")) {
+                int fanOut = Math.min(enrollmentsPerClient, activities);
+                int[] chosen = new int[fanOut];
+                for (int i = 0; i < clients; i++) {
+                    String num = memberNumber(i);
+                    client.setString(1, num);
+                    client.setString(2, "Client " + i);
+                    client.setString(3, String.format("%08dX", i));
+                    int day = 1 + random.nextInt(28);
+                    int month = 1 + random.nextInt(12);
+                    client.setObject(4, LocalDate.of(1950 + random.nextInt(55), month, day));
+                    client.setString(5, "700" + String.format("%06d", i % 1_000_000));
+                    client.setString(6, "client" + i + "@gym.test");
+                    client.setObject(7, LocalDate.of(2024, 1, 1));
+                    client.setString(8, String.valueOf(categories[random.nextInt(categories.length)]));
+                    client.setLong(9, Client.numberSequence(num));
+                    client.addBatch();
+
+                    // Rozkład skośny: kwadrat liczby losowej faworyzuje pierwsze (popularne) zajęcia
+                    for (int k = 0; k < fanOut; k++) {
+                        int candidate;
+                        do {
+                            double r = random.nextDouble();
+                            candidate = (int) (r * r * activities);
+                        } while (contains(chosen, k, candidate));
+                        chosen[k] = candidate;
+                        performs.setString(1, activityCode(candidate));
+                        performs.setString(2, num);
+                        performs.addBatch();
+                    }
+
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        client.executeBatch();
+                        performs.executeBatch();
+                        connection.commit();
+                    }
+                }
+                client.executeBatch();
+                performs.executeBatch();
+            }
+            connection.commit();
+        }
+        LOGGER.info(String.format("Zasilono bazę: %d klientów, %d aktywności, %d zapisów w %d ms.",
+                clients, activities, (long) clients * Math.min(enrollmentsPerClient, activities),
+                (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Zamyka fabrykę sesji, rejestr i pulę połączeń. */
+    void close() {
+        try {
+            sessionFactory.close();
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+            ConnectionPool.close();
+        }
+    }
+}
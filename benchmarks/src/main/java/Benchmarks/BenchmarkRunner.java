@@ -0,0 +1,34 @@
+package Benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punkt wejścia modułu benchmarków. Przyjmuje standardowe argumenty JMH
+ * (np. {@code -p clients=100000}, {@code -f 3}, wzorzec nazwy benchmarku),
+ * a jeśli nie podano formatu wyników, zapisuje je jako JSON do
+ * {@value #DEFAULT_RESULT_FILE}, aby kolejne przebiegi można było porównać.
+ */
+public final class BenchmarkRunner {
+
+    /** Domyślny plik wyników (względem katalogu uruchomienia). */
+    public static final String DEFAULT_RESULT_FILE = "benchmarks/target/jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(builder.build()).run();
+    }
+}
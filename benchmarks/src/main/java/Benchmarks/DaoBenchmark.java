@@ -0,0 +1,273 @@
+package Benchmarks;
+
+import Models.ActivityAggregateDAO;
+import Models.ActivityAggregateDAO.Counters;
+import Models.ActivityDAO;
+import Models.ActivityRow;
+import Models.ActivityStatistics;
+import Models.ActivityStatisticsRow;
+import Models.ClientDAO;
+import Models.ClientRow;
+import Models.PerformsDAO;
+import Models.PricingEngine;
+import Utils.ActivityAggregates;
+import Utils.CodeGenerator;
+import Utils.CsvExporter;
+import Utils.PagedTableModel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarki gorących ścieżek warstwy DAO: ładowanie tabel, sprawdzanie istnienia
+ * rekordów, generowanie kodów, zapisy na zajęcia i statystyki aktywności.
+ * Każda metoda otwiera własną sesję, tak jak kontrolery aplikacji, więc wynik
+ * obejmuje również koszt wypożyczenia połączenia z puli.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class DaoBenchmark {
+
+    /** Liczba klientów w bazie. */
+    @Param({"1000", "100000", "1000000"})
+    public int clients;
+
+    /** Liczba zajęć, na które zapisany jest każdy klient. */
+    @Param({"3"})
+    public int enrollmentsPerClient;
+
+    /** Liczba aktywności w grafiku. */
+    @Param({"60"})
+    public int activities;
+
+    /** Liczba trenerów. */
+    @Param({"20"})
+    public int trainers;
+
+    private BenchmarkDatabase database;
+    private SessionFactory sessionFactory;
+    private CodeGenerator codeGenerator;
+
+    private final ClientDAO clientDAO = new ClientDAO();
+    private final ActivityDAO activityDAO = new ActivityDAO();
+    private final PerformsDAO performsDAO = new PerformsDAO();
+    private final ActivityAggregateDAO aggregateDAO = new ActivityAggregateDAO();
+
+    /** Plik docelowy eksportu CSV (nadpisywany w każdej iteracji). */
+    private final Path exportFile = Path.of(System.getProperty("java.io.tmpdir"), "isdd-bench-clients.csv.gz");
+
+    /** Klucz początku strony w połowie tabeli klientów (paginacja po kluczu). */
+    private String middleKey;
+
+    /** Wiersze zapisów (cena, kategoria) w tablicach prymitywnych - wycena pełnej listy zapisów. */
+    private int[] enrollmentPrices;
+    private char[] enrollmentCategories;
+    private PricingEngine pricingEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create();
+        database.seed(clients, trainers, activities, enrollmentsPerClient);
+        sessionFactory = database.sessionFactory();
+        codeGenerator = CodeGenerator.forSessionFactory(sessionFactory);
+        // Liczniki statystyk budowane z zasilonych zapisów (jak przy pierwszym logowaniu)
+        ActivityAggregates.forSessionFactory(sessionFactory).initialize();
+        middleKey = BenchmarkDatabase.memberNumber(clients / 2);
+        pricingEngine = PricingEngine.forSessionFactory(sessionFactory);
+        int rows = clients * enrollmentsPerClient;
+        enrollmentPrices = new int[rows];
+        enrollmentCategories = new char[rows];
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            enrollmentPrices[i] = 20 + random.nextInt(60);
+            enrollmentCategories[i] = (char) ('A' + random.nextInt(5));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+        Files.deleteIfExists(exportFile);
+    }
+
+    private String randomClient() {
+        return BenchmarkDatabase.memberNumber(ThreadLocalRandom.current().nextInt(clients));
+    }
+
+    private String randomActivity() {
+        return BenchmarkDatabase.activityCode(ThreadLocalRandom.current().nextInt(activities));
+    }
+
+    // =========================================================================
+    // ŁADOWANIE TABEL
+    // =========================================================================
+
+    @Benchmark
+    public List<ActivityRow> loadActivitiesTable() {
+        try (Session session = sessionFactory.openSession()) {
+            return activityDAO.findAllActivityRows(session);
+        }
+    }
+
+    @Benchmark
+    public List<ClientRow> loadClientsFirstPage() {
+        try (Session session = sessionFactory.openSession()) {
+            return clientDAO.findClientRowsPage(session, null, PagedTableModel.DEFAULT_PAGE_SIZE);
+        }
+    }
+
+    @Benchmark
+    public List<ClientRow> loadClientsMiddlePage() {
+        try (Session session = sessionFactory.openSession()) {
+            return clientDAO.findClientRowsPage(session, middleKey, PagedTableModel.DEFAULT_PAGE_SIZE);
+        }
+    }
+
+    @Benchmark
+    public long countClients() {
+        try (Session session = sessionFactory.openSession()) {
+            return clientDAO.countClients(session);
+        }
+    }
+
+    // =========================================================================
+    // SPRAWDZANIE ISTNIENIA I GENEROWANIE KODÓW
+    // =========================================================================
+
+    @Benchmark
+    public boolean existMemberNumber() {
+        try (Session session = sessionFactory.openSession()) {
+            return clientDAO.existMemberNumber(session, randomClient());
+        }
+    }
+
+    @Benchmark
+    public boolean existActivityId() {
+        try (Session session = sessionFactory.openSession()) {
+            return activityDAO.existAId(session, randomActivity());
+        }
+    }
+
+    @Benchmark
+    public String nextMemberNumber() {
+        return codeGenerator.nextMemberNumber();
+    }
+
+    // =========================================================================
+    // ZAPISY NA ZAJĘCIA
+    // =========================================================================
+
+    /**
+     * Zapis i wypisanie klienta w jednej transakcji, która jest następnie wycofywana -
+     * stan bazy po pomiarze jest taki sam jak przed nim, więc kolejne iteracje
+     * mierzą te same operacje.
+     */
+    @Benchmark
+    public int enrollAndUnenroll() {
+        String activityId = randomActivity();
+        String clientNum = randomClient();
+        Session session = null;
+        Transaction tr = null;
+        try {
+            session = sessionFactory.openSession();
+            tr = session.beginTransaction();
+            int changed = (performsDAO.enroll(session, activityId, clientNum) ? 1 : 0)
+                    + (performsDAO.unenroll(session, activityId, clientNum) ? 1 : 0);
+            tr.rollback();
+            return changed;
+        } catch (RuntimeException e) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw e;
+        } finally {
+            if (session != null) session.close();
+        }
+    }
+
+    // =========================================================================
+    // STATYSTYKI
+    // =========================================================================
+
+    /**
+     * Przeliczenie liczników najpopularniejszej aktywności (najwięcej zapisów w rozkładzie skośnym)
+     * z wierszy PERFORMS - odbudowa liczników po rozbieżności.
+     */
+    @Benchmark
+    public List<Counters> popularActivityRecompute() {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateDAO.recompute(session, BenchmarkDatabase.activityCode(0));
+        }
+    }
+
+    @Benchmark
+    public List<Counters> randomActivityRecompute() {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateDAO.recompute(session, randomActivity());
+        }
+    }
+
+    /** Statystyki aktywności z liczników ACTIVITY_AGGREGATE (odczyt po kluczu głównym). */
+    @Benchmark
+    public ActivityStatistics randomActivityAggregate() {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateDAO.find(session, randomActivity());
+        }
+    }
+
+    /** Zestawienie wszystkich aktywności z liczników (okno statystyk). */
+    @Benchmark
+    public List<ActivityStatisticsRow> allActivityStatistics() {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateDAO.findAll(session);
+        }
+    }
+
+    /** Przeliczenie liczników wszystkich aktywności jednym zapytaniem grupującym (okresowa weryfikacja). */
+    @Benchmark
+    public List<Counters> recomputeAllActivities() {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateDAO.recomputeAll(session);
+        }
+    }
+
+    /** Przychód wszystkich zapisów wyliczony przez silnik wyceny (pętla po tablicach prymitywnych). */
+    @Benchmark
+    public double enrollmentRevenue() {
+        return pricingEngine.revenue(enrollmentPrices, enrollmentCategories, enrollmentPrices.length);
+    }
+
+    // =========================================================================
+    // EKSPORT
+    // =========================================================================
+
+    /** Strumieniowy eksport całej tabeli klientów do CSV z kompresją gzip. */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportClientsCsv() throws IOException {
+        return CsvExporter.export(sessionFactory, CsvExporter.Table.CLIENTS, exportFile);
+    }
+}
@@ -0,0 +1,83 @@
+package Config;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Źródło danych, do którego właściwa pula połączeń podpinana jest później.
+ * Pozwala zbudować rejestr usług i metadane Hibernate przed podaniem
+ * poświadczeń (w trakcie wyświetlania okna logowania), a pulę utworzyć
+ * dopiero po kliknięciu "Login".
+ */
+final class BindableDataSource implements DataSource {
+
+    private volatile DataSource target;
+
+    /**
+     * Podpina (lub odpina, gdy null) docelowe źródło danych.
+     * @param target Pula połączeń.
+     */
+    void bind(DataSource target) {
+        this.target = target;
+    }
+
+    private DataSource target() throws SQLException {
+        DataSource ds = target;
+        if (ds == null) {
+            throw new SQLException("Źródło danych nie zostało jeszcze podpięte (brak poświadczeń).");
+        }
+        return ds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target().setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target().setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return target().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target().isWrapperFor(iface);
+    }
+}
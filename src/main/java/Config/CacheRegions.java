@@ -0,0 +1,98 @@
+package Config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Nazwy regionów cache drugiego poziomu (Hibernate + JCache/Caffeine) oraz
+ * odczyt statystyk trafień dla każdego regionu.
+ * Rozmiar i czas życia (TTL) regionów konfigurowane są w pliku
+ * {@code application.conf} i mogą zostać nadpisane właściwościami systemowymi,
+ * np. {@code -Dcaffeine.jcache.isdd_trainer.policy.maximum.size=1000}.
+ */
+public final class CacheRegions {
+
+    private static final Logger LOGGER = Logger.getLogger(CacheRegions.class.getName());
+
+    /** Region encji {@link Models.Trainer}. */
+    public static final String TRAINER = "isdd_trainer";
+
+    /** Region encji {@link Models.Activity}. */
+    public static final String ACTIVITY = "isdd_activity";
+
+    /** Region kolekcji {@code Activity.clientSet} (identyfikatory zapisanych klientów). */
+    public static final String ACTIVITY_CLIENTS = "isdd_activity_clients";
+
+    /** Region wyników zapytań o dane słownikowe (listy trenerów i aktywności). */
+    public static final String REFERENCE_QUERIES = "isdd_reference_queries";
+
+    /** Rola kolekcji klientów aktywności używana przy ręcznym unieważnianiu. */
+    public static final String ACTIVITY_CLIENTS_ROLE = "Models.Activity.clientSet";
+
+    private static final String[] ALL_REGIONS = {TRAINER, ACTIVITY, ACTIVITY_CLIENTS, REFERENCE_QUERIES};
+
+    private CacheRegions() {
+    }
+
+    /**
+     * Zwraca liczniki trafień, chybień i zapisów dla każdego nazwanego regionu.
+     * Wymaga włączonego {@code hibernate.generate_statistics}.
+     *
+     * @param sessionFactory Aktywna fabryka sesji.
+     * @return Mapa: nazwa regionu -> statystyki (w kolejności deklaracji regionów).
+     */
+    public static Map<String, RegionStats> getRegionStatistics(SessionFactory sessionFactory) {
+        Map<String, RegionStats> result = new LinkedHashMap<>();
+        if (sessionFactory == null || sessionFactory.isClosed()) {
+            return result;
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : ALL_REGIONS) {
+            CacheRegionStatistics s = statistics.getCacheRegionStatistics(region);
+            if (s != null) {
+                result.put(region, new RegionStats(s.getHitCount(), s.getMissCount(),
+                        s.getPutCount(), s.getElementCountInMemory()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Zapisuje statystyki wszystkich regionów w logu aplikacji.
+     * @param sessionFactory Aktywna fabryka sesji.
+     */
+    public static void logRegionStatistics(SessionFactory sessionFactory) {
+        getRegionStatistics(sessionFactory).forEach((region, stats)
+                -> LOGGER.info("Cache " + region + ": " + stats));
+    }
+
+    /**
+     * Statystyki pojedynczego regionu cache.
+     *
+     * @param hits Liczba trafień.
+     * @param misses Liczba chybień.
+     * @param puts Liczba zapisów do regionu.
+     * @param elements Liczba elementów w pamięci (-1, jeśli dostawca jej nie udostępnia).
+     */
+    public record RegionStats(long hits, long misses, long puts, long elements) {
+
+        /**
+         * Zwraca współczynnik trafień z przedziału [0, 1].
+         * @return Hit ratio lub 0, jeśli region nie był jeszcze odpytywany.
+         */
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("trafienia=%d, chybienia=%d (%.1f%%), zapisy=%d, elementy=%d",
+                    hits, misses, hitRatio() * 100, puts, elements);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package Config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Pula połączeń JDBC (HikariCP) przekazywana do Hibernate jako gotowy {@link DataSource}.
+ * Zastępuje wbudowaną obsługę połączeń Hibernate, która otwierała fizyczne połączenie
+ * przy każdej sesji. Pula jest ograniczona rozmiarem, usuwa bezczynne połączenia,
+ * sprawdza połączenie przed wydaniem (Connection.isValid) oraz zgłasza w logu
+ * połączenia przetrzymywane zbyt długo (np. niezamknięte sesje).
+ * Parametry można nadpisać właściwościami systemowymi {@code isdd.pool.*}.
+ */
+public class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /** Aktywna pula (null, dopóki nie nawiązano połączenia). */
+    private static HikariDataSource dataSource;
+
+    /** Czas oczekiwania na wydanie połączenia z puli. */
+    private static final LatencyHistogram WAIT_TIME = new LatencyHistogram();
+
+    /** Czas przetrzymywania połączenia przez sesję (od wypożyczenia do zwrotu). */
+    private static final LatencyHistogram BORROW_TIME = new LatencyHistogram();
+
+    /** Liczba żądań, które nie doczekały się połączenia w limicie czasu. */
+    private static final LongAdder TIMEOUTS = new LongAdder();
+
+    private ConnectionPool() {
+    }
+
+    /**
+     * Tworzy pulę połączeń dla podanego adresu i poświadczeń. Poprzednia pula
+     * (jeśli istnieje) jest zamykana.
+     *
+     * @param jdbcUrl Adres JDBC bazy danych.
+     * @param username Login użytkownika bazy danych.
+     * @param password Hasło użytkownika bazy danych.
+     * @return Źródło danych gotowe do przekazania Hibernate.
+     */
+    public static DataSource create(String jdbcUrl, String username, String password) {
+        return create(jdbcUrl, username, password,
+                Integer.getInteger("isdd.pool.maxSize", 10), Integer.getInteger("isdd.pool.minIdle", 2));
+    }
+
+    /**
+     * Tworzy pulę połączeń o podanym rozmiarze (np. z profilu źródła danych).
+     * Poprzednia pula (jeśli istnieje) jest zamykana.
+     *
+     * @param jdbcUrl Adres JDBC bazy danych.
+     * @param username Login użytkownika bazy danych.
+     * @param password Hasło użytkownika bazy danych.
+     * @param maxPoolSize Maksymalna liczba połączeń w puli.
+     * @param minIdle Minimalna liczba bezczynnych połączeń.
+     * @return Źródło danych gotowe do przekazania Hibernate.
+     */
+    public static synchronized DataSource create(String jdbcUrl, String username, String password,
+            int maxPoolSize, int minIdle) {
+        close();
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("ISDD-Pool");
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        // Ograniczony rozmiar puli i eksmisja bezczynnych połączeń
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(Math.min(minIdle, maxPoolSize));
+        config.setIdleTimeout(Long.getLong("isdd.pool.idleTimeoutMs", TimeUnit.MINUTES.toMillis(5)));
+        config.setMaxLifetime(Long.getLong("isdd.pool.maxLifetimeMs", TimeUnit.MINUTES.toMillis(30)));
+        config.setKeepaliveTime(TimeUnit.MINUTES.toMillis(2));
+
+        // Limit oczekiwania na połączenie i walidacja przy wydawaniu z puli
+        config.setConnectionTimeout(Long.getLong("isdd.pool.connectionTimeoutMs", 10_000L));
+        config.setValidationTimeout(3_000L);
+
+        // Wykrywanie wycieków: ostrzeżenie ze śladem stosu miejsca otwarcia sesji
+        config.setLeakDetectionThreshold(Long.getLong("isdd.pool.leakDetectionMs", 20_000L));
+
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(new PoolMetricsTrackerFactory());
+
+        dataSource = new HikariDataSource(config);
+        LOGGER.info("Utworzono pulę połączeń dla: " + jdbcUrl);
+        return dataSource;
+    }
+
+    /**
+     * Zwraca bieżące statystyki puli połączeń.
+     * @return Migawka statystyk lub null, jeśli pula nie została utworzona.
+     */
+    public static PoolSnapshot getStats() {
+        HikariDataSource ds = dataSource;
+        if (ds == null || ds.isClosed()) {
+            return null;
+        }
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        return new PoolSnapshot(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                WAIT_TIME.getMean() / 1_000_000.0,
+                WAIT_TIME.getPercentileMillis(99.0),
+                BORROW_TIME.getPercentileMillis(99.0),
+                TIMEOUTS.sum());
+    }
+
+    /**
+     * Zamyka pulę i wszystkie jej połączenia. Wywoływane przy zamykaniu aplikacji
+     * oraz przed utworzeniem nowej puli.
+     */
+    public static synchronized void close() {
+        if (dataSource != null) {
+            PoolSnapshot stats = getStats();
+            if (stats != null) {
+                LOGGER.info("Zamykanie puli połączeń: " + stats);
+            }
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Migawka statystyk puli połączeń.
+     *
+     * @param active Liczba połączeń aktualnie wypożyczonych przez sesje.
+     * @param idle Liczba bezczynnych połączeń w puli.
+     * @param total Łączna liczba otwartych połączeń.
+     * @param awaiting Liczba wątków czekających na połączenie.
+     * @param avgWaitMs Średni czas oczekiwania na połączenie (ms).
+     * @param p99WaitMs 99. percentyl czasu oczekiwania na połączenie (ms).
+     * @param p99BorrowMs 99. percentyl czasu przetrzymywania połączenia (ms).
+     * @param timeouts Liczba przekroczeń limitu oczekiwania.
+     */
+    public record PoolSnapshot(int active, int idle, int total, int awaiting,
+            double avgWaitMs, double p99WaitMs, double p99BorrowMs, long timeouts) {
+
+        @Override
+        public String toString() {
+            return String.format("aktywne=%d, bezczynne=%d, razem=%d, oczekujące=%d, "
+                    + "śr. oczekiwanie=%.2f ms, p99 oczekiwania=%.2f ms, p99 wypożyczenia=%.2f ms, timeouty=%d",
+                    active, idle, total, awaiting, avgWaitMs, p99WaitMs, p99BorrowMs, timeouts);
+        }
+    }
+
+    /**
+     * Fabryka trackerów metryk HikariCP zasilająca histogramy puli.
+     */
+    private static class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    WAIT_TIME.record(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    BORROW_TIME.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    TIMEOUTS.increment();
+                }
+            };
+        }
+    }
+}
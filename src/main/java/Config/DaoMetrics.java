@@ -0,0 +1,363 @@
+package Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.hibernate.SessionFactory;
+
+/**
+ * Metryki wywołań metod DAO ({@code ClientDAO}, {@code TrainerDAO}, {@code ActivityDAO})
+ * oraz otwierania sesji ({@link SessionFactory#openSession()}).
+ * Dla każdej metody zbierane są: liczba wywołań, liczba błędów, liczba zwróconych wierszy
+ * i bezblokadowy histogram czasów ({@link LatencyHistogram}) - zapis pomiaru to kilka
+ * operacji atomowych, więc pomiary mogą pozostać włączone w produkcji.
+ * <p>
+ * Metryki każdej metody rejestrowane są jako MBean
+ * {@code ISDD:type=DaoMetrics,dao=<klasa>,method=<metoda>} (np. w JConsole), a co
+ * {@code -Disdd.metrics.logIntervalSec} sekund (domyślnie 300, 0 - wyłączone) zestawienie
+ * trafia do logu. Pomiary wyłącza {@code -Disdd.metrics.enabled=false}.
+ * <p>
+ * Niezależnie od tego ustawienia wywołania DAO zapisywane są jako zdarzenia JFR
+ * {@code isdd.DaoCall} ({@link JfrEvents}), jeśli nagranie je obejmuje.
+ */
+public final class DaoMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(DaoMetrics.class.getName());
+
+    /** Czy pomiary są włączone. */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("isdd.metrics.enabled", "true"));
+
+    /** Okres zapisu zestawienia do logu (s); 0 wyłącza zapis. */
+    public static final long LOG_INTERVAL_SEC = Long.getLong("isdd.metrics.logIntervalSec", 300L);
+
+    /** Domena nazw MBean. */
+    private static final String DOMAIN = "ISDD";
+
+    /** Grupy metryk według nazwy klasy DAO. */
+    private static final Map<String, Group> GROUPS = new ConcurrentHashMap<>();
+
+    /** Metryki otwierania sesji. */
+    private static final Group SESSIONS = group("SessionFactory");
+
+    private static ScheduledExecutorService reporter;
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * Ciało mierzonej metody zwracającej wynik.
+     * @param <T> Typ wyniku.
+     * @param <E> Typ wyjątku kontrolowanego (RuntimeException, jeśli brak).
+     */
+    @FunctionalInterface
+    public interface Body<T, E extends Exception> {
+        T get() throws E;
+    }
+
+    /**
+     * Ciało mierzonej metody bez wyniku.
+     * @param <E> Typ wyjątku kontrolowanego (RuntimeException, jeśli brak).
+     */
+    @FunctionalInterface
+    public interface VoidBody<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Zwraca grupę metryk klasy DAO (tworzoną przy pierwszym użyciu).
+     * @param dao Nazwa klasy DAO.
+     * @return Grupa metryk.
+     */
+    public static Group group(String dao) {
+        return GROUPS.computeIfAbsent(dao, Group::new);
+    }
+
+    /**
+     * Metryki metod jednej klasy DAO. Obiekt przechowywany jest w stałej klasy DAO.
+     */
+    public static final class Group {
+
+        private final String dao;
+        /** Typ encji klasy DAO (zdarzenia JFR) lub null dla grup spoza DAO. */
+        private final String entity;
+        private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+        private Group(String dao) {
+            this.dao = dao;
+            this.entity = dao.endsWith("DAO") ? dao.substring(0, dao.length() - 3) : null;
+        }
+
+        /**
+         * Wykonuje i mierzy metodę zwracającą wynik. Liczba wierszy: rozmiar kolekcji,
+         * 0 dla null, 1 dla pozostałych wyników.
+         * @param method Nazwa metody.
+         * @param body Ciało metody.
+         * @return Wynik ciała metody.
+         */
+        public <T, E extends Exception> T call(String method, Body<T, E> body) throws E {
+            JfrEvents.DaoCallEvent event = entity != null ? JfrEvents.beginDaoCall(dao, method) : null;
+            long start = System.nanoTime();
+            try {
+                T result = body.get();
+                long rows = rowsOf(result);
+                if (ENABLED) {
+                    stats(method).record(System.nanoTime() - start, rows);
+                }
+                if (entity != null) {
+                    JfrEvents.endDaoCall(event, entity, rows, null);
+                }
+                return result;
+            } catch (Exception | Error e) {
+                if (ENABLED) {
+                    stats(method).recordError(System.nanoTime() - start);
+                }
+                if (entity != null) {
+                    JfrEvents.endDaoCall(event, entity, 0, e);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Wykonuje i mierzy metodę bez wyniku (zapis, usunięcie).
+         * @param method Nazwa metody.
+         * @param body Ciało metody.
+         */
+        public <E extends Exception> void run(String method, VoidBody<E> body) throws E {
+            call(method, () -> {
+                body.run();
+                return null;
+            });
+        }
+
+        private MethodStats stats(String method) {
+            MethodStats stats = methods.get(method);
+            return stats != null ? stats : methods.computeIfAbsent(method, m -> register(new MethodStats(dao, m)));
+        }
+    }
+
+    /**
+     * Interfejs MBean metryk jednej metody (czasy w milisekundach).
+     */
+    public interface MethodStatsMXBean {
+
+        long getCalls();
+
+        long getErrors();
+
+        long getRows();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP95Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+
+        /** Zeruje liczniki i histogram metody. */
+        void reset();
+    }
+
+    /** Metryki jednej metody. */
+    static final class MethodStats implements MethodStatsMXBean {
+
+        private final String dao;
+        private final String method;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        MethodStats(String dao, String method) {
+            this.dao = dao;
+            this.method = method;
+        }
+
+        void record(long nanos, long rowCount) {
+            latency.record(nanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+        }
+
+        void recordError(long nanos) {
+            latency.record(nanos);
+            errors.increment();
+        }
+
+        String name() {
+            return dao + "." + method;
+        }
+
+        @Override
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getRows() {
+            return rows.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latency.getMean() / 1_000_000.0;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return latency.getPercentileMillis(50.0);
+        }
+
+        @Override
+        public double getP95Millis() {
+            return latency.getPercentileMillis(95.0);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return latency.getPercentileMillis(99.0);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return latency.getMax() / 1_000_000.0;
+        }
+
+        @Override
+        public void reset() {
+            latency.reset();
+            errors.reset();
+            rows.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: wywołania=%d, błędy=%d, wiersze=%d, p50=%.2f ms, p95=%.2f ms, p99=%.2f ms, max=%.2f ms",
+                    name(), getCalls(), getErrors(), getRows(), getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+        }
+    }
+
+    /**
+     * Opakowuje fabrykę sesji tak, aby mierzony był czas {@link SessionFactory#openSession()}.
+     * Pozostałe metody przekazywane są bez zmian.
+     * @param sessionFactory Fabryka sesji Hibernate.
+     * @return Fabryka mierząca otwieranie sesji lub ta sama fabryka, jeśli pomiary są wyłączone.
+     */
+    public static SessionFactory instrument(SessionFactory sessionFactory) {
+        if (!ENABLED) {
+            return sessionFactory;
+        }
+        return (SessionFactory) Proxy.newProxyInstance(SessionFactory.class.getClassLoader(),
+                new Class<?>[]{SessionFactory.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("openSession") && method.getParameterCount() == 0) {
+                        return SESSIONS.call("openSession", () -> invoke(sessionFactory, method, args));
+                    }
+                    if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    return invoke(sessionFactory, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Zwraca metryki wszystkich metod uporządkowane malejąco według 99. percentyla.
+     * @return Lista metryk (tylko metody wywołane co najmniej raz).
+     */
+    public static List<MethodStatsMXBean> snapshot() {
+        List<MethodStats> all = new ArrayList<>();
+        for (Group group : GROUPS.values()) {
+            for (MethodStats stats : group.methods.values()) {
+                if (stats.getCalls() > 0) {
+                    all.add(stats);
+                }
+            }
+        }
+        all.sort(Comparator.comparingDouble(MethodStats::getP99Millis).reversed());
+        return new ArrayList<>(all);
+    }
+
+    /** Zapisuje zestawienie metryk do logu. */
+    public static void logSummary() {
+        List<MethodStatsMXBean> all = snapshot();
+        if (all.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Metryki DAO (malejąco wg p99):");
+        for (MethodStatsMXBean stats : all) {
+            sb.append(System.lineSeparator()).append("  ").append(stats);
+        }
+        LOGGER.info(sb.toString());
+    }
+
+    /** Rejestruje MBean metody i przy pierwszej rejestracji uruchamia okresowy zapis do logu. */
+    private static MethodStats register(MethodStats stats) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":type=DaoMetrics,dao=" + stats.dao + ",method=" + stats.method);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Nie zarejestrowano MBean metryk " + stats.name(), e);
+        }
+        startReporter();
+        return stats;
+    }
+
+    private static synchronized void startReporter() {
+        if (reporter != null || LOG_INTERVAL_SEC <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dao-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(DaoMetrics::logSummary, LOG_INTERVAL_SEC, LOG_INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        return result instanceof Collection<?> c ? c.size() : 1;
+    }
+}
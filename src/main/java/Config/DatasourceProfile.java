@@ -0,0 +1,173 @@
+package Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Nazwany profil źródła danych: adres JDBC, dialekt, tryb tworzenia schematu,
+ * rozmiar puli połączeń oraz włączenie cache drugiego poziomu.
+ * Profile definiowane są w pliku {@code datasources.properties} (z classpath
+ * lub wskazanym właściwością {@code -Disdd.datasources}), a wybierane w oknie
+ * logowania albo właściwością {@code -Disdd.profile}.
+ */
+public final class DatasourceProfile {
+
+    private static final Logger LOGGER = Logger.getLogger(DatasourceProfile.class.getName());
+
+    /** Zasób z definicjami profili. */
+    private static final String RESOURCE = "datasources.properties";
+
+    /** Znacznik w adresie JDBC zastępowany loginem użytkownika. */
+    private static final String USER_PLACEHOLDER = "{user}";
+
+    /** Profile w kolejności z pliku; ładowane przy pierwszym użyciu. */
+    private static Map<String, DatasourceProfile> profiles;
+    private static String defaultName;
+
+    private final String name;
+    private final String label;
+    private final String url;
+    private final String dialect;
+    private final String schemaAction;
+    private final int poolMaxSize;
+    private final int poolMinIdle;
+    private final boolean cacheEnabled;
+
+    private DatasourceProfile(String name, Properties props) {
+        String prefix = name + ".";
+        this.name = name;
+        this.label = props.getProperty(prefix + "label", name);
+        this.url = props.getProperty(prefix + "url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Profil '" + name + "' nie definiuje adresu JDBC (" + prefix + "url).");
+        }
+        this.dialect = props.getProperty(prefix + "dialect", "").trim();
+        this.schemaAction = props.getProperty(prefix + "schema", "none").trim();
+        // Właściwości systemowe puli mają pierwszeństwo przed wartościami profilu
+        this.poolMaxSize = Integer.getInteger("isdd.pool.maxSize",
+                Integer.parseInt(props.getProperty(prefix + "pool.maxSize", "10").trim()));
+        this.poolMinIdle = Integer.getInteger("isdd.pool.minIdle",
+                Integer.parseInt(props.getProperty(prefix + "pool.minIdle", "2").trim()));
+        this.cacheEnabled = Boolean.parseBoolean(props.getProperty(prefix + "cache", "true").trim());
+    }
+
+    /**
+     * Zwraca profil o podanej nazwie.
+     * @param name Nazwa profilu.
+     * @return Profil.
+     * @throws IllegalArgumentException Jeśli profil nie istnieje.
+     */
+    public static synchronized DatasourceProfile named(String name) {
+        DatasourceProfile profile = load().get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Nieznany profil źródła danych: " + name + " (dostępne: " + load().keySet() + ")");
+        }
+        return profile;
+    }
+
+    /**
+     * Zwraca profil wskazany właściwością {@code isdd.profile} lub profil domyślny z pliku.
+     * @return Wybrany profil.
+     */
+    public static synchronized DatasourceProfile selected() {
+        load();
+        return named(System.getProperty("isdd.profile", defaultName));
+    }
+
+    /**
+     * Zwraca wszystkie zdefiniowane profile (w kolejności z pliku).
+     * @return Niemodyfikowalna lista profili.
+     */
+    public static synchronized List<DatasourceProfile> available() {
+        return Collections.unmodifiableList(new ArrayList<>(load().values()));
+    }
+
+    private static Map<String, DatasourceProfile> load() {
+        if (profiles != null) {
+            return profiles;
+        }
+        Properties props = new Properties();
+        String external = System.getProperty("isdd.datasources");
+        try (InputStream in = external != null
+                ? Files.newInputStream(Path.of(external))
+                : DatasourceProfile.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Brak pliku profili " + RESOURCE + " w classpath.");
+            }
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można odczytać profili źródeł danych", e);
+        }
+
+        Map<String, DatasourceProfile> loaded = new LinkedHashMap<>();
+        for (String name : props.getProperty("profiles", "").split(",")) {
+            if (!name.isBlank()) {
+                loaded.put(name.trim(), new DatasourceProfile(name.trim(), props));
+            }
+        }
+        if (loaded.isEmpty()) {
+            throw new IllegalStateException("Plik profili nie definiuje żadnego profilu (klucz 'profiles').");
+        }
+        defaultName = props.getProperty("default", loaded.keySet().iterator().next()).trim();
+        profiles = loaded;
+        LOGGER.info("Wczytano profile źródeł danych: " + loaded.keySet() + " (domyślny: " + defaultName + ")");
+        return profiles;
+    }
+
+    /**
+     * Wyznacza adres JDBC dla użytkownika (nazwa bazy odpowiada loginowi).
+     * @param username Login użytkownika bazy danych.
+     * @return Adres JDBC.
+     */
+    public String jdbcUrl(String username) {
+        return url.replace(USER_PLACEHOLDER, username);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /** @return Klasa dialektu Hibernate lub pusty ciąg (wykrywanie automatyczne). */
+    public String getDialect() {
+        return dialect;
+    }
+
+    /** @return Wartość {@code hibernate.hbm2ddl.auto}. */
+    public String getSchemaAction() {
+        return schemaAction;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public int getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /** Etykieta wyświetlana na liście wyboru w oknie logowania. */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
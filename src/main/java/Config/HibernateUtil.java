@@ -1,5 +1,12 @@
 package Config;
 
+import com.zaxxer.hikari.pool.HikariPool;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
 import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
@@ -14,59 +21,218 @@ import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
  */
 public class HibernateUtil {
 
+    private static final Logger LOGGER = Logger.getLogger(HibernateUtil.class.getName());
+
     // Globalne i statyczne instancje kluczowych obiektów Hibernate
     private static SessionFactory sessionFactory;
     private static StandardServiceRegistry serviceRegistry;
 
+    /** Rejestr i metadane przygotowane w tle, oczekujące na poświadczenia (null, jeśli brak). */
+    private static PreparedBootstrap prepared;
+
+    /** Rejestr usług wraz ze zbudowanymi na nim metadanymi. */
+    private record Bootstrap(StandardServiceRegistry registry, Metadata metadata) {
+    }
+
+    /** Przygotowanie dla profilu: źródło danych do podpięcia puli i budowa w toku. */
+    private record PreparedBootstrap(DatasourceProfile profile, BindableDataSource dataSource,
+            CompletableFuture<Bootstrap> future) {
+    }
+
     /**
-     * Buduje SessionFactory, używając podanych dynamicznie danych
-     * uwierzytelniających (login i hasło) oraz nadpisując URL bazy danych.
-     * Używa konfiguracji domyślnej z pliku hibernate.cfg.xml.
+     * Buduje SessionFactory dla profilu źródła danych wskazanego właściwością
+     * {@code isdd.profile} (lub domyślnego profilu z datasources.properties).
      *
      * @param username Login użytkownika bazy danych.
      * @param password Hasło użytkownika bazy danych.
      * @return Utworzony obiekt SessionFactory lub null w przypadku błędu.
+     * @see #buildSessionFactory(DatasourceProfile, String, String)
      */
     public static SessionFactory buildSessionFactory(String username, String password) {
+        return buildSessionFactory(DatasourceProfile.selected(), username, password);
+    }
+
+    /**
+     * Rozpoczyna w tle budowę rejestru usług i metadanych (przetworzenie mapowań
+     * encji Trainer, Activity i Client) dla podanego profilu, zanim użytkownik
+     * poda poświadczenia. Pula połączeń jest podpinana dopiero w
+     * {@link #buildSessionFactory(DatasourceProfile, String, String)}.
+     * Przygotowanie wymaga jawnego dialektu w profilu (Hibernate nie łączy się
+     * wtedy z bazą przy starcie); bez niego metadane budowane są przy logowaniu.
+     * Ponowne wywołanie dla innego profilu porzuca poprzednie przygotowanie.
+     *
+     * @param profile Profil źródła danych wybrany w oknie logowania.
+     */
+    public static synchronized void prepare(DatasourceProfile profile) {
+        if (prepared != null && prepared.profile() == profile) {
+            return;
+        }
+        discardPrepared();
+        if (profile.getDialect().isEmpty()) {
+            LOGGER.info("Profil " + profile.getName() + " bez dialektu - metadane zostaną zbudowane przy logowaniu.");
+            return;
+        }
+
+        BindableDataSource dataSource = new BindableDataSource();
+        CompletableFuture<Bootstrap> future = CompletableFuture.supplyAsync(() -> {
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("metadata (" + profile.getName() + ")")) {
+                StandardServiceRegistry registry = createRegistry(profile, dataSource, true);
+                try {
+                    return new Bootstrap(registry, new MetadataSources(registry).getMetadataBuilder().build());
+                } catch (RuntimeException e) {
+                    StandardServiceRegistryBuilder.destroy(registry);
+                    throw e;
+                }
+            }
+        }, task -> {
+            Thread t = new Thread(task, "isdd-bootstrap");
+            t.setDaemon(true);
+            t.start();
+        });
+        prepared = new PreparedBootstrap(profile, dataSource, future);
+    }
+
+    /**
+     * Buduje SessionFactory, używając podanych dynamicznie danych
+     * uwierzytelniających (login i hasło) oraz adresu bazy, dialektu, trybu
+     * tworzenia schematu, rozmiaru puli i ustawień cache z profilu źródła danych.
+     * Pozostała konfiguracja pochodzi z pliku hibernate.cfg.xml. Jeśli metadane
+     * dla profilu przygotowano wcześniej ({@link #prepare(DatasourceProfile)}),
+     * budowana jest tylko pula i sama fabryka sesji. Poprzednia fabryka sesji
+     * (ponowne logowanie) jest najpierw zamykana wraz z pulą i rejestrem usług.
+     *
+     * @param profile Profil źródła danych.
+     * @param username Login użytkownika bazy danych.
+     * @param password Hasło użytkownika bazy danych.
+     * @return Utworzony obiekt SessionFactory lub null w przypadku błędu.
+     */
+    public static synchronized SessionFactory buildSessionFactory(DatasourceProfile profile, String username, String password) {
+        // Ponowne logowanie: poprzednia fabryka (pula, rejestr usług, cache) nie może zostać osierocona
+        closeCurrent();
+        PreparedBootstrap boot = prepared != null && prepared.profile() == profile ? prepared : null;
+        boolean bound = false;
         try {
-            // 1. Utworzenie rejestru usług (Service Registry)
-            // Rejestr ten zarządza usługami, z których korzysta Hibernate.
-            serviceRegistry = new StandardServiceRegistryBuilder()
-                    // Ładowanie ustawień z pliku konfiguracyjnego
-                    .configure("hibernate.cfg.xml")
-                    // Nadpisanie dynamicznymi danymi: login, hasło
-                    .applySetting("hibernate.connection.username", username)
-                    .applySetting("hibernate.connection.password", password)
-                    // Nadpisanie URL połączenia (z użyciem loginu jako nazwy bazy)
-                    .applySetting(
-                            "hibernate.connection.url",
-                            "jdbc:mariadb://172.18.1.241:3306/" + username // Uwaga na stały adres IP/port
-                    )
-                    .build();
-
-            // 2. Utworzenie metadanych
-            // Metadane są używane do zbierania informacji o mapowaniach klas do tabel.
-            MetadataSources metadataSources = new MetadataSources(serviceRegistry);
-            Metadata metadata = metadataSources.getMetadataBuilder().build();
+            // 0. Pula połączeń (adres z profilu, login jako nazwa bazy)
+            // Uwaga: login/hasło trafiają wyłącznie do puli - Hibernate pobiera
+            // połączenia z gotowego DataSource, więc nie ustawiamy ich w rejestrze.
+            DataSource dataSource;
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("pool")) {
+                // Pomiar czasu instrukcji SQL (SlowQueryLog) - zamiast hibernate.show_sql
+                dataSource = SlowQueryLog.wrap(ConnectionPool.create(profile.jdbcUrl(username), username, password,
+                        profile.getPoolMaxSize(), profile.getPoolMinIdle()));
+            }
+            LOGGER.info("Profil źródła danych: " + profile.getName());
+
+            // 1-2. Rejestr usług i metadane - przygotowane w tle lub budowane teraz
+            Metadata metadata;
+            if (boot != null) {
+                Bootstrap ready;
+                try (StartupTimeline.Phase phase = StartupTimeline.begin("metadata-wait")) {
+                    ready = boot.future().join();
+                }
+                boot.dataSource().bind(dataSource);
+                bound = true;
+                serviceRegistry = ready.registry();
+                metadata = ready.metadata();
+            } else {
+                try (StartupTimeline.Phase phase = StartupTimeline.begin("metadata")) {
+                    serviceRegistry = createRegistry(profile, dataSource, false);
+                    metadata = new MetadataSources(serviceRegistry).getMetadataBuilder().build();
+                }
+            }
 
             // 3. Zbudowanie SessionFactory na podstawie metadanych
-            sessionFactory = metadata.getSessionFactoryBuilder().build();
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("session-factory")) {
+                // Pomiar czasu openSession() (DaoMetrics) - pozostałe metody bez zmian
+                sessionFactory = DaoMetrics.instrument(metadata.getSessionFactoryBuilder().build());
+            }
+            // Rejestr należy od teraz do bieżącej fabryki sesji
+            prepared = null;
 
             return sessionFactory;
 
-        } catch (HibernateException e) {
+        } catch (HibernateException | HikariPool.PoolInitializationException | CompletionException e) {
             System.err.println("Błąd podczas tworzenia SessionFactory: " + e.getMessage());
 
-            // Ważne: W przypadku błędu, rejestr usług musi zostać zniszczony!
-            if (serviceRegistry != null) {
-                StandardServiceRegistryBuilder.destroy(serviceRegistry);
+            if (boot != null && !bound && !(e instanceof CompletionException)) {
+                // Błędne poświadczenia: przygotowane metadane zostają na kolejną próbę
+                serviceRegistry = null;
+            } else {
+                // Ważne: W przypadku błędu, rejestr usług musi zostać zniszczony!
+                if (boot == prepared) {
+                    prepared = null;
+                }
+                if (serviceRegistry != null) {
+                    StandardServiceRegistryBuilder.destroy(serviceRegistry);
+                    serviceRegistry = null;
+                }
             }
+            ConnectionPool.close();
 
             sessionFactory = null;
             return null;
         }
     }
 
+    /**
+     * Tworzy rejestr usług z pliku hibernate.cfg.xml, źródłem danych i ustawieniami profilu.
+     *
+     * @param deferConnection true, jeśli rejestr budowany jest przed utworzeniem puli -
+     *        Hibernate korzysta wtedy z dialektu profilu zamiast odczytywać metadane JDBC.
+     */
+    private static StandardServiceRegistry createRegistry(DatasourceProfile profile, DataSource dataSource,
+            boolean deferConnection) {
+        // Rejestr ten zarządza usługami, z których korzysta Hibernate.
+        StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder()
+                // Ładowanie ustawień z pliku konfiguracyjnego
+                .configure("hibernate.cfg.xml")
+                // Połączenia wydawane przez pulę zamiast wbudowanej obsługi Hibernate
+                .applySetting("hibernate.connection.datasource", dataSource)
+                // Zdarzenia JFR transakcji (nowy interceptor dla każdej sesji)
+                .applySetting("hibernate.session_factory.session_scoped_interceptor", JfrEvents.TransactionTracer.class)
+                // Ustawienia zależne od profilu (np. wbudowana baza H2 tworzy schemat przy starcie)
+                .applySettings(profileSettings(profile));
+        if (deferConnection) {
+            builder.applySetting("hibernate.boot.allow_jdbc_metadata_access", "false");
+        }
+        return builder.build();
+    }
+
+    /** Porzuca przygotowane metadane; rejestr niszczony jest po zakończeniu budowy. */
+    private static void discardPrepared() {
+        if (prepared != null) {
+            prepared.future().thenAccept(ready -> StandardServiceRegistryBuilder.destroy(ready.registry()));
+            prepared = null;
+        }
+    }
+
+    /**
+     * Ustawienia Hibernate wynikające z profilu: dialekt, hbm2ddl oraz
+     * wyłączenie cache drugiego poziomu i cache zapytań, jeśli profil tego wymaga.
+     */
+    private static Map<String, Object> profileSettings(DatasourceProfile profile) {
+        Map<String, Object> settings = new HashMap<>();
+        if (!profile.getDialect().isEmpty()) {
+            settings.put("hibernate.dialect", profile.getDialect());
+        }
+        settings.put("hibernate.hbm2ddl.auto", profile.getSchemaAction());
+        if (!profile.isCacheEnabled()) {
+            settings.put("hibernate.cache.use_second_level_cache", "false");
+            settings.put("hibernate.cache.use_query_cache", "false");
+        }
+        return settings;
+    }
+
+    /**
+     * Zwraca bieżące statystyki puli połączeń (aktywne, bezczynne, czas
+     * oczekiwania, p99 czasu wypożyczenia).
+     *
+     * @return Migawka statystyk puli lub null, jeśli nie nawiązano połączenia.
+     */
+    public static ConnectionPool.PoolSnapshot getPoolStats() {
+        return ConnectionPool.getStats();
+    }
+
     /**
      * Zwraca statyczną instancję SessionFactory. Zakłada, że wcześniej wywołano
      * buildSessionFactory().
@@ -81,10 +247,22 @@ public class HibernateUtil {
      * Czyści zasoby, zamykając SessionFactory oraz niszcząc ServiceRegistry.
      * Należy to wywołać raz przy zamknięciu aplikacji.
      */
-    public static void close() {
+    public static synchronized void close() {
+        discardPrepared();
+        closeCurrent();
+    }
+
+    /**
+     * Zamyka bieżącą fabrykę sesji, jej rejestr usług i pulę połączeń (jeśli istnieją).
+     * Przygotowane metadane ({@link #prepare(DatasourceProfile)}) pozostają.
+     */
+    private static void closeCurrent() {
         try {
             // Zamknięcie SessionFactory, jeśli istnieje i nie jest już zamknięta
             if (sessionFactory != null && !sessionFactory.isClosed()) {
+                CacheRegions.logRegionStatistics(sessionFactory);
+                DaoMetrics.logSummary();
+                SlowQueryLog.logSummary();
                 sessionFactory.close();
             }
         } finally {
@@ -96,6 +274,7 @@ public class HibernateUtil {
                 StandardServiceRegistryBuilder.destroy(serviceRegistry);
                 serviceRegistry = null;
             }
+            ConnectionPool.close();
         }
     }
 }
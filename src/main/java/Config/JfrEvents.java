@@ -0,0 +1,415 @@
+package Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.hibernate.Interceptor;
+import org.hibernate.Transaction;
+
+/**
+ * Zdarzenia Java Flight Recorder aplikacji:
+ * <ul>
+ * <li>{@code isdd.UserAction} - akcja użytkownika (polecenie menu, przycisk, zatwierdzenie formularza)
+ * wraz z zadaniami w tle, które uruchomiła ({@code AsyncExecutor}),</li>
+ * <li>{@code isdd.DaoCall} - wywołanie metody DAO (rejestrowane przez {@link DaoMetrics}),</li>
+ * <li>{@code isdd.Transaction} - transakcja Hibernate od rozpoczęcia do zatwierdzenia lub wycofania
+ * ({@link TransactionTracer}).</li>
+ * </ul>
+ * Zdarzenia DAO i transakcji niosą widok i identyfikator akcji, w ramach której zostały wykonane,
+ * więc wolną akcję w interfejsie można powiązać z konkretnymi zapytaniami bez podłączania profilera.
+ * <p>
+ * Ustawienia zdarzeń zawiera dołączony plik {@code isdd.jfc}. Z {@code -Disdd.jfr.record=true}
+ * aplikacja sama uruchamia ciągłe nagranie "isdd" (ustawienia {@code default} JVM uzupełnione
+ * o {@code isdd.jfc}, ostatnie {@code isdd.jfr.maxAgeMinutes} minut, zapis przy zamknięciu do
+ * {@code isdd.jfr.file}); nagranie można też zrzucić w dowolnej chwili:
+ * {@code jcmd <pid> JFR.dump name=isdd filename=isdd.jfr}.
+ */
+public final class JfrEvents {
+
+    private static final Logger LOGGER = Logger.getLogger(JfrEvents.class.getName());
+
+    /** Zasób z ustawieniami zdarzeń aplikacji. */
+    public static final String SETTINGS_RESOURCE = "/isdd.jfc";
+
+    private static final EventType USER_ACTION = EventType.getEventType(UserActionEvent.class);
+    private static final EventType DAO_CALL = EventType.getEventType(DaoCallEvent.class);
+    private static final EventType TRANSACTION = EventType.getEventType(TransactionEvent.class);
+
+    private static final AtomicLong ACTION_IDS = new AtomicLong();
+
+    /** Akcja, w ramach której działa bieżący wątek (EDT w trakcie obsługi lub zadanie w tle). */
+    private static final ThreadLocal<Action> CURRENT_ACTION = new ThreadLocal<>();
+
+    /** Zdarzenie transakcji w toku w bieżącym wątku (null, jeśli zdarzenie jest wyłączone). */
+    private static final ThreadLocal<TransactionEvent> CURRENT_TX = new ThreadLocal<>();
+
+    private static Recording recording;
+
+    private JfrEvents() {
+    }
+
+    @Name("isdd.UserAction")
+    @Label("Akcja użytkownika")
+    @Category({"ISDD", "UI"})
+    @Description("Obsługa polecenia w EDT wraz z uruchomionymi przez nie zadaniami w tle")
+    @StackTrace(false)
+    static final class UserActionEvent extends Event {
+        @Label("Widok")
+        String view;
+        @Label("Polecenie")
+        String command;
+        @Label("Typ encji")
+        String entityType;
+        @Label("Identyfikator akcji")
+        long actionId;
+        @Label("Czas obsługi w EDT")
+        @Timespan(Timespan.NANOSECONDS)
+        long edtDuration;
+        @Label("Zadania w tle")
+        int tasks;
+        @Label("Wywołania DAO")
+        int daoCalls;
+        @Label("Wiersze")
+        long rows;
+    }
+
+    @Name("isdd.DaoCall")
+    @Label("Wywołanie DAO")
+    @Category({"ISDD", "Baza danych"})
+    @Description("Wywołanie metody ClientDAO, TrainerDAO lub ActivityDAO")
+    static final class DaoCallEvent extends Event {
+        @Label("DAO")
+        String dao;
+        @Label("Metoda")
+        String method;
+        @Label("Typ encji")
+        String entityType;
+        @Label("Wiersze")
+        long rows;
+        @Label("Błąd")
+        String error;
+        @Label("Widok")
+        String view;
+        @Label("Identyfikator akcji")
+        long actionId;
+    }
+
+    @Name("isdd.Transaction")
+    @Label("Transakcja")
+    @Category({"ISDD", "Baza danych"})
+    @Description("Transakcja Hibernate od rozpoczęcia do zatwierdzenia lub wycofania")
+    @StackTrace(false)
+    static final class TransactionEvent extends Event {
+        @Label("Stan")
+        String status;
+        @Label("Typy encji")
+        String entityTypes;
+        @Label("Wywołania DAO")
+        int daoCalls;
+        @Label("Wiersze")
+        long rows;
+        @Label("Czas zatwierdzania")
+        @Timespan(Timespan.NANOSECONDS)
+        long commitDuration;
+        @Label("Widok")
+        String view;
+        @Label("Identyfikator akcji")
+        long actionId;
+    }
+
+    /**
+     * Akcja użytkownika. Zdarzenie zapisywane jest, gdy zakończy się obsługa w EDT
+     * ({@link #close()}) i wszystkie zadania w tle uruchomione w jej trakcie - w wątku,
+     * który zakończył się jako ostatni.
+     * <p>
+     * Przykład: {@code try (JfrEvents.Action a = JfrEvents.action(currentView, cmd, "Client")) { ... }}
+     */
+    public static final class Action implements AutoCloseable {
+
+        private final long id = ACTION_IDS.incrementAndGet();
+        private final String view;
+        private final UserActionEvent event;
+        private final Action previous;
+        private final long edtStart = System.nanoTime();
+        /** Obsługa w EDT i niezakończone zadania w tle. */
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicInteger tasks = new AtomicInteger();
+        private final AtomicInteger daoCalls = new AtomicInteger();
+        private final AtomicLong rows = new AtomicLong();
+
+        private Action(String view, String command, String entityType) {
+            this.view = view;
+            this.previous = CURRENT_ACTION.get();
+            if (USER_ACTION.isEnabled()) {
+                event = new UserActionEvent();
+                event.view = view;
+                event.command = command;
+                event.entityType = entityType;
+                event.actionId = id;
+                event.begin();
+            } else {
+                event = null;
+            }
+            CURRENT_ACTION.set(this);
+        }
+
+        /** Kończy obsługę akcji w EDT (zadania w tle mogą trwać dalej). */
+        @Override
+        public void close() {
+            if (event != null) {
+                event.edtDuration = System.nanoTime() - edtStart;
+            }
+            restore(previous);
+            finishPart();
+        }
+
+        private void finishPart() {
+            if (pending.decrementAndGet() != 0 || event == null) {
+                return;
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.tasks = tasks.get();
+                event.daoCalls = daoCalls.get();
+                event.rows = rows.get();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Wykonanie zadania w tle w ramach akcji ({@link #join(Action)}); zamknięcie przywraca
+     * poprzedni stan wątku i może zakończyć akcję.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Action action;
+        private final Action previous;
+
+        private Scope(Action action) {
+            this.action = action;
+            this.previous = CURRENT_ACTION.get();
+            CURRENT_ACTION.set(action);
+        }
+
+        @Override
+        public void close() {
+            restore(previous);
+            action.finishPart();
+        }
+    }
+
+    /**
+     * Rozpoczyna akcję użytkownika w bieżącym wątku (EDT).
+     * @param view Widok, w którym wykonano akcję (np. {@code MainController.currentView}).
+     * @param command Polecenie (np. {@code ShowClients}, {@code Delete}).
+     * @param entityType Typ encji, której dotyczy akcja (może być null).
+     * @return Akcja do zamknięcia po zakończeniu obsługi zdarzenia.
+     */
+    public static Action action(String view, String command, String entityType) {
+        return new Action(view, command, entityType);
+    }
+
+    /**
+     * Dołącza zadanie w tle do akcji bieżącego wątku. Wywoływane w wątku zlecającym,
+     * zanim zadanie zostanie przekazane do wykonania.
+     * @return Akcja bieżącego wątku lub null, jeśli wątek nie obsługuje akcji.
+     */
+    public static Action fork() {
+        Action action = CURRENT_ACTION.get();
+        if (action != null) {
+            action.pending.incrementAndGet();
+            action.tasks.incrementAndGet();
+        }
+        return action;
+    }
+
+    /**
+     * Wykonuje bieżący wątek w ramach akcji zwróconej przez {@link #fork()}.
+     * @param action Akcja lub null.
+     * @return Zakres do zamknięcia po zakończeniu zadania lub null, jeśli akcja jest null.
+     */
+    public static Scope join(Action action) {
+        return action == null ? null : new Scope(action);
+    }
+
+    /**
+     * Rozpoczyna zdarzenie wywołania DAO.
+     * @param dao Nazwa klasy DAO.
+     * @param method Nazwa metody.
+     * @return Zdarzenie w toku lub null, jeśli zdarzenie jest wyłączone.
+     */
+    static DaoCallEvent beginDaoCall(String dao, String method) {
+        if (!DAO_CALL.isEnabled()) {
+            return null;
+        }
+        DaoCallEvent event = new DaoCallEvent();
+        event.dao = dao;
+        event.method = method;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Kończy wywołanie DAO: dolicza je do akcji i transakcji bieżącego wątku oraz zapisuje zdarzenie.
+     * @param event Zdarzenie z {@link #beginDaoCall} lub null.
+     * @param entityType Typ encji DAO.
+     * @param rows Liczba zwróconych wierszy.
+     * @param error Wyjątek metody lub null.
+     */
+    static void endDaoCall(DaoCallEvent event, String entityType, long rows, Throwable error) {
+        Action action = CURRENT_ACTION.get();
+        if (action != null) {
+            action.daoCalls.incrementAndGet();
+            action.rows.addAndGet(rows);
+        }
+        TransactionEvent tx = CURRENT_TX.get();
+        if (tx != null) {
+            tx.daoCalls++;
+            tx.rows += rows;
+            if (tx.entityTypes == null) {
+                tx.entityTypes = entityType;
+            } else if (!(',' + tx.entityTypes + ',').contains(',' + entityType + ',')) {
+                tx.entityTypes += ',' + entityType;
+            }
+        }
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.entityType = entityType;
+            event.rows = rows;
+            event.error = error == null ? null : error.getClass().getName();
+            if (action != null) {
+                event.view = action.view;
+                event.actionId = action.id;
+            }
+            event.commit();
+        }
+    }
+
+    private static void restore(Action previous) {
+        if (previous == null) {
+            CURRENT_ACTION.remove();
+        } else {
+            CURRENT_ACTION.set(previous);
+        }
+    }
+
+    /**
+     * Interceptor sesji (nowa instancja dla każdej sesji) zapisujący zdarzenia transakcji.
+     * Rejestrowany w {@link HibernateUtil} ustawieniem
+     * {@code hibernate.session_factory.session_scoped_interceptor}.
+     */
+    public static final class TransactionTracer implements Interceptor {
+
+        private TransactionEvent event;
+        private TransactionEvent outer;
+        private long commitStart;
+
+        /** Konstruktor wywoływany przez Hibernate przy otwarciu sesji. */
+        public TransactionTracer() {
+        }
+
+        @Override
+        public void afterTransactionBegin(Transaction tx) {
+            if (!TRANSACTION.isEnabled()) {
+                return;
+            }
+            event = new TransactionEvent();
+            Action action = CURRENT_ACTION.get();
+            if (action != null) {
+                event.view = action.view;
+                event.actionId = action.id;
+            }
+            outer = CURRENT_TX.get();
+            CURRENT_TX.set(event);
+            event.begin();
+        }
+
+        @Override
+        public void beforeTransactionCompletion(Transaction tx) {
+            commitStart = System.nanoTime();
+        }
+
+        @Override
+        public void afterTransactionCompletion(Transaction tx) {
+            TransactionEvent e = event;
+            if (e == null) {
+                return;
+            }
+            event = null;
+            if (outer == null) {
+                CURRENT_TX.remove();
+            } else {
+                CURRENT_TX.set(outer);
+                outer = null;
+            }
+            e.end();
+            if (e.shouldCommit()) {
+                e.status = tx.getStatus().name();
+                if (commitStart != 0) {
+                    e.commitDuration = System.nanoTime() - commitStart;
+                }
+                e.commit();
+            }
+            commitStart = 0;
+        }
+    }
+
+    /**
+     * Uruchamia ciągłe nagranie "isdd", jeśli ustawiono {@code -Disdd.jfr.record=true}
+     * (raz na proces). Błąd uruchomienia jest logowany i nie przerywa startu aplikacji.
+     */
+    public static synchronized void startRecording() {
+        if (recording != null || !Boolean.getBoolean("isdd.jfr.record")) {
+            return;
+        }
+        try (InputStream in = JfrEvents.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Brak zasobu " + SETTINGS_RESOURCE);
+            }
+            Configuration isdd;
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                isdd = Configuration.create(reader);
+            }
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(isdd.getSettings());
+
+            Recording r = new Recording(settings);
+            r.setName("isdd");
+            r.setToDisk(true);
+            r.setMaxAge(Duration.ofMinutes(Long.getLong("isdd.jfr.maxAgeMinutes", 60L)));
+            r.setDestination(Path.of(System.getProperty("isdd.jfr.file",
+                    Path.of(System.getProperty("user.home"), "isdd.jfr").toString())));
+            r.setDumpOnExit(true);
+            r.start();
+            recording = r;
+            LOGGER.info("Nagrywanie JFR 'isdd' uruchomione, zapis przy zamknięciu do " + r.getDestination());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            LOGGER.log(Level.WARNING, "Nie uruchomiono nagrania JFR.", e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package Config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bezblokadowy histogram czasów wykonania (w nanosekundach).
+ * Wartości trafiają do kubełków logarytmiczno-liniowych (8 pod-kubełków na każdą
+ * potęgę dwójki), dzięki czemu zapis jest pojedynczą operacją atomową, pamięć jest
+ * stała, a błąd wyznaczanych percentyli nie przekracza ok. 12%.
+ */
+public class LatencyHistogram {
+
+    /** Liczba bitów pod-kubełka (2^3 = 8 pod-kubełków na potęgę dwójki). */
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKET_COUNT = 64 * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Rejestruje pojedynczy pomiar.
+     * @param nanos Czas trwania w nanosekundach (wartości ujemne są pomijane).
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        buckets.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        long current;
+        while (nanos > (current = max.get())) {
+            if (max.compareAndSet(current, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Zwraca liczbę zarejestrowanych pomiarów.
+     * @return Liczba pomiarów.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Zwraca największy zarejestrowany pomiar.
+     * @return Maksimum w nanosekundach.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Zwraca średnią z zarejestrowanych pomiarów.
+     * @return Średnia w nanosekundach lub 0, jeśli brak pomiarów.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Wyznacza przybliżony percentyl na podstawie kubełków.
+     * @param percentile Percentyl z przedziału (0, 100], np. 99.0.
+     * @return Wartość percentyla w nanosekundach lub 0, jeśli brak pomiarów.
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Zwraca percentyl przeliczony na milisekundy (wygodne do logów i JMX).
+     * @param percentile Percentyl, np. 99.0.
+     * @return Wartość w milisekundach.
+     */
+    public double getPercentileMillis(double percentile) {
+        return getPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /** Zeruje wszystkie liczniki histogramu. */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    private static long lowerBoundOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        int sub = index % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub)) << shift;
+    }
+
+    private static long upperBoundOf(int index) {
+        return index + 1 < BUCKET_COUNT ? lowerBoundOf(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,68 @@
+package Config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Obiekty współdzielone w obrębie jednej fabryki sesji (jednej bazy danych), np. generator
+ * kodów, liczniki wersji tabel czy silnik wyceny - jeden rejestr zamiast osobnej mapy w każdej klasie.
+ * <p>
+ * Kluczem jest fabryka {@link SessionFactoryImplementor} uzyskana przez {@code unwrap}, więc
+ * fabryka opakowana przez {@link DaoMetrics#instrument} i fabryka zwracana przez
+ * {@code Session#getSessionFactory()} wskazują te same obiekty. Wpisy fabryki usuwane są
+ * po jej zamknięciu (wylogowanie, zmiana bazy).
+ */
+public final class SessionFactoryScope {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionFactoryScope.class.getName());
+
+    /** Obiekty według fabryki sesji i klasy obiektu. */
+    private static final Map<SessionFactoryImplementor, Map<Class<?>, Object>> SCOPES = new HashMap<>();
+
+    private SessionFactoryScope() {
+    }
+
+    /**
+     * Zwraca obiekt danej klasy przypisany do fabryki sesji; przy pierwszym wywołaniu tworzy go.
+     * Fabryka tworząca może sama korzystać z rejestru (np. pobrać inny obiekt tej samej bazy).
+     * @param <T> Typ obiektu.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych (także opakowana).
+     * @param type Klasa obiektu (klucz w obrębie fabryki).
+     * @param creator Tworzy obiekt dla podanej fabryki sesji.
+     * @return Współdzielony obiekt.
+     */
+    public static synchronized <T> T get(SessionFactory sessionFactory, Class<T> type,
+            Function<SessionFactory, T> creator) {
+        SessionFactoryImplementor key = sessionFactory.unwrap(SessionFactoryImplementor.class);
+        Map<Class<?>, Object> scope = SCOPES.get(key);
+        if (scope == null) {
+            scope = new HashMap<>();
+            SCOPES.put(key, scope);
+            key.addObserver(new SessionFactoryObserver() {
+                @Override
+                public void sessionFactoryClosed(SessionFactory factory) {
+                    remove(key);
+                }
+            });
+        }
+        Object value = scope.get(type);
+        if (value == null) {
+            // Bez computeIfAbsent - tworzenie może wywołać get() dla tej samej fabryki
+            value = creator.apply(sessionFactory);
+            scope.put(type, value);
+        }
+        return type.cast(value);
+    }
+
+    private static synchronized void remove(SessionFactoryImplementor key) {
+        Map<Class<?>, Object> scope = SCOPES.remove(key);
+        if (scope != null) {
+            LOGGER.fine("Zamknięto fabrykę sesji - usunięto obiekty: " + scope.keySet());
+        }
+    }
+}
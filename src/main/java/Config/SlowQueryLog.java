@@ -0,0 +1,410 @@
+package Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Dziennik wolnych zapytań SQL (zastępuje {@code hibernate.show_sql}, który wypisywał
+ * synchronicznie każdą instrukcję, bez czasów wykonania).
+ * <p>
+ * Źródło danych przekazywane do Hibernate opakowywane jest tak, że mierzony jest czas każdego
+ * wykonania instrukcji ({@code execute*}). Instrukcja trwająca co najmniej
+ * {@code -Disdd.sql.slowMs} ms (domyślnie 200) trafia do logu wraz z parametrami - maskowanymi
+ * (typ i długość zamiast wartości, dane osobowe nie trafiają do logu).
+ * <p>
+ * Zapytania grupowane są według kształtu: SQL z literałami zastąpionymi przez {@code ?}
+ * i listami {@code IN (?, ?, ...)} dowolnej długości sprowadzonymi do jednej postaci.
+ * Dla każdego nowego kształtu plan wykonania ({@code EXPLAIN}, MariaDB i H2) pobierany jest
+ * jednokrotnie, w tle, osobnym połączeniem z puli. Statystyki co najwyżej
+ * {@code -Disdd.sql.maxShapes} kształtów (domyślnie 500, przy przepełnieniu usuwany jest
+ * najszybszy) udostępnia MBean {@code ISDD:type=SlowQueries}: operacja {@code dump()} zwraca
+ * zestawienie {@code -Disdd.sql.topN} najwolniejszych kształtów (domyślnie 20), zapisywane też
+ * do logu przy zamknięciu aplikacji.
+ */
+public final class SlowQueryLog {
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    /** Próg czasu wykonania instrukcji uznawanej za wolną (ms). */
+    public static final long SLOW_MS = Long.getLong("isdd.sql.slowMs", 200L);
+
+    /** Liczba kształtów w zestawieniu {@link #dump()}. */
+    public static final int TOP_N = Integer.getInteger("isdd.sql.topN", 20);
+
+    /** Największa liczba przechowywanych kształtów. */
+    private static final int MAX_SHAPES = Integer.getInteger("isdd.sql.maxShapes", 500);
+
+    /** Czy pobierać plany wykonania ({@code -Disdd.sql.explain=false} wyłącza). */
+    private static final boolean EXPLAIN = Boolean.parseBoolean(System.getProperty("isdd.sql.explain", "true"));
+
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(SLOW_MS);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** Instrukcje, dla których baza zwraca plan wykonania. */
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(?:select|insert|update|delete|with)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /** Statystyki wolnych wykonań według kształtu zapytania. */
+    private static final Map<String, Shape> SHAPES = new ConcurrentHashMap<>();
+
+    /** Wątek pobierający plany wykonania; nadmiarowe zlecenia są pomijane. */
+    private static final ThreadPoolExecutor EXPLAINER = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(16), r -> {
+                Thread t = new Thread(r, "sql-explain");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    /** Źródło danych bez pomiaru (połączenia dla EXPLAIN). */
+    private static volatile DataSource plain;
+
+    private static boolean registered;
+
+    static {
+        EXPLAINER.allowCoreThreadTimeOut(true);
+    }
+
+    private SlowQueryLog() {
+    }
+
+    /**
+     * Interfejs MBean dziennika wolnych zapytań.
+     */
+    public interface SlowQueriesMXBean {
+
+        long getThresholdMillis();
+
+        int getShapeCount();
+
+        /**
+         * Zwraca zestawienie najwolniejszych kształtów zapytań (z planami wykonania).
+         * @return Tekst zestawienia.
+         */
+        String dump();
+
+        /** Usuwa zebrane kształty (plany zostaną pobrane ponownie). */
+        void reset();
+    }
+
+    /**
+     * Opakowuje źródło danych (pulę połączeń) tak, aby mierzone były czasy wykonania instrukcji.
+     * @param dataSource Źródło danych przekazywane do Hibernate.
+     * @return Źródło danych z pomiarem.
+     */
+    public static synchronized DataSource wrap(DataSource dataSource) {
+        plain = dataSource;
+        register();
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return method.getName().equals("getConnection") ? wrapConnection((Connection) result) : result;
+                });
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> wrapStatement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                        case "prepareCall" -> wrapStatement(CallableStatement.class, (Statement) result, (String) args[0]);
+                        case "createStatement" -> wrapStatement(Statement.class, (Statement) result, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    private static Statement wrapStatement(Class<? extends Statement> type, Statement statement, String sql) {
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    /**
+     * Obsługa wywołań instrukcji: zapamiętuje parametry i mierzy wykonania.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private Object[] params = new Object[8];
+        private int paramCount;
+        private int batchSize;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                long start = System.nanoTime();
+                try {
+                    return SlowQueryLog.invoke(target, method, args);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    if (elapsed >= SLOW_NANOS && executed != null) {
+                        slow(executed, Arrays.copyOf(params, paramCount), batchSize, elapsed);
+                    }
+                    batchSize = 0;
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(params, null);
+                paramCount = 0;
+            } else if (name.equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            return SlowQueryLog.invoke(target, method, args);
+        }
+
+        private void bind(int index, Object value) {
+            if (index > params.length) {
+                params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+            }
+            params[index - 1] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+    }
+
+    /** Statystyki wolnych wykonań jednego kształtu zapytania. */
+    private static final class Shape {
+        private final String sql;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private String lastParams;
+        private volatile String plan;
+
+        Shape(String sql) {
+            this.sql = sql;
+        }
+
+        synchronized void add(long nanos, String maskedParams) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            lastParams = maskedParams;
+        }
+
+        synchronized long maxNanos() {
+            return maxNanos;
+        }
+
+        synchronized String describe() {
+            return String.format("max %d ms, śr. %d ms, wykonania=%d%n    %s%n    parametry: %s%n    plan: %s",
+                    TimeUnit.NANOSECONDS.toMillis(maxNanos), TimeUnit.NANOSECONDS.toMillis(totalNanos / count),
+                    count, sql, lastParams, plan == null ? "(brak)" : plan.replace("\n", "\n          "));
+        }
+    }
+
+    /** Rejestruje wolne wykonanie: log, statystyki kształtu i (dla nowego kształtu) plan wykonania. */
+    private static void slow(String sql, Object[] params, int batchSize, long nanos) {
+        String shape = shapeOf(sql);
+        String masked = mask(params);
+        LOGGER.warning(String.format("Wolne zapytanie (%d ms%s): %s; parametry: %s",
+                TimeUnit.NANOSECONDS.toMillis(nanos), batchSize > 0 ? ", wsad " + batchSize : "", shape, masked));
+
+        Shape created = new Shape(shape);
+        Shape stats = SHAPES.putIfAbsent(shape, created);
+        if (stats == null) {
+            stats = created;
+            evictIfFull();
+            if (EXPLAIN && EXPLAINABLE.matcher(sql).find()) {
+                Shape target = stats;
+                EXPLAINER.execute(() -> target.plan = explain(sql, params));
+            }
+        }
+        stats.add(nanos, masked);
+    }
+
+    /**
+     * Sprowadza SQL do kształtu: literały jako {@code ?}, listy parametrów jako jeden
+     * {@code ?...}, pojedyncze spacje.
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("?...");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /** Maskuje parametry: typ (i długość tekstu) zamiast wartości. */
+    private static String mask(Object[] params) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < params.length; i++) {
+            Object p = params[i];
+            sb.append(i == 0 ? "" : ", ").append(i + 1).append('=');
+            if (p == null) {
+                sb.append("NULL");
+            } else if (p instanceof CharSequence text) {
+                sb.append("<String:").append(text.length()).append('>');
+            } else {
+                sb.append('<').append(p.getClass().getSimpleName()).append('>');
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    /** Pobiera plan wykonania (wątek tła); parametry wiązane są ponownie, bez zapisu do logu. */
+    private static String explain(String sql, Object[] params) {
+        for (Object p : params) {
+            if (p != null && !(p instanceof CharSequence || p instanceof Number || p instanceof Boolean
+                    || p instanceof Temporal || p instanceof java.util.Date)) {
+                return "(pominięto - parametr typu " + p.getClass().getSimpleName() + ")";
+            }
+        }
+        DataSource ds = plain;
+        try (Connection connection = ds.getConnection();
+                PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            StringBuilder sb = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                for (int c = 1; c <= meta.getColumnCount(); c++) {
+                    sb.append(c == 1 ? "" : " | ").append(meta.getColumnLabel(c));
+                }
+                while (rs.next()) {
+                    sb.append('\n');
+                    for (int c = 1; c <= meta.getColumnCount(); c++) {
+                        sb.append(c == 1 ? "" : " | ").append(rs.getString(c));
+                    }
+                }
+            }
+            String plan = sb.toString();
+            LOGGER.info("Plan wykonania wolnego zapytania: " + shapeOf(sql) + System.lineSeparator() + plan);
+            return plan;
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "EXPLAIN nie powiódł się: " + shapeOf(sql), e);
+            return "(błąd EXPLAIN: " + e.getMessage() + ")";
+        }
+    }
+
+    /** Usuwa kształt o najmniejszym maksymalnym czasie, jeśli przekroczono limit. */
+    private static void evictIfFull() {
+        if (SHAPES.size() <= MAX_SHAPES) {
+            return;
+        }
+        SHAPES.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().maxNanos()))
+                .ifPresent(e -> SHAPES.remove(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Zwraca zestawienie {@link #TOP_N} najwolniejszych kształtów zapytań (według czasu
+     * maksymalnego) wraz z planami oraz podsumowanie statystyk Hibernate.
+     * @return Tekst zestawienia.
+     */
+    public static String dump() {
+        List<Shape> worst = new ArrayList<>(SHAPES.values());
+        worst.sort(Comparator.comparingLong(Shape::maxNanos).reversed());
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "Najwolniejsze zapytania (próg %d ms, kształty: %d):", SLOW_MS, worst.size()));
+        int rank = 0;
+        for (Shape shape : worst.subList(0, Math.min(TOP_N, worst.size()))) {
+            sb.append(System.lineSeparator()).append(String.format("%2d. ", ++rank)).append(shape.describe());
+        }
+        SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+        if (sessionFactory != null && !sessionFactory.isClosed()) {
+            Statistics stats = sessionFactory.getStatistics();
+            sb.append(System.lineSeparator()).append(String.format(
+                    "Statystyki Hibernate: zapytania=%d, instrukcje JDBC=%d, transakcje=%d, najwolniejsze zapytanie %d ms: %s",
+                    stats.getQueryExecutionCount(), stats.getPrepareStatementCount(), stats.getTransactionCount(),
+                    stats.getQueryExecutionMaxTime(), stats.getQueryExecutionMaxTimeQueryString()));
+        }
+        return sb.toString();
+    }
+
+    /** Zapisuje zestawienie do logu (jeśli zarejestrowano wolne zapytania). */
+    public static void logSummary() {
+        if (!SHAPES.isEmpty()) {
+            LOGGER.info(dump());
+        }
+    }
+
+    private static void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("ISDD:type=SlowQueries");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new SlowQueriesMXBean() {
+                    @Override
+                    public long getThresholdMillis() {
+                        return SLOW_MS;
+                    }
+
+                    @Override
+                    public int getShapeCount() {
+                        return SHAPES.size();
+                    }
+
+                    @Override
+                    public String dump() {
+                        return SlowQueryLog.dump();
+                    }
+
+                    @Override
+                    public void reset() {
+                        SHAPES.clear();
+                    }
+                }, name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Nie zarejestrowano MBean dziennika wolnych zapytań", e);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Oś czasu uruchamiania aplikacji: fazy (z czasem trwania i wątkiem) oraz
+ * punkty kontrolne, mierzone od startu JVM. Pozwala zmierzyć czas do
+ * użytecznego okna głównego i sprawdzić, które fazy wykonują się równolegle
+ * z oknem logowania.
+ * <p>
+ * Przykład: {@code try (StartupTimeline.Phase p = StartupTimeline.begin("metadata")) { ... }}
+ */
+public final class StartupTimeline {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupTimeline.class.getName());
+
+    /** Czas od startu JVM do załadowania klasy (ms) i odpowiadający mu odczyt zegara monotonicznego. */
+    private static final long ORIGIN_OFFSET_MS =
+            System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private static final List<Entry> ENTRIES = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean REPORTED = new AtomicBoolean();
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Rozpoczyna fazę uruchamiania. Faza kończy się wywołaniem {@link Phase#close()}.
+     * @param name Nazwa fazy.
+     * @return Uchwyt fazy.
+     */
+    public static Phase begin(String name) {
+        return new Phase(name, nowMs());
+    }
+
+    /**
+     * Zapisuje punkt kontrolny (zdarzenie bez czasu trwania).
+     * @param name Nazwa punktu kontrolnego.
+     */
+    public static void milestone(String name) {
+        ENTRIES.add(new Entry(name, Thread.currentThread().getName(), nowMs(), -1));
+    }
+
+    /**
+     * Zwraca zapisane fazy i punkty kontrolne w kolejności rozpoczęcia.
+     * @return Kopia osi czasu.
+     */
+    public static List<Entry> entries() {
+        List<Entry> copy = new ArrayList<>(ENTRIES);
+        copy.sort(Comparator.comparingLong(Entry::startMs));
+        return copy;
+    }
+
+    /**
+     * Zapisuje końcowy punkt kontrolny i wypisuje oś czasu do logu. Kolejne
+     * wywołania są ignorowane - raport dotyczy wyłącznie pierwszego uruchomienia.
+     * @param finalMilestone Nazwa punktu, w którym aplikacja jest gotowa do pracy.
+     */
+    public static void report(String finalMilestone) {
+        if (!REPORTED.compareAndSet(false, true)) {
+            return;
+        }
+        milestone(finalMilestone);
+        StringBuilder sb = new StringBuilder("Oś czasu uruchomienia (ms od startu JVM):");
+        for (Entry e : entries()) {
+            sb.append(System.lineSeparator()).append("  ").append(e);
+        }
+        long ready = find(finalMilestone);
+        long connect = find("connect");
+        sb.append(System.lineSeparator()).append(String.format("  gotowe po %d ms od startu JVM", ready));
+        if (connect >= 0) {
+            sb.append(String.format(", %d ms od kliknięcia Login", ready - connect));
+        }
+        LOGGER.info(sb.toString());
+    }
+
+    private static long find(String name) {
+        for (Entry e : ENTRIES) {
+            if (e.name().equals(name)) {
+                return e.startMs();
+            }
+        }
+        return -1;
+    }
+
+    private static long nowMs() {
+        return ORIGIN_OFFSET_MS + (System.nanoTime() - ORIGIN_NANOS) / 1_000_000;
+    }
+
+    /**
+     * Trwająca faza uruchamiania.
+     */
+    public static final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final long startMs;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Phase(String name, long startMs) {
+            this.name = name;
+            this.startMs = startMs;
+        }
+
+        /** Kończy fazę i zapisuje ją na osi czasu (dokładnie raz). */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                ENTRIES.add(new Entry(name, Thread.currentThread().getName(), startMs, nowMs() - startMs));
+            }
+        }
+    }
+
+    /**
+     * Wpis osi czasu.
+     *
+     * @param name Nazwa fazy lub punktu kontrolnego.
+     * @param thread Wątek, w którym faza się zakończyła.
+     * @param startMs Początek (ms od startu JVM).
+     * @param durationMs Czas trwania (ms) lub -1 dla punktu kontrolnego.
+     */
+    public record Entry(String name, String thread, long startMs, long durationMs) {
+
+        @Override
+        public String toString() {
+            return durationMs < 0
+                    ? String.format("%6d        * %s [%s]", startMs, name, thread)
+                    : String.format("%6d %6d ms %s [%s]", startMs, durationMs, name, thread);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Config;
+
+import jakarta.persistence.PersistenceException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+/**
+ * Wykonywanie pracy w osobnej sesji i transakcji (zatwierdzenie lub wycofanie, zamknięcie sesji).
+ * Używane przez obiekty zakładające pomocnicze tabele i wykonujące zadania w tle -
+ * kontrolery formularzy zarządzają transakcją same.
+ */
+public final class Transactions {
+
+    private static final Logger LOGGER = Logger.getLogger(Transactions.class.getName());
+
+    private Transactions() {
+    }
+
+    /**
+     * Wykonuje pracę w nowej sesji i transakcji. Błąd wycofuje transakcję i jest przekazywany dalej.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @param work Praca do wykonania.
+     */
+    public static void run(SessionFactory sessionFactory, Consumer<Session> work) {
+        call(sessionFactory, session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    /**
+     * Wykonuje pracę w nowej sesji i transakcji i zwraca jej wynik.
+     * Błąd wycofuje transakcję i jest przekazywany dalej.
+     * @param <T> Typ wyniku.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @param work Praca do wykonania.
+     * @return Wynik pracy (po zatwierdzeniu transakcji).
+     */
+    public static <T> T call(SessionFactory sessionFactory, Function<Session, T> work) {
+        Session session = null;
+        Transaction tr = null;
+        try {
+            session = sessionFactory.openSession();
+            tr = session.beginTransaction();
+            T result = work.apply(session);
+            tr.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw e;
+        } finally {
+            if (session != null) session.close();
+        }
+    }
+
+    /**
+     * Zakłada pomocniczą tabelę i jej wiersze początkowe. W MariaDB instrukcja DDL zatwierdza
+     * bieżącą transakcję, dlatego tabela zakładana jest w osobnej transakcji, a wiersze - w kolejnej.
+     * Naruszenie klucza przy zakładaniu wierszy oznacza, że założyło je równolegle inne stanowisko.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @param table Nazwa tabeli (komunikaty logu).
+     * @param create Instrukcja {@code CREATE TABLE IF NOT EXISTS}.
+     * @param seed Zakłada brakujące wiersze początkowe (może nic nie robić).
+     * @return {@code false}, jeśli wiersze początkowe założył równolegle inny proces.
+     */
+    public static boolean createTable(SessionFactory sessionFactory, String table,
+            Consumer<Session> create, Consumer<Session> seed) {
+        run(sessionFactory, create);
+        try {
+            run(sessionFactory, seed);
+            return true;
+        } catch (PersistenceException e) {
+            LOGGER.fine("Wiersze tabeli " + table + " założone równolegle: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package Controllers;
 
+import Config.JfrEvents;
 import Models.Activity;
 import Models.ActivityDAO;
+import Models.TableVersionDAO;
 import Models.Trainer;
 import Models.TrainerDAO;
 import Views.DataUpdateWindow;
@@ -9,6 +11,11 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import Utils.ActivityControllerTable;
+import Utils.AsyncExecutor;
+import Utils.CodeGenerator;
+import Utils.StartupTasks;
+import Utils.TableVersions;
+import Utils.TrainerScheduleIndex;
 import javax.swing.JOptionPane;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -94,14 +101,14 @@ public class ActivityDataController {
     public void initializeForm() {
         view.setFieldLabels("Nazwa Aktywności", "Opis/Typ", "Cena (PLN)",
                 "Dzień Tygodnia", "Data", "Trener", "Godzina");
-        view.jComboBoxDay.setModel(new javax.swing.DefaultComboBoxModel<>(new String[]{
-            "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
-        }));
-
-        view.jComboBoxTime.setModel(new javax.swing.DefaultComboBoxModel<>(new String[]{
-            "08:00", "09:00", "10:00", "11:00", "12:00", "13:00", "14:00",
-            "15:00", "16:00", "17:00", "18:00", "19:00", "20:00", "21:00"
-        }));
+        // Siatka dni i godzin wspólna z indeksem grafiku trenerów
+        view.jComboBoxDay.setModel(new javax.swing.DefaultComboBoxModel<>(TrainerScheduleIndex.DAYS));
+
+        String[] hours = new String[TrainerScheduleIndex.HOURS_PER_DAY];
+        for (int i = 0; i < hours.length; i++) {
+            hours[i] = String.format("%02d:00", TrainerScheduleIndex.FIRST_HOUR + i);
+        }
+        view.jComboBoxTime.setModel(new javax.swing.DefaultComboBoxModel<>(hours));
         fillTrainerComboBox();
         view.jDateChooser.setVisible(true);
         view.jBirthdayChooser.setVisible(false);
@@ -143,26 +150,19 @@ public class ActivityDataController {
     }
 
     private void fillTrainerComboBox() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            // 1. Teraz metoda findAllTrainers już istnieje w Twoim DAO
-            List<Trainer> trainers = trainerDAO.findAllTrainers(session);
-
-            // 2. Rzutujemy na surowy typ, aby uniknąć błędów generyków JComboBox<String>
+        AsyncExecutor.submit(null, view, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return trainerDAO.findAllTrainers(session);
+            }
+        }, trainers -> {
+            // Rzutujemy na surowy typ, aby uniknąć błędów generyków JComboBox<String>
             javax.swing.JComboBox combo = (javax.swing.JComboBox) view.jComboBoxTrener;
             combo.removeAllItems();
 
             for (Trainer t : trainers) {
                 combo.addItem(t);
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd pobierania trenerów", e);
-        } finally {
-            if (session != null) {
-                session.close();
-            }
-        }
+        }, ex -> LOGGER.log(Level.SEVERE, "Błąd pobierania trenerów", ex));
     }
 
     /**
@@ -170,50 +170,21 @@ public class ActivityDataController {
      * wygenerowanym kodem (tryb dodawania).
      */
     private void initializeFormWithAutoData() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            String maxNum = activityDAO.getMaxActivityCode(session);
-            String newNum = generateNextActivityCode(maxNum);
-
-            view.jKod.setText(newNum);
-            view.jKod.setEditable(false);
+        view.jKod.setEditable(false);
 
-            view.setNazwisko("");
-            view.setNumerIdentyfikacyjny("");
-            view.setTelefon("");
+        view.setNazwisko("");
+        view.setNumerIdentyfikacyjny("");
+        view.setTelefon("");
 
-            view.setSelectedDate(new java.util.Date());
-            view.setKategoria("");
+        view.setSelectedDate(new java.util.Date());
+        view.setKategoria("");
 
-        } catch (Exception ex) {
+        // Kod z bloku zarezerwowanego w CODE_SEQUENCE - zapytanie tylko po wyczerpaniu bloku
+        CodeGenerator codes = CodeGenerator.forSessionFactory(sessionFactory);
+        AsyncExecutor.submit(null, view, codes::nextActivityCode, view.jKod::setText, ex -> {
             LOGGER.log(Level.SEVERE, "Błąd inicjalizacji danych.", ex);
             view.jKod.setText("BŁĄD");
-        } finally {
-            if (session != null) {
-                session.close();
-            }
-        }
-    }
-
-    /**
-     * Generuje kolejny unikalny kod aktywności na podstawie najwyższego
-     * obecnego w bazie.
-     *
-     * * @param maxNum Obecny najwyższy kod (np. "AC05").
-     * @return Nowy kod (np. "AC06") lub "AC01" w przypadku braku danych.
-     */
-    private String generateNextActivityCode(String maxNum) {
-        if (maxNum == null || !maxNum.matches("[A-Z]{2}\\d+")) {
-            return "AC01";
-        }
-        try {
-            String prefix = maxNum.substring(0, 2);
-            int nextNum = Integer.parseInt(maxNum.substring(2)) + 1;
-            return prefix + String.format("%02d", nextNum);
-        } catch (Exception e) {
-            return "AC01";
-        }
+        });
     }
 
     /**
@@ -235,6 +206,13 @@ public class ActivityDataController {
 
         @Override
         public void actionPerformed(ActionEvent e) {
+            // Zdarzenie JFR zatwierdzenia formularza (obejmuje zapis w tle)
+            try (JfrEvents.Action action = JfrEvents.action("ActivityForm", activityToUpdate == null ? "Insert" : "Update", "Activity")) {
+                submit();
+            }
+        }
+
+        private void submit() {
             // Pobieranie danych z komponentów tekstowych
             String aIdFromForm = view.getKod().trim();
             String aName = view.getNazwisko().trim();
@@ -252,92 +230,107 @@ public class ActivityDataController {
                 return;
             }
 
-            Session session = null;
-            Transaction tr = null;
-
+            // 2. Walidacja ceny
+            int aPrice;
             try {
-                // 2. Walidacja ceny
-                int aPrice = Integer.parseInt(priceStr);
-                if (aPrice < 0) {
-                    JOptionPane.showMessageDialog(view, "Cena nie może być ujemna!", "Błąd walidacji", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-
-                // 3. Parsowanie godziny
-                int aHour = Integer.parseInt(selectedTimeStr.split(":")[0]);
-
-                session = sessionFactory.openSession();
+                aPrice = Integer.parseInt(priceStr);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(view, "Cena musi być poprawną liczbą całkowitą.", "Błąd", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (aPrice < 0) {
+                JOptionPane.showMessageDialog(view, "Cena nie może być ujemna!", "Błąd walidacji", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
 
-                // 4. LOGIKA: Sprawdzenie dostępności trenera
-                if (selectedTrainer != null) {
-                    // Jeśli edytujemy, bierzemy obecne ID, żeby nie blokować zapisu tej samej aktywności
-                    String currentActivityId = (activityToUpdate != null) ? activityToUpdate.getAId() : null;
+            // 3. Parsowanie godziny
+            int aHour = Integer.parseInt(selectedTimeStr.split(":")[0]);
 
-                    boolean isBusy = activityDAO.isTrainerOccupied(session, selectedTrainer.getTCod(), selectedDay, aHour, currentActivityId);
+            String trainerCod = selectedTrainer != null ? selectedTrainer.getTCod() : null;
+            TrainerScheduleIndex schedule = TrainerScheduleIndex.forSessionFactory(sessionFactory);
 
-                    if (isBusy) {
-                        JOptionPane.showMessageDialog(view,
-                                "Trener " + selectedTrainer.getTName() + " ma już przypisaną inną aktywność w " + selectedDay + " o godzinie " + aHour + ":00!",
-                                "Konflikt w grafiku",
-                                JOptionPane.ERROR_MESSAGE);
-                        return;
+            // Sprawdzenie grafiku i zapis w tle; ponowne kliknięcie w trakcie zapisu jest ignorowane
+            String taskKey = "form:activity:" + aIdFromForm;
+            if (AsyncExecutor.isRunning(taskKey)) {
+                return;
+            }
+            AsyncExecutor.submit(taskKey, view, () -> {
+                Session session = null;
+                Transaction tr = null;
+                try {
+                    if (activityToUpdate != null) {
+                        // Zmiana ceny przelicza przychód w licznikach statystyk aktywności
+                        StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+                    }
+                    // 4. LOGIKA: Sprawdzenie dostępności trenera - indeks w pamięci (bez zapytania);
+                    // wolny termin jest od razu zajmowany, więc równoległy zapis z tego stanowiska go nie dostanie
+                    String conflict = trainerCod == null ? null : "Trener " + selectedTrainer.getTName() + " ma już przypisaną inną aktywność w "
+                            + selectedDay + " o godzinie " + aHour + ":00!";
+                    if (trainerCod != null && !schedule.tryPlace(aIdFromForm, trainerCod, selectedDay, aHour)) {
+                        return conflict;
                     }
-                }
 
-                // 5. Zapis/Aktualizacja
-                tr = session.beginTransaction();
-
-                if (activityToUpdate == null) {
-                    // Nowa aktywność
-                    Activity newActivity = new Activity(aIdFromForm, aName, aDescription, aPrice, selectedDay, aHour);
-                    newActivity.setAtrainerInCharge(selectedTrainer);
-                    activityDAO.insertActivity(session, newActivity);
-                } else {
-                    // Aktualizacja istniejącej
-                    activityToUpdate.setAName(aName);
-                    activityToUpdate.setADescription(aDescription);
-                    activityToUpdate.setAPrice(aPrice);
-                    activityToUpdate.setADay(selectedDay);
-                    activityToUpdate.setAHour(aHour);
-                    activityToUpdate.setAtrainerInCharge(selectedTrainer);
-                    activityDAO.updateActivity(session, activityToUpdate);
-                }
+                    // 5. Zapis/Aktualizacja
+                    session = sessionFactory.openSession();
+                    tr = session.beginTransaction();
+
+                    if (trainerCod != null) {
+                        // Ponowne sprawdzenie w bazie (zmiany z innych stanowisk); blokada wiersza trenera
+                        // szereguje zapisy jego aktywności do zatwierdzenia transakcji
+                        // Jeśli edytujemy, bierzemy obecne ID, żeby nie blokować zapisu tej samej aktywności
+                        String currentActivityId = (activityToUpdate != null) ? activityToUpdate.getAId() : null;
+                        trainerDAO.lockTrainer(session, trainerCod);
+                        if (activityDAO.isTrainerOccupied(session, trainerCod, selectedDay, aHour, currentActivityId)) {
+                            tr.rollback();
+                            schedule.invalidate();
+                            return conflict;
+                        }
+                    }
 
-                tr.commit();
-                if (activityControllerTable != null) {
                     if (activityToUpdate == null) {
-                        // Składamy wiersz dla tabeli Aktywności
-                        Object[] newRow = new Object[]{
-                            aIdFromForm,
-                            aName,
-                            aDescription,
-                            aPrice,
-                            selectedDay,
-                            selectedTimeStr,
-                            (selectedTrainer != null ? selectedTrainer.getTName() : "Brak")
-                        };
-                        activityControllerTable.addNewRowToTable(newRow);
+                        // Nowa aktywność
+                        Activity newActivity = new Activity(aIdFromForm, aName, aDescription, aPrice, selectedDay, aHour);
+                        newActivity.setAtrainerInCharge(selectedTrainer);
+                        activityDAO.insertActivity(session, newActivity);
                     } else {
-                        // Przy edycji najbezpieczniej odświeżyć całość, by zachować relacje
-                        activityControllerTable.showActivities();
+                        // Aktualizacja istniejącej
+                        activityToUpdate.setAName(aName);
+                        activityToUpdate.setADescription(aDescription);
+                        activityToUpdate.setAPrice(aPrice);
+                        activityToUpdate.setADay(selectedDay);
+                        activityToUpdate.setAHour(aHour);
+                        activityToUpdate.setAtrainerInCharge(selectedTrainer);
+                        activityDAO.updateActivity(session, activityToUpdate);
                     }
-                }
-                view.dispose();
-                JOptionPane.showMessageDialog(null, "Pomyślnie zapisano aktywność.");
 
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(view, "Cena musi być poprawną liczbą całkowitą.", "Błąd", JOptionPane.ERROR_MESSAGE);
-            } catch (Exception ex) {
-                if (tr != null) {
-                    tr.rollback();
+                    TableVersions.forSessionFactory(sessionFactory).bump(session, TableVersionDAO.ACTIVITY);
+                    tr.commit();
+                    schedule.place(aIdFromForm, trainerCod, selectedDay, aHour);
+                    return null;
+                } catch (Exception ex) {
+                    if (tr != null && tr.isActive()) {
+                        tr.rollback();
+                    }
+                    // Termin zajęty w indeksie przed zapisem - stan zostanie ponownie wczytany z bazy
+                    schedule.invalidate();
+                    throw ex;
+                } finally {
+                    if (session != null) {
+                        session.close();
+                    }
                 }
-                LOGGER.log(Level.SEVERE, "Błąd bazy danych", ex);
-                JOptionPane.showMessageDialog(view, "Błąd bazy danych: " + ex.getMessage());
-            } finally {
-                if (session != null) {
-                    session.close();
+            }, scheduleConflict -> {
+                if (scheduleConflict != null) {
+                    JOptionPane.showMessageDialog(view, scheduleConflict, "Konflikt w grafiku", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
-            }
+                if (activityControllerTable != null) {
+                    // Wiersz (z nazwiskiem trenera) pobierany z bazy po kluczu - bez przeładowania całej tabeli
+                    activityControllerTable.activitySaved(aIdFromForm);
+                }
+                view.dispose();
+                JOptionPane.showMessageDialog(null, "Pomyślnie zapisano aktywność.");
+            }, ex -> JOptionPane.showMessageDialog(view, "Błąd bazy danych: " + ex.getMessage()));
         }
     }
 }
@@ -1,16 +1,24 @@
 package Controllers;
 
+import Config.JfrEvents;
 import Models.Client;
 import Models.ClientDAO;
+import Models.TableVersionDAO;
 import Views.DataUpdateWindow;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import Utils.AsyncExecutor;
+import Utils.CodeGenerator;
 import Utils.ClientControllerTable;
+import Utils.ClientValidator;
+import Utils.StartupTasks;
+import Utils.TableVersions;
 import javax.swing.JOptionPane;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -19,7 +27,7 @@ import java.util.logging.Logger;
  * Kontroler odpowiedzialny za obsługę okna edycji i dodawania danych klienta.
  * Zarządza interakcją pomiędzy widokiem {@link DataUpdateWindow} a bazą danych,
  * zapewniając automatyczne generowanie kodów klientów, walidację danych oraz
- * poprawne formatowanie dat (dd/MM/yyyy).
+ * zamianę dat komponentów kalendarza na {@link LocalDate} encji.
  */
 public class ClientDataController {
 
@@ -54,11 +62,6 @@ public class ClientDataController {
      */
     private final Client clientToUpdate;
 
-    /**
-     * Formater dat zgodny ze strukturą bazy danych (dzień/miesiąc/rok).
-     */
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-
     /**
      * Inicjalizuje kontroler danych klienta. Ustawia słuchacze zdarzeń dla
      * przycisków Akceptuj i Anuluj.
@@ -112,28 +115,18 @@ public class ClientDataController {
      * ustawia domyślne wartości dat w formularzu.
      */
     private void initializeFormWithAutoData() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            String maxNum = clientDAO.getMaxMemberNumber(session);
-            view.jKod.setText(generateNextMemberNumber(maxNum));
-            view.jKod.setEditable(false);
-
-            view.setSelectedDate(new Date());
-            view.setBirthdayDate(null);
+        view.jKod.setEditable(false);
+        view.setSelectedDate(new Date());
+        view.setBirthdayDate(null);
 
-        } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Błąd inicjalizacji kodu klienta.", ex);
-        } finally {
-            if (session != null) {
-                session.close();
-            }
-        }
+        // Kod z bloku zarezerwowanego w CODE_SEQUENCE - zapytanie tylko po wyczerpaniu bloku
+        CodeGenerator codes = CodeGenerator.forSessionFactory(sessionFactory);
+        AsyncExecutor.submit(null, view, codes::nextMemberNumber, view.jKod::setText, ex -> LOGGER.log(Level.SEVERE, "Błąd inicjalizacji kodu klienta.", ex));
     }
 
     /**
-     * Wypełnia pola formularza danymi istniejącego klienta. Dokonuje parsowania
-     * dat ze Stringów na obiekty typu Date dla komponentów GUI.
+     * Wypełnia pola formularza danymi istniejącego klienta. Daty encji zamieniane są
+     * na obiekty typu Date dla komponentów GUI.
      */
     private void populateForm() {
         view.setKod(clientToUpdate.getMNum());
@@ -144,42 +137,20 @@ public class ClientDataController {
         view.setEmail(clientToUpdate.getMemailMember());
         view.setKategoria(String.valueOf(clientToUpdate.getMcategoryMember()));
 
-        try {
-            String entryDateStr = clientToUpdate.getMstartingDateMember();
-            if (entryDateStr != null && !entryDateStr.isEmpty()) {
-                view.setSelectedDate(dateFormat.parse(entryDateStr));
-            }
-        } catch (Exception e) {
-            view.setSelectedDate(new Date());
-        }
+        LocalDate entryDate = clientToUpdate.getMstartingDateMember();
+        view.setSelectedDate(entryDate != null ? toDate(entryDate) : new Date());
+        LocalDate birthDate = clientToUpdate.getMBirthdate();
+        view.setBirthdayDate(birthDate != null ? toDate(birthDate) : null);
+    }
 
-        try {
-            String birthDateStr = clientToUpdate.getMBirthdate();
-            if (birthDateStr != null && !birthDateStr.isEmpty()) {
-                view.setBirthdayDate(dateFormat.parse(birthDateStr));
-            }
-        } catch (Exception e) {
-            view.setBirthdayDate(null);
-        }
+    /** Data komponentu kalendarza jako data lokalna (strefa systemowa). */
+    private static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
     }
 
-    /**
-     * Generuje nowy numer członkowski na podstawie najwyższego numeru w bazie.
-     *
-     * * @param maxNum Obecnie najwyższy numer (np. "S005").
-     * @return Następny numer w sekwencji (np. "S006").
-     */
-    private String generateNextMemberNumber(String maxNum) {
-        if (maxNum == null || maxNum.length() < 2) {
-            return "S001";
-        }
-        try {
-            String prefix = maxNum.substring(0, 1);
-            int nextNum = Integer.parseInt(maxNum.substring(1)) + 1;
-            return prefix + String.format("%03d", nextNum);
-        } catch (Exception e) {
-            return "S001";
-        }
+    /** Data lokalna jako początek dnia dla komponentu kalendarza. */
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
 
     /**
@@ -201,6 +172,13 @@ public class ClientDataController {
 
         @Override
         public void actionPerformed(ActionEvent e) {
+            // Zdarzenie JFR zatwierdzenia formularza (obejmuje zapis w tle)
+            try (JfrEvents.Action action = JfrEvents.action("ClientForm", clientToUpdate == null ? "Insert" : "Update", "Client")) {
+                submit();
+            }
+        }
+
+        private void submit() {
             String mNum = view.getKod().trim();
             String mId = view.getNumerIdentyfikacyjny().trim();
             String mName = view.getNazwisko().trim();
@@ -216,115 +194,89 @@ public class ClientDataController {
                 return;
             }
 
-            if (!mId.matches("\\d{8}[A-Z]")) {
-                JOptionPane.showMessageDialog(view, "Format ID (DNI) musi zawierać 8 cyfr i jedną wielką literę.", "Błąd walidacji", JOptionPane.WARNING_MESSAGE);
-                return;
+            // Reguły wspólne z importem zbiorczym (ClientImporter)
+            String error = ClientValidator.checkDni(mId);
+            if (error == null) {
+                error = ClientValidator.checkEmail(mEmail);
             }
-
-// --- WALIDACJA: Format E-mail (standardowy wzór) ---
-            if (mEmail != null) {
-                String emailRegex = "^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,6}$";
-                if (!mEmail.matches(emailRegex)) {
-                    JOptionPane.showMessageDialog(view, "Podany adres e-mail ma nieprawidłowy format.", "Błąd walidacji", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
+            if (error == null) {
+                error = ClientValidator.checkAge(birthDate == null ? null : toLocalDate(birthDate), LocalDate.now());
             }
-
-// --- WALIDACJA: Wiek powyżej 18 lat ---
-            if (birthDate == null) {
-                JOptionPane.showMessageDialog(view, "Data urodzenia jest wymagana.", "Błąd", JOptionPane.WARNING_MESSAGE);
+            if (error != null) {
+                JOptionPane.showMessageDialog(view, error, "Błąd walidacji", JOptionPane.WARNING_MESSAGE);
                 return;
-            } else {
-                java.util.Calendar calUrodzenia = java.util.Calendar.getInstance();
-                calUrodzenia.setTime(birthDate);
-
-                java.util.Calendar calDzis = java.util.Calendar.getInstance();
-
-                // POPRAWIONE: Użycie Calendar.YEAR zamiast VK_UNDEFINED
-                int wiek = calDzis.get(java.util.Calendar.YEAR) - calUrodzenia.get(java.util.Calendar.YEAR);
-
-                // Korekta, jeśli urodziny w tym roku jeszcze nie nastąpiły
-                if (calDzis.get(java.util.Calendar.MONTH) < calUrodzenia.get(java.util.Calendar.MONTH)
-                        || (calDzis.get(java.util.Calendar.MONTH) == calUrodzenia.get(java.util.Calendar.MONTH)
-                        && calDzis.get(java.util.Calendar.DAY_OF_MONTH) < calUrodzenia.get(java.util.Calendar.DAY_OF_MONTH))) {
-                    wiek--;
-                }
-
-                if (wiek < 18) {
-                    JOptionPane.showMessageDialog(view, "Klient musi mieć ukończone 18 lat (Obecny wiek: " + wiek + ").", "Błąd wieku", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
             }
 
             char catChar = category.charAt(0);
-            String fmtEntryDate = dateFormat.format(entryDate);
-            String fmtBirthDate = (birthDate != null) ? dateFormat.format(birthDate) : null;
+            LocalDate localEntryDate = toLocalDate(entryDate);
+            LocalDate localBirthDate = (birthDate != null) ? toLocalDate(birthDate) : null;
 
-            Session session = null;
-            Transaction tr = null;
+            // Zapis w tle; ponowne kliknięcie "Akceptuj" w trakcie zapisu jest ignorowane
+            String taskKey = "form:client:" + mNum;
+            if (AsyncExecutor.isRunning(taskKey)) {
+                return;
+            }
+            AsyncExecutor.submit(taskKey, view, () -> {
+                Session session = null;
+                Transaction tr = null;
+                try {
+                    if (clientToUpdate != null) {
+                        // Zmiana kategorii przenosi zapisy klienta między licznikami statystyk
+                        StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+                    }
+                    session = sessionFactory.openSession();
+                    tr = session.beginTransaction();
+
+                    // Walidacja unikalności numeru DNI
+                    if (clientDAO.existDNI(session, mId)) {
+                        if (clientToUpdate == null || !mId.equals(clientToUpdate.getMId())) {
+                            tr.rollback();
+                            return "ID już istnieje w bazie.";
+                        }
+                    }
 
-            try {
-                session = sessionFactory.openSession();
-                tr = session.beginTransaction();
+                    if (clientToUpdate == null) {
+                        Client nc = new Client(mNum, mName, mId, localEntryDate, catChar);
+                        nc.setMPhone(mPhone);
+                        nc.setMemailMember(mEmail);
+                        nc.setMBirthdate(localBirthDate);
+                        clientDAO.insertClient(session, nc);
+                    } else {
+                        clientToUpdate.setMName(mName);
+                        clientToUpdate.setMId(mId);
+                        clientToUpdate.setMPhone(mPhone);
+                        clientToUpdate.setMemailMember(mEmail);
+                        clientToUpdate.setMstartingDateMember(localEntryDate);
+                        clientToUpdate.setMcategoryMember(catChar);
+                        clientToUpdate.setMBirthdate(localBirthDate);
+                        clientDAO.updateClient(session, clientToUpdate);
+                    }
 
-                // Walidacja unikalności numeru DNI
-                if (clientDAO.existDNI(session, mId)) {
-                    if (clientToUpdate == null || !mId.equals(clientToUpdate.getMId())) {
-                        JOptionPane.showMessageDialog(view, "ID już istnieje w bazie.", "Błąd", JOptionPane.ERROR_MESSAGE);
+                    TableVersions.forSessionFactory(sessionFactory).bump(session, TableVersionDAO.CLIENT);
+                    tr.commit();
+                    return null;
+                } catch (Exception ex) {
+                    if (tr != null && tr.isActive()) {
                         tr.rollback();
-                        return;
+                    }
+                    throw ex;
+                } finally {
+                    if (session != null) {
+                        session.close();
                     }
                 }
-
-                if (clientToUpdate == null) {
-                    Client nc = new Client(mNum, mName, mId, fmtEntryDate, catChar);
-                    nc.setMPhone(mPhone);
-                    nc.setMemailMember(mEmail);
-                    nc.setMBirthdate(fmtBirthDate);
-                    clientDAO.insertClient(session, nc);
-                } else {
-                    clientToUpdate.setMName(mName);
-                    clientToUpdate.setMId(mId);
-                    clientToUpdate.setMPhone(mPhone);
-                    clientToUpdate.setMemailMember(mEmail);
-                    clientToUpdate.setMstartingDateMember(fmtEntryDate);
-                    clientToUpdate.setMcategoryMember(catChar);
-                    clientToUpdate.setMBirthdate(fmtBirthDate);
-                    clientDAO.updateClient(session, clientToUpdate);
+            }, validationError -> {
+                if (validationError != null) {
+                    JOptionPane.showMessageDialog(view, validationError, "Błąd", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
-
-                tr.commit();
                 if (clientControllerTable != null) {
-                    if (clientToUpdate == null) {
-                        Object[] newRow = new Object[]{
-                            mNum,
-                            mName,
-                            mId,
-                            fmtEntryDate,
-                            catChar,
-                            mPhone,
-                            mEmail,
-                            fmtBirthDate
-                        };
-                        clientControllerTable.addNewRowToTable(newRow);
-                    } else {
-                        clientControllerTable.showClients();
-                    }
+                    // Wiersz pobierany z bazy po kluczu - bez przeładowania całej tabeli
+                    clientControllerTable.clientSaved(mNum);
                 }
                 view.dispose();
                 JOptionPane.showMessageDialog(null, "Dane zostały pomyślnie zapisane.");
-
-            } catch (Exception ex) {
-                if (tr != null) {
-                    tr.rollback();
-                }
-                LOGGER.log(Level.SEVERE, "Błąd podczas zapisu.", ex);
-                JOptionPane.showMessageDialog(view, "Błąd: " + ex.getMessage());
-            } finally {
-                if (session != null) {
-                    session.close();
-                }
-            }
+            }, ex -> JOptionPane.showMessageDialog(view, "Błąd: " + ex.getMessage()));
         }
     }
 }
@@ -1,11 +1,15 @@
 package Controllers;
 
+import Config.DatasourceProfile;
 import Config.HibernateUtil;
+import Config.StartupTimeline;
+import Utils.AsyncExecutor;
+import Utils.StartupTasks;
 import Views.ConnectionView;
 import ViewsCMD.MessageView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import org.hibernate.SessionFactory;
+import javax.swing.SwingUtilities;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,12 +35,20 @@ public class ConnectionController implements ActionListener {
      * oraz sprawia, że okno logowania staje się widoczne dla użytkownika.
      */
     public ConnectionController() {
+        StartupTimeline.Phase phase = StartupTimeline.begin("login-window");
         this.view = new ConnectionView();
         this.messageView = new MessageView();
 
+        // Profil z -Disdd.profile (lub domyślny) jest zaznaczony, ale można go zmienić przy logowaniu
+        DatasourceProfile profile = DatasourceProfile.selected();
+        this.view.setProfiles(DatasourceProfile.available(), profile);
+        // Mapowania encji przetwarzane są w tle, zanim użytkownik poda poświadczenia
+        HibernateUtil.prepare(profile);
+
         addListeners();
         // Uruchomienie okna logowania
         this.view.setVisible(true);
+        phase.close();
     }
 
     /**
@@ -46,6 +58,7 @@ public class ConnectionController implements ActionListener {
     private void addListeners() {
         view.addConnectListener(this);
         view.addCancelListener(this);
+        view.addProfileListener(this);
     }
 
     /**
@@ -64,6 +77,9 @@ public class ConnectionController implements ActionListener {
             case "Exit":
                 exitApplication(); // Zamknięcie aplikacji
                 break;
+            case "ProfileChanged":
+                HibernateUtil.prepare(view.getSelectedProfile()); // Przygotowanie metadanych nowego profilu
+                break;
             default:
                 LOGGER.warning("Nieznane polecenie: " + command);
                 break;
@@ -75,6 +91,7 @@ public class ConnectionController implements ActionListener {
      * niszczy fabrykę sesji Hibernate, aby zwolnić zasoby i zamknąć połączenia.
      */
     private void exitApplication() {
+        AsyncExecutor.shutdown();
         HibernateUtil.close(); 
         LOGGER.info("Aplikacja została zamknięta.");
         System.exit(0);
@@ -82,32 +99,74 @@ public class ConnectionController implements ActionListener {
 
     /**
      * Metoda odpowiedzialna za pobranie poświadczeń z widoku i próbę nawiązania
-     * połączenia z bazą danych za pomocą {@link HibernateUtil}.
-     * W przypadku powodzenia zamyka okno logowania i przekazuje fabrykę sesji
-     * do głównego kontrolera aplikacji (MainController).
+     * połączenia z bazą danych za pomocą {@link HibernateUtil}. Połączenie
+     * nawiązywane jest w tle (okno logowania pozostaje responsywne, a ponowne
+     * kliknięcie w trakcie łączenia jest ignorowane).
+     * W przypadku powodzenia zamyka okno logowania, przekazuje fabrykę sesji
+     * do głównego kontrolera aplikacji (MainController) i uruchamia w tle
+     * przygotowanie bazy ({@link StartupTasks}).
      */
     public void appEntry() {
+        if (AsyncExecutor.isRunning("connect")) {
+            return;
+        }
         String user = view.getUsername();
         String pass = new String(view.getPassword());
+        DatasourceProfile profile = view.getSelectedProfile();
         
-        LOGGER.info("Próba połączenia z bazą danych dla użytkownika: " + user);
+        LOGGER.info("Próba połączenia z bazą danych (" + profile.getName() + ") dla użytkownika: " + user);
+        StartupTimeline.milestone("connect");
 
-        // 1. Próba budowania SessionFactory
-        SessionFactory sessionFactory = HibernateUtil.buildSessionFactory(user, pass);
+        // 1. Próba budowania SessionFactory (metadane mogą być już przygotowane w tle)
+        AsyncExecutor.submit("connect", view, () -> HibernateUtil.buildSessionFactory(profile, user, pass), sessionFactory -> {
+            if (sessionFactory != null) {
+                // 2. Sukces
+                LOGGER.info("Połączenie z bazą danych powiodło się.");
+                view.dispose();
 
-        if (sessionFactory != null) {
-            // 2. Sukces
-            LOGGER.info("Połączenie z bazą danych powiodło się.");
-            messageView.showSuccess("Połączenie udane!");
-            view.dispose();
-            
-            // 3. Uruchomienie głównego kontrolera aplikacji
-            new MainController(sessionFactory);
-            
-        } else {
-            // 2. Błąd
-            LOGGER.log(Level.WARNING, "Połączenie nieudane dla użytkownika: {0}. Sprawdź dane uwierzytelniające.", user);
-            messageView.showError("Połączenie nieudane! Sprawdź dane uwierzytelniające.");
-        }
+                // 3. Uruchomienie głównego kontrolera aplikacji (okno pokazywane od razu, dane doładowywane w tle).
+                // Migracje, reguły zniżek i liczniki statystyk przygotowywane są w tle - sesje okna
+                // czekają tylko na migracje, a na liczniki tylko statystyki i zapisy, które je aktualizują.
+                StartupTasks tasks = StartupTasks.forSessionFactory(sessionFactory);
+                MainController main = new MainController(tasks.gated());
+                messageView.showSuccess("Połączenie udane!");
+                tasks.start();
+                watchStartup(tasks, main);
+
+            } else {
+                // 2. Błąd
+                LOGGER.log(Level.WARNING, "Połączenie nieudane dla użytkownika: {0}. Sprawdź dane uwierzytelniające.", user);
+                messageView.showError("Połączenie nieudane! Sprawdź dane uwierzytelniające.");
+            }
+        }, ex -> messageView.showError("Połączenie nieudane! " + ex.getMessage()));
+    }
+
+    /**
+     * Obsługuje błędy przygotowania bazy w tle. Nieudana migracja kończy sesję pracy: okno
+     * główne jest zamykane, fabryka sesji (pula połączeń, rejestr usług) zamykana, a użytkownik
+     * wraca do okna logowania. Nieudane przygotowanie liczników wyłącza tylko statystyki
+     * i zapisy, które je aktualizują (zgłaszają błąd przy próbie użycia).
+     * @param tasks Fazy przygotowania bazy bieżącej fabryki sesji.
+     * @param main Kontroler okna głównego.
+     */
+    private void watchStartup(StartupTasks tasks, MainController main) {
+        tasks.phase(StartupTasks.Phase.SCHEMA).whenComplete((ok, ex) -> {
+            if (ex == null) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                AsyncExecutor.cancelAll("");
+                main.dispose();
+                HibernateUtil.close();
+                view.setVisible(true);
+                messageView.showError("Połączenie nieudane! " + ex.getMessage());
+            });
+        });
+        tasks.phase(StartupTasks.Phase.AGGREGATES).whenComplete((ok, ex) -> {
+            if (ex != null && !tasks.phase(StartupTasks.Phase.SCHEMA).isCompletedExceptionally()) {
+                SwingUtilities.invokeLater(() -> messageView.showError(
+                        "Statystyki aktywności i zapisy na zajęcia są niedostępne: " + ex.getMessage()));
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package Controllers;
 
 import Config.HibernateUtil;
+import Config.JfrEvents;
+import Config.StartupTimeline;
 import Models.*;
 import Views.DataUpdateWindow;
 import Views.MainWindow;
@@ -10,10 +12,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.List;
+import java.io.File;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -32,6 +37,10 @@ public class MainController implements ActionListener {
     private final ClientDAO clientDAO = new ClientDAO();
     private final TrainerDAO trainerDAO = new TrainerDAO();
     private final ActivityDAO activityDAO = new ActivityDAO();
+    private final PerformsDAO performsDAO = new PerformsDAO();
+
+    /** Liczba błędów importu wyświetlanych w podsumowaniu (pozostałe trafiają do logu). */
+    private static final int IMPORT_ERRORS_SHOWN = 15;
 
     // Zmienna przechowująca informację, który moduł jest aktualnie wyświetlany
     private String currentView = "Init";
@@ -43,6 +52,7 @@ public class MainController implements ActionListener {
     private final PerformsControllerTable performsControllerTable;
 
     public MainController(SessionFactory sessionFactory) {
+        StartupTimeline.Phase phase = StartupTimeline.begin("main-window");
         this.sessionFactory = sessionFactory;
         this.view = new MainWindow();
 
@@ -54,12 +64,14 @@ public class MainController implements ActionListener {
 
         addListeners();             // Rejestracja zdarzeń menu i przycisków
         addWindowCloseListener();   // Obsługa bezpiecznego zamykania bazy
-        refreshActivityCombo();     // Załadowanie zajęć do listy rozwijanej
         initTableSelectionLogic();  // Logika automatycznego uzupełniania pól przy kliknięciu w tabelę
         initClientToActivityButton(); // Obsługa przycisku zapisu klienta na zajęcia
 
         showInit(); // Pokaż ekran powitalny
         view.setVisible(true);
+        phase.close();
+
+        refreshActivityCombo();     // Załadowanie zajęć do listy rozwijanej (w tle, po pokazaniu okna)
     }
 
     /**
@@ -71,6 +83,10 @@ public class MainController implements ActionListener {
         view.addActivitiesMenuListener(this);
         view.addInitMenuListener(this);
         view.addPerformsMenuListener(this);
+        // Eksport nie przełącza widoku, więc nie przechodzi przez actionPerformed
+        view.addExportMenuListener(e -> exportCurrentView());
+        view.addImportClientsMenuListener(e -> importClients());
+        view.addActivityStatsMenuListener(e -> activityControllerTable.showAllStatistics());
 
         // Używamy dedykowanych klas wewnętrznych dla głównych przycisków akcji
         view.addNowyListener(new ActionListenerForAddButton());
@@ -85,6 +101,8 @@ public class MainController implements ActionListener {
         view.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                AsyncExecutor.shutdown();
+                EdtWatchdog.logSummary();
                 HibernateUtil.close();
                 System.exit(0);
             }
@@ -92,14 +110,23 @@ public class MainController implements ActionListener {
     }
 
     /**
-     * Pobiera aktualne aktywności z bazy i odświeża JComboBox w panelu zapisów.
+     * Zamyka okno główne bez zamykania aplikacji (np. po nieudanej migracji bazy,
+     * przed powrotem do okna logowania).
+     */
+    public void dispose() {
+        view.dispose();
+    }
+
+    /**
+     * Pobiera (w tle) aktualne aktywności z bazy i odświeża JComboBox w panelu zapisów.
      */
     public void refreshActivityCombo() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            List<Activity> list = activityDAO.findAllActivities(session);
-            
+        AsyncExecutor.submit("combo:activities", view, () -> {
+            try (Session session = sessionFactory.openSession();
+                    StartupTimeline.Phase phase = StartupTimeline.begin("combo:activities")) {
+                return activityDAO.findAllActivities(session);
+            }
+        }, list -> {
             // Customowy renderer, aby w ComboBox wyświetlać nazwy aktywności, a nie adresy obiektów
             view.jComboBoxClientToActivity.setRenderer(new javax.swing.DefaultListCellRenderer() {
                 @Override
@@ -117,11 +144,9 @@ public class MainController implements ActionListener {
             for (Activity a : list) {
                 combo.addItem(a);
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd odświeżania ComboBox", e);
-        } finally {
-            if (session != null) session.close();
-        }
+            // Pierwsze wypełnienie listy kończy uruchamianie - okno jest w pełni użyteczne
+            StartupTimeline.report("usable");
+        }, ex -> LOGGER.log(Level.SEVERE, "Błąd odświeżania ComboBox", ex));
     }
 
     /**
@@ -154,93 +179,209 @@ public class MainController implements ActionListener {
                 JOptionPane.showMessageDialog(view, "Błąd: Wybierz klienta w tabeli i aktywność z listy!", "Błąd", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            handleSaveEnrollment(clientCode, (Activity) selectedItem);
+            try (JfrEvents.Action action = JfrEvents.action(currentView, "Enroll", "Performs")) {
+                handleSaveEnrollment(clientCode, (Activity) selectedItem);
+            }
         });
     }
 
     /**
      * Zapisuje relację między Klientem a Aktywnością w bazie (Tabela PERFORMS).
+     * Transakcja wykonywana jest w tle, komunikat wyświetlany po jej zakończeniu.
      */
     private void handleSaveEnrollment(String clientCode, Activity activity) {
+        // Ponowne kliknięcie w trakcie zapisu jest ignorowane (bez powtórnego komunikatu)
+        String taskKey = "enroll:" + clientCode + ":" + activity.getAId();
+        if (AsyncExecutor.isRunning(taskKey)) {
+            return;
+        }
+        AsyncExecutor.submit(taskKey, view,
+                () -> saveEnrollment(clientCode, activity.getAId(), activity.getAName()),
+                message -> {
+                    if (message != null) {
+                        JOptionPane.showMessageDialog(view, message);
+                    }
+                },
+                ex -> JOptionPane.showMessageDialog(view, "Błąd zapisu: " + ex.getMessage()));
+    }
+
+    /**
+     * Zapis relacji w bazie (wątek tła) - pojedynczy wiersz PERFORMS, bez ładowania
+     * listy uczestników aktywności.
+     * @return Komunikat dla użytkownika lub null, jeśli klient lub aktywność nie istnieją.
+     */
+    private String saveEnrollment(String clientCode, String activityId, String activityName) {
         Session session = null;
         Transaction tr = null;
         try {
+            // Zapis zwiększa liczniki statystyk aktywności
+            StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
             session = sessionFactory.openSession();
             tr = session.beginTransaction();
-            
-            // Pobieramy obiekty w ramach bieżącej sesji (Managed state)
-            Client client = session.find(Client.class, clientCode);
-            Activity managedActivity = session.find(Activity.class, activity.getAId());
 
-            if (client != null && managedActivity != null) {
-                if (managedActivity.getClientSet() == null) {
-                    managedActivity.setClientSet(new java.util.HashSet<>());
-                }
-                
-                // Set automatycznie pilnuje unikalności (klient nie zapisze się dwa razy na to samo)
-                boolean added = managedActivity.getClientSet().add(client);
-                if (!added) {
-                    JOptionPane.showMessageDialog(view, "Ten klient jest już zapisany na tę aktywność!");
-                    tr.rollback();
-                    return;
-                }
-                
-                session.merge(managedActivity);
+            // INSERT ... SELECT pomija istniejący zapis oraz nieistniejącego klienta/aktywność
+            if (performsDAO.enroll(session, activityId, clientCode)) {
+                // Imię i nazwisko klienta do komunikatu (encja zwykle z cache drugiego poziomu)
+                String clientName = session.find(Client.class, clientCode).getMName();
                 tr.commit();
-                JOptionPane.showMessageDialog(view, "Zapisano pomyślnie: " + client.getMName() + " -> " + managedActivity.getAName());
+                return "Zapisano pomyślnie: " + clientName + " -> " + activityName;
             }
-        } catch (Exception ex) {
-            if (tr != null) tr.rollback();
-            LOGGER.log(Level.SEVERE, "Błąd zapisu relacji", ex);
-            JOptionPane.showMessageDialog(view, "Błąd zapisu: " + ex.getMessage());
+            tr.rollback();
+            return performsDAO.isEnrolled(session, activityId, clientCode)
+                    ? "Ten klient jest już zapisany na tę aktywność!"
+                    : null;
+        } catch (RuntimeException ex) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw ex;
         } finally {
             if (session != null) session.close();
         }
     }
 
+    /**
+     * Zmienia bieżący widok i przekazuje go do {@link EdtWatchdog} (znacznik próbek blokad EDT).
+     */
+    private void setCurrentView(String view) {
+        currentView = view;
+        EdtWatchdog.setView(view);
+    }
+
     /**
      * Główny przełącznik widoków (obsługa menu górnego).
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        view.clearSearchFields(); // Czyści wyszukiwarkę przy zmianie widoku
-        view.setupTableSorter();
-
-        switch (e.getActionCommand()) {
-            case "ShowClients" -> {
-                resetTableSize();
-                clientControllerTable.showClients();
-                view.setButtonLabels("Dodaj Klienta", "Usuń Klienta", "Edytuj Klienta");
-                currentView = "Client";
-                updatePanelVisibility(true, false, true); // Pokaż panel zapisów
-            }
-            case "ShowTrainers" -> {
-                resetTableSize();
-                trainerControllerTable.showTrainers();
-                view.setButtonLabels("Dodaj Trenera", "Usuń Trenera", "Edytuj Trenera");
-                currentView = "Trainer";
-                updatePanelVisibility(true, false, false);
-            }
-            case "ShowActivities" -> {
-                resetTableSize();
-                activityControllerTable.showActivities();
-                view.setButtonLabels("Dodaj Aktywność", "Usuń Aktywność", "Edytuj Aktywność");
-                currentView = "Activity";
-                updatePanelVisibility(true, true, false); // Pokaż panel kalkulatora ceny
-            }
-            case "ShowPerforms" -> {
-                resetTableSize();
-                performsControllerTable.showPerforms();
-                currentView = "Performs";
-                view.setButtonLabels("", "Wypisz z zajęć", "Zmień zajęcia");
-                updatePanelVisibility(false, false, false); // Ukryj panel "Nowy" (dodawanie relacji jest na dole)
-                view.jUsun.setVisible(true);
-                view.jAktualizuj.setVisible(true);
+        String entityType = switch (e.getActionCommand()) {
+            case "ShowClients" -> "Client";
+            case "ShowTrainers" -> "Trainer";
+            case "ShowActivities" -> "Activity";
+            case "ShowPerforms" -> "Performs";
+            default -> null;
+        };
+        // Zdarzenie JFR akcji (obejmuje też ładowanie tabeli w tle)
+        try (JfrEvents.Action action = JfrEvents.action(currentView, e.getActionCommand(), entityType)) {
+            // Ładowanie poprzedniego widoku jest już nieaktualne
+            AsyncExecutor.cancelAll(AsyncExecutor.TABLE_PREFIX);
+            view.clearSearchFields(); // Czyści wyszukiwarkę przy zmianie widoku
+
+            switch (e.getActionCommand()) {
+                case "ShowClients" -> {
+                    resetTableSize();
+                    clientControllerTable.showClients();
+                    view.setButtonLabels("Dodaj Klienta", "Usuń Klienta", "Edytuj Klienta");
+                    setCurrentView("Client");
+                    updatePanelVisibility(true, false, true); // Pokaż panel zapisów
+                }
+                case "ShowTrainers" -> {
+                    resetTableSize();
+                    trainerControllerTable.showTrainers();
+                    view.setButtonLabels("Dodaj Trenera", "Usuń Trenera", "Edytuj Trenera");
+                    setCurrentView("Trainer");
+                    updatePanelVisibility(true, false, false);
+                }
+                case "ShowActivities" -> {
+                    resetTableSize();
+                    activityControllerTable.showActivities();
+                    view.setButtonLabels("Dodaj Aktywność", "Usuń Aktywność", "Edytuj Aktywność");
+                    setCurrentView("Activity");
+                    updatePanelVisibility(true, true, false); // Pokaż panel kalkulatora ceny
+                }
+                case "ShowPerforms" -> {
+                    resetTableSize();
+                    performsControllerTable.showPerforms();
+                    setCurrentView("Performs");
+                    view.setButtonLabels("", "Wypisz z zajęć", "Zmień zajęcia");
+                    updatePanelVisibility(false, false, false); // Ukryj panel "Nowy" (dodawanie relacji jest na dole)
+                    view.jUsun.setVisible(true);
+                    view.jAktualizuj.setVisible(true);
+                }
+                case "ShowInit" -> showInit();
             }
-            case "ShowInit" -> showInit();
         }
     }
 
+    /**
+     * Eksportuje bieżący widok tabeli do pliku CSV wskazanego przez użytkownika
+     * (rozszerzenie .gz włącza kompresję). Eksport wykonywany jest w tle strumieniowo,
+     * bez ładowania wszystkich wierszy do pamięci.
+     */
+    private void exportCurrentView() {
+        CsvExporter.Table table = switch (currentView) {
+            case "Client" -> CsvExporter.Table.CLIENTS;
+            case "Trainer" -> CsvExporter.Table.TRAINERS;
+            case "Activity" -> CsvExporter.Table.ACTIVITIES;
+            case "Performs" -> CsvExporter.Table.PERFORMS;
+            default -> null;
+        };
+        if (table == null) {
+            JOptionPane.showMessageDialog(view, "Wybierz widok tabeli (Klienci, Trenerzy, Aktywności lub Zapisy).");
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Eksport do CSV");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV (*.csv, *.csv.gz)", "csv", "gz"));
+        chooser.setSelectedFile(new File(table.getFileName() + ".csv"));
+        if (chooser.showSaveDialog(view) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path target = chooser.getSelectedFile().toPath();
+
+        // Klucz obejmuje plik - eksport do innego pliku nie jest scalany z trwającym
+        String taskKey = "export:" + table + ":" + target.toAbsolutePath();
+        if (AsyncExecutor.isRunning(taskKey)) {
+            JOptionPane.showMessageDialog(view, "Eksport do " + target + " jest w toku.");
+            return;
+        }
+        AsyncExecutor.submit(taskKey, view,
+                () -> CsvExporter.export(sessionFactory, table, target),
+                rows -> JOptionPane.showMessageDialog(view, "Wyeksportowano " + rows + " wierszy do " + target),
+                ex -> JOptionPane.showMessageDialog(view, "Błąd eksportu: " + ex.getMessage(), "Błąd", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Importuje klientów z pliku CSV wskazanego przez użytkownika (import zbiorczy w tle).
+     * Po zakończeniu wyświetla podsumowanie z przepustowością i pierwszymi błędami wierszy.
+     */
+    private void importClients() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import klientów z CSV");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV (*.csv, *.csv.gz)", "csv", "gz"));
+        if (chooser.showOpenDialog(view) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path source = chooser.getSelectedFile().toPath();
+
+        // Klucz obejmuje plik - ponowny import tego samego pliku w trakcie importu jest odrzucany
+        String taskKey = "import:clients:" + source.toAbsolutePath();
+        if (AsyncExecutor.isRunning(taskKey)) {
+            JOptionPane.showMessageDialog(view, "Import pliku " + source + " jest w toku.");
+            return;
+        }
+        AsyncExecutor.submit(taskKey, view,
+                () -> ClientImporter.importCsv(sessionFactory, source),
+                report -> {
+                    StringBuilder message = new StringBuilder(String.format(
+                            "Zaimportowano %d z %d klientów w %d ms (%.0f wierszy/s).",
+                            report.imported(), report.rows(), report.totalMillis(), report.rowsPerSecond()));
+                    if (!report.errors().isEmpty()) {
+                        message.append("\n\nOdrzucone wiersze: ").append(report.errors().size());
+                        report.errors().stream().limit(IMPORT_ERRORS_SHOWN)
+                                .forEach(err -> message.append("\n").append(err));
+                        if (report.errors().size() > IMPORT_ERRORS_SHOWN) {
+                            message.append("\n... (pełna lista w logu aplikacji)");
+                            report.errors().forEach(err -> LOGGER.warning("Import klientów - " + err));
+                        }
+                    }
+                    JOptionPane.showMessageDialog(view, message.toString(), "Import klientów",
+                            report.errors().isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                    if ("Client".equals(currentView)) {
+                        clientControllerTable.showClients();
+                    }
+                },
+                ex -> JOptionPane.showMessageDialog(view, "Błąd importu: " + ex.getMessage(), "Błąd", JOptionPane.ERROR_MESSAGE));
+    }
+
     /**
      * Steruje widocznością paneli bocznych i dolnych w zależności od kontekstu.
      */
@@ -270,7 +411,7 @@ public class MainController implements ActionListener {
         }
         updatePanelVisibility(false, false, false);
         view.viewNameLabel.setText("System ISDD - Ekran Startowy");
-        currentView = "Init";
+        setCurrentView("Init");
         view.pack();
         view.revalidate();
         view.repaint();
@@ -303,33 +444,84 @@ public class MainController implements ActionListener {
     }
 
     /**
-     * Usuwa wybraną encję z bazy danych za pomocą odpowiedniego DAO.
+     * Usuwa (w tle) wybraną encję z bazy danych za pomocą odpowiedniego DAO
+     * i po zatwierdzeniu usuwa jej wiersz z tabeli.
      */
     private void deleteEntity(String type, String code) {
-        Session session = null;
-        Transaction tr = null;
-        try {
-            session = sessionFactory.openSession();
-            tr = session.beginTransaction();
-            boolean success = switch (type) {
-                case "Client" -> clientDAO.deleteClientByMemberNumber(session, code);
-                case "Trainer" -> trainerDAO.deleteTrainerById(session, code);
-                case "Activity" -> activityDAO.deleteActivityById(session, code);
-                default -> false;
-            };
-            
+        String taskKey = "delete:" + type + ":" + code;
+        if (AsyncExecutor.isRunning(taskKey)) {
+            return;
+        }
+        AsyncExecutor.submit(taskKey, view, () -> {
+            Session session = null;
+            Transaction tr = null;
+            try {
+                if (!type.equals("Trainer")) {
+                    // Usunięcie klienta lub aktywności zmienia liczniki statystyk aktywności
+                    StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+                }
+                session = sessionFactory.openSession();
+                tr = session.beginTransaction();
+                boolean success = switch (type) {
+                    case "Client" -> clientDAO.deleteClientByMemberNumber(session, code);
+                    case "Trainer" -> trainerDAO.deleteTrainerById(session, code);
+                    case "Activity" -> activityDAO.deleteActivityById(session, code);
+                    default -> false;
+                };
+                if (success) {
+                    // Usunięcie trenera zmienia też wiersze prowadzonych przez niego aktywności
+                    String[] tables = switch (type) {
+                        case "Client" -> new String[]{TableVersionDAO.CLIENT};
+                        case "Trainer" -> new String[]{TableVersionDAO.TRAINER, TableVersionDAO.ACTIVITY};
+                        default -> new String[]{TableVersionDAO.ACTIVITY};
+                    };
+                    TableVersions.forSessionFactory(sessionFactory).bump(session, tables);
+                    tr.commit();
+                    updateScheduleIndex(type, code);
+                } else {
+                    tr.rollback();
+                }
+                return success;
+            } catch (RuntimeException ex) {
+                if (tr != null && tr.isActive()) tr.rollback();
+                throw ex;
+            } finally {
+                if (session != null) session.close();
+            }
+        }, success -> {
             if (success) {
-                tr.commit();
-                // Odświeżenie widoku po usunięciu
-                if ("Client".equals(type)) clientControllerTable.showClients();
-                else if ("Trainer".equals(type)) trainerControllerTable.showTrainers();
-                else activityControllerTable.showActivities();
+                // Usunięcie pojedynczego wiersza z widoku (bez przeładowania tabeli)
+                if ("Client".equals(type)) clientControllerTable.clientDeleted(code);
+                else if ("Trainer".equals(type)) trainerControllerTable.trainerDeleted(code);
+                else activityControllerTable.activityDeleted(code);
             }
-        } catch (Exception ex) {
-            if (tr != null) tr.rollback();
-            LOGGER.log(Level.SEVERE, "Błąd usuwania", ex);
-        } finally {
-            if (session != null) session.close();
+        }, ex -> LOGGER.log(Level.SEVERE, "Błąd usuwania", ex));
+    }
+
+    /**
+     * Aktualizuje indeks grafiku trenerów po usunięciu aktywności lub trenera.
+     */
+    private void updateScheduleIndex(String type, String code) {
+        TrainerScheduleIndex schedule = TrainerScheduleIndex.forSessionFactory(sessionFactory);
+        if ("Activity".equals(type)) {
+            schedule.remove(code);
+        } else if ("Trainer".equals(type)) {
+            // Aktywności usuniętego trenera mogły zostać zmienione przez bazę danych
+            schedule.invalidate();
+        }
+    }
+
+    /**
+     * Pobiera encję danego typu po kluczu głównym (wątek tła).
+     */
+    private Object findEntity(String type, String code) {
+        try (Session session = sessionFactory.openSession()) {
+            return switch (type) {
+                case "Client" -> clientDAO.returnClientByMemberNumber(session, code);
+                case "Trainer" -> trainerDAO.getTrainerByCod(session, code);
+                case "Activity" -> activityDAO.findActivityById(session, code);
+                default -> null;
+            };
         }
     }
 
@@ -339,7 +531,9 @@ public class MainController implements ActionListener {
     private class ActionListenerForAddButton implements ActionListener {
         public void actionPerformed(ActionEvent e) {
             if (!"Performs".equals(currentView)) {
-                handleFormAction(null, currentView);
+                try (JfrEvents.Action action = JfrEvents.action(currentView, "Add", currentView)) {
+                    handleFormAction(null, currentView);
+                }
             }
         }
     }
@@ -353,18 +547,33 @@ public class MainController implements ActionListener {
                 return;
             }
 
-            // W innym przypadku pobieramy zaznaczony obiekt z odpowiedniego kontrolera
-            Object entity = switch (currentView) {
-                case "Client" -> clientControllerTable.getSelectedClient();
-                case "Trainer" -> trainerControllerTable.getSelectedTrainer();
-                case "Activity" -> activityControllerTable.getSelectedActivity();
+            // W innym przypadku pobieramy kod zaznaczonego wiersza, a pełny obiekt wczytujemy w tle
+            String type = currentView;
+            String code = switch (type) {
+                case "Client" -> view.getSelectedClientCode();
+                case "Trainer" -> view.getSelectedTrainerCode();
+                case "Activity" -> view.getSelectedActivityCode();
                 default -> null;
             };
 
-            if (entity != null) {
-                handleFormAction(entity, currentView);
-            } else {
+            if (code == null || code.trim().isEmpty()) {
                 JOptionPane.showMessageDialog(view, "Proszę zaznaczyć element do edycji.");
+                return;
+            }
+
+            // Formularz otwierany raz - ponowne kliknięcie w trakcie wczytywania jest ignorowane
+            String taskKey = "edit:" + type + ":" + code;
+            if (AsyncExecutor.isRunning(taskKey)) {
+                return;
+            }
+            try (JfrEvents.Action action = JfrEvents.action(type, "Update", type)) {
+                AsyncExecutor.submit(taskKey, view, () -> findEntity(type, code), entity -> {
+                    if (entity != null) {
+                        handleFormAction(entity, type);
+                    } else {
+                        JOptionPane.showMessageDialog(view, "Proszę zaznaczyć element do edycji.");
+                    }
+                });
             }
         }
     }
@@ -393,7 +602,10 @@ public class MainController implements ActionListener {
                         JOptionPane.YES_NO_OPTION);
 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    deleteEntity(currentView, code);
+                    // Zdarzenie JFR bez czasu oczekiwania na potwierdzenie
+                    try (JfrEvents.Action action = JfrEvents.action(currentView, "Delete", currentView)) {
+                        deleteEntity(currentView, code);
+                    }
                 }
             } else {
                 JOptionPane.showMessageDialog(view, "Proszę najpierw zaznaczyć element w tabeli.");
@@ -2,10 +2,13 @@ package Controllers;
 
 import Models.Activity;
 import Models.ActivityDAO;
-import Models.Client;
+import Models.PerformsDAO;
+import Utils.AsyncExecutor;
+import Utils.StartupTasks;
 import Views.MainWindow;
 import java.util.List;
 import javax.swing.JOptionPane;
+import javax.swing.table.TableModel;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -14,12 +17,17 @@ import org.hibernate.query.Query;
 /**
  * Kontroler zarządzający powiązaniami między Aktywnościami a Klientami (tabela PERFORMS).
  * Odpowiada za wyświetlanie, usuwanie i edycję zapisów w tabeli asocjacyjnej Many-to-Many.
+ * Zmiany wykonywane są bezpośrednio na wierszach PERFORMS przez {@link PerformsDAO}.
  */
 public class PerformsControllerTable {
 
+    /** Klucz zadania ładującego tabelę zapisów. */
+    private static final String TASK_KEY = AsyncExecutor.TABLE_PREFIX + "Performs";
+
     private final SessionFactory sessionFactory;
     private final MainWindow view;
     private final ActivityDAO activityDAO = new ActivityDAO();
+    private final PerformsDAO performsDAO = new PerformsDAO();
 
     public PerformsControllerTable(SessionFactory sessionFactory, MainWindow view) {
         this.sessionFactory = sessionFactory;
@@ -27,12 +35,23 @@ public class PerformsControllerTable {
     }
 
     /**
-     * Pobiera z bazy danych listę wszystkich zapisów (relacji klient-aktywność)
+     * Pobiera z bazy danych (w tle) listę wszystkich zapisów (relacji klient-aktywność)
      * i odświeża widok tabeli w oknie głównym.
      */
     public void showPerforms() {
-        Session session = sessionFactory.openSession();
-        try {
+        AsyncExecutor.submit(TASK_KEY, view, this::loadPerformsModel, model -> {
+            // Aktualizacja nagłówka i danych w GUI
+            view.setViewName("Lista Zapisów (Zarządzanie)");
+            view.setTableModel(model);
+            view.setupTableSorter();
+        });
+    }
+
+    /**
+     * Buduje model tabeli zapisów (wątek tła).
+     */
+    private TableModel loadPerformsModel() {
+        try (Session session = sessionFactory.openSession()) {
             // HQL łączący Aktywność z kolekcją klientów (clientSet)
             String hql = "SELECT a.aId, a.aName, c.mNum, c.mName, c.mId " +
                          "FROM Activity a JOIN a.clientSet c";
@@ -49,28 +68,9 @@ public class PerformsControllerTable {
                 "Dokument (PESEL/DNI)"
             };
             
-            // Konwersja listy wyników na macierz obiektów akceptowaną przez JTable
-            Object[][] data = new Object[results.size()][5];
-
-            for (int i = 0; i < results.size(); i++) {
-                Object[] row = results.get(i);
-                data[i][0] = row[0]; // ID Aktywności
-                data[i][1] = row[1]; // Nazwa Aktywności
-                data[i][2] = row[2]; // Klucz główny klienta (mNum)
-                data[i][3] = row[3]; // Imię i nazwisko
-                data[i][4] = row[4]; // PESEL/DNI
-            }
-
-            // Aktualizacja nagłówka i danych w GUI
-            view.setViewName("Lista Zapisów (Zarządzanie)");
-            view.setTableData(columnNames, data);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            if (session != null) {
-                session.close();
-            }
+            // Wiersze zapytania mają już układ kolumn tabeli
+            Object[][] data = results.toArray(new Object[0][]);
+            return MainWindow.createTableModel(columnNames, data);
         }
     }
 
@@ -103,7 +103,7 @@ public class PerformsControllerTable {
     
     /**
      * Usuwa relację między wybranym klientem a aktywnością.
-     * Działa poprzez usunięcie obiektu klienta z kolekcji Set w obiekcie Activity.
+     * Działa poprzez usunięcie pojedynczego wiersza z tabeli PERFORMS.
      */
     public void deletePerforms() {
         String actId = getSelectedActivityId();
@@ -119,36 +119,43 @@ public class PerformsControllerTable {
                 "Potwierdź wypisanie", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            Session session = null;
-            Transaction tr = null;
-            try {
-                session = sessionFactory.openSession();
-                tr = session.beginTransaction();
-
-                // Pobranie pełnych encji z bazy danych
-                Activity activity = session.find(Activity.class, actId);
-                Client client = session.find(Client.class, clientNum);
-
-                if (activity != null && client != null) {
-                    // W relacjach Many-to-Many zarządzanych przez Hibernate, 
-                    // usunięcie elementu z Set-a i wykonanie merge usuwa wpis w tabeli pośredniczącej.
-                    if (activity.getClientSet().contains(client)) {
-                        activity.getClientSet().remove(client);
-                        session.merge(activity); 
-                        tr.commit();
-                        JOptionPane.showMessageDialog(view, "Wypisano pomyślnie.");
-                    } else {
-                        JOptionPane.showMessageDialog(view, "Błąd: Brak powiązania w bazie.");
-                    }
-                }
-            } catch (Exception e) {
-                if (tr != null) tr.rollback();
-                e.printStackTrace();
-                JOptionPane.showMessageDialog(view, "Błąd usuwania relacji: " + e.getMessage());
-            } finally {
-                if (session != null) session.close();
-                showPerforms(); // Odświeżenie tabeli po operacji
+            String taskKey = "performs:delete:" + actId + ":" + clientNum;
+            if (AsyncExecutor.isRunning(taskKey)) {
+                return;
             }
+            AsyncExecutor.submit(taskKey, view,
+                    () -> removeEnrollment(actId, clientNum),
+                    removed -> {
+                        JOptionPane.showMessageDialog(view, removed ? "Wypisano pomyślnie." : "Błąd: Brak powiązania w bazie.");
+                        reloadPerforms(); // Odświeżenie tabeli po operacji
+                    },
+                    ex -> {
+                        JOptionPane.showMessageDialog(view, "Błąd usuwania relacji: " + ex.getMessage());
+                        reloadPerforms();
+                    });
+        }
+    }
+
+    /**
+     * Usuwa powiązanie w transakcji (wątek tła) - jedna instrukcja DELETE na tabeli PERFORMS.
+     * @return true, jeśli powiązanie istniało i zostało usunięte.
+     */
+    private boolean removeEnrollment(String actId, String clientNum) {
+        Session session = null;
+        Transaction tr = null;
+        try {
+            // Wypisanie zmniejsza liczniki statystyk aktywności
+            StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+            session = sessionFactory.openSession();
+            tr = session.beginTransaction();
+            boolean removed = performsDAO.unenroll(session, actId, clientNum);
+            tr.commit();
+            return removed;
+        } catch (RuntimeException e) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw e;
+        } finally {
+            if (session != null) session.close();
         }
     }
 
@@ -165,11 +172,18 @@ public class PerformsControllerTable {
             return;
         }
 
-        // 1. Pobranie listy dostępnych aktywności, aby użytkownik mógł wybrać nową
-        Session session = sessionFactory.openSession();
-        List<Activity> activities = activityDAO.findAllActivities(session);
-        session.close();
+        // 1. Pobranie listy dostępnych aktywności (w tle), aby użytkownik mógł wybrać nową
+        AsyncExecutor.submit("performs:activities", view, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return activityDAO.findAllActivities(session);
+            }
+        }, activities -> chooseNewActivity(oldActId, clientNum, activities));
+    }
 
+    /**
+     * Wyświetla wybór nowej aktywności i zleca przeniesienie zapisu (EDT).
+     */
+    private void chooseNewActivity(String oldActId, String clientNum, List<Activity> activities) {
         // 2. Przygotowanie tablicy nazw do wyświetlenia w oknie dialogowym (ComboBox)
         String[] activityNames = new String[activities.size()];
         for (int i = 0; i < activities.size(); i++) {
@@ -188,55 +202,80 @@ public class PerformsControllerTable {
         );
 
         // 4. Jeśli użytkownik wybrał nową aktywność
-        if (selectedName != null) {
-
-            // Znalezienie obiektu Activity odpowiadającego wybranej nazwie
-            Activity newActivity = null;
-            for (Activity a : activities) {
-                if (a.getAName().equals(selectedName)) {
-                    newActivity = a;
-                    break;
-                }
+        if (selectedName == null) {
+            return;
+        }
+
+        // Znalezienie obiektu Activity odpowiadającego wybranej nazwie
+        Activity newActivity = null;
+        for (Activity a : activities) {
+            if (a.getAName().equals(selectedName)) {
+                newActivity = a;
+                break;
             }
+        }
+
+        // Sprawdzenie, czy użytkownik nie wybrał tej samej aktywności, która już jest przypisana
+        if (newActivity == null || newActivity.getAId().equals(oldActId)) {
+            return;
+        }
 
-            if (newActivity != null) {
-                // Sprawdzenie, czy użytkownik nie wybrał tej samej aktywności, która już jest przypisana
-                if (newActivity.getAId().equals(oldActId)) {
-                    return; 
-                }
-
-                Session sess = null;
-                Transaction tr = null;
-                try {
-                    sess = sessionFactory.openSession();
-                    tr = sess.beginTransaction();
-
-                    // Pobranie obiektów w bieżącej sesji
-                    Activity oldActivityEntity = sess.find(Activity.class, oldActId);
-                    Activity newActivityEntity = sess.find(Activity.class, newActivity.getAId());
-                    Client clientEntity = sess.find(Client.class, clientNum);
-
-                    if (oldActivityEntity != null && newActivityEntity != null && clientEntity != null) {
-                        // KROK A: Usunięcie klienta ze starej aktywności
-                        oldActivityEntity.getClientSet().remove(clientEntity);
-                        sess.merge(oldActivityEntity);
-
-                        // KROK B: Dodanie klienta do nowej aktywności
-                        newActivityEntity.getClientSet().add(clientEntity);
-                        sess.merge(newActivityEntity);
-
-                        tr.commit();
-                        JOptionPane.showMessageDialog(view, "Zmieniono zajęcia na: " + newActivity.getAName());
-                    }
-                } catch (Exception e) {
-                    if (tr != null) tr.rollback();
-                    e.printStackTrace();
-                    JOptionPane.showMessageDialog(view, "Błąd edycji: " + e.getMessage());
-                } finally {
-                    if (sess != null) sess.close();
-                    showPerforms(); // Odświeżenie tabeli
-                }
+        String newActId = newActivity.getAId();
+        String newActName = newActivity.getAName();
+        String taskKey = "performs:move:" + clientNum;
+        if (AsyncExecutor.isRunning(taskKey)) {
+            return;
+        }
+        AsyncExecutor.submit(taskKey, view,
+                () -> moveEnrollment(oldActId, newActId, clientNum),
+                moved -> {
+                    JOptionPane.showMessageDialog(view, moved
+                            ? "Zmieniono zajęcia na: " + newActName
+                            : "Nie przeniesiono zapisu na: " + newActName
+                                    + " (klient jest już na nie zapisany lub zapis albo zajęcia zostały usunięte).");
+                    reloadPerforms(); // Odświeżenie tabeli
+                },
+                ex -> {
+                    JOptionPane.showMessageDialog(view, "Błąd edycji: " + ex.getMessage());
+                    reloadPerforms();
+                });
+    }
+
+    /**
+     * Przenosi klienta między aktywnościami w jednej transakcji (wątek tła),
+     * aktualizując wiersz PERFORMS zamiast kolekcji obu aktywności.
+     * Jeśli żaden zapis nie został przeniesiony (brak zapisu źródłowego, klient zapisany już
+     * na zajęcia docelowe lub brak aktywności docelowej), transakcja jest wycofywana.
+     * @return true, jeśli zapis został przeniesiony i zmiana zatwierdzona.
+     */
+    private boolean moveEnrollment(String oldActId, String newActId, String clientNum) {
+        Session sess = null;
+        Transaction tr = null;
+        try {
+            // Przeniesienie zmienia liczniki statystyk obu aktywności
+            StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+            sess = sessionFactory.openSession();
+            tr = sess.beginTransaction();
+
+            if (performsDAO.moveAll(sess, oldActId, newActId, List.of(clientNum)) <= 0) {
+                tr.rollback();
+                return false;
             }
+            tr.commit();
+            return true;
+        } catch (RuntimeException e) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw e;
+        } finally {
+            if (sess != null) sess.close();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Ponownie wczytuje tabelę zapisów po zmianie, pomijając scalanie z ładowaniem w toku.
+     */
+    private void reloadPerforms() {
+        AsyncExecutor.cancel(TASK_KEY);
+        showPerforms();
+    }
+}
@@ -1,16 +1,22 @@
 package Controllers;
 
+import Config.JfrEvents;
 import Models.Trainer;
+import Models.TableVersionDAO;
 import Models.TrainerDAO;
 import Views.DataUpdateWindow;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import Utils.AsyncExecutor;
+import Utils.CodeGenerator;
+import Utils.TableVersions;
 import Utils.TrainerControllerTable;
 import javax.swing.JOptionPane;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -57,12 +63,6 @@ public class TrainerDataController {
      */
     private final Trainer trainerToUpdate;
 
-    /**
-     * Formatator służący do konwersji obiektów {@link Date} na format tekstowy
-     * akceptowany przez bazę danych.
-     */
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-
     /**
      * Konstruktor inicjalizujący kontroler danych trenera. Ustawia słuchacze
      * zdarzeń dla przycisków zatwierdzania i anulowania zmian w widoku.
@@ -133,16 +133,10 @@ public class TrainerDataController {
         view.setEmail(trainerToUpdate.getTEmail());
         view.setKategoria(trainerToUpdate.getTNick());
 
-        try {
-            String dateStr = trainerToUpdate.getTDate();
-            if (dateStr != null && !dateStr.isEmpty()) {
-                view.setSelectedDate(dateFormat.parse(dateStr));
-            } else {
-                view.setSelectedDate(new Date());
-            }
-        } catch (Exception e) {
-            view.setSelectedDate(new Date());
-        }
+        LocalDate date = trainerToUpdate.getTDate();
+        view.setSelectedDate(date != null
+                ? Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant())
+                : new Date());
     }
 
     /**
@@ -150,45 +144,16 @@ public class TrainerDataController {
      * kod trenera oraz ustawiając bieżącą datę jako domyślną datę zatrudnienia.
      */
     private void initializeFormWithAutoData() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            String maxNum = trainerDAO.getMaxTrainerCode(session);
-            String newNum = generateNextTrainerCode(maxNum);
-
-            view.jKod.setText(newNum);
-            view.jKod.setEditable(false);
-
-            view.setSelectedDate(new Date());
-            view.setKategoria("");
+        view.jKod.setEditable(false);
+        view.setSelectedDate(new Date());
+        view.setKategoria("");
 
-        } catch (Exception ex) {
+        // Kod z bloku zarezerwowanego w CODE_SEQUENCE - zapytanie tylko po wyczerpaniu bloku
+        CodeGenerator codes = CodeGenerator.forSessionFactory(sessionFactory);
+        AsyncExecutor.submit(null, view, codes::nextTrainerCode, view.jKod::setText, ex -> {
             LOGGER.log(Level.SEVERE, "Błąd podczas inicjalizacji kodu trenera.", ex);
             view.jKod.setText("BŁĄD");
-        } finally {
-            if (session != null) {
-                session.close();
-            }
-        }
-    }
-
-    /**
-     * Generuje następny logiczny kod trenera (np. T001 -> T002).
-     *
-     * * @param maxNum Aktualny najwyższy kod trenera pobrany z bazy danych.
-     * @return Nowy wygenerowany kod w formacie "T00X".
-     */
-    private String generateNextTrainerCode(String maxNum) {
-        if (maxNum == null || maxNum.length() < 2 || !maxNum.matches("[A-Z]\\d+")) {
-            return "T001";
-        }
-        try {
-            String prefix = maxNum.substring(0, 1);
-            int nextNum = Integer.parseInt(maxNum.substring(1)) + 1;
-            return prefix + String.format("%03d", nextNum);
-        } catch (Exception e) {
-            return "T001";
-        }
+        });
     }
 
     /**
@@ -212,6 +177,13 @@ public class TrainerDataController {
 
         @Override
         public void actionPerformed(ActionEvent e) {
+            // Zdarzenie JFR zatwierdzenia formularza (obejmuje zapis w tle)
+            try (JfrEvents.Action action = JfrEvents.action("TrainerForm", trainerToUpdate == null ? "Insert" : "Update", "Trainer")) {
+                submit();
+            }
+        }
+
+        private void submit() {
 
             // 1. Zbieranie danych z pól formularza
             String tCod = view.getKod().trim();
@@ -254,75 +226,75 @@ public class TrainerDataController {
                 }
             }
 
-            String formattedDate = dateFormat.format(selectedDate);
-
-            Session session = null;
-            Transaction tr = null;
+            LocalDate hireDate = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 
-            try {
-                session = sessionFactory.openSession();
-                tr = session.beginTransaction();
+            // Zapis w tle; ponowne kliknięcie "Akceptuj" w trakcie zapisu jest ignorowane
+            String taskKey = "form:trainer:" + tCod;
+            if (AsyncExecutor.isRunning(taskKey)) {
+                return;
+            }
+            AsyncExecutor.submit(taskKey, view, () -> {
+                Session session = null;
+                Transaction tr = null;
+                try {
+                    session = sessionFactory.openSession();
+                    tr = session.beginTransaction();
+
+                    // 3. Sprawdzanie unikalności ID Numeru trenera
+                    if (trainerDAO.existTrainerID(session, tIdNumber)) {
+                        boolean isAddingNew = trainerToUpdate == null;
+                        boolean isChangingId = trainerToUpdate != null && !tIdNumber.equals(trainerToUpdate.getTidNumber());
+
+                        if (isAddingNew || isChangingId) {
+                            tr.rollback();
+                            return "ID Trenera już istnieje w bazie.";
+                        }
+                    }
 
-                // 3. Sprawdzanie unikalności ID Numeru trenera
-                if (trainerDAO.existTrainerID(session, tIdNumber)) {
-                    boolean isAddingNew = trainerToUpdate == null;
-                    boolean isChangingId = trainerToUpdate != null && !tIdNumber.equals(trainerToUpdate.getTidNumber());
+                    // 4. Wykonanie zapisu lub aktualizacji
+                    if (trainerToUpdate == null) {
+                        Trainer newTrainer = new Trainer(tCod, tName, tIdNumber, hireDate);
+                        newTrainer.setTphoneNumber(tPhone);
+                        newTrainer.setTEmail(tEmail);
+                        newTrainer.setTNick(tNick);
+                        trainerDAO.insertTrainer(session, newTrainer);
+                    } else {
+                        trainerToUpdate.setTName(tName);
+                        trainerToUpdate.setTidNumber(tIdNumber);
+                        trainerToUpdate.setTphoneNumber(tPhone);
+                        trainerToUpdate.setTEmail(tEmail);
+                        trainerToUpdate.setTDate(hireDate);
+                        trainerToUpdate.setTNick(tNick);
+                        trainerDAO.updateTrainer(session, trainerToUpdate);
+                    }
 
-                    if (isAddingNew || isChangingId) {
-                        JOptionPane.showMessageDialog(view, "ID Trenera już istnieje w bazie.", "Błąd", JOptionPane.ERROR_MESSAGE);
+                    // Wiersze aktywności zawierają nazwisko trenera - ich wersja także się zmienia
+                    TableVersions.forSessionFactory(sessionFactory).bump(session, TableVersionDAO.TRAINER,
+                            TableVersionDAO.ACTIVITY);
+                    tr.commit();
+                    return null;
+                } catch (Exception ex) {
+                    if (tr != null && tr.isActive()) {
                         tr.rollback();
-                        return;
+                    }
+                    throw ex;
+                } finally {
+                    if (session != null) {
+                        session.close();
                     }
                 }
-
-                // 4. Wykonanie zapisu lub aktualizacji
-                if (trainerToUpdate == null) {
-                    Trainer newTrainer = new Trainer(tCod, tName, tIdNumber, formattedDate);
-                    newTrainer.setTphoneNumber(tPhone);
-                    newTrainer.setTEmail(tEmail);
-                    newTrainer.setTNick(tNick);
-                    trainerDAO.insertTrainer(session, newTrainer);
-                } else {
-                    trainerToUpdate.setTName(tName);
-                    trainerToUpdate.setTidNumber(tIdNumber);
-                    trainerToUpdate.setTphoneNumber(tPhone);
-                    trainerToUpdate.setTEmail(tEmail);
-                    trainerToUpdate.setTDate(formattedDate);
-                    trainerToUpdate.setTNick(tNick);
-                    trainerDAO.updateTrainer(session, trainerToUpdate);
+            }, validationError -> {
+                if (validationError != null) {
+                    JOptionPane.showMessageDialog(view, validationError, "Błąd", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
-
-                tr.commit();
                 if (trainerControllerTable != null) {
-                    if (trainerToUpdate == null) {
-                        // Pobierz dane z pól widoku trenera
-                        Object[] newRow = new Object[]{
-                            view.getKod(),
-                            view.getNazwisko(), // Imię i Nazwisko
-                            view.getNumerIdentyfikacyjny(),
-                            view.getTelefon(),
-                            view.getEmail(),
-                            view.getKategoria() // np. Specjalizacja
-                        };
-                        trainerControllerTable.addNewRowToTable(newRow);
-                    } else {
-                        trainerControllerTable.showTrainers();
-                    }
+                    // Wiersz pobierany z bazy po kluczu - bez przeładowania całej tabeli
+                    trainerControllerTable.trainerSaved(tCod);
                 }
                 view.dispose();
                 JOptionPane.showMessageDialog(null, "Dane trenera zostały pomyślnie zapisane.");
-
-            } catch (Exception ex) {
-                if (tr != null) {
-                    tr.rollback();
-                }
-                LOGGER.log(Level.SEVERE, "Błąd zapisu trenera.", ex);
-                JOptionPane.showMessageDialog(view, "Błąd bazy danych: " + ex.getMessage());
-            } finally {
-                if (session != null) {
-                    session.close();
-                }
-            }
+            }, ex -> JOptionPane.showMessageDialog(view, "Błąd bazy danych: " + ex.getMessage()));
         }
     }
 }
@@ -2,6 +2,7 @@ package ControllersCMD;
 
 import Models.Client;
 import Models.ClientDAO;
+import Utils.ClientValidator;
 import ViewsCMD.MessageView;
 import ViewsCMD.ClientView;
 import org.hibernate.Session;
@@ -9,7 +10,7 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Scanner;
 
 /**
@@ -102,19 +103,16 @@ public class ClientController {
             System.out.print("Enter email (optional): ");
             String mEmail = keyboard.nextLine();
 
-            System.out.print("Enter birthdate (yyyy-MM-dd) (optional): ");
-            String mBirthdate = keyboard.nextLine();
+            LocalDate mBirthdate = readDate(keyboard, "Enter birthdate (yyyy-MM-dd or dd/MM/yyyy) (optional): ");
 
             System.out.print("Enter category (A-E): ");
             String category = keyboard.nextLine().trim().toUpperCase();
             char catChar = (category.isEmpty() ? 'A' : category.charAt(0));
 
-            String currentDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-            Client client = new Client(mNum, mName, mId, currentDate, catChar);
+            Client client = new Client(mNum, mName, mId, LocalDate.now(), catChar);
             client.setMPhone(mPhone != null && !mPhone.isBlank() ? mPhone : null);
             client.setMemailMember(mEmail != null && !mEmail.isBlank() ? mEmail : null);
-            client.setMBirthdate(mBirthdate != null && !mBirthdate.isBlank() ? mBirthdate : null);
+            client.setMBirthdate(mBirthdate);
 
             cDAO.insertClient(session, client);
 
@@ -128,6 +126,25 @@ public class ClientController {
         }
     }
 
+    /**
+     * Odczytuje opcjonalną datę z konsoli; przy niepoprawnym formacie wyświetla błąd
+     * i ponawia pytanie.
+     * @param keyboard Skaner wejścia konsoli.
+     * @param prompt Treść pytania.
+     * @return Data lub null, jeśli użytkownik nie podał wartości.
+     */
+    private LocalDate readDate(Scanner keyboard, String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String value = keyboard.nextLine();
+            try {
+                return ClientValidator.parseDate(value);
+            } catch (DateTimeParseException e) {
+                vMessages.consoleMessage("ERROR", "Invalid date: " + value.trim() + ". Use yyyy-MM-dd or dd/MM/yyyy.");
+            }
+        }
+    }
+
     /**
      * Wyszukuje i wyświetla szczegółowe dane klienta na podstawie jego numeru członkowskiego.
      */
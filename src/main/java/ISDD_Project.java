@@ -1,10 +1,13 @@
 import Config.HibernateUtil;
+import Config.JfrEvents;
+import Config.StartupTimeline;
 import Controllers.ConnectionController;
+import Utils.EdtWatchdog;
+import javax.swing.SwingUtilities;
 
 /**
  * Główna klasa projektu ISDD_Project.
- * Odpowiada za zainicjowanie głównego kontrolera aplikacji oraz 
- * prawidłowe zamknięcie sesji Hibernate przy zakończeniu pracy programu.
+ * Odpowiada za zainicjowanie głównego kontrolera aplikacji.
  * * @author Kacper Pudełko
  * @version 1.0
  */
@@ -12,12 +15,15 @@ public class ISDD_Project {
 
     /**
      * Punkt wejścia do aplikacji.
-     * Metoda tworzy instancję {@link ConnectionController}, która zarządza połączeniem,
-     * a następnie zamyka fabrykę sesji za pomocą {@link HibernateUtil#close()}.
+     * Metoda tworzy (w wątku EDT) instancję {@link ConnectionController}, która zarządza
+     * połączeniem i w tle przygotowuje konfigurację Hibernate. Fabryka sesji zamykana jest
+     * za pomocą {@link HibernateUtil#close()} przy zamknięciu okna aplikacji.
      * * @param args Argumenty wiersza poleceń (nieużywane).
      */
     public static void main(String[] args) {
-        new ConnectionController();
-        HibernateUtil.close();
+        StartupTimeline.milestone("main");
+        EdtWatchdog.install(); // Próbki blokad wątku EDT (przed utworzeniem pierwszego okna)
+        JfrEvents.startRecording(); // Ciągłe nagranie JFR, jeśli włączone (-Disdd.jfr.record=true)
+        SwingUtilities.invokeLater(ConnectionController::new);
     }
 }
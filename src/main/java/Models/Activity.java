@@ -1,6 +1,8 @@
 package Models;
  
+import Config.CacheRegions;
 import jakarta.persistence.Basic;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
@@ -13,15 +15,21 @@ import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
 import java.io.Serializable;
 import java.util.Set;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Klasa encyjna reprezentująca tabelę ACTIVITY w bazie danych.
  * Przechowuje informacje o zajęciach (aktywnościach) oferowanych przez system, 
  * ich harmonogramie, cenach oraz przypisanych trenerach i uczestnikach.
  * Implementuje interfejs {@link Serializable} w celu umożliwienia serializacji stanu obiektu.
+ * Encja oraz kolekcja zapisanych klientów są przechowywane w cache drugiego poziomu
+ * (regiony {@link CacheRegions#ACTIVITY} i {@link CacheRegions#ACTIVITY_CLIENTS}).
  */
 @Entity
 @Table(name = "ACTIVITY")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ACTIVITY)
 @NamedQueries({
     @NamedQuery(name = "Activity.findAll", query = "SELECT a FROM Activity a"),
     @NamedQuery(name = "Activity.findByAId", query = "SELECT a FROM Activity a WHERE a.aId = :aId"),
@@ -72,6 +80,7 @@ public class Activity implements Serializable {
         @JoinColumn(name = "p_id", referencedColumnName = "a_id")}, inverseJoinColumns = {
         @JoinColumn(name = "p_num", referencedColumnName = "m_num")})
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ACTIVITY_CLIENTS)
     private Set<Client> clientSet;
 
     /** * Relacja Many-to-One z encją {@link Trainer}. 
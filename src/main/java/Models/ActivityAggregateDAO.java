@@ -0,0 +1,542 @@
+package Models;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych tabeli ACTIVITY_AGGREGATE - zmaterializowanych statystyk aktywności.
+ * Wiersz o kluczu (aktywność, kategoria członkowska) przechowuje liczbę zapisanych klientów,
+ * sumę ich lat urodzenia, liczbę znanych dat urodzenia oraz przychód po zniżce kategorii.
+ * Statystyki aktywności ({@link #find}) to odczyt kilku wierszy po prefiksie klucza głównego,
+ * niezależny od liczby zapisów.
+ * <p>
+ * Liczniki zmieniane są przyrostowo ({@link #add}) przez {@link PerformsDAO}, {@link ClientDAO}
+ * i {@link ActivityDAO} w tej samej transakcji, w której zmieniają się dane źródłowe. Przyrost
+ * wyznaczany jest zapytaniem grupującym tylko zmieniane wiersze, przed zmianą. Pełne przeliczenie
+ * z wierszy PERFORMS ({@link #recompute}, {@link #rebuild}) służy do odbudowy i weryfikacji.
+ * <p>
+ * Podobnie jak {@link TableVersionDAO} tabela nie jest encją - operacje wykonywane są natywnym SQL
+ * (składnia wspólna dla MariaDB i H2 w trybie MariaDB) z przestrzenią zapytań ACTIVITY_AGGREGATE.
+ * Metody zmieniające wymagają aktywnej transakcji. Klienci bez kategorii członkowskiej (dane
+ * sprzed walidacji formularza; kolumna encji jest wymagana) liczeni są w wierszu kategorii
+ * {@link #NO_CATEGORY}: wliczają się do uczestników, średniego wieku i przychodu (cena bez zniżki),
+ * ale nie są brani pod uwagę przy wyborze najczęstszej kategorii.
+ * Przychód grup wylicza {@link PricingEngine} w pętli po tablicach prymitywnych; po zmianie ceny
+ * lub reguł zniżek wystarczy przeliczyć go z zapisanych liczników ({@link #reprice}), bez odczytu
+ * wierszy PERFORMS.
+ */
+public class ActivityAggregateDAO {
+
+    /**
+     * Liczniki jednej kategorii członkowskiej aktywności (wiersz tabeli lub przyrost).
+     * @param activityId Identyfikator aktywności.
+     * @param category Kategoria członkowska.
+     * @param enrolled Liczba zapisanych klientów.
+     * @param birthYearSum Suma lat urodzenia klientów ze znaną datą urodzenia.
+     * @param birthDates Liczba klientów ze znaną datą urodzenia.
+     * @param revenue Przychód po zniżce kategorii (PLN).
+     */
+    public record Counters(String activityId, char category, long enrolled, long birthYearSum,
+            long birthDates, double revenue) {
+
+        /** Liczniki ze zmienionym znakiem (odjęcie przyrostu). */
+        Counters negate() {
+            return new Counters(activityId, category, -enrolled, -birthYearSum, -birthDates, -revenue);
+        }
+    }
+
+    /** Kategoria wiersza liczników klientów bez kategorii członkowskiej (bez reguły zniżki). */
+    public static final char NO_CATEGORY = '-';
+
+    /** Nazwa tabeli liczników (przestrzeń zapytań natywnych instrukcji). */
+    private static final String TABLE = "ACTIVITY_AGGREGATE";
+
+    /** Kategoria klienta w zapytaniach przeliczających (NULL jako {@link #NO_CATEGORY}). */
+    private static final String CATEGORY = "COALESCE(c.m_categoryMember, '" + NO_CATEGORY + "')";
+
+    /** Instrukcja tworząca tabelę liczników, jeśli jeszcze nie istnieje. */
+    private static final String CREATE_TABLE_SQL
+            = "CREATE TABLE IF NOT EXISTS ACTIVITY_AGGREGATE ("
+            + "a_id VARCHAR(255) NOT NULL, "
+            + "category CHAR(1) NOT NULL, "
+            + "enrolled BIGINT NOT NULL, "
+            + "birth_year_sum BIGINT NOT NULL, "
+            + "birth_dates BIGINT NOT NULL, "
+            + "revenue DECIMAL(18,4) NOT NULL, "
+            + "PRIMARY KEY (a_id, category))";
+
+    /** Dodaje przyrost do wiersza liczników (lub zakłada wiersz) jedną instrukcją. */
+    private static final String ADD_SQL
+            = "INSERT INTO ACTIVITY_AGGREGATE (a_id, category, enrolled, birth_year_sum, birth_dates, revenue) "
+            + "VALUES (:aId, :category, :enrolled, :years, :dates, :revenue) "
+            + "ON DUPLICATE KEY UPDATE enrolled = enrolled + VALUES(enrolled), "
+            + "birth_year_sum = birth_year_sum + VALUES(birth_year_sum), "
+            + "birth_dates = birth_dates + VALUES(birth_dates), "
+            + "revenue = revenue + VALUES(revenue)";
+
+    /** Usuwa wiersze kategorii, w których nie ma już zapisanych klientów. */
+    private static final String DELETE_EMPTY_SQL
+            = "DELETE FROM ACTIVITY_AGGREGATE WHERE a_id = :aId AND enrolled <= 0";
+
+    /** Wiersze liczników jednej aktywności (prefiks klucza głównego). */
+    private static final String FIND_SQL
+            = "SELECT a_id, category, enrolled, birth_year_sum, birth_dates, revenue "
+            + "FROM ACTIVITY_AGGREGATE WHERE a_id = :aId";
+
+    /** Wszystkie wiersze liczników (weryfikacja). */
+    private static final String FIND_ALL_SQL
+            = "SELECT a_id, category, enrolled, birth_year_sum, birth_dates, revenue "
+            + "FROM ACTIVITY_AGGREGATE ORDER BY a_id, category";
+
+    /**
+     * Liczniki wszystkich aktywności z nazwami; aktywności bez zapisów zwracane są
+     * z jednym wierszem o pustej kategorii. Wiersze jednej aktywności następują po sobie.
+     */
+    private static final String FIND_WITH_NAMES_SQL
+            = "SELECT a.a_id, g.category, g.enrolled, g.birth_year_sum, g.birth_dates, g.revenue, a.a_name "
+            + "FROM ACTIVITY a LEFT JOIN ACTIVITY_AGGREGATE g ON g.a_id = a.a_id AND g.enrolled > 0 "
+            + "ORDER BY a.a_id";
+
+    /**
+     * Liczniki z bieżącą ceną aktywności (warunek WHERE wstawiany w miejsce {@code %s}).
+     * Kolumny: aktywność, kategoria, liczba zapisów, zapisany przychód, cena.
+     */
+    private static final String PRICED_COUNTERS_SQL
+            = "SELECT g.a_id, g.category, g.enrolled, g.revenue, a.a_price "
+            + "FROM ACTIVITY_AGGREGATE g JOIN ACTIVITY a ON a.a_id = g.a_id %s";
+
+    /** Dokładność kolumny przychodu (różnice poniżej nie wymagają zapisu). */
+    private static final double REVENUE_PRECISION = 0.0001;
+
+    /**
+     * Przeliczenie liczników z wierszy PERFORMS (warunek WHERE wstawiany w miejsce {@code %s}).
+     * Kolumny: aktywność, kategoria, liczba zapisów, suma lat urodzenia, liczba dat, cena aktywności.
+     * Klienci bez kategorii liczeni są w kategorii {@link #NO_CATEGORY}.
+     */
+    private static final String RECOMPUTE_SQL
+            = "SELECT p.p_id, " + CATEGORY + ", COUNT(*), SUM(YEAR(c.m_birthdate)), "
+            + "COUNT(c.m_birthdate), MAX(a.a_price) "
+            + "FROM PERFORMS p JOIN CLIENT c ON c.m_num = p.p_num "
+            + "JOIN ACTIVITY a ON a.a_id = p.p_id "
+            + "%s GROUP BY p.p_id, " + CATEGORY + " ORDER BY p.p_id";
+
+    /**
+     * Przyrost zapisu klientów na aktywność - ten sam warunek co {@code PerformsDAO.ENROLL_SQL}
+     * (istniejący klienci, jeszcze niezapisani). Kolumny jak w {@link #RECOMPUTE_SQL}.
+     */
+    private static final String NEW_ENROLLMENTS_SQL
+            = "SELECT a.a_id, " + CATEGORY + ", COUNT(*), SUM(YEAR(c.m_birthdate)), "
+            + "COUNT(c.m_birthdate), MAX(a.a_price) "
+            + "FROM ACTIVITY a JOIN CLIENT c ON c.m_num IN (:nums) "
+            + "WHERE a.a_id = :aId "
+            + "AND NOT EXISTS (SELECT 1 FROM PERFORMS p WHERE p.p_id = a.a_id AND p.p_num = c.m_num) "
+            + "GROUP BY a.a_id, " + CATEGORY;
+
+    /**
+     * Przyrost przeniesienia zapisów na aktywność docelową - klienci zapisani na źródłową,
+     * a jeszcze nie na docelową (warunek jak w {@code PerformsDAO.MOVE_SQL}).
+     */
+    private static final String MOVED_ENROLLMENTS_SQL
+            = "SELECT a.a_id, " + CATEGORY + ", COUNT(*), SUM(YEAR(c.m_birthdate)), "
+            + "COUNT(c.m_birthdate), MAX(a.a_price) "
+            + "FROM PERFORMS p JOIN CLIENT c ON c.m_num = p.p_num "
+            + "JOIN ACTIVITY a ON a.a_id = :toId "
+            + "WHERE p.p_id = :fromId AND p.p_num IN (:nums) "
+            + "AND NOT EXISTS (SELECT 1 FROM PERFORMS q WHERE q.p_id = a.a_id AND q.p_num = c.m_num) "
+            + "GROUP BY a.a_id, " + CATEGORY;
+
+    /**
+     * Aktywności z zapisami klientów bez kategorii, których liczniki nie mają wiersza
+     * {@link #NO_CATEGORY} (liczniki zbudowane przez wersję pomijającą takich klientów).
+     */
+    private static final String UNCOUNTED_SQL
+            = "SELECT DISTINCT p.p_id FROM PERFORMS p JOIN CLIENT c ON c.m_num = p.p_num "
+            + "WHERE c.m_categoryMember IS NULL AND NOT EXISTS (SELECT 1 FROM ACTIVITY_AGGREGATE g "
+            + "WHERE g.a_id = p.p_id AND g.category = '" + NO_CATEGORY + "') ORDER BY p.p_id";
+
+    /** Konstruktor domyślny klasy ActivityAggregateDAO. */
+    public ActivityAggregateDAO() {
+    }
+
+    /**
+     * Tworzy tabelę ACTIVITY_AGGREGATE, jeśli nie istnieje. W MariaDB instrukcja DDL
+     * zatwierdza bieżącą transakcję, dlatego należy ją wykonać w osobnej transakcji.
+     * @param session Aktualna sesja Hibernate.
+     */
+    public void createTableIfMissing(Session session) {
+        session.createNativeMutationQuery(CREATE_TABLE_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Sprawdza, czy liczniki trzeba zbudować od zera: tabela liczników jest pusta,
+     * a w bazie są już zapisy (baza sprzed wprowadzenia liczników).
+     * @param session Aktualna sesja Hibernate.
+     * @return {@code true}, jeśli potrzebne jest pełne przeliczenie.
+     */
+    public boolean needsRebuild(Session session) {
+        return !exists(session, "SELECT 1 FROM ACTIVITY_AGGREGATE")
+                && exists(session, "SELECT 1 FROM PERFORMS");
+    }
+
+    private boolean exists(Session session, String sql) {
+        return !session.createNativeQuery(sql, Object.class).setMaxResults(1).getResultList().isEmpty();
+    }
+
+    /**
+     * Zwraca aktywności, których liczniki pomijają zapisy klientów bez kategorii
+     * (do odbudowy przez {@link #rebuild}).
+     * @param session Aktualna sesja Hibernate.
+     * @return Identyfikatory aktywności.
+     */
+    public List<String> uncountedActivities(Session session) {
+        return session.createNativeQuery(UNCOUNTED_SQL, String.class).getResultList();
+    }
+
+    /**
+     * Dodaje (lub odejmuje) przyrost liczników. Wiersze kategorii, w których po odjęciu
+     * nie ma już zapisów, są usuwane.
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @param delta Przyrost w podziale na aktywność i kategorię.
+     * @param sign 1 - dodanie, -1 - odjęcie.
+     */
+    public void add(Session session, List<Counters> delta, int sign) {
+        Set<String> touched = new LinkedHashSet<>();
+        for (Counters c : delta) {
+            Counters d = sign < 0 ? c.negate() : c;
+            session.createNativeMutationQuery(ADD_SQL)
+                    .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                    .setParameter("aId", d.activityId())
+                    .setParameter("category", String.valueOf(d.category()))
+                    .setParameter("enrolled", d.enrolled())
+                    .setParameter("years", d.birthYearSum())
+                    .setParameter("dates", d.birthDates())
+                    .setParameter("revenue", d.revenue())
+                    .executeUpdate();
+            touched.add(d.activityId());
+        }
+        if (sign < 0) {
+            for (String aId : touched) {
+                session.createNativeMutationQuery(DELETE_EMPTY_SQL)
+                        .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                        .setParameter("aId", aId)
+                        .executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Przyrost liczników dla zapisu klientów na aktywność (tylko klienci istniejący
+     * i jeszcze niezapisani). Wywoływane przed instrukcją INSERT.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNums Numery członkowskie klientów.
+     * @return Przyrost w podziale na kategorie (pusty, jeśli aktywność nie istnieje).
+     */
+    public List<Counters> newEnrollments(Session session, String activityId, Collection<String> clientNums) {
+        return toCounters(session, session.createNativeQuery(NEW_ENROLLMENTS_SQL, Object[].class)
+                .setParameter("aId", activityId)
+                .setParameterList("nums", clientNums)
+                .getResultList());
+    }
+
+    /**
+     * Bieżący udział podanych klientów w licznikach aktywności (istniejące zapisy).
+     * Wywoływane przed wypisaniem lub przeniesieniem zapisów.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNums Numery członkowskie klientów.
+     * @return Liczniki w podziale na kategorie.
+     */
+    public List<Counters> enrollments(Session session, String activityId, Collection<String> clientNums) {
+        return toCounters(session, session.createNativeQuery(
+                String.format(RECOMPUTE_SQL, "WHERE p.p_id = :aId AND p.p_num IN (:nums)"), Object[].class)
+                .setParameter("aId", activityId)
+                .setParameterList("nums", clientNums)
+                .getResultList());
+    }
+
+    /**
+     * Przyrost liczników aktywności docelowej przy przeniesieniu zapisów (klienci
+     * zapisani na źródłową, a jeszcze nie na docelową). Wywoływane przed instrukcją UPDATE.
+     * @param session Aktualna sesja Hibernate.
+     * @param fromActivityId Identyfikator aktywności źródłowej.
+     * @param toActivityId Identyfikator aktywności docelowej.
+     * @param clientNums Numery członkowskie klientów.
+     * @return Przyrost aktywności docelowej w podziale na kategorie.
+     */
+    public List<Counters> movedEnrollments(Session session, String fromActivityId, String toActivityId,
+            Collection<String> clientNums) {
+        return toCounters(session, session.createNativeQuery(MOVED_ENROLLMENTS_SQL, Object[].class)
+                .setParameter("fromId", fromActivityId)
+                .setParameter("toId", toActivityId)
+                .setParameterList("nums", clientNums)
+                .getResultList());
+    }
+
+    /**
+     * Bieżący udział klienta w licznikach wszystkich aktywności, na które jest zapisany
+     * (kategoria i data urodzenia według stanu w bazie).
+     * @param session Aktualna sesja Hibernate.
+     * @param clientNum Numer członkowski klienta.
+     * @return Liczniki w podziale na aktywności.
+     */
+    public List<Counters> clientEnrollments(Session session, String clientNum) {
+        return toCounters(session, session.createNativeQuery(
+                String.format(RECOMPUTE_SQL, "WHERE p.p_num = :num"), Object[].class)
+                .setParameter("num", clientNum)
+                .getResultList());
+    }
+
+    /**
+     * Przelicza przychód zapisany w licznikach aktywności z liczby zapisów kategorii,
+     * bieżącej ceny i reguł zniżek (po zmianie ceny aktywności).
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @param activityId Identyfikator aktywności.
+     * @return Liczba poprawionych wierszy liczników.
+     */
+    public int reprice(Session session, String activityId) {
+        return reprice(session, session.createNativeQuery(
+                String.format(PRICED_COUNTERS_SQL, "WHERE g.a_id = :aId"), Object[].class)
+                .setParameter("aId", activityId)
+                .getResultList());
+    }
+
+    /**
+     * Przelicza przychód zapisany w licznikach wszystkich aktywności (po zmianie reguł zniżek).
+     * Koszt zależy od liczby wierszy liczników (aktywności x kategorie), nie zapisów.
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @return Liczba poprawionych wierszy liczników.
+     */
+    public int repriceAll(Session session) {
+        return reprice(session, session.createNativeQuery(String.format(PRICED_COUNTERS_SQL, ""), Object[].class)
+                .getResultList());
+    }
+
+    private int reprice(Session session, List<Object[]> rows) {
+        int n = rows.size();
+        int[] basePrices = new int[n];
+        char[] categories = new char[n];
+        long[] counts = new long[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            categories[i] = toChar(row[1]);
+            counts[i] = toLong(row[2]);
+            basePrices[i] = (int) toLong(row[4]);
+        }
+        double[] revenues = new double[n];
+        PricingEngine.forSessionFactory(session.getSessionFactory())
+                .revenue(basePrices, categories, counts, revenues, n);
+        int updated = 0;
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            char category = categories[i];
+            double revenue = revenues[i];
+            if (Math.abs(revenue - ((Number) row[3]).doubleValue()) >= REVENUE_PRECISION) {
+                session.createNativeMutationQuery(
+                        "UPDATE ACTIVITY_AGGREGATE SET revenue = :revenue WHERE a_id = :aId AND category = :category")
+                        .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                        .setParameter("revenue", revenue)
+                        .setParameter("aId", row[0])
+                        .setParameter("category", String.valueOf(category))
+                        .executeUpdate();
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Przelicza liczniki jednej aktywności z wierszy PERFORMS.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @return Liczniki w podziale na kategorie.
+     */
+    public List<Counters> recompute(Session session, String activityId) {
+        return toCounters(session, session.createNativeQuery(
+                String.format(RECOMPUTE_SQL, "WHERE p.p_id = :aId"), Object[].class)
+                .setParameter("aId", activityId)
+                .getResultList());
+    }
+
+    /**
+     * Przelicza liczniki wszystkich aktywności z wierszy PERFORMS (jedno zapytanie grupujące).
+     * @param session Aktualna sesja Hibernate.
+     * @return Liczniki w kolejności aktywności.
+     */
+    public List<Counters> recomputeAll(Session session) {
+        return toCounters(session, session.createNativeQuery(String.format(RECOMPUTE_SQL, ""), Object[].class)
+                .getResultList());
+    }
+
+    /**
+     * Zastępuje liczniki aktywności wartościami przeliczonymi z wierszy PERFORMS.
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @param activityId Identyfikator aktywności.
+     */
+    public void rebuild(Session session, String activityId) {
+        deleteActivity(session, activityId);
+        add(session, recompute(session, activityId), 1);
+    }
+
+    /**
+     * Zastępuje liczniki wszystkich aktywności wartościami przeliczonymi z wierszy PERFORMS.
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @return Liczba zapisanych wierszy liczników.
+     */
+    public int rebuildAll(Session session) {
+        session.createNativeMutationQuery("DELETE FROM ACTIVITY_AGGREGATE")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+        List<Counters> all = recomputeAll(session);
+        add(session, all, 1);
+        return all.size();
+    }
+
+    /**
+     * Usuwa liczniki aktywności (po usunięciu aktywności).
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @param activityId Identyfikator aktywności.
+     */
+    public void deleteActivity(Session session, String activityId) {
+        session.createNativeMutationQuery("DELETE FROM ACTIVITY_AGGREGATE WHERE a_id = :aId")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("aId", activityId)
+                .executeUpdate();
+    }
+
+    /**
+     * Odczytuje zapisane liczniki wszystkich aktywności (weryfikacja).
+     * @param session Aktualna sesja Hibernate.
+     * @return Wiersze tabeli w kolejności klucza głównego.
+     */
+    public List<Counters> findAllCounters(Session session) {
+        return toStoredCounters(session.createNativeQuery(FIND_ALL_SQL, Object[].class).getResultList());
+    }
+
+    /**
+     * Zwraca statystyki aktywności z zapisanych liczników (odczyt po kluczu głównym).
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @return Obiekt {@link ActivityStatistics} (z zerowymi wartościami, jeśli brak zapisów).
+     */
+    public ActivityStatistics find(Session session, String activityId) {
+        return fold(activityId, toStoredCounters(session.createNativeQuery(FIND_SQL, Object[].class)
+                .setParameter("aId", activityId)
+                .getResultList()));
+    }
+
+    /**
+     * Zwraca statystyki wszystkich aktywności z zapisanych liczników.
+     * @param session Aktualna sesja Hibernate.
+     * @return Statystyki w kolejności identyfikatorów (także aktywności bez zapisów).
+     */
+    public List<ActivityStatisticsRow> findAll(Session session) {
+        List<Object[]> rows = session.createNativeQuery(FIND_WITH_NAMES_SQL, Object[].class).getResultList();
+        List<ActivityStatisticsRow> result = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            // Koniec wierszy bieżącej aktywności
+            if (i == rows.size() || !rows.get(i)[0].equals(rows.get(from)[0])) {
+                List<Object[]> slice = rows.subList(from, i);
+                String aId = (String) slice.get(0)[0];
+                List<Counters> counters = slice.get(0)[1] != null ? toStoredCounters(slice) : List.of();
+                result.add(new ActivityStatisticsRow((String) slice.get(0)[6], fold(aId, counters)));
+                from = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Składa liczniki kategorii w statystyki aktywności. Średni wiek to rok bieżący
+     * pomniejszony o średni rok urodzenia (średnia różnic lat).
+     * Przy remisie liczby zapisów wybierana jest kategoria o wyższym kodzie znaku;
+     * klienci bez kategorii ({@link #NO_CATEGORY}) nie są kandydatem.
+     */
+    private static ActivityStatistics fold(String activityId, List<Counters> counters) {
+        long participants = 0;
+        long yearSum = 0;
+        long dates = 0;
+        double revenue = 0;
+        char topCategory = 0;
+        long topCount = 0;
+        for (Counters c : counters) {
+            participants += c.enrolled();
+            yearSum += c.birthYearSum();
+            dates += c.birthDates();
+            revenue += c.revenue();
+            if (c.category() == NO_CATEGORY) {
+                continue;
+            }
+            if (c.enrolled() > topCount || (c.enrolled() == topCount && c.enrolled() > 0 && c.category() > topCategory)) {
+                topCategory = c.category();
+                topCount = c.enrolled();
+            }
+        }
+        double averageAge = dates > 0 ? Year.now().getValue() - (double) yearSum / dates : 0;
+        return new ActivityStatistics(activityId, participants, averageAge,
+                topCount > 0 ? String.valueOf(topCategory) : "Brak", revenue);
+    }
+
+    /**
+     * Wiersze zapytań przeliczających (cena w ostatniej kolumnie) jako liczniki z przychodem.
+     * Przychód grup wylicza jedno wywołanie {@link PricingEngine#revenue(int[], char[], long[], double[], int)}.
+     */
+    private static List<Counters> toCounters(Session session, List<Object[]> rows) {
+        int n = rows.size();
+        int[] basePrices = new int[n];
+        char[] categories = new char[n];
+        long[] counts = new long[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            // Kategorie różniące się wielkością litery liczone razem (jak w kolacji MariaDB)
+            categories[i] = Character.toUpperCase(toChar(row[1]));
+            counts[i] = toLong(row[2]);
+            basePrices[i] = (int) toLong(row[5]);
+        }
+        double[] revenues = new double[n];
+        PricingEngine.forSessionFactory(session.getSessionFactory())
+                .revenue(basePrices, categories, counts, revenues, n);
+        List<Counters> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            result.add(new Counters((String) row[0], categories[i], counts[i], toLong(row[3]), toLong(row[4]),
+                    revenues[i]));
+        }
+        return result;
+    }
+
+    /** Wiersze tabeli ACTIVITY_AGGREGATE jako liczniki. */
+    private static List<Counters> toStoredCounters(List<Object[]> rows) {
+        List<Counters> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new Counters((String) row[0], toChar(row[1]), toLong(row[2]), toLong(row[3]), toLong(row[4]),
+                    row[5] != null ? ((Number) row[5]).doubleValue() : 0));
+        }
+        return result;
+    }
+
+    /**
+     * Kolumna CHAR(1) - sterownik zwraca {@code Character} lub {@code String}. Zapytania zamieniają
+     * brak kategorii na {@link #NO_CATEGORY}, więc NULL oznacza błąd zapytania, a nie kategorię "n"
+     * z napisu "null".
+     */
+    private static char toChar(Object value) {
+        if (value == null) {
+            throw new IllegalStateException("Brak kategorii członkowskiej w wierszu liczników.");
+        }
+        return value.toString().charAt(0);
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
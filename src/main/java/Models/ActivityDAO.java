@@ -1,6 +1,11 @@
 package Models;
 
+import Config.CacheRegions;
+import Config.DaoMetrics;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.query.Query;
 import java.util.List;
 import java.util.logging.Level;
@@ -14,9 +19,31 @@ import java.util.logging.Logger;
  */
 public class ActivityDAO {
 
+    /** Metryki wywołań metod (liczniki i histogramy czasów, MBean {@link DaoMetrics}). */
+    private static final DaoMetrics.Group METRICS = DaoMetrics.group("ActivityDAO");
+
     /** Logger do rejestrowania zdarzeń oraz błędów niskiego poziomu bazy danych. */
     private static final Logger LOGGER = Logger.getLogger(ActivityDAO.class.getName());
 
+    /** Liczba innych aktywności trenera w danym terminie (pusty currentId nie wyklucza żadnej). */
+    private static final String TRAINER_OCCUPIED_HQL
+            = "SELECT count(a) FROM Activity a WHERE a.atrainerInCharge.tCod = :tCod "
+            + "AND a.aDay = :aDay AND a.aHour = :aHour AND a.aId <> :currentId";
+
+    /**
+     * Projekcja wierszy tabeli aktywności: konstruktor {@link ActivityRow} wywoływany bezpośrednio
+     * w zapytaniu, bez tworzenia encji.
+     */
+    private static final String ACTIVITY_ROWS_HQL
+            = "SELECT new Models.ActivityRow(a.aId, a.aName, a.aDescription, a.aPrice, a.aDay, a.aHour, t.tName) "
+            + "FROM Activity a LEFT JOIN a.atrainerInCharge t";
+
+    /** Atrybuty projekcji {@link ActivityRow} w kolejności kolumn widoku (wyszukiwanie w trybie stronicowanym). */
+    private static final String[] SEARCH_PATHS = {"a.aId", "a.aName", "a.aDescription", "a.aPrice", "a.aDay", "a.aHour", "t.tName"};
+
+    /** Liczniki statystyk aktywności (przychód zależy od ceny, usuwane razem z aktywnością). */
+    private final ActivityAggregateDAO aggregateDAO = new ActivityAggregateDAO();
+
     /** Konstruktor bezargumentowy inicjalizujący obiekt DAO. */
     public ActivityDAO() {
     }
@@ -31,16 +58,29 @@ public class ActivityDAO {
      * @param activity Obiekt aktywności do zapisania.
      */
     public void insertActivity(Session session, Activity activity) {
-        session.persist(activity);
+        METRICS.run("insertActivity", () -> session.persist(activity));
     }
 
     /**
      * Aktualizuje stan istniejącej aktywności w bazie danych (operacja UPDATE).
+     * Po zmianie ceny przychód w licznikach statystyk aktywności przeliczany jest w tej samej
+     * transakcji z liczby zapisów w kategoriach (bez odczytu wierszy PERFORMS).
      * * @param session Aktualna sesja Hibernate.
      * @param activity Obiekt aktywności z zaktualizowanymi danymi.
      */
     public void updateActivity(Session session, Activity activity) {
-        session.merge(activity);
+        METRICS.run("updateActivity", () -> {
+            List<Integer> oldPrice = session.createNativeQuery(
+                    "SELECT a_price FROM ACTIVITY WHERE a_id = :aId", Integer.class)
+                    .setParameter("aId", activity.getAId())
+                    .getResultList();
+            session.merge(activity);
+            if (!oldPrice.isEmpty() && oldPrice.get(0) != activity.getAPrice()) {
+                // Przeliczenie czyta nową cenę z bazy
+                session.flush();
+                aggregateDAO.reprice(session, activity.getAId());
+            }
+        });
     }
     
     /**
@@ -50,41 +90,57 @@ public class ActivityDAO {
      * @return {@code true}, jeśli operacja zakończyła się sukcesem; {@code false}, jeśli obiekt nie został znaleziony.
      */
     public boolean deleteActivityById(Session session, String activityId) {
-        Activity activityToDelete = session.find(Activity.class, activityId); 
+        return METRICS.call("deleteActivityById", () -> {
+            Activity activityToDelete = session.find(Activity.class, activityId); 
         
-        if (activityToDelete != null) {
-            session.remove(activityToDelete);
-            return true;
-        }
-        return false;
+            if (activityToDelete != null) {
+                session.remove(activityToDelete);
+                aggregateDAO.deleteActivity(session, activityId);
+                return true;
+            }
+            return false;
+        });
     }
 
     // =========================================================================
     // METODY WYSZUKIWANIA / WALIDACJI
     // =========================================================================
-    
-    
-    
+
+    /**
+     * Sprawdza w bazie danych, czy trener prowadzi już inną aktywność w danym terminie.
+     * Indeks {@code Utils.TrainerScheduleIndex} jest tylko szybkim wstępnym sprawdzeniem -
+     * przed zapisem aktywności termin weryfikowany jest tym zapytaniem w transakcji zapisu,
+     * po zablokowaniu wiersza trenera ({@link TrainerDAO#lockTrainer(Session, String)}).
+     * @param session Aktualna sesja Hibernate.
+     * @param trainerCod Kod trenera.
+     * @param day Dzień tygodnia.
+     * @param hour Godzina rozpoczęcia.
+     * @param currentActivityId Identyfikator edytowanej aktywności (pomijanej) lub null.
+     * @return {@code true}, jeśli termin jest zajęty.
+     */
     public boolean isTrainerOccupied(Session session, String trainerCod, String day, int hour, String currentActivityId) {
-    String hql = "SELECT count(a) FROM Activity a WHERE a.atrainerInCharge.tCod = :tCod " +
-                 "AND a.aDay = :aDay AND a.aHour = :aHour";
-    
-    // Jeśli edytujemy istniejącą aktywność, musimy ją wykluczyć z wyszukiwania
-    if (currentActivityId != null) {
-        hql += " AND a.aId != :currentId";
+        return METRICS.call("isTrainerOccupied", () -> {
+            // Edytowana aktywność jest wykluczana bez doklejania warunku do treści zapytania
+            return session.createQuery(TRAINER_OCCUPIED_HQL, Long.class)
+                    .setParameter("tCod", trainerCod)
+                    .setParameter("aDay", day)
+                    .setParameter("aHour", hour)
+                    .setParameter("currentId", currentActivityId != null ? currentActivityId : "")
+                    .getSingleResult() > 0;
+        });
     }
 
-    Query<Long> query = session.createQuery(hql, Long.class);
-    query.setParameter("tCod", trainerCod);
-    query.setParameter("aDay", day);
-    query.setParameter("aHour", hour);
-    
-    if (currentActivityId != null) {
-        query.setParameter("currentId", currentActivityId);
+    /**
+     * Pobiera terminy wszystkich aktywności z przypisanym trenerem (ładowanie indeksu grafiku).
+     * @param session Aktualna sesja Hibernate.
+     * @return Lista tablic [aId, tCod, aDay, aHour].
+     */
+    public List<Object[]> findTrainerPlacements(Session session) {
+        return METRICS.call("findTrainerPlacements", () -> session.createQuery(
+                "SELECT a.aId, t.tCod, a.aDay, a.aHour FROM Activity a JOIN a.atrainerInCharge t", Object[].class)
+                .setReadOnly(true)
+                .getResultList());
     }
-
-    return query.getSingleResult() > 0;
-}
     
     
     
@@ -95,16 +151,18 @@ public class ActivityDAO {
      * @return {@code true}, jeśli aktywność istnieje; {@code false} w przeciwnym razie.
      */
     public boolean existAId(Session session, String aId) {
-        try {
-            Query<Activity> q = session.createQuery("SELECT a FROM Activity a WHERE a.aId = :aId", Activity.class);
-            q.setParameter("aId", aId);
+        return METRICS.call("existAId", () -> {
+            try {
+                Query<Activity> q = session.createQuery("SELECT a FROM Activity a WHERE a.aId = :aId", Activity.class);
+                q.setParameter("aId", aId);
             
-            Activity a = q.getSingleResultOrNull(); 
-            return a != null;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd podczas sprawdzania istnienia aId: " + aId, e);
-            return false;
-        }
+                Activity a = q.getSingleResultOrNull(); 
+                return a != null;
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Błąd podczas sprawdzania istnienia aId: " + aId, e);
+                return false;
+            }
+        });
     }
     
     /**
@@ -114,16 +172,18 @@ public class ActivityDAO {
      * @return Ciąg znaków reprezentujący najwyższy kod (np. "AC10") lub {@code null}, jeśli tabela jest pusta.
      */
     public String getMaxActivityCode(Session session) {
-        try {
-            Query<String> query = session.createQuery(
-                "SELECT a.aId FROM Activity a ORDER BY a.aId DESC", String.class);
-            query.setMaxResults(1);
+        return METRICS.call("getMaxActivityCode", () -> {
+            try {
+                Query<String> query = session.createQuery(
+                    "SELECT a.aId FROM Activity a ORDER BY LENGTH(a.aId) DESC, a.aId DESC", String.class);
+                query.setMaxResults(1);
             
-            return query.getSingleResultOrNull(); 
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Brak aktywności w bazie. Błąd pobierania max aId.", e);
-            return null; 
-        }
+                return query.getSingleResultOrNull(); 
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Brak aktywności w bazie. Błąd pobierania max aId.", e);
+                return null; 
+            }
+        });
     }
     
     /**
@@ -133,16 +193,21 @@ public class ActivityDAO {
      * @return Obiekt {@link Activity} lub {@code null}, jeśli rekord nie istnieje.
      */
     public Activity findActivityById(Session session, String activityId) {
-        return session.find(Activity.class, activityId);
+        return METRICS.call("findActivityById", () -> session.find(Activity.class, activityId));
     }
 
     /**
      * Pobiera kompletną listę wszystkich aktywności zarejestrowanych w systemie.
+     * Wynik jest przechowywany w cache zapytań (region {@link CacheRegions#REFERENCE_QUERIES})
+     * i unieważniany automatycznie przy zapisie do tabeli ACTIVITY.
      * * @param session Aktualna sesja Hibernate.
      * @return Lista obiektów {@link Activity}.
      */
     public List<Activity> findAllActivities(Session session) {
-        return session.createQuery("SELECT a FROM Activity a", Activity.class).getResultList();
+        return METRICS.call("findAllActivities", () -> session.createQuery("SELECT a FROM Activity a", Activity.class)
+                .setCacheable(true)
+                .setCacheRegion(CacheRegions.REFERENCE_QUERIES)
+                .getResultList());
     }
     
     /**
@@ -156,19 +221,174 @@ public class ActivityDAO {
      * Zwraca {@code null} w przypadku błędu lub braku aktywności.
      */
     public Object[] getActivityStatisticsById(Session session, String aId) {
-        try {
-            String hql = "SELECT a.aName, COUNT(c) " +
-                         "FROM Activity a " +
-                         "LEFT JOIN a.clientSet c " +
-                         "WHERE a.aId = :targetId " +
-                         "GROUP BY a.aId, a.aName";
+        return METRICS.call("getActivityStatisticsById", () -> {
+            try {
+                String hql = "SELECT a.aName, COUNT(c) " +
+                             "FROM Activity a " +
+                             "LEFT JOIN a.clientSet c " +
+                             "WHERE a.aId = :targetId " +
+                             "GROUP BY a.aId, a.aName";
             
-            return session.createQuery(hql, Object[].class)
-                          .setParameter("targetId", aId)
-                          .getSingleResultOrNull();
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd pobierania statystyk dla: " + aId, e);
-            return null;
-        }
-    }
-}
\ No newline at end of file
+                return session.createQuery(hql, Object[].class)
+                              .setParameter("targetId", aId)
+                              .getSingleResultOrNull();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Błąd pobierania statystyk dla: " + aId, e);
+                return null;
+            }
+        });
+    }
+
+    // =========================================================================
+    // PAGINACJA PO KLUCZU (KEYSET)
+    // =========================================================================
+
+    /**
+     * Zwraca liczbę aktywności w bazie danych.
+     * @param session Aktualna sesja Hibernate.
+     * @return Liczba rekordów.
+     */
+    public long countActivities(Session session) {
+        return METRICS.call("countActivities", () -> session.createQuery("SELECT COUNT(a) FROM Activity a", Long.class).getSingleResult());
+    }
+
+    /**
+     * Pobiera wszystkie wiersze tabeli aktywności jako projekcję {@link ActivityRow}
+     * uporządkowaną według klucza głównego. Wybierane są tylko kolumny widoku,
+     * a zapytanie jest tylko do odczytu - wyniki nie trafiają do kontekstu utrwalania.
+     * Trener dołączany jest tym samym zapytaniem (LEFT JOIN), zamiast osobnego
+     * zapytania o każdą encję {@link Trainer} z relacji Many-to-One.
+     * @param session Aktualna sesja Hibernate.
+     * @return Lista wierszy {@link ActivityRow}.
+     */
+    public List<ActivityRow> findAllActivityRows(Session session) {
+        return METRICS.call("findAllActivityRows", () -> session.createQuery(ACTIVITY_ROWS_HQL + " ORDER BY a.aId", ActivityRow.class)
+                .setReadOnly(true)
+                .getResultList());
+    }
+
+    /**
+     * Pobiera stronę wierszy aktywności (projekcja {@link ActivityRow}) uporządkowanych według
+     * klucza głównego, zaczynając od rekordu następującego po {@code afterKey}.
+     * Zapytanie korzysta z indeksu klucza głównego, więc jego koszt nie zależy od pozycji strony.
+     * @param session Aktualna sesja Hibernate.
+     * @param afterKey Ostatni klucz poprzedniej strony lub null dla pierwszej strony.
+     * @param limit Maksymalna liczba rekordów.
+     * @return Lista wierszy {@link ActivityRow}.
+     */
+    public List<ActivityRow> findActivityRowsPage(Session session, String afterKey, int limit) {
+        return METRICS.call("findActivityRowsPage", () -> {
+            Query<ActivityRow> query = afterKey == null
+                    ? session.createQuery(ACTIVITY_ROWS_HQL + " ORDER BY a.aId", ActivityRow.class)
+                    : session.createQuery(ACTIVITY_ROWS_HQL + " WHERE a.aId > :after ORDER BY a.aId", ActivityRow.class)
+                            .setParameter("after", afterKey);
+            return query.setReadOnly(true).setMaxResults(limit).getResultList();
+        });
+    }
+
+    /**
+     * Pobiera jeden wiersz tabeli aktywności (projekcja {@link ActivityRow}) według klucza głównego.
+     * Używane do odświeżenia pojedynczego wiersza widoku po zapisie.
+     * @param session Aktualna sesja Hibernate.
+     * @param aId Klucz główny (identyfikator aktywności).
+     * @return Wiersz lub null, jeśli rekord nie istnieje.
+     */
+    public ActivityRow findActivityRow(Session session, String aId) {
+        return METRICS.call("findActivityRow", () -> session.createQuery(ACTIVITY_ROWS_HQL + " WHERE a.aId = :key", ActivityRow.class)
+                .setParameter("key", aId)
+                .setReadOnly(true)
+                .getSingleResultOrNull());
+    }
+
+    /**
+     * Zwraca klucz rekordu o podanej pozycji w porządku klucza głównego.
+     * Odczytywany jest wyłącznie indeks klucza, bez wierszy tabeli.
+     * @param session Aktualna sesja Hibernate.
+     * @param offset Pozycja rekordu (od 0).
+     * @return Klucz lub null, jeśli pozycja wykracza poza tabelę.
+     */
+    public String findActivityKeyAt(Session session, int offset) {
+        return METRICS.call("findActivityKeyAt", () -> session.createQuery("SELECT a.aId FROM Activity a ORDER BY a.aId", String.class)
+                .setFirstResult(offset)
+                .setMaxResults(1)
+                .getSingleResultOrNull());
+    }
+
+    // =========================================================================
+    // WYSZUKIWANIE (TRYB STRONICOWANY)
+    // =========================================================================
+
+    /**
+     * Zwraca liczbę aktywności, których kolumna widoku zawiera podany tekst.
+     * @param session Aktualna sesja Hibernate.
+     * @param column Indeks kolumny widoku (kolejność pól {@link ActivityRow}).
+     * @param text Szukany fragment (bez rozróżniania wielkości liter).
+     * @return Liczba pasujących rekordów.
+     */
+    public long countActivityRows(Session session, int column, String text) {
+        return METRICS.call("countActivityRows", () -> session.createQuery("SELECT COUNT(a) FROM Activity a LEFT JOIN a.atrainerInCharge t WHERE "
+                + RowSearch.condition(SEARCH_PATHS[column]), Long.class)
+                .setParameter("pattern", RowSearch.pattern(text))
+                .getSingleResult());
+    }
+
+    /**
+     * Pobiera stronę pasujących wierszy (projekcja {@link ActivityRow}) z paginacją po kluczu głównym.
+     * @param session Aktualna sesja Hibernate.
+     * @param afterKey Ostatni klucz poprzedniej strony lub null dla pierwszej strony.
+     * @param limit Maksymalna liczba rekordów.
+     * @param column Indeks kolumny widoku.
+     * @param text Szukany fragment.
+     * @return Lista wierszy {@link ActivityRow}.
+     */
+    public List<ActivityRow> findActivityRowsPage(Session session, String afterKey, int limit, int column, String text) {
+        return METRICS.call("findActivityRowsPage", () -> {
+            String where = " WHERE " + RowSearch.condition(SEARCH_PATHS[column]);
+            Query<ActivityRow> query = afterKey == null
+                    ? session.createQuery(ACTIVITY_ROWS_HQL + where + " ORDER BY a.aId", ActivityRow.class)
+                    : session.createQuery(ACTIVITY_ROWS_HQL + where + " AND a.aId > :after ORDER BY a.aId", ActivityRow.class)
+                            .setParameter("after", afterKey);
+            return query.setParameter("pattern", RowSearch.pattern(text))
+                    .setReadOnly(true)
+                    .setMaxResults(limit)
+                    .getResultList();
+        });
+    }
+
+    /**
+     * Zwraca klucz pasującego rekordu o podanej pozycji w porządku klucza głównego.
+     * @param session Aktualna sesja Hibernate.
+     * @param offset Pozycja wśród pasujących rekordów (od 0).
+     * @param column Indeks kolumny widoku.
+     * @param text Szukany fragment.
+     * @return Klucz lub null, jeśli pozycja wykracza poza wynik.
+     */
+    public String findActivityKeyAt(Session session, int offset, int column, String text) {
+        return METRICS.call("findActivityKeyAt", () -> session.createQuery("SELECT a.aId FROM Activity a LEFT JOIN a.atrainerInCharge t WHERE "
+                + RowSearch.condition(SEARCH_PATHS[column]) + " ORDER BY a.aId", String.class)
+                .setParameter("pattern", RowSearch.pattern(text))
+                .setFirstResult(offset)
+                .setMaxResults(1)
+                .getSingleResultOrNull());
+    }
+
+    // =========================================================================
+    // EKSPORT STRUMIENIOWY
+    // =========================================================================
+
+    /**
+     * Otwiera kursor po wszystkich wierszach tabeli aktywności (projekcja {@link ActivityRow})
+     * uporządkowanych według klucza głównego. Wiersze pobierane są z bazy porcjami
+     * po {@code fetchSize}, a sesja bezstanowa nie przechowuje ich w kontekście
+     * utrwalania - zużycie pamięci nie zależy od liczby rekordów.
+     * @param session Sesja bezstanowa Hibernate.
+     * @param fetchSize Liczba wierszy pobieranych z bazy w jednej porcji.
+     * @return Kursor tylko do przodu; należy go zamknąć po użyciu.
+     */
+    public ScrollableResults<ActivityRow> scrollActivityRows(StatelessSession session, int fetchSize) {
+        return METRICS.call("scrollActivityRows", () -> session.createQuery(ACTIVITY_ROWS_HQL + " ORDER BY a.aId", ActivityRow.class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY));
+    }
+}
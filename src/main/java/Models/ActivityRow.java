@@ -0,0 +1,20 @@
+package Models;
+
+/**
+ * Projekcja tylko do odczytu pojedynczego wiersza tabeli aktywności.
+ * Tworzona bezpośrednio w zapytaniu HQL ({@code SELECT new Models.ActivityRow(...)})
+ * z jednym złączeniem z tabelą TRAINER, dzięki czemu lista aktywności nie ładuje
+ * encji trenerów osobnymi zapytaniami (problem N+1) i nie trafia do kontekstu
+ * utrwalania sesji (brak migawek i sprawdzania zmian przy flush).
+ *
+ * @param aId Identyfikator aktywności.
+ * @param aName Nazwa zajęć.
+ * @param aDescription Opis zajęć.
+ * @param aPrice Cena.
+ * @param aDay Dzień tygodnia.
+ * @param aHour Godzina rozpoczęcia.
+ * @param trainerName Imię i nazwisko prowadzącego lub null, jeśli nie przypisano trenera.
+ */
+public record ActivityRow(String aId, String aName, String aDescription, int aPrice,
+        String aDay, int aHour, String trainerName) {
+}
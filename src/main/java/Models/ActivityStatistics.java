@@ -0,0 +1,15 @@
+package Models;
+
+/**
+ * Wynik obliczeń statystyk uczestnictwa dla pojedynczej aktywności.
+ * Zastępuje wcześniejszą tablicę {@code Object[]} z surowymi danymi.
+ *
+ * @param activityId Identyfikator aktywności (aId).
+ * @param participants Liczba zapisanych klientów.
+ * @param averageAge Średni wiek uczestników z poprawną datą urodzenia (0, jeśli brak danych).
+ * @param topCategory Najczęstsza kategoria członkowska lub "Brak".
+ * @param revenue Przychód z uwzględnieniem zniżek kategorii (PLN).
+ */
+public record ActivityStatistics(String activityId, long participants, double averageAge,
+        String topCategory, double revenue) {
+}
@@ -0,0 +1,11 @@
+package Models;
+
+/**
+ * Wiersz zestawienia statystyk wszystkich aktywności
+ * ({@link ActivityAggregateDAO#findAll(org.hibernate.Session)}).
+ *
+ * @param activityName Nazwa zajęć.
+ * @param statistics Statystyki aktywności.
+ */
+public record ActivityStatisticsRow(String activityName, ActivityStatistics statistics) {
+}
@@ -2,13 +2,25 @@ package Models;
 
 import jakarta.persistence.*;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.Set;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Klasa encyjna reprezentująca tabelę CLIENT w bazie danych.
  * Przechowuje szczegółowe informacje o klientach (członkach) systemu, 
  * w tym dane kontaktowe, daty przystąpienia oraz przynależność do kategorii.
  * Klasa obsługuje relację wiele-do-wielu z zajęciami (Activity).
+ * Klienci odczytywani z kolekcji {@code Activity.clientSet} (także z cache)
+ * ładowani są partiami, a nie pojedynczymi zapytaniami.
+ * <p>
+ * Daty urodzenia i przyjęcia są kolumnami typu DATE z indeksami, dzięki czemu zapytania
+ * o przedziały wieku i stażu wykonywane są jako zakresowe przeszukiwanie indeksu
+ * (kolumny tekstowe starszych baz przekształca {@code Utils.DateColumnMigration}).
+ * <p>
+ * Część liczbowa numeru członkowskiego zapisywana jest w osobnej kolumnie z indeksem -
+ * strony tabeli klientów i najwyższy numer wyznaczane są według niej, dzięki czemu S1000
+ * następuje po S999 (kolumnę w starszych bazach zakłada {@code Utils.MemberSequenceMigration}).
  */
 @NamedNativeQuery(
         name = "Client.findByMcategoryMemberSQL",
@@ -16,7 +28,11 @@ import java.util.Set;
         resultClass = Client.class
 )
 @Entity
-@Table(name = "CLIENT")
+@Table(name = "CLIENT", indexes = {
+    @Index(name = "ix_client_birthdate", columnList = "m_birthdate"),
+    @Index(name = "ix_client_starting_date", columnList = "m_startingDateMember"),
+    @Index(name = MemberSequenceDAO.INDEX, columnList = "m_numSeq, m_num")})
+@BatchSize(size = 100)
 @NamedQueries({
     @NamedQuery(name = "Client.findAll", query = "SELECT c FROM Client c"),
     @NamedQuery(name = "Client.findByMNum", query = "SELECT c FROM Client c WHERE c.mNum = :mNum"),
@@ -37,6 +53,10 @@ public class Client implements Serializable {
     @Column(name = "m_num")
     private String mNum;
 
+    /** Część liczbowa numeru członkowskiego (porządek stron tabeli klientów), wyznaczana przy zapisie. */
+    @Column(name = "m_numSeq")
+    private Long mNumSeq;
+
     /** Imię i nazwisko klienta. */
     @Basic(optional = false)
     @Column(name = "m_name")
@@ -47,9 +67,9 @@ public class Client implements Serializable {
     @Column(name = "m_id")
     private String mId;
 
-    /** Data urodzenia przechowywana jako ciąg znaków. */
+    /** Data urodzenia. */
     @Column(name = "m_birthdate")
-    private String mBirthdate;
+    private LocalDate mBirthdate;
 
     /** Numer telefonu kontaktowego. */
     @Column(name = "m_phone")
@@ -62,7 +82,7 @@ public class Client implements Serializable {
     /** Data zarejestrowania klienta w systemie. */
     @Basic(optional = false)
     @Column(name = "m_startingDateMember")
-    private String mstartingDateMember;
+    private LocalDate mstartingDateMember;
 
     /** Kategoria członkostwa (np. określająca poziom zniżek lub typ dostępu). */
     @Basic(optional = false)
@@ -95,7 +115,7 @@ public class Client implements Serializable {
      * @param mstartingDateMember Data rozpoczęcia członkostwa.
      * @param mcategoryMember Kategoria członka.
      */
-    public Client(String mNum, String mName, String mId, String mstartingDateMember, Character mcategoryMember) {
+    public Client(String mNum, String mName, String mId, LocalDate mstartingDateMember, Character mcategoryMember) {
         this.mNum = mNum;
         this.mName = mName;
         this.mId = mId;
@@ -103,6 +123,30 @@ public class Client implements Serializable {
         this.mcategoryMember = mcategoryMember;
     }
 
+    /**
+     * Część liczbowa numeru członkowskiego: cyfry po prefiksie "S" (S012 - 12, S1000 - 1000).
+     * Ta sama reguła wypełnia kolumnę w starszych bazach ({@link MemberSequenceDAO#assignAll}).
+     * @param mNum Numer członkowski.
+     * @return Wartość liczbowa lub 0 dla numeru w innym formacie.
+     */
+    public static long numberSequence(String mNum) {
+        if (mNum == null || mNum.length() < 2 || mNum.length() > MemberSequenceDAO.MAX_LENGTH || mNum.charAt(0) != 'S') {
+            return 0;
+        }
+        for (int i = 1; i < mNum.length(); i++) {
+            if (mNum.charAt(i) < '0' || mNum.charAt(i) > '9') {
+                return 0;
+            }
+        }
+        return Long.parseLong(mNum.substring(1));
+    }
+
+    /** Wyznacza część liczbową numeru członkowskiego przed zapisem nowego klienta. */
+    @PrePersist
+    void assignNumberSequence() {
+        mNumSeq = numberSequence(mNum);
+    }
+
     public String getMNum() {
         return mNum;
     }
@@ -111,6 +155,10 @@ public class Client implements Serializable {
         this.mNum = mNum;
     }
 
+    public Long getMNumSeq() {
+        return mNumSeq;
+    }
+
     public String getMName() {
         return mName;
     }
@@ -127,11 +175,11 @@ public class Client implements Serializable {
         this.mId = mId;
     }
 
-    public String getMBirthdate() {
+    public LocalDate getMBirthdate() {
         return mBirthdate;
     }
 
-    public void setMBirthdate(String mBirthdate) {
+    public void setMBirthdate(LocalDate mBirthdate) {
         this.mBirthdate = mBirthdate;
     }
 
@@ -151,11 +199,11 @@ public class Client implements Serializable {
         this.memailMember = memailMember;
     }
 
-    public String getMstartingDateMember() {
+    public LocalDate getMstartingDateMember() {
         return mstartingDateMember;
     }
 
-    public void setMstartingDateMember(String mstartingDateMember) {
+    public void setMstartingDateMember(LocalDate mstartingDateMember) {
         this.mstartingDateMember = mstartingDateMember;
     }
 
@@ -1,9 +1,19 @@
 package Models;
 
+import Config.CacheRegions;
+import Config.DaoMetrics;
 import jakarta.persistence.NoResultException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.query.Query;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Obiekt dostępu do danych (DAO) dla encji {@link Client}.
@@ -13,6 +23,38 @@ import java.util.List;
  */
 public class ClientDAO {
 
+    /** Metryki wywołań metod (liczniki i histogramy czasów, MBean {@link DaoMetrics}). */
+    private static final DaoMetrics.Group METRICS = DaoMetrics.group("ClientDAO");
+
+    /**
+     * Projekcja wierszy tabeli klientów: konstruktor {@link ClientRow} wywoływany bezpośrednio
+     * w zapytaniu, bez tworzenia encji.
+     */
+    private static final String CLIENT_ROWS_HQL
+            = "SELECT new Models.ClientRow(c.mNum, c.mName, c.mId, c.mBirthdate, c.mPhone, "
+            + "c.memailMember, c.mstartingDateMember, c.mcategoryMember) "
+            + "FROM Client c";
+
+    /**
+     * Porządek numerów członkowskich zgodny z liczbowym: część liczbowa numeru, potem sam numer
+     * - S1000 następuje po S999 (porządek samego klucza jest leksykograficzny). Porządek
+     * odpowiada indeksowi {@link MemberSequenceDAO#INDEX}, więc baza nie sortuje wierszy.
+     */
+    private static final String MEMBER_ORDER = " ORDER BY c.mNumSeq, c.mNum";
+
+    /** Warunek stronicowania: rekordy następujące po kluczu {@code :after} w porządku {@link #MEMBER_ORDER}. */
+    private static final String AFTER_MEMBER
+            = "(c.mNumSeq > :afterSeq OR (c.mNumSeq = :afterSeq AND c.mNum > :after))";
+
+    /** Atrybuty projekcji {@link ClientRow} w kolejności kolumn widoku (wyszukiwanie w trybie stronicowanym). */
+    private static final String[] SEARCH_PATHS = {"c.mNum", "c.mName", "c.mId", "c.mBirthdate", "c.mPhone", "c.memailMember", "c.mstartingDateMember", "c.mcategoryMember"};
+
+    /** Maksymalna liczba parametrów listy IN w jednym zapytaniu o istniejące numery ID. */
+    private static final int ID_LOOKUP_CHUNK = 1_000;
+
+    /** Liczniki statystyk aktywności (udział klienta zależy od kategorii i daty urodzenia). */
+    private final ActivityAggregateDAO aggregateDAO = new ActivityAggregateDAO();
+
     /**
      * Konstruktor domyślny klasy ClientDAO.
      */
@@ -26,14 +68,16 @@ public class ClientDAO {
      * @return true, jeśli numer istnieje; false w przeciwnym razie.
      */
     public boolean existMemberNumber(Session session, String memberNum) {
-        try {
-            Query<Client> q = session.createQuery("SELECT c FROM Client c WHERE c.mNum = :mNumValue", Client.class);
-            q.setParameter("mNumValue", memberNum);
-            Client c = q.getSingleResult();
-            return c != null;
-        } catch (NoResultException e) {
-            return false;
-        }
+        return METRICS.call("existMemberNumber", () -> {
+            try {
+                Query<Client> q = session.createQuery("SELECT c FROM Client c WHERE c.mNum = :mNumValue", Client.class);
+                q.setParameter("mNumValue", memberNum);
+                Client c = q.getSingleResult();
+                return c != null;
+            } catch (NoResultException e) {
+                return false;
+            }
+        });
     }
 
     /**
@@ -43,14 +87,16 @@ public class ClientDAO {
      * @return true, jeśli DNI istnieje; false w przeciwnym razie.
      */
     public boolean existDNI(Session session, String dni) {
-        try {
-            Query<Client> q = session.createQuery("SELECT c FROM Client c WHERE c.mId = :idValue", Client.class);
-            q.setParameter("idValue", dni);
-            Client c = q.getSingleResult();
-            return c != null;
-        } catch (NoResultException e) {
-            return false;
-        }
+        return METRICS.call("existDNI", () -> {
+            try {
+                Query<Client> q = session.createQuery("SELECT c FROM Client c WHERE c.mId = :idValue", Client.class);
+                q.setParameter("idValue", dni);
+                Client c = q.getSingleResult();
+                return c != null;
+            } catch (NoResultException e) {
+                return false;
+            }
+        });
     }
 
     /**
@@ -60,7 +106,30 @@ public class ClientDAO {
      * @throws Exception Rzuca wyjątek w przypadku błędu persistencji.
      */
     public void insertClient(Session session, Client client) throws Exception {
-        session.persist(client);
+        METRICS.run("insertClient", () -> session.persist(client));
+    }
+
+    /**
+     * Zwraca te spośród podanych numerów ID (DNI), które już istnieją w bazie.
+     * Zamiast osobnego zapytania dla każdego numeru wykonywane jest jedno zapytanie
+     * {@code IN} na każde {@value #ID_LOOKUP_CHUNK} numerów.
+     * @param session Aktualna sesja Hibernate.
+     * @param ids Sprawdzane numery ID.
+     * @return Zbiór numerów ID obecnych w tabeli CLIENT.
+     */
+    public Set<String> findExistingIds(Session session, Collection<String> ids) {
+        return METRICS.call("findExistingIds", () -> {
+            Set<String> existing = new HashSet<>();
+            List<String> all = new ArrayList<>(ids);
+            for (int from = 0; from < all.size(); from += ID_LOOKUP_CHUNK) {
+                List<String> chunk = all.subList(from, Math.min(from + ID_LOOKUP_CHUNK, all.size()));
+                existing.addAll(session.createQuery("SELECT c.mId FROM Client c WHERE c.mId IN (:ids)", String.class)
+                        .setParameterList("ids", chunk)
+                        .setReadOnly(true)
+                        .getResultList());
+            }
+            return existing;
+        });
     }
 
     /**
@@ -70,13 +139,15 @@ public class ClientDAO {
      * @return Obiekt {@link Client} lub null, jeśli nie znaleziono.
      */
     public Client returnClientByMemberNumber(Session session, String memberNum) {
-        try {
-            Query<Client> q = session.createQuery("SELECT c FROM Client c WHERE c.mNum = :mNumValue", Client.class);
-            q.setParameter("mNumValue", memberNum);
-            return q.getSingleResult();
-        } catch (NoResultException e) {
-            return null;
-        }
+        return METRICS.call("returnClientByMemberNumber", () -> {
+            try {
+                Query<Client> q = session.createQuery("SELECT c FROM Client c WHERE c.mNum = :mNumValue", Client.class);
+                q.setParameter("mNumValue", memberNum);
+                return q.getSingleResult();
+            } catch (NoResultException e) {
+                return null;
+            }
+        });
     }
 
     /**
@@ -85,17 +156,27 @@ public class ClientDAO {
      * @return Lista wszystkich obiektów {@link Client}.
      */
     public java.util.List<Client> getAllClients(Session session) {
-        Query<Client> query = session.createQuery("FROM Client", Client.class);
-        return query.getResultList();
+        return METRICS.call("getAllClients", () -> {
+            Query<Client> query = session.createQuery("FROM Client", Client.class);
+            return query.getResultList();
+        });
     }
 
     /**
      * Usuwa rekord klienta z bazy danych.
+     * Klient jest stroną odwrotną relacji z aktywnościami, więc Hibernate nie
+     * aktualizuje sam cache kolekcji {@code Activity.clientSet} - region jest
+     * unieważniany jawnie, aby nie zwracał identyfikatora usuniętego klienta.
+     * Udział klienta odejmowany jest od liczników statystyk aktywności, na które był zapisany.
      * @param session Aktualna sesja Hibernate.
      * @param client Obiekt klienta do usunięcia.
      */
     public void deleteClient(Session session, Client client) {
-        session.remove(client);
+        METRICS.run("deleteClient", () -> {
+            aggregateDAO.add(session, aggregateDAO.clientEnrollments(session, client.getMNum()), -1);
+            session.remove(client);
+            session.getSessionFactory().getCache().evictCollectionData(CacheRegions.ACTIVITY_CLIENTS_ROLE);
+        });
     }
 
     /**
@@ -105,10 +186,12 @@ public class ClientDAO {
      * @return Lista tablic obiektów [Imię, Kategoria].
      */
     public java.util.List<Object[]> getClientsByCategory(Session session, char category) {
-        Query<Object[]> query = session.createQuery(
-            "SELECT c.mName, c.mcategoryMember FROM Client c WHERE c.mcategoryMember = :cat", Object[].class);
-        query.setParameter("cat", category);
-        return query.getResultList();
+        return METRICS.call("getClientsByCategory", () -> {
+            Query<Object[]> query = session.createQuery(
+                "SELECT c.mName, c.mcategoryMember FROM Client c WHERE c.mcategoryMember = :cat", Object[].class);
+            query.setParameter("cat", category);
+            return query.getResultList();
+        });
     }
 
     /**
@@ -117,9 +200,11 @@ public class ClientDAO {
      * @return Lista tablic obiektów [Imię, Telefon].
      */
     public java.util.List<Object[]> getNameAndPhone(Session session) {
-        Query<Object[]> query = session.createQuery(
-            "SELECT c.mName, c.mPhone FROM Client c", Object[].class);
-        return query.getResultList();
+        return METRICS.call("getNameAndPhone", () -> {
+            Query<Object[]> query = session.createQuery(
+                "SELECT c.mName, c.mPhone FROM Client c", Object[].class);
+            return query.getResultList();
+        });
     }
 
     /**
@@ -129,9 +214,11 @@ public class ClientDAO {
      * @return Obiekt {@link Client} lub null.
      */
     public Client getClientByName(Session session, String name) {
-        Query<Client> query = session.createQuery("FROM Client c WHERE c.mName = :name", Client.class);
-        query.setParameter("name", name);
-        return query.uniqueResult();
+        return METRICS.call("getClientByName", () -> {
+            Query<Client> query = session.createQuery("FROM Client c WHERE c.mName = :name", Client.class);
+            query.setParameter("name", name);
+            return query.uniqueResult();
+        });
     }
 
     /**
@@ -141,9 +228,11 @@ public class ClientDAO {
      * @return Lista obiektów {@link Client}.
      */
     public java.util.List<Client> getClientsByCategoryNamed(Session session, char category) {
-        Query<Client> query = session.createNamedQuery("Client.findByMcategoryMember", Client.class);
-        query.setParameter("mcategoryMember", category);
-        return query.getResultList();
+        return METRICS.call("getClientsByCategoryNamed", () -> {
+            Query<Client> query = session.createNamedQuery("Client.findByMcategoryMember", Client.class);
+            query.setParameter("mcategoryMember", category);
+            return query.getResultList();
+        });
     }
 
     /**
@@ -153,31 +242,52 @@ public class ClientDAO {
      * @return Obiekt {@link Client} lub null.
      */
     public Client getClientById(Session session, String id) {
-        Query<Client> query = session.createQuery("FROM Client c WHERE c.mId = :id", Client.class);
-        query.setParameter("id", id);
-        return query.uniqueResult();
+        return METRICS.call("getClientById", () -> {
+            Query<Client> query = session.createQuery("FROM Client c WHERE c.mId = :id", Client.class);
+            query.setParameter("id", id);
+            return query.uniqueResult();
+        });
     }
     
     /**
      * Zwraca najwyższą wartość numeru członkowskiego (mNum) obecną w bazie danych.
      * Metoda używana do obliczania kolejnych wolnych numerów członkowskich.
+     * Numery porównywane są liczbowo ({@link #MEMBER_ORDER}, odczyt końca indeksu) - {@code MAX(c.mNum)}
+     * zwróciłby S999 zamiast S1000.
      * @param session Aktualna sesja Hibernate.
      * @return String reprezentujący najwyższy numer członkowski.
      */
     public String getMaxMemberNumber(Session session) {
-        String hql = "SELECT MAX(c.mNum) FROM Client c"; 
-        Query<String> query = session.createQuery(hql, String.class);
-        return query.uniqueResult(); 
+        return METRICS.call("getMaxMemberNumber", () -> {
+            String hql = "SELECT c.mNum FROM Client c ORDER BY c.mNumSeq DESC, c.mNum DESC";
+            Query<String> query = session.createQuery(hql, String.class);
+            return query.setMaxResults(1).uniqueResult();
+        });
     }
     
     /**
      * Aktualizuje dane istniejącego klienta przy użyciu operacji merge.
+     * Jeśli klient jest zapisany na zajęcia, a zmiana dotyczy kategorii lub daty urodzenia,
+     * w tej samej transakcji poprawiane są liczniki statystyk tych aktywności
+     * (udział według stanu sprzed zmiany jest odejmowany, a według nowego - dodawany).
      * @param session Aktualna sesja Hibernate.
      * @param client Obiekt klienta z nowymi danymi.
      * @throws Exception Rzuca wyjątek w przypadku błędu aktualizacji.
      */
     public void updateClient(Session session, Client client) throws Exception {
-        session.merge(client);
+        METRICS.run("updateClient", () -> {
+            List<ActivityAggregateDAO.Counters> before = aggregateDAO.clientEnrollments(session, client.getMNum());
+            session.merge(client);
+            if (!before.isEmpty()) {
+                // Stan po zmianie widoczny dla zapytania natywnego dopiero po zapisaniu encji
+                session.flush();
+                List<ActivityAggregateDAO.Counters> after = aggregateDAO.clientEnrollments(session, client.getMNum());
+                if (!after.equals(before)) {
+                    aggregateDAO.add(session, before, -1);
+                    aggregateDAO.add(session, after, 1);
+                }
+            }
+        });
     }
 
     /**
@@ -187,12 +297,14 @@ public class ClientDAO {
      * @return true, jeśli usunięcie powiodło się; false, jeśli klient nie istnieje.
      */
     public boolean deleteClientByMemberNumber(Session session, String mNum) {
-        Client clientToDelete = returnClientByMemberNumber(session, mNum);
-        if (clientToDelete != null) {
-            deleteClient(session, clientToDelete);
-            return true;
-        }
-        return false;
+        return METRICS.call("deleteClientByMemberNumber", () -> {
+            Client clientToDelete = returnClientByMemberNumber(session, mNum);
+            if (clientToDelete != null) {
+                deleteClient(session, clientToDelete);
+                return true;
+            }
+            return false;
+        });
     }
 
     /**
@@ -200,42 +312,227 @@ public class ClientDAO {
      * @param session Aktualna sesja Hibernate.
      * @return Tablica obiektów zawierająca: 
      * [0] całkowitą liczbę klientów (Long), 
-     * [1] listę dat urodzenia (List String), 
+     * [1] listę dat urodzenia (List LocalDate), 
      * [2] dane o kategoriach i przychodach (List Object[]).
      */
     public Object[] getGlobalStatistics(Session session) {
-        Long totalClients = session.createQuery("SELECT COUNT(c) FROM Client c", Long.class).getSingleResult();
-        java.util.List<String> birthdates = session.createQuery("SELECT c.mBirthdate FROM Client c", String.class).getResultList();
-        String hql = "SELECT c.mcategoryMember, a.aPrice FROM Client c JOIN c.activitySet a";
-        java.util.List<Object[]> categoryRevenueData = session.createQuery(hql, Object[].class).getResultList();
-        return new Object[]{totalClients, birthdates, categoryRevenueData};
+        return METRICS.call("getGlobalStatistics", () -> {
+            Long totalClients = session.createQuery("SELECT COUNT(c) FROM Client c", Long.class).getSingleResult();
+            java.util.List<LocalDate> birthdates = session.createQuery("SELECT c.mBirthdate FROM Client c", LocalDate.class).getResultList();
+            String hql = "SELECT c.mcategoryMember, a.aPrice FROM Client c JOIN c.activitySet a";
+            java.util.List<Object[]> categoryRevenueData = session.createQuery(hql, Object[].class).getResultList();
+            return new Object[]{totalClients, birthdates, categoryRevenueData};
+        });
     }
 
+    // =========================================================================
+    // PAGINACJA PO KLUCZU (KEYSET)
+    // =========================================================================
+
     /**
-     * Pobiera statystyki uczestnictwa i przychodów dla konkretnej aktywności.
+     * Zwraca liczbę klientów w bazie danych.
      * @param session Aktualna sesja Hibernate.
-     * @param aId Identyfikator wybranej aktywności.
-     * @return Tablica obiektów zawierająca: 
-     * [0] liczbę zapisanych osób, 
-     * [1] daty urodzenia uczestników, 
-     * [2] kategorie członkowskie i ceny.
+     * @return Liczba rekordów.
      */
-    public Object[] getStatisticsForActivity(Session session, String aId) {
-        String hqlCount = "SELECT COUNT(c) FROM Client c JOIN c.activitySet a WHERE a.aId = :id";
-        Long totalClients = session.createQuery(hqlCount, Long.class)
-                                   .setParameter("id", aId)
-                                   .getSingleResult();
+    public long countClients(Session session) {
+        return METRICS.call("countClients", () -> session.createQuery("SELECT COUNT(c) FROM Client c", Long.class).getSingleResult());
+    }
 
-        String hqlBirth = "SELECT c.mBirthdate FROM Client c JOIN c.activitySet a WHERE a.aId = :id";
-        java.util.List<String> birthdates = session.createQuery(hqlBirth, String.class)
-                                                   .setParameter("id", aId)
-                                                   .getResultList();
+    /**
+     * Pobiera wszystkie wiersze tabeli klientów jako projekcję {@link ClientRow}
+     * uporządkowaną według numeru członkowskiego ({@link #MEMBER_ORDER}). Wybierane są tylko kolumny widoku,
+     * a zapytanie jest tylko do odczytu - wyniki nie trafiają do kontekstu utrwalania.
+     * @param session Aktualna sesja Hibernate.
+     * @return Lista wierszy {@link ClientRow}.
+     */
+    public List<ClientRow> findAllClientRows(Session session) {
+        return METRICS.call("findAllClientRows", () -> session.createQuery(CLIENT_ROWS_HQL + MEMBER_ORDER, ClientRow.class)
+                .setReadOnly(true)
+                .getResultList());
+    }
 
-        String hqlRev = "SELECT c.mcategoryMember, a.aPrice FROM Client c JOIN c.activitySet a WHERE a.aId = :id";
-        java.util.List<Object[]> revenueData = session.createQuery(hqlRev, Object[].class)
-                                                      .setParameter("id", aId)
-                                                      .getResultList();
+    /**
+     * Pobiera stronę wierszy klientów (projekcja {@link ClientRow}) uporządkowanych według
+     * numeru członkowskiego ({@link #MEMBER_ORDER}), zaczynając od rekordu następującego po {@code afterKey}.
+     * Strona wyznaczana jest warunkiem na kluczu, bez OFFSET - baza nie odczytuje poprzednich stron.
+     * Porządek odpowiada indeksowi {@link MemberSequenceDAO#INDEX}, więc koszt strony nie zależy od jej pozycji.
+     * @param session Aktualna sesja Hibernate.
+     * @param afterKey Ostatni klucz poprzedniej strony lub null dla pierwszej strony.
+     * @param limit Maksymalna liczba rekordów.
+     * @return Lista wierszy {@link ClientRow}.
+     */
+    public List<ClientRow> findClientRowsPage(Session session, String afterKey, int limit) {
+        return METRICS.call("findClientRowsPage", () -> {
+            Query<ClientRow> query = afterKey == null
+                    ? session.createQuery(CLIENT_ROWS_HQL + MEMBER_ORDER, ClientRow.class)
+                    : session.createQuery(CLIENT_ROWS_HQL + " WHERE " + AFTER_MEMBER + MEMBER_ORDER, ClientRow.class)
+                            .setParameter("after", afterKey)
+                            .setParameter("afterSeq", Client.numberSequence(afterKey));
+            return query.setReadOnly(true).setMaxResults(limit).getResultList();
+        });
+    }
 
-        return new Object[]{totalClients, birthdates, revenueData};
+    /**
+     * Pobiera jeden wiersz tabeli klienta (projekcja {@link ClientRow}) według klucza głównego.
+     * Używane do odświeżenia pojedynczego wiersza widoku po zapisie.
+     * @param session Aktualna sesja Hibernate.
+     * @param mNum Klucz główny (numer członkowski).
+     * @return Wiersz lub null, jeśli rekord nie istnieje.
+     */
+    public ClientRow findClientRow(Session session, String mNum) {
+        return METRICS.call("findClientRow", () -> session.createQuery(CLIENT_ROWS_HQL + " WHERE c.mNum = :key", ClientRow.class)
+                .setParameter("key", mNum)
+                .setReadOnly(true)
+                .getSingleResultOrNull());
+    }
+
+    /**
+     * Zwraca klucz rekordu o podanej pozycji w porządku numerów członkowskich ({@link #MEMBER_ORDER}).
+     * Odczytywany jest wyłącznie indeks klucza, bez wierszy tabeli.
+     * @param session Aktualna sesja Hibernate.
+     * @param offset Pozycja rekordu (od 0).
+     * @return Klucz lub null, jeśli pozycja wykracza poza tabelę.
+     */
+    public String findClientKeyAt(Session session, int offset) {
+        return METRICS.call("findClientKeyAt", () -> session.createQuery("SELECT c.mNum FROM Client c" + MEMBER_ORDER, String.class)
+                .setFirstResult(offset)
+                .setMaxResults(1)
+                .getSingleResultOrNull());
+    }
+
+    // =========================================================================
+    // WYSZUKIWANIE (TRYB STRONICOWANY)
+    // =========================================================================
+
+    /**
+     * Zwraca liczbę klientów, których kolumna widoku zawiera podany tekst.
+     * @param session Aktualna sesja Hibernate.
+     * @param column Indeks kolumny widoku (kolejność pól {@link ClientRow}).
+     * @param text Szukany fragment (bez rozróżniania wielkości liter).
+     * @return Liczba pasujących rekordów.
+     */
+    public long countClientRows(Session session, int column, String text) {
+        return METRICS.call("countClientRows", () -> session.createQuery("SELECT COUNT(c) FROM Client c WHERE "
+                + RowSearch.condition(SEARCH_PATHS[column]), Long.class)
+                .setParameter("pattern", RowSearch.pattern(text))
+                .getSingleResult());
+    }
+
+    /**
+     * Pobiera stronę pasujących wierszy (projekcja {@link ClientRow}) z paginacją po kluczu głównym.
+     * @param session Aktualna sesja Hibernate.
+     * @param afterKey Ostatni klucz poprzedniej strony lub null dla pierwszej strony.
+     * @param limit Maksymalna liczba rekordów.
+     * @param column Indeks kolumny widoku.
+     * @param text Szukany fragment.
+     * @return Lista wierszy {@link ClientRow}.
+     */
+    public List<ClientRow> findClientRowsPage(Session session, String afterKey, int limit, int column, String text) {
+        return METRICS.call("findClientRowsPage", () -> {
+            String where = " WHERE " + RowSearch.condition(SEARCH_PATHS[column]);
+            Query<ClientRow> query = afterKey == null
+                    ? session.createQuery(CLIENT_ROWS_HQL + where + MEMBER_ORDER, ClientRow.class)
+                    : session.createQuery(CLIENT_ROWS_HQL + where + " AND " + AFTER_MEMBER + MEMBER_ORDER, ClientRow.class)
+                            .setParameter("after", afterKey)
+                            .setParameter("afterSeq", Client.numberSequence(afterKey));
+            return query.setParameter("pattern", RowSearch.pattern(text))
+                    .setReadOnly(true)
+                    .setMaxResults(limit)
+                    .getResultList();
+        });
+    }
+
+    /**
+     * Zwraca klucz pasującego rekordu o podanej pozycji w porządku numerów członkowskich.
+     * @param session Aktualna sesja Hibernate.
+     * @param offset Pozycja wśród pasujących rekordów (od 0).
+     * @param column Indeks kolumny widoku.
+     * @param text Szukany fragment.
+     * @return Klucz lub null, jeśli pozycja wykracza poza wynik.
+     */
+    public String findClientKeyAt(Session session, int offset, int column, String text) {
+        return METRICS.call("findClientKeyAt", () -> session.createQuery("SELECT c.mNum FROM Client c WHERE "
+                + RowSearch.condition(SEARCH_PATHS[column]) + MEMBER_ORDER, String.class)
+                .setParameter("pattern", RowSearch.pattern(text))
+                .setFirstResult(offset)
+                .setMaxResults(1)
+                .getSingleResultOrNull());
+    }
+
+    // =========================================================================
+    // ZAKRESY DAT (WIEK, STAŻ)
+    // =========================================================================
+
+    /**
+     * Zwraca liczbę klientów w podanym przedziale wieku (pełne lata). Warunek dotyczy
+     * wyłącznie kolumny daty urodzenia, więc wykonywany jest na indeksie tej kolumny.
+     * @param session Aktualna sesja Hibernate.
+     * @param minAge Najniższy wiek (włącznie).
+     * @param maxAge Najwyższy wiek (włącznie).
+     * @return Liczba klientów (bez klientów bez daty urodzenia).
+     */
+    public long countClientsByAge(Session session, int minAge, int maxAge) {
+        return METRICS.call("countClientsByAge", () -> {
+            LocalDate today = LocalDate.now();
+            return session.createQuery("SELECT COUNT(c) FROM Client c WHERE "
+                    + YearRange.condition("c.mBirthdate"), Long.class)
+                    .setParameter("after", YearRange.after(today, maxAge))
+                    .setParameter("upTo", YearRange.upTo(today, minAge))
+                    .getSingleResult();
+        });
+    }
+
+    /**
+     * Pobiera wiersze klientów (projekcja {@link ClientRow}) w podanym przedziale wieku,
+     * uporządkowane według daty urodzenia.
+     * @param session Aktualna sesja Hibernate.
+     * @param minAge Najniższy wiek (włącznie).
+     * @param maxAge Najwyższy wiek (włącznie).
+     * @return Lista wierszy {@link ClientRow}.
+     */
+    public List<ClientRow> findClientRowsByAge(Session session, int minAge, int maxAge) {
+        return METRICS.call("findClientRowsByAge", () -> findClientRowsInYearRange(session, "c.mBirthdate", minAge, maxAge));
+    }
+
+    /**
+     * Pobiera wiersze klientów (projekcja {@link ClientRow}) o stażu członkowskim
+     * w podanym przedziale (pełne lata od daty przyjęcia), uporządkowane według daty przyjęcia.
+     * @param session Aktualna sesja Hibernate.
+     * @param minYears Najkrótszy staż (włącznie).
+     * @param maxYears Najdłuższy staż (włącznie).
+     * @return Lista wierszy {@link ClientRow}.
+     */
+    public List<ClientRow> findClientRowsByMembership(Session session, int minYears, int maxYears) {
+        return METRICS.call("findClientRowsByMembership", () -> findClientRowsInYearRange(session, "c.mstartingDateMember", minYears, maxYears));
+    }
+
+    private List<ClientRow> findClientRowsInYearRange(Session session, String path, int minYears, int maxYears) {
+        LocalDate today = LocalDate.now();
+        return session.createQuery(CLIENT_ROWS_HQL + " WHERE " + YearRange.condition(path)
+                + " ORDER BY " + path, ClientRow.class)
+                .setParameter("after", YearRange.after(today, maxYears))
+                .setParameter("upTo", YearRange.upTo(today, minYears))
+                .setReadOnly(true)
+                .getResultList();
+    }
+
+    // =========================================================================
+    // EKSPORT STRUMIENIOWY
+    // =========================================================================
+
+    /**
+     * Otwiera kursor po wszystkich wierszach tabeli klientów (projekcja {@link ClientRow})
+     * uporządkowanych według numeru członkowskiego ({@link #MEMBER_ORDER}). Wiersze pobierane są z bazy porcjami
+     * po {@code fetchSize}, a sesja bezstanowa nie przechowuje ich w kontekście
+     * utrwalania - zużycie pamięci nie zależy od liczby rekordów.
+     * @param session Sesja bezstanowa Hibernate.
+     * @param fetchSize Liczba wierszy pobieranych z bazy w jednej porcji.
+     * @return Kursor tylko do przodu; należy go zamknąć po użyciu.
+     */
+    public ScrollableResults<ClientRow> scrollClientRows(StatelessSession session, int fetchSize) {
+        return METRICS.call("scrollClientRows", () -> session.createQuery(CLIENT_ROWS_HQL + MEMBER_ORDER, ClientRow.class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package Models;
+
+import java.time.LocalDate;
+
+/**
+ * Projekcja tylko do odczytu pojedynczego wiersza tabeli klientów.
+ * Obejmuje wyłącznie kolumny wyświetlane w widoku (bez kolekcji zapisów),
+ * a obiekty nie są zarządzane przez sesję Hibernate.
+ *
+ * @param mNum Numer członkowski.
+ * @param mName Imię i nazwisko.
+ * @param mId Numer dokumentu (PESEL/DNI).
+ * @param mBirthdate Data urodzenia.
+ * @param mPhone Numer telefonu.
+ * @param memailMember Adres e-mail.
+ * @param mstartingDateMember Data przyjęcia.
+ * @param mcategoryMember Kategoria członkowska.
+ */
+public record ClientRow(String mNum, String mName, String mId, LocalDate mBirthdate, String mPhone,
+        String memailMember, LocalDate mstartingDateMember, Character mcategoryMember) {
+}
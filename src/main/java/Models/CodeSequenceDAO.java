@@ -0,0 +1,84 @@
+package Models;
+
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych tabeli sekwencji kodów (CODE_SEQUENCE).
+ * Każdy wiersz przechowuje następną wolną wartość licznika dla jednego rodzaju kodu
+ * (numery członkowskie, kody trenerów, kody aktywności). Procesy aplikacji rezerwują
+ * z niej całe bloki wartości, a kolejne kody wydają już z pamięci.
+ * <p>
+ * Tabela nie jest encją - operacje wykonywane są natywnym SQL, a rezerwacja bloku
+ * to jedna instrukcja UPDATE blokująca wiersz do końca transakcji, dzięki czemu
+ * równoległe rezerwacje z różnych stanowisk nigdy nie otrzymują tego samego bloku.
+ * Instrukcje deklarują przestrzeń zapytań CODE_SEQUENCE - bez niej Hibernate czyściłby
+ * po każdej rezerwacji cały cache drugiego poziomu i cache zapytań.
+ */
+public class CodeSequenceDAO {
+
+    /** Nazwa tabeli sekwencji (przestrzeń zapytań natywnych instrukcji). */
+    private static final String TABLE = "CODE_SEQUENCE";
+
+    /** Instrukcja tworząca tabelę sekwencji, jeśli jeszcze nie istnieje. */
+    private static final String CREATE_TABLE_SQL
+            = "CREATE TABLE IF NOT EXISTS CODE_SEQUENCE ("
+            + "seq_name VARCHAR(32) NOT NULL PRIMARY KEY, "
+            + "next_val BIGINT NOT NULL)";
+
+    /** Konstruktor domyślny klasy CodeSequenceDAO. */
+    public CodeSequenceDAO() {
+    }
+
+    /**
+     * Tworzy tabelę CODE_SEQUENCE, jeśli nie istnieje. W MariaDB instrukcja DDL
+     * zatwierdza bieżącą transakcję, dlatego należy ją wykonać w osobnej transakcji.
+     * @param session Aktualna sesja Hibernate.
+     */
+    public void createTableIfMissing(Session session) {
+        session.createNativeMutationQuery(CREATE_TABLE_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Rezerwuje blok kolejnych wartości sekwencji. Wymaga aktywnej transakcji -
+     * wiersz sekwencji pozostaje zablokowany do jej zatwierdzenia.
+     * @param session Aktualna sesja Hibernate.
+     * @param name Nazwa sekwencji.
+     * @param blockSize Liczba rezerwowanych wartości.
+     * @return Pierwsza wartość zarezerwowanego bloku lub -1, jeśli sekwencja nie istnieje.
+     */
+    public long reserveBlock(Session session, String name, int blockSize) {
+        int updated = session.createNativeMutationQuery(
+                "UPDATE CODE_SEQUENCE SET next_val = next_val + :size WHERE seq_name = :name")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("size", blockSize)
+                .setParameter("name", name)
+                .executeUpdate();
+        if (updated == 0) {
+            return -1;
+        }
+        Long next = session.createNativeQuery(
+                "SELECT next_val FROM CODE_SEQUENCE WHERE seq_name = :name", Long.class)
+                .setParameter("name", name)
+                .getSingleResult();
+        return next - blockSize;
+    }
+
+    /**
+     * Zakłada wiersz nowej sekwencji. Przy równoległym zakładaniu tej samej sekwencji
+     * przez inny proces instrukcja kończy się naruszeniem klucza głównego.
+     * @param session Aktualna sesja Hibernate.
+     * @param name Nazwa sekwencji.
+     * @param nextValue Pierwsza wartość do wydania.
+     */
+    public void insertSequence(Session session, String name, long nextValue) {
+        session.createNativeMutationQuery(
+                "INSERT INTO CODE_SEQUENCE (seq_name, next_val) VALUES (:name, :next)")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("name", name)
+                .setParameter("next", nextValue)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,107 @@
+package Models;
+
+import java.util.List;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych migracji kolumn dat (CLIENT.m_birthdate,
+ * CLIENT.m_startingDateMember, TRAINER.t_date) z tekstu na typ DATE.
+ * Starsze bazy przechowują daty jako tekst w dwóch formatach: dd/MM/yyyy (formularz)
+ * oraz yyyy-MM-dd (klient konsolowy). Migracja sprowadza je do formatu ISO,
+ * zmienia typ kolumny i zakłada indeks.
+ * <p>
+ * Podobnie jak {@link TableVersionDAO} operacje wykonywane są natywnym SQL
+ * (składnia wspólna dla MariaDB i H2 w trybie MariaDB). Instrukcje deklarują przestrzeń zapytań
+ * migrowanej tabeli - cache unieważniany jest tylko dla jej encji.
+ */
+public class DateColumnDAO {
+
+    /**
+     * Kolumna daty objęta migracją.
+     * @param table Nazwa tabeli.
+     * @param column Nazwa kolumny.
+     * @param nullable Czy kolumna dopuszcza NULL (wartości nieczytelne są wtedy czyszczone).
+     * @param index Nazwa indeksu kolumny.
+     */
+    public record DateColumn(String table, String column, boolean nullable, String index) {
+    }
+
+    /** Kolumny dat encji {@link Client} i {@link Trainer} (nazwy indeksów jak w mapowaniu encji). */
+    public static final List<DateColumn> COLUMNS = List.of(
+            new DateColumn("CLIENT", "m_birthdate", true, "ix_client_birthdate"),
+            new DateColumn("CLIENT", "m_startingDateMember", false, "ix_client_starting_date"),
+            new DateColumn("TRAINER", "t_date", false, "ix_trainer_date"));
+
+    /** Konstruktor domyślny klasy DateColumnDAO. */
+    public DateColumnDAO() {
+    }
+
+    /**
+     * Sprawdza, czy kolumna ma już typ DATE (nowa baza lub migracja wykonana wcześniej).
+     * @param session Aktualna sesja Hibernate.
+     * @param column Kolumna daty.
+     * @return true, jeśli kolumna jest typu DATE; false dla kolumny tekstowej lub nieistniejącej.
+     */
+    public boolean isDateType(Session session, DateColumn column) {
+        List<String> types = session.createNativeQuery(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = :table AND UPPER(COLUMN_NAME) = :column",
+                String.class)
+                .setParameter("table", column.table().toUpperCase())
+                .setParameter("column", column.column().toUpperCase())
+                .getResultList();
+        return !types.isEmpty() && "DATE".equalsIgnoreCase(types.get(0));
+    }
+
+    /**
+     * Sprowadza tekstowe wartości kolumny do formatu ISO (yyyy-MM-dd): dd/MM/yyyy jest
+     * przestawiany, a w kolumnie dopuszczającej NULL wartości w innym formacie (np. puste)
+     * są czyszczone.
+     * @param session Sesja z aktywną transakcją.
+     * @param column Kolumna daty.
+     * @return Liczba zmienionych wierszy.
+     */
+    public int normalize(Session session, DateColumn column) {
+        String name = column.column();
+        int changed = session.createNativeMutationQuery(
+                "UPDATE " + column.table() + " SET " + name + " = CONCAT(SUBSTRING(" + name + ", 7, 4), '-', "
+                + "SUBSTRING(" + name + ", 4, 2), '-', SUBSTRING(" + name + ", 1, 2)) "
+                + "WHERE " + name + " LIKE '__/__/____'")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, column.table())
+                .executeUpdate();
+        if (column.nullable()) {
+            changed += session.createNativeMutationQuery(
+                    "UPDATE " + column.table() + " SET " + name + " = NULL WHERE " + name + " NOT LIKE '____-__-__'")
+                    .setHint(HibernateHints.HINT_NATIVE_SPACES, column.table())
+                    .executeUpdate();
+        }
+        return changed;
+    }
+
+    /**
+     * Zmienia typ kolumny na DATE. Instrukcja DDL zatwierdza w MariaDB bieżącą transakcję,
+     * dlatego należy ją wykonać w osobnej transakcji, po {@link #normalize}.
+     * @param session Aktualna sesja Hibernate.
+     * @param column Kolumna daty.
+     */
+    public void alterToDate(Session session, DateColumn column) {
+        session.createNativeMutationQuery(
+                "ALTER TABLE " + column.table() + " MODIFY " + column.column() + " DATE"
+                + (column.nullable() ? " NULL" : " NOT NULL"))
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, column.table())
+                .executeUpdate();
+    }
+
+    /**
+     * Zakłada indeks kolumny, jeśli nie istnieje (instrukcja DDL - osobna transakcja).
+     * @param session Aktualna sesja Hibernate.
+     * @param column Kolumna daty.
+     */
+    public void createIndexIfMissing(Session session, DateColumn column) {
+        session.createNativeMutationQuery(
+                "CREATE INDEX IF NOT EXISTS " + column.index() + " ON " + column.table() + " (" + column.column() + ")")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, column.table())
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,85 @@
+package Models;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych tabeli reguł zniżek (DISCOUNT_RULE).
+ * Każdy wiersz określa zniżkę procentową od ceny aktywności dla jednej kategorii
+ * członkowskiej; kategorie bez reguły płacą pełną cenę. Reguły kompiluje {@link PricingEngine}.
+ * <p>
+ * Podobnie jak {@link TableVersionDAO} tabela nie jest encją - operacje wykonywane są natywnym SQL
+ * z przestrzenią zapytań DISCOUNT_RULE, więc nie czyszczą cache drugiego poziomu ani cache zapytań.
+ */
+public class DiscountRuleDAO {
+
+    /**
+     * Reguła zniżki kategorii członkowskiej.
+     * @param category Kategoria członkowska.
+     * @param percent Zniżka od ceny aktywności (0-100%).
+     */
+    public record DiscountRule(char category, double percent) {
+    }
+
+    /** Reguły zakładane w nowej tabeli (dotychczasowe zniżki: B = 10%, C = 20%, D = 30%). */
+    public static final List<DiscountRule> DEFAULT_RULES = List.of(
+            new DiscountRule('B', 10), new DiscountRule('C', 20), new DiscountRule('D', 30));
+
+    /** Nazwa tabeli reguł (przestrzeń zapytań natywnych instrukcji). */
+    private static final String TABLE = "DISCOUNT_RULE";
+
+    /** Instrukcja tworząca tabelę reguł, jeśli jeszcze nie istnieje. */
+    private static final String CREATE_TABLE_SQL
+            = "CREATE TABLE IF NOT EXISTS DISCOUNT_RULE ("
+            + "category CHAR(1) NOT NULL PRIMARY KEY, "
+            + "discount_percent DECIMAL(5,2) NOT NULL)";
+
+    /** Konstruktor domyślny klasy DiscountRuleDAO. */
+    public DiscountRuleDAO() {
+    }
+
+    /**
+     * Tworzy tabelę DISCOUNT_RULE, jeśli nie istnieje. W MariaDB instrukcja DDL
+     * zatwierdza bieżącą transakcję, dlatego należy ją wykonać w osobnej transakcji.
+     * @param session Aktualna sesja Hibernate.
+     */
+    public void createTableIfMissing(Session session) {
+        session.createNativeMutationQuery(CREATE_TABLE_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Zakłada regułę zniżki. Przy równoległym zakładaniu tej samej reguły przez inny
+     * proces instrukcja kończy się naruszeniem klucza głównego.
+     * @param session Aktualna sesja Hibernate.
+     * @param rule Reguła do zapisania.
+     */
+    public void insertRule(Session session, DiscountRule rule) {
+        session.createNativeMutationQuery(
+                "INSERT INTO DISCOUNT_RULE (category, discount_percent) VALUES (:category, :percent)")
+                .setParameter("category", String.valueOf(rule.category()))
+                .setParameter("percent", rule.percent())
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Odczytuje wszystkie reguły zniżek.
+     * @param session Aktualna sesja Hibernate.
+     * @return Reguły w kolejności kategorii (pusta lista, jeśli tabela jest pusta).
+     */
+    public List<DiscountRule> findAll(Session session) {
+        List<Object[]> rows = session.createNativeQuery(
+                "SELECT category, discount_percent FROM DISCOUNT_RULE ORDER BY category", Object[].class)
+                .getResultList();
+        List<DiscountRule> rules = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            // Kolumna CHAR(1) - sterownik zwraca Character lub String
+            rules.add(new DiscountRule(String.valueOf(row[0]).charAt(0), ((Number) row[1]).doubleValue()));
+        }
+        return rules;
+    }
+}
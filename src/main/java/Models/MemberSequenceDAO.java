@@ -0,0 +1,82 @@
+package Models;
+
+import java.util.List;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych kolumny CLIENT.m_numSeq - części liczbowej numeru członkowskiego
+ * ({@link Client#numberSequence}). Klucz m_num porównywany jest jak tekst (S1000 przed S101),
+ * a strony tabeli klientów czytane są w porządku (m_numSeq, m_num) z indeksu {@link #INDEX},
+ * bez sortowania całej tabeli.
+ * <p>
+ * Starsze bazy nie mają kolumny: migracja zakłada ją, wypełnia jedną instrukcją i zakłada
+ * indeks. Podobnie jak {@link DateColumnDAO} operacje wykonywane są natywnym SQL (składnia
+ * wspólna dla MariaDB i H2 w trybie MariaDB) z przestrzenią zapytań CLIENT.
+ */
+public class MemberSequenceDAO {
+
+    /** Nazwa indeksu (m_numSeq, m_num) - jak w mapowaniu encji {@link Client}. */
+    public static final String INDEX = "ix_client_num_seq";
+
+    /** Najdłuższy numer członkowski z częścią liczbową (prefiks i 18 cyfr - zakres BIGINT). */
+    public static final int MAX_LENGTH = 19;
+
+    /** Nazwa tabeli klientów (przestrzeń zapytań natywnych instrukcji). */
+    private static final String TABLE = "CLIENT";
+
+    /** Konstruktor domyślny klasy MemberSequenceDAO. */
+    public MemberSequenceDAO() {
+    }
+
+    /**
+     * Sprawdza, czy tabela klientów ma już kolumnę m_numSeq.
+     * @param session Aktualna sesja Hibernate.
+     * @return true, jeśli kolumna istnieje.
+     */
+    public boolean hasColumn(Session session) {
+        List<Long> count = session.createNativeQuery(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = 'CLIENT' AND UPPER(COLUMN_NAME) = 'M_NUMSEQ'",
+                Long.class)
+                .getResultList();
+        return !count.isEmpty() && count.get(0) > 0;
+    }
+
+    /**
+     * Dodaje kolumnę m_numSeq (instrukcja DDL - osobna transakcja).
+     * @param session Aktualna sesja Hibernate.
+     */
+    public void addColumn(Session session) {
+        session.createNativeMutationQuery("ALTER TABLE CLIENT ADD COLUMN IF NOT EXISTS m_numSeq BIGINT NULL")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Wypełnia kolumnę w wierszach, które jej nie mają, według tej samej reguły co
+     * {@link Client#numberSequence}: cyfry po prefiksie "S", a dla numerów w innym formacie 0.
+     * @param session Sesja z aktywną transakcją.
+     * @return Liczba wypełnionych wierszy.
+     */
+    public int assignAll(Session session) {
+        int assigned = session.createNativeMutationQuery(
+                "UPDATE CLIENT SET m_numSeq = CAST(SUBSTRING(m_num, 2) AS INTEGER) "
+                + "WHERE m_numSeq IS NULL AND m_num REGEXP '^S[0-9]+$' AND LENGTH(m_num) <= " + MAX_LENGTH)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+        return assigned + session.createNativeMutationQuery("UPDATE CLIENT SET m_numSeq = 0 WHERE m_numSeq IS NULL")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Zakłada indeks (m_numSeq, m_num), jeśli nie istnieje (instrukcja DDL - osobna transakcja).
+     * @param session Aktualna sesja Hibernate.
+     */
+    public void createIndexIfMissing(Session session) {
+        session.createNativeMutationQuery("CREATE INDEX IF NOT EXISTS " + INDEX + " ON CLIENT (m_numSeq, m_num)")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,227 @@
+package Models;
+
+import Config.CacheRegions;
+import Models.ActivityAggregateDAO.Counters;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych tabeli asocjacyjnej PERFORMS (zapisy klientów na aktywności).
+ * Zamiast ładować kolekcję {@code Activity.clientSet} i scalać całą aktywność,
+ * każda operacja to pojedyncza instrukcja SQL na wierszach PERFORMS - koszt nie
+ * zależy od liczby osób zapisanych na zajęcia.
+ * <p>
+ * Zapis jest idempotentny: wiersz wstawiany jest tylko wtedy, gdy klient i aktywność
+ * istnieją, a zapis jeszcze nie istnieje. Ponieważ instrukcje omijają kontekst utrwalania,
+ * po każdej zmianie unieważniany jest cache drugiego poziomu kolekcji klientów aktywności;
+ * instrukcje deklarują przestrzeń zapytań PERFORMS, więc pozostałe regiony cache zostają nienaruszone.
+ * W tej samej transakcji aktualizowane są liczniki statystyk aktywności ({@link ActivityAggregateDAO}):
+ * przyrost wyznaczany jest przed zmianą zapytaniem o te same wiersze co instrukcja zmieniająca.
+ * Metody wymagają aktywnej transakcji.
+ */
+public class PerformsDAO {
+
+    /** Nazwa tabeli zapisów (przestrzeń zapytań natywnych instrukcji). */
+    private static final String TABLE = "PERFORMS";
+
+    /**
+     * Wstawia brakujące zapisy aktywności dla klientów o podanych numerach
+     * (tylko istniejących i jeszcze niezapisanych).
+     */
+    private static final String ENROLL_SQL
+            = "INSERT INTO PERFORMS (p_id, p_num) "
+            + "SELECT a.a_id, c.m_num FROM ACTIVITY a JOIN CLIENT c ON c.m_num IN (:nums) "
+            + "WHERE a.a_id = :aId "
+            + "AND NOT EXISTS (SELECT 1 FROM PERFORMS p WHERE p.p_id = a.a_id AND p.p_num = c.m_num)";
+
+    /** Usuwa zapisy podanych klientów z aktywności. */
+    private static final String UNENROLL_SQL
+            = "DELETE FROM PERFORMS WHERE p_id = :aId AND p_num IN (:nums)";
+
+    /**
+     * Przenosi zapisy do innej aktywności z pominięciem klientów, którzy już są na nią zapisani.
+     * Podzapytanie w tabeli pochodnej - MariaDB nie pozwala odczytywać modyfikowanej tabeli wprost.
+     */
+    private static final String MOVE_SQL
+            = "UPDATE PERFORMS SET p_id = :toId "
+            + "WHERE p_id = :fromId AND p_num IN (:nums) "
+            + "AND p_num NOT IN (SELECT t.p_num FROM (SELECT p_num FROM PERFORMS WHERE p_id = :toId) t)";
+
+    /** Wiersze zapisów do eksportu: aktywność i dane zapisanego klienta. */
+    private static final String ENROLLMENT_ROWS_HQL
+            = "SELECT a.aId, a.aName, c.mNum, c.mName, c.mId FROM Activity a JOIN a.clientSet c "
+            + "ORDER BY a.aId, c.mNum";
+
+    /** Liczniki statystyk aktywności aktualizowane razem z zapisami. */
+    private final ActivityAggregateDAO aggregateDAO = new ActivityAggregateDAO();
+
+    /** Konstruktor domyślny klasy PerformsDAO. */
+    public PerformsDAO() {
+    }
+
+    /**
+     * Zapisuje klienta na aktywność.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNum Numer członkowski klienta.
+     * @return {@code true}, jeśli dodano zapis; {@code false}, jeśli już istniał
+     *         lub klient albo aktywność nie istnieją.
+     */
+    public boolean enroll(Session session, String activityId, String clientNum) {
+        return enrollAll(session, activityId, List.of(clientNum)) > 0;
+    }
+
+    /**
+     * Zapisuje wielu klientów na aktywność jedną instrukcją INSERT ... SELECT.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNums Numery członkowskie klientów.
+     * @return Liczba dodanych zapisów (bez już istniejących).
+     */
+    public int enrollAll(Session session, String activityId, Collection<String> clientNums) {
+        if (clientNums.isEmpty()) {
+            return 0;
+        }
+        List<Counters> added = aggregateDAO.newEnrollments(session, activityId, clientNums);
+        int inserted = session.createNativeMutationQuery(ENROLL_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("aId", activityId)
+                .setParameterList("nums", clientNums)
+                .executeUpdate();
+        updateAggregate(session, activityId, added, 1, inserted);
+        evictEnrollments(session, activityId);
+        return inserted;
+    }
+
+    /**
+     * Wypisuje klienta z aktywności.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNum Numer członkowski klienta.
+     * @return {@code true}, jeśli zapis istniał i został usunięty.
+     */
+    public boolean unenroll(Session session, String activityId, String clientNum) {
+        return unenrollAll(session, activityId, List.of(clientNum)) > 0;
+    }
+
+    /**
+     * Wypisuje wielu klientów z aktywności jedną instrukcją DELETE.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNums Numery członkowskie klientów.
+     * @return Liczba usuniętych zapisów.
+     */
+    public int unenrollAll(Session session, String activityId, Collection<String> clientNums) {
+        if (clientNums.isEmpty()) {
+            return 0;
+        }
+        List<Counters> removed = aggregateDAO.enrollments(session, activityId, clientNums);
+        int deleted = session.createNativeMutationQuery(UNENROLL_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("aId", activityId)
+                .setParameterList("nums", clientNums)
+                .executeUpdate();
+        updateAggregate(session, activityId, removed, -1, deleted);
+        evictEnrollments(session, activityId);
+        return deleted;
+    }
+
+    /**
+     * Przenosi zapisy klientów z jednej aktywności na drugą instrukcją UPDATE.
+     * Klienci zapisani już na aktywność docelową są jedynie wypisywani ze źródłowej
+     * (druga instrukcja dotyczy wyłącznie tych zdublowanych wierszy).
+     * @param session Aktualna sesja Hibernate.
+     * @param fromActivityId Identyfikator aktywności źródłowej.
+     * @param toActivityId Identyfikator aktywności docelowej.
+     * @param clientNums Numery członkowskie klientów.
+     * @return Liczba przeniesionych zapisów lub -1, jeśli aktywność docelowa nie istnieje.
+     */
+    public int moveAll(Session session, String fromActivityId, String toActivityId, Collection<String> clientNums) {
+        if (clientNums.isEmpty() || fromActivityId.equals(toActivityId)) {
+            return 0;
+        }
+        if (session.find(Activity.class, toActivityId) == null) {
+            return -1;
+        }
+        List<Counters> removed = aggregateDAO.enrollments(session, fromActivityId, clientNums);
+        List<Counters> added = aggregateDAO.movedEnrollments(session, fromActivityId, toActivityId, clientNums);
+        int moved = session.createNativeMutationQuery(MOVE_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("fromId", fromActivityId)
+                .setParameter("toId", toActivityId)
+                .setParameterList("nums", clientNums)
+                .executeUpdate();
+        int duplicates = 0;
+        if (moved < clientNums.size()) {
+            // Pozostałe wiersze należą do klientów zapisanych już na zajęcia docelowe
+            duplicates = session.createNativeMutationQuery(UNENROLL_SQL)
+                    .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                    .setParameter("aId", fromActivityId)
+                    .setParameterList("nums", clientNums)
+                    .executeUpdate();
+        }
+        updateAggregate(session, fromActivityId, removed, -1, moved + duplicates);
+        updateAggregate(session, toActivityId, added, 1, moved);
+        evictEnrollments(session, fromActivityId);
+        evictEnrollments(session, toActivityId);
+        return moved;
+    }
+
+    /**
+     * Sprawdza, czy klient jest zapisany na aktywność.
+     * @param session Aktualna sesja Hibernate.
+     * @param activityId Identyfikator aktywności.
+     * @param clientNum Numer członkowski klienta.
+     * @return {@code true}, jeśli zapis istnieje.
+     */
+    public boolean isEnrolled(Session session, String activityId, String clientNum) {
+        return session.createNativeQuery(
+                "SELECT COUNT(*) FROM PERFORMS WHERE p_id = :aId AND p_num = :num", Long.class)
+                .setParameter("aId", activityId)
+                .setParameter("num", clientNum)
+                .getSingleResult() > 0;
+    }
+
+    /**
+     * Nanosi przyrost na liczniki aktywności. Jeśli instrukcja zmieniła inną liczbę wierszy,
+     * niż przewidywał przyrost (równoległa zmiana między zapytaniem a instrukcją),
+     * liczniki aktywności przeliczane są od nowa.
+     */
+    private void updateAggregate(Session session, String activityId, List<Counters> delta, int sign, int changed) {
+        long expected = 0;
+        for (Counters c : delta) {
+            expected += c.enrolled();
+        }
+        if (expected == changed) {
+            aggregateDAO.add(session, delta, sign);
+        } else {
+            aggregateDAO.rebuild(session, activityId);
+        }
+    }
+
+    /** Unieważnia zbuforowaną kolekcję klientów aktywności po zmianie wierszy PERFORMS. */
+    private void evictEnrollments(Session session, String activityId) {
+        session.getSessionFactory().getCache().evictCollectionData(CacheRegions.ACTIVITY_CLIENTS_ROLE, activityId);
+    }
+
+    /**
+     * Otwiera kursor po wszystkich zapisach (aktywność, klient) uporządkowanych według
+     * aktywności i numeru klienta. Kolumny: ID aktywności, nazwa aktywności, numer
+     * klienta, imię i nazwisko, dokument. Wiersze pobierane są porcjami po
+     * {@code fetchSize}, bez ładowania kolekcji {@code clientSet}.
+     * @param session Sesja bezstanowa Hibernate.
+     * @param fetchSize Liczba wierszy pobieranych z bazy w jednej porcji.
+     * @return Kursor tylko do przodu; należy go zamknąć po użyciu.
+     */
+    public ScrollableResults<Object[]> scrollEnrollmentRows(StatelessSession session, int fetchSize) {
+        return session.createQuery(ENROLLMENT_ROWS_HQL, Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+}
@@ -0,0 +1,185 @@
+package Models;
+
+import Config.SessionFactoryScope;
+import Config.Transactions;
+import Models.DiscountRuleDAO.DiscountRule;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+
+/**
+ * Ceny po zniżkach kategorii członkowskich - jedno źródło reguł dla statystyk aktywności,
+ * liczników {@link ActivityAggregateDAO} oraz rozliczeń i prognoz przychodu.
+ * <p>
+ * Reguły z tabeli DISCOUNT_RULE ({@link DiscountRuleDAO}) kompilowane są do płaskiej tablicy
+ * mnożników ceny indeksowanej kodem znaku kategorii (obie wielkości liter); kategorie bez reguły
+ * i spoza tablicy mają mnożnik 1. Wycena to jeden odczyt z tablicy, a przychód liczony jest
+ * w pętli po tablicach prymitywnych ({@link #revenue(int[], char[], long[], int)}) - bez obiektów
+ * pośrednich, także dla milionów wierszy zapisów.
+ * <p>
+ * Reguły wczytywane są przy pierwszym użyciu (tabela z domyślnymi regułami zakładana jest
+ * w osobnej transakcji) i ponownie przez {@link #reload()}. Skompilowana tablica zastępowana
+ * jest w całości, więc równoległa wycena zawsze widzi spójny zestaw reguł.
+ */
+public final class PricingEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(PricingEngine.class.getName());
+
+    private final SessionFactory sessionFactory;
+    private final DiscountRuleDAO ruleDAO = new DiscountRuleDAO();
+
+    /** Mnożniki ceny według kodu znaku kategorii (null - reguły jeszcze niewczytane). */
+    private volatile double[] factors;
+
+    private PricingEngine(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Zwraca silnik wyceny dla podanej fabryki sesji.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @return Współdzielony silnik wyceny.
+     */
+    public static PricingEngine forSessionFactory(SessionFactory sessionFactory) {
+        return SessionFactoryScope.get(sessionFactory, PricingEngine.class, PricingEngine::new);
+    }
+
+    /**
+     * Wczytuje i kompiluje reguły zniżek (przy pierwszym wywołaniu zakłada tabelę
+     * z regułami domyślnymi).
+     * @return {@code true}, jeśli skompilowane reguły różnią się od dotychczasowych.
+     */
+    public synchronized boolean reload() {
+        if (factors == null) {
+            ensureTable();
+        }
+        double[] compiled = Transactions.call(sessionFactory, session -> compile(ruleDAO.findAll(session)));
+        boolean changed = factors != null && !Arrays.equals(factors, compiled);
+        factors = compiled;
+        return changed;
+    }
+
+    /**
+     * Mnożnik ceny kategorii (1 - zniżka).
+     * @param category Kategoria członkowska.
+     * @return Mnożnik ceny aktywności.
+     */
+    public double factor(char category) {
+        double[] f = factors();
+        return category < f.length ? f[category] : 1.0;
+    }
+
+    /**
+     * Cena aktywności dla klienta danej kategorii (np. pozycja rozliczenia).
+     * @param basePrice Cena aktywności.
+     * @param category Kategoria członkowska klienta.
+     * @return Cena po zniżce.
+     */
+    public double price(int basePrice, char category) {
+        return basePrice * factor(category);
+    }
+
+    /**
+     * Przychód z wierszy pogrupowanych według ceny i kategorii.
+     * @param basePrices Ceny aktywności.
+     * @param categories Kategorie członkowskie.
+     * @param counts Liczby zapisów w grupie.
+     * @param length Liczba wierszy do uwzględnienia (od początku tablic).
+     * @return Przychód po zniżkach.
+     */
+    public double revenue(int[] basePrices, char[] categories, long[] counts, int length) {
+        return revenue(basePrices, categories, counts, null, length);
+    }
+
+    /**
+     * Przychód z wierszy pogrupowanych według ceny i kategorii wraz z przychodem każdej grupy
+     * (np. wiersze liczników statystyk aktywności - {@link ActivityAggregateDAO}).
+     * @param basePrices Ceny aktywności.
+     * @param categories Kategorie członkowskie.
+     * @param counts Liczby zapisów w grupie.
+     * @param groupRevenues Tablica na przychód kolejnych grup lub null.
+     * @param length Liczba wierszy do uwzględnienia (od początku tablic).
+     * @return Przychód po zniżkach (suma grup).
+     */
+    public double revenue(int[] basePrices, char[] categories, long[] counts, double[] groupRevenues, int length) {
+        double[] f = factors();
+        double total = 0;
+        for (int i = 0; i < length; i++) {
+            char c = categories[i];
+            double revenue = basePrices[i] * counts[i] * (c < f.length ? f[c] : 1.0);
+            if (groupRevenues != null) {
+                groupRevenues[i] = revenue;
+            }
+            total += revenue;
+        }
+        return total;
+    }
+
+    /**
+     * Przychód z pojedynczych zapisów (po jednym wierszu na zapis, np. porcja kursora).
+     * @param basePrices Ceny aktywności.
+     * @param categories Kategorie członkowskie klientów.
+     * @param length Liczba wierszy do uwzględnienia (od początku tablic).
+     * @return Przychód po zniżkach.
+     */
+    public double revenue(int[] basePrices, char[] categories, int length) {
+        double[] f = factors();
+        double total = 0;
+        for (int i = 0; i < length; i++) {
+            char c = categories[i];
+            total += basePrices[i] * (c < f.length ? f[c] : 1.0);
+        }
+        return total;
+    }
+
+    private double[] factors() {
+        double[] f = factors;
+        if (f == null) {
+            reload();
+            f = factors;
+        }
+        return f;
+    }
+
+    /**
+     * Kompiluje reguły do tablicy mnożników o długości (najwyższy kod kategorii + 1).
+     * Reguła dotyczy obu wielkości litery; reguły spoza zakresu 0-100% i dla kategorii
+     * niebędących literą (np. {@link ActivityAggregateDAO#NO_CATEGORY} - klienci bez kategorii
+     * płacą cenę pełną) są pomijane.
+     */
+    static double[] compile(List<DiscountRule> rules) {
+        int size = 0;
+        for (DiscountRule rule : rules) {
+            if (!Character.isLetter(rule.category())) {
+                continue;
+            }
+            size = Math.max(size, Math.max(Character.toUpperCase(rule.category()), Character.toLowerCase(rule.category())) + 1);
+        }
+        double[] compiled = new double[size];
+        Arrays.fill(compiled, 1.0);
+        for (DiscountRule rule : rules) {
+            if (!Character.isLetter(rule.category())) {
+                LOGGER.warning("Pominięto regułę zniżki dla kategorii niebędącej literą: " + rule);
+                continue;
+            }
+            if (rule.percent() < 0 || rule.percent() > 100) {
+                LOGGER.warning("Pominięto regułę zniżki spoza zakresu: " + rule);
+                continue;
+            }
+            double factor = (100 - rule.percent()) / 100.0;
+            compiled[Character.toUpperCase(rule.category())] = factor;
+            compiled[Character.toLowerCase(rule.category())] = factor;
+        }
+        return compiled;
+    }
+
+    private void ensureTable() {
+        Transactions.createTable(sessionFactory, "DISCOUNT_RULE", ruleDAO::createTableIfMissing, session -> {
+            if (ruleDAO.findAll(session).isEmpty()) {
+                DiscountRuleDAO.DEFAULT_RULES.forEach(rule -> ruleDAO.insertRule(session, rule));
+                LOGGER.info("Założono domyślne reguły zniżek: " + DiscountRuleDAO.DEFAULT_RULES);
+            }
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package Models;
+
+import java.util.Locale;
+
+/**
+ * Warunek wyszukiwania fragmentu tekstu w jednej kolumnie projekcji wierszy
+ * (tryb stronicowany widoku tabeli - filtrowanie wykonywane po stronie bazy).
+ * Porównanie bez rozróżniania wielkości liter; znaki wieloznaczne LIKE w szukanym
+ * tekście są poprzedzane znakiem ucieczki, więc tekst traktowany jest dosłownie.
+ */
+final class RowSearch {
+
+    /** Znak ucieczki w wzorcu LIKE (ukośnik odwrotny ma w MariaDB znaczenie także w literałach). */
+    private static final char ESCAPE = '!';
+
+    private RowSearch() {
+    }
+
+    /**
+     * @param path Ścieżka HQL przeszukiwanego atrybutu (np. {@code c.mName}).
+     * @return Warunek HQL z parametrem {@code :pattern}.
+     */
+    static String condition(String path) {
+        return "lower(str(" + path + ")) LIKE :pattern ESCAPE '" + ESCAPE + "'";
+    }
+
+    /**
+     * @param text Szukany fragment.
+     * @return Wartość parametru {@code :pattern}.
+     */
+    static String pattern(String text) {
+        StringBuilder pattern = new StringBuilder(text.length() + 2).append('%');
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == ESCAPE || c == '%' || c == '_') {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
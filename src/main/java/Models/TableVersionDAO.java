@@ -0,0 +1,101 @@
+package Models;
+
+import java.util.List;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Obiekt dostępu do danych tabeli wersji (TABLE_VERSION).
+ * Każdy wiersz przechowuje licznik zmian jednej tabeli prezentowanej w oknie głównym.
+ * Każdy zapis do tej tabeli zwiększa licznik w tej samej transakcji, więc porównanie
+ * liczników (jedno zapytanie po kluczu głównym) wystarcza, aby stwierdzić, czy
+ * wczytana wcześniej lista wierszy jest nadal aktualna.
+ * <p>
+ * Podobnie jak {@link CodeSequenceDAO} tabela nie jest encją - operacje wykonywane są natywnym SQL
+ * z przestrzenią zapytań TABLE_VERSION, więc zwiększenie licznika przy każdym zapisie
+ * nie czyści cache drugiego poziomu ani cache zapytań.
+ */
+public class TableVersionDAO {
+
+    /** Licznik tabeli klientów. */
+    public static final String CLIENT = "CLIENT";
+
+    /** Licznik tabeli trenerów. */
+    public static final String TRAINER = "TRAINER";
+
+    /** Licznik tabeli aktywności (wiersze zawierają także nazwisko trenera). */
+    public static final String ACTIVITY = "ACTIVITY";
+
+    /** Wszystkie liczniki zakładane przy tworzeniu tabeli. */
+    public static final List<String> TABLES = List.of(CLIENT, TRAINER, ACTIVITY);
+
+    /** Wartość zwracana, gdy licznik nie istnieje (wersja nieznana). */
+    public static final long UNKNOWN = -1;
+
+    /** Nazwa tabeli wersji (przestrzeń zapytań natywnych instrukcji). */
+    private static final String TABLE = "TABLE_VERSION";
+
+    /** Instrukcja tworząca tabelę wersji, jeśli jeszcze nie istnieje. */
+    private static final String CREATE_TABLE_SQL
+            = "CREATE TABLE IF NOT EXISTS TABLE_VERSION ("
+            + "table_name VARCHAR(32) NOT NULL PRIMARY KEY, "
+            + "version BIGINT NOT NULL)";
+
+    /** Konstruktor domyślny klasy TableVersionDAO. */
+    public TableVersionDAO() {
+    }
+
+    /**
+     * Tworzy tabelę TABLE_VERSION, jeśli nie istnieje. W MariaDB instrukcja DDL
+     * zatwierdza bieżącą transakcję, dlatego należy ją wykonać w osobnej transakcji.
+     * @param session Aktualna sesja Hibernate.
+     */
+    public void createTableIfMissing(Session session) {
+        session.createNativeMutationQuery(CREATE_TABLE_SQL)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .executeUpdate();
+    }
+
+    /**
+     * Zakłada licznik tabeli z wartością 0. Przy równoległym zakładaniu tego samego
+     * licznika przez inny proces instrukcja kończy się naruszeniem klucza głównego.
+     * @param session Aktualna sesja Hibernate.
+     * @param table Nazwa licznika.
+     */
+    public void insertVersion(Session session, String table) {
+        session.createNativeMutationQuery(
+                "INSERT INTO TABLE_VERSION (table_name, version) VALUES (:name, 0)")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("name", table)
+                .executeUpdate();
+    }
+
+    /**
+     * Zwiększa licznik tabeli. Wywoływane w transakcji zapisu - wiersz licznika
+     * pozostaje zablokowany do jej zatwierdzenia.
+     * @param session Aktualna sesja Hibernate.
+     * @param table Nazwa licznika.
+     * @return true, jeśli licznik istnieje i został zwiększony.
+     */
+    public boolean bump(Session session, String table) {
+        return session.createNativeMutationQuery(
+                "UPDATE TABLE_VERSION SET version = version + 1 WHERE table_name = :name")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, TABLE)
+                .setParameter("name", table)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Odczytuje bieżącą wartość licznika.
+     * @param session Aktualna sesja Hibernate.
+     * @param table Nazwa licznika.
+     * @return Wersja tabeli lub {@link #UNKNOWN}, jeśli licznik nie istnieje.
+     */
+    public long currentVersion(Session session, String table) {
+        List<Long> result = session.createNativeQuery(
+                "SELECT version FROM TABLE_VERSION WHERE table_name = :name", Long.class)
+                .setParameter("name", table)
+                .getResultList();
+        return result.isEmpty() ? UNKNOWN : result.get(0);
+    }
+}
@@ -1,24 +1,35 @@
 package Models;
 
+import Config.CacheRegions;
 import jakarta.persistence.Basic;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.Set;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Klasa encyjna reprezentująca tabelę TRAINER w bazie danych.
  * Przechowuje szczegółowe informacje o trenerach pracujących w systemie, 
  * ich dane kontaktowe, identyfikatory oraz pseudonimy.
  * Klasa definiuje relację jeden-do-wielu z zajęciami (Activity), którymi trener zarządza.
+ * Dane trenerów zmieniają się rzadko, dlatego encja jest przechowywana w cache
+ * drugiego poziomu (region {@link CacheRegions#TRAINER}).
+ * Data zatrudnienia jest kolumną typu DATE z indeksem (zapytania o staż pracy).
  */
 @Entity
-@Table(name = "TRAINER")
+@Table(name = "TRAINER", indexes = @Index(name = "ix_trainer_date", columnList = "t_date"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.TRAINER)
 @NamedQueries({
     @NamedQuery(name = "Trainer.findAll", query = "SELECT t FROM Trainer t"),
     @NamedQuery(name = "Trainer.findByTCod", query = "SELECT t FROM Trainer t WHERE t.tCod = :tCod"),
@@ -56,10 +67,10 @@ public class Trainer implements Serializable {
     @Column(name = "t_email")
     private String tEmail;
 
-    /** Data zatrudnienia lub rejestracji trenera w systemie (jako String). */
+    /** Data zatrudnienia lub rejestracji trenera w systemie. */
     @Basic(optional = false)
     @Column(name = "t_date")
-    private String tDate;
+    private LocalDate tDate;
 
     /** Pseudonim lub nick trenera używany w systemie. */
     @Column(name = "t_nick")
@@ -90,7 +101,7 @@ public class Trainer implements Serializable {
      * @param tidNumber Numer identyfikacyjny.
      * @param tDate Data zatrudnienia.
      */
-    public Trainer(String tCod, String tName, String tidNumber, String tDate) {
+    public Trainer(String tCod, String tName, String tidNumber, LocalDate tDate) {
         this.tCod = tCod;
         this.tName = tName;
         this.tidNumber = tidNumber;
@@ -137,11 +148,11 @@ public class Trainer implements Serializable {
         this.tEmail = tEmail;
     }
 
-    public String getTDate() {
+    public LocalDate getTDate() {
         return tDate;
     }
 
-    public void setTDate(String tDate) {
+    public void setTDate(LocalDate tDate) {
         this.tDate = tDate;
     }
 
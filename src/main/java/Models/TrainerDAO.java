@@ -1,8 +1,15 @@
 package Models;
 
+import Config.CacheRegions;
+import Config.DaoMetrics;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.NoResultException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.query.Query;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,9 +23,23 @@ import java.util.logging.Logger;
  */
 public class TrainerDAO {
 
+    /** Metryki wywołań metod (liczniki i histogramy czasów, MBean {@link DaoMetrics}). */
+    private static final DaoMetrics.Group METRICS = DaoMetrics.group("TrainerDAO");
+
     /** Logger do rejestrowania zdarzeń systemowych oraz błędów niskiego poziomu bazy danych. */
     private static final Logger LOGGER = Logger.getLogger(TrainerDAO.class.getName());
 
+    /**
+     * Projekcja wierszy tabeli trenerów: konstruktor {@link TrainerRow} wywoływany bezpośrednio
+     * w zapytaniu, bez tworzenia encji.
+     */
+    private static final String TRAINER_ROWS_HQL
+            = "SELECT new Models.TrainerRow(t.tCod, t.tName, t.tidNumber, t.tphoneNumber, t.tEmail, t.tDate, t.tNick) "
+            + "FROM Trainer t";
+
+    /** Atrybuty projekcji {@link TrainerRow} w kolejności kolumn widoku (wyszukiwanie w trybie stronicowanym). */
+    private static final String[] SEARCH_PATHS = {"t.tCod", "t.tName", "t.tidNumber", "t.tphoneNumber", "t.tEmail", "t.tDate", "t.tNick"};
+
     /**
      * Konstruktor domyślny klasy TrainerDAO.
      */
@@ -35,7 +56,7 @@ public class TrainerDAO {
      * @param trainer Obiekt trenera do utrwalenia.
      */
     public void insertTrainer(Session session, Trainer trainer) {
-        session.persist(trainer);
+        METRICS.run("insertTrainer", () -> session.persist(trainer));
     }
 
     /**
@@ -44,7 +65,7 @@ public class TrainerDAO {
      * @param trainer Obiekt trenera z zaktualizowanymi informacjami.
      */
     public void updateTrainer(Session session, Trainer trainer) {
-        session.merge(trainer);
+        METRICS.run("updateTrainer", () -> session.merge(trainer));
     }
     
     /**
@@ -54,13 +75,15 @@ public class TrainerDAO {
      * @return {@code true}, jeśli usunięcie powiodło się; {@code false}, jeśli trener nie został znaleziony.
      */
     public boolean deleteTrainerById(Session session, String trainerId) {
-        Trainer trainerToDelete = session.find(Trainer.class, trainerId); 
+        return METRICS.call("deleteTrainerById", () -> {
+            Trainer trainerToDelete = session.find(Trainer.class, trainerId); 
         
-        if (trainerToDelete != null) {
-            session.remove(trainerToDelete);
-            return true;
-        }
-        return false;
+            if (trainerToDelete != null) {
+                session.remove(trainerToDelete);
+                return true;
+            }
+            return false;
+        });
     }
 
     // =========================================================================
@@ -74,16 +97,18 @@ public class TrainerDAO {
      * @return {@code true}, jeśli rekord o podanym ID istnieje; {@code false} w przeciwnym razie.
      */
     public boolean existTrainerID(Session session, String id) {
-        try {
-            Query<Trainer> q = session.createQuery("SELECT t FROM Trainer t WHERE t.tidNumber = :tidNumber", Trainer.class);
-            q.setParameter("tidNumber", id);
+        return METRICS.call("existTrainerID", () -> {
+            try {
+                Query<Trainer> q = session.createQuery("SELECT t FROM Trainer t WHERE t.tidNumber = :tidNumber", Trainer.class);
+                q.setParameter("tidNumber", id);
             
-            Trainer result = q.getSingleResultOrNull(); 
-            return result != null;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd podczas sprawdzania istnienia ID Trenera: " + id, e);
-            return false;
-        }
+                Trainer result = q.getSingleResultOrNull(); 
+                return result != null;
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Błąd podczas sprawdzania istnienia ID Trenera: " + id, e);
+                return false;
+            }
+        });
     }
 
     /**
@@ -93,7 +118,20 @@ public class TrainerDAO {
      * @return Obiekt {@link Trainer} lub {@code null}, jeśli nie znaleziono rekordu.
      */
     public Trainer getTrainerByCod(Session session, String trainerCod) {
-        return session.find(Trainer.class, trainerCod); 
+        return METRICS.call("getTrainerByCod", () -> session.find(Trainer.class, trainerCod));
+    }
+
+    /**
+     * Blokuje wiersz trenera do końca bieżącej transakcji (SELECT ... FOR UPDATE).
+     * Zapisy aktywności tego samego trenera z różnych stanowisk wykonywane są kolejno,
+     * więc sprawdzenie grafiku i zapis terminu w jednej transakcji nie dopuszczają
+     * do podwójnej rezerwacji.
+     * @param session Aktualna sesja Hibernate (aktywna transakcja).
+     * @param trainerCod Kod trenera (PK).
+     * @return Zablokowany trener lub {@code null}, jeśli nie znaleziono rekordu.
+     */
+    public Trainer lockTrainer(Session session, String trainerCod) {
+        return METRICS.call("lockTrainer", () -> session.find(Trainer.class, trainerCod, LockModeType.PESSIMISTIC_WRITE));
     }
     
     /**
@@ -103,14 +141,16 @@ public class TrainerDAO {
      * @return Obiekt {@link Trainer} lub {@code null}, jeśli rekord nie istnieje.
      */
     public Trainer returnTrainerByID(Session session, String id) {
-        try {
-            Query<Trainer> q = session.createQuery("SELECT t FROM Trainer t WHERE t.tidNumber = :tidNumber", Trainer.class);
-            q.setParameter("tidNumber", id);
-            return q.getSingleResultOrNull();
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Błąd pobierania Trenera po ID: " + id, e);
-            return null;
-        }
+        return METRICS.call("returnTrainerByID", () -> {
+            try {
+                Query<Trainer> q = session.createQuery("SELECT t FROM Trainer t WHERE t.tidNumber = :tidNumber", Trainer.class);
+                q.setParameter("tidNumber", id);
+                return q.getSingleResultOrNull();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Błąd pobierania Trenera po ID: " + id, e);
+                return null;
+            }
+        });
     }
     
     // =========================================================================
@@ -124,16 +164,18 @@ public class TrainerDAO {
      * @return String reprezentujący maksymalny kod (np. "T010") lub {@code null}, jeśli baza jest pusta.
      */
     public String getMaxTrainerCode(Session session) {
-        try {
-            Query<String> query = session.createQuery(
-                "SELECT t.tCod FROM Trainer t ORDER BY t.tCod DESC", String.class);
-            query.setMaxResults(1);
+        return METRICS.call("getMaxTrainerCode", () -> {
+            try {
+                Query<String> query = session.createQuery(
+                    "SELECT t.tCod FROM Trainer t ORDER BY LENGTH(t.tCod) DESC, t.tCod DESC", String.class);
+                query.setMaxResults(1);
             
-            return query.getSingleResultOrNull();
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Brak trenerów w bazie. Błąd pobierania max tCod.", e);
-            return null; 
-        }
+                return query.getSingleResultOrNull();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Brak trenerów w bazie. Błąd pobierania max tCod.", e);
+                return null; 
+            }
+        });
     }
 
     /**
@@ -143,28 +185,210 @@ public class TrainerDAO {
      * @return Lista nazw (String) pasujących do kryterium wyszukiwania.
      */
     public List<String> getTrainerByName(Session session, String name) {
-        Query<String> query = session.createQuery(
-            "SELECT t.tName FROM Trainer t WHERE t.tName = :name", String.class);
-        query.setParameter("name", name);
-        return query.getResultList();
+        return METRICS.call("getTrainerByName", () -> {
+            Query<String> query = session.createQuery(
+                "SELECT t.tName FROM Trainer t WHERE t.tName = :name", String.class);
+            query.setParameter("name", name);
+            return query.getResultList();
+        });
     }
     
     
     /**
  * Pobiera listę wszystkich trenerów z bazy danych.
+ * Wynik zapytania jest przechowywany w cache zapytań (region
+ * {@link CacheRegions#REFERENCE_QUERIES}), a same encje w regionie trenerów;
+ * Hibernate unieważnia oba regiony przy każdym zapisie do tabeli TRAINER.
  * @param session Aktualna sesja Hibernate.
  * @return Lista obiektów {@link Trainer}.
  */
-public List<Trainer> findAllTrainers(Session session) {
-    try {
-        Query<Trainer> query = session.createQuery("FROM Trainer", Trainer.class);
-        return query.getResultList();
-    } catch (Exception e) {
-        LOGGER.log(Level.SEVERE, "Błąd podczas pobierania listy wszystkich trenerów", e);
-        return java.util.Collections.emptyList();
+    public List<Trainer> findAllTrainers(Session session) {
+        return METRICS.call("findAllTrainers", () -> {
+            try {
+                Query<Trainer> query = session.createQuery("FROM Trainer", Trainer.class);
+                query.setCacheable(true);
+                query.setCacheRegion(CacheRegions.REFERENCE_QUERIES);
+                return query.getResultList();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Błąd podczas pobierania listy wszystkich trenerów", e);
+                return java.util.Collections.emptyList();
+            }
+        });
+    }
+
+    // =========================================================================
+    // PAGINACJA PO KLUCZU (KEYSET)
+    // =========================================================================
+
+    /**
+     * Zwraca liczbę trenerów w bazie danych.
+     * @param session Aktualna sesja Hibernate.
+     * @return Liczba rekordów.
+     */
+    public long countTrainers(Session session) {
+        return METRICS.call("countTrainers", () -> session.createQuery("SELECT COUNT(t) FROM Trainer t", Long.class).getSingleResult());
+    }
+
+    /**
+     * Pobiera wszystkie wiersze tabeli trenerów jako projekcję {@link TrainerRow}
+     * uporządkowaną według klucza głównego. Wybierane są tylko kolumny widoku,
+     * a zapytanie jest tylko do odczytu - wyniki nie trafiają do kontekstu utrwalania.
+     * @param session Aktualna sesja Hibernate.
+     * @return Lista wierszy {@link TrainerRow}.
+     */
+    public List<TrainerRow> findAllTrainerRows(Session session) {
+        return METRICS.call("findAllTrainerRows", () -> session.createQuery(TRAINER_ROWS_HQL + " ORDER BY t.tCod", TrainerRow.class)
+                .setReadOnly(true)
+                .getResultList());
+    }
+
+    /**
+     * Pobiera stronę wierszy trenerów (projekcja {@link TrainerRow}) uporządkowanych według
+     * klucza głównego, zaczynając od rekordu następującego po {@code afterKey}.
+     * Zapytanie korzysta z indeksu klucza głównego, więc jego koszt nie zależy od pozycji strony.
+     * @param session Aktualna sesja Hibernate.
+     * @param afterKey Ostatni klucz poprzedniej strony lub null dla pierwszej strony.
+     * @param limit Maksymalna liczba rekordów.
+     * @return Lista wierszy {@link TrainerRow}.
+     */
+    public List<TrainerRow> findTrainerRowsPage(Session session, String afterKey, int limit) {
+        return METRICS.call("findTrainerRowsPage", () -> {
+            Query<TrainerRow> query = afterKey == null
+                    ? session.createQuery(TRAINER_ROWS_HQL + " ORDER BY t.tCod", TrainerRow.class)
+                    : session.createQuery(TRAINER_ROWS_HQL + " WHERE t.tCod > :after ORDER BY t.tCod", TrainerRow.class)
+                            .setParameter("after", afterKey);
+            return query.setReadOnly(true).setMaxResults(limit).getResultList();
+        });
+    }
+
+    /**
+     * Pobiera jeden wiersz tabeli trenera (projekcja {@link TrainerRow}) według klucza głównego.
+     * Używane do odświeżenia pojedynczego wiersza widoku po zapisie.
+     * @param session Aktualna sesja Hibernate.
+     * @param tCod Klucz główny (kod trenera).
+     * @return Wiersz lub null, jeśli rekord nie istnieje.
+     */
+    public TrainerRow findTrainerRow(Session session, String tCod) {
+        return METRICS.call("findTrainerRow", () -> session.createQuery(TRAINER_ROWS_HQL + " WHERE t.tCod = :key", TrainerRow.class)
+                .setParameter("key", tCod)
+                .setReadOnly(true)
+                .getSingleResultOrNull());
+    }
+
+    /**
+     * Zwraca klucz rekordu o podanej pozycji w porządku klucza głównego.
+     * Odczytywany jest wyłącznie indeks klucza, bez wierszy tabeli.
+     * @param session Aktualna sesja Hibernate.
+     * @param offset Pozycja rekordu (od 0).
+     * @return Klucz lub null, jeśli pozycja wykracza poza tabelę.
+     */
+    public String findTrainerKeyAt(Session session, int offset) {
+        return METRICS.call("findTrainerKeyAt", () -> session.createQuery("SELECT t.tCod FROM Trainer t ORDER BY t.tCod", String.class)
+                .setFirstResult(offset)
+                .setMaxResults(1)
+                .getSingleResultOrNull());
+    }
+
+    // =========================================================================
+    // WYSZUKIWANIE (TRYB STRONICOWANY)
+    // =========================================================================
+
+    /**
+     * Zwraca liczbę trenerów, których kolumna widoku zawiera podany tekst.
+     * @param session Aktualna sesja Hibernate.
+     * @param column Indeks kolumny widoku (kolejność pól {@link TrainerRow}).
+     * @param text Szukany fragment (bez rozróżniania wielkości liter).
+     * @return Liczba pasujących rekordów.
+     */
+    public long countTrainerRows(Session session, int column, String text) {
+        return METRICS.call("countTrainerRows", () -> session.createQuery("SELECT COUNT(t) FROM Trainer t WHERE "
+                + RowSearch.condition(SEARCH_PATHS[column]), Long.class)
+                .setParameter("pattern", RowSearch.pattern(text))
+                .getSingleResult());
+    }
+
+    /**
+     * Pobiera stronę pasujących wierszy (projekcja {@link TrainerRow}) z paginacją po kluczu głównym.
+     * @param session Aktualna sesja Hibernate.
+     * @param afterKey Ostatni klucz poprzedniej strony lub null dla pierwszej strony.
+     * @param limit Maksymalna liczba rekordów.
+     * @param column Indeks kolumny widoku.
+     * @param text Szukany fragment.
+     * @return Lista wierszy {@link TrainerRow}.
+     */
+    public List<TrainerRow> findTrainerRowsPage(Session session, String afterKey, int limit, int column, String text) {
+        return METRICS.call("findTrainerRowsPage", () -> {
+            String where = " WHERE " + RowSearch.condition(SEARCH_PATHS[column]);
+            Query<TrainerRow> query = afterKey == null
+                    ? session.createQuery(TRAINER_ROWS_HQL + where + " ORDER BY t.tCod", TrainerRow.class)
+                    : session.createQuery(TRAINER_ROWS_HQL + where + " AND t.tCod > :after ORDER BY t.tCod", TrainerRow.class)
+                            .setParameter("after", afterKey);
+            return query.setParameter("pattern", RowSearch.pattern(text))
+                    .setReadOnly(true)
+                    .setMaxResults(limit)
+                    .getResultList();
+        });
+    }
+
+    /**
+     * Zwraca klucz pasującego rekordu o podanej pozycji w porządku klucza głównego.
+     * @param session Aktualna sesja Hibernate.
+     * @param offset Pozycja wśród pasujących rekordów (od 0).
+     * @param column Indeks kolumny widoku.
+     * @param text Szukany fragment.
+     * @return Klucz lub null, jeśli pozycja wykracza poza wynik.
+     */
+    public String findTrainerKeyAt(Session session, int offset, int column, String text) {
+        return METRICS.call("findTrainerKeyAt", () -> session.createQuery("SELECT t.tCod FROM Trainer t WHERE "
+                + RowSearch.condition(SEARCH_PATHS[column]) + " ORDER BY t.tCod", String.class)
+                .setParameter("pattern", RowSearch.pattern(text))
+                .setFirstResult(offset)
+                .setMaxResults(1)
+                .getSingleResultOrNull());
+    }
+
+    // =========================================================================
+    // ZAKRESY DAT (STAŻ)
+    // =========================================================================
+
+    /**
+     * Pobiera wiersze trenerów (projekcja {@link TrainerRow}) o stażu pracy w podanym
+     * przedziale (pełne lata od daty zatrudnienia), uporządkowane według daty zatrudnienia.
+     * Warunek dotyczy wyłącznie kolumny daty, więc wykonywany jest na jej indeksie.
+     * @param session Aktualna sesja Hibernate.
+     * @param minYears Najkrótszy staż (włącznie).
+     * @param maxYears Najdłuższy staż (włącznie).
+     * @return Lista wierszy {@link TrainerRow}.
+     */
+    public List<TrainerRow> findTrainerRowsByTenure(Session session, int minYears, int maxYears) {
+        return METRICS.call("findTrainerRowsByTenure", () -> {
+            LocalDate today = LocalDate.now();
+            return session.createQuery(TRAINER_ROWS_HQL + " WHERE " + YearRange.condition("t.tDate")
+                    + " ORDER BY t.tDate", TrainerRow.class)
+                    .setParameter("after", YearRange.after(today, maxYears))
+                    .setParameter("upTo", YearRange.upTo(today, minYears))
+                    .setReadOnly(true)
+                    .getResultList();
+        });
+    }
+
+    // =========================================================================
+    // EKSPORT STRUMIENIOWY
+    // =========================================================================
+
+    /**
+     * Otwiera kursor po wszystkich wierszach tabeli trenerów (projekcja {@link TrainerRow})
+     * uporządkowanych według klucza głównego. Wiersze pobierane są z bazy porcjami
+     * po {@code fetchSize}, a sesja bezstanowa nie przechowuje ich w kontekście
+     * utrwalania - zużycie pamięci nie zależy od liczby rekordów.
+     * @param session Sesja bezstanowa Hibernate.
+     * @param fetchSize Liczba wierszy pobieranych z bazy w jednej porcji.
+     * @return Kursor tylko do przodu; należy go zamknąć po użyciu.
+     */
+    public ScrollableResults<TrainerRow> scrollTrainerRows(StatelessSession session, int fetchSize) {
+        return METRICS.call("scrollTrainerRows", () -> session.createQuery(TRAINER_ROWS_HQL + " ORDER BY t.tCod", TrainerRow.class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY));
     }
 }
-    
-    
-    
-}
\ No newline at end of file
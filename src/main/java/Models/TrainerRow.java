@@ -0,0 +1,20 @@
+package Models;
+
+import java.time.LocalDate;
+
+/**
+ * Projekcja tylko do odczytu pojedynczego wiersza tabeli trenerów.
+ * Obejmuje wyłącznie kolumny wyświetlane w widoku (bez kolekcji aktywności),
+ * a obiekty nie są zarządzane przez sesję Hibernate.
+ *
+ * @param tCod Kod trenera.
+ * @param tName Imię i nazwisko.
+ * @param tidNumber Numer dokumentu tożsamości.
+ * @param tphoneNumber Numer telefonu.
+ * @param tEmail Adres e-mail.
+ * @param tDate Data zatrudnienia.
+ * @param tNick Pseudonim.
+ */
+public record TrainerRow(String tCod, String tName, String tidNumber, String tphoneNumber,
+        String tEmail, LocalDate tDate, String tNick) {
+}
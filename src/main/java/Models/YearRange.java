@@ -0,0 +1,42 @@
+package Models;
+
+import java.time.LocalDate;
+
+/**
+ * Warunek przedziału pełnych lat, jakie upłynęły od daty (wiek od daty urodzenia,
+ * staż od daty przyjęcia lub zatrudnienia). Przedział lat zamieniany jest po stronie
+ * aplikacji na przedział dat, więc zapytanie porównuje samą kolumnę z parametrami -
+ * baza wykonuje je jako zakresowe przeszukiwanie indeksu kolumny, bez wyliczania
+ * wieku dla każdego wiersza.
+ */
+final class YearRange {
+
+    private YearRange() {
+    }
+
+    /**
+     * @param path Ścieżka HQL atrybutu daty (np. {@code c.mBirthdate}).
+     * @return Warunek HQL z parametrami {@code :after} (wyłącznie) i {@code :upTo} (włącznie).
+     */
+    static String condition(String path) {
+        return path + " > :after AND " + path + " <= :upTo";
+    }
+
+    /**
+     * @param today Data bieżąca.
+     * @param maxYears Największa liczba pełnych lat (włącznie).
+     * @return Wartość parametru {@code :after} - daty późniejsze mają najwyżej {@code maxYears} lat.
+     */
+    static LocalDate after(LocalDate today, int maxYears) {
+        return today.minusYears(maxYears + 1L);
+    }
+
+    /**
+     * @param today Data bieżąca.
+     * @param minYears Najmniejsza liczba pełnych lat (włącznie).
+     * @return Wartość parametru {@code :upTo} - daty nie późniejsze mają co najmniej {@code minYears} lat.
+     */
+    static LocalDate upTo(LocalDate today, int minYears) {
+        return today.minusYears(minYears);
+    }
+}
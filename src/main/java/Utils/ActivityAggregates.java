@@ -0,0 +1,214 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Config.Transactions;
+import Models.ActivityAggregateDAO;
+import Models.ActivityAggregateDAO.Counters;
+import Models.PricingEngine;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+
+/**
+ * Zmaterializowane liczniki statystyk aktywności (tabela ACTIVITY_AGGREGATE, {@link ActivityAggregateDAO}).
+ * <p>
+ * {@link #initialize()} wywoływane jest po zalogowaniu: zakłada tabelę (osobna transakcja)
+ * i buduje liczniki od zera, jeśli baza ma zapisy, a liczników jeszcze nie ma; istniejącym
+ * licznikom przelicza przychód według bieżących reguł zniżek ({@link PricingEngine}) i odbudowuje
+ * liczniki aktywności, które pomijały klientów bez kategorii. Od tej chwili
+ * DAO zapisów, klientów i aktywności aktualizują je w swoich transakcjach.
+ * <p>
+ * Zadanie weryfikacji ({@link #verify()}) co {@code -Disdd.aggregates.verifyMinutes} minut
+ * (domyślnie 60, 0 wyłącza) przelicza liczniki z wierszy PERFORMS i zapisuje w logu rozbieżności
+ * według aktywności i kategorii. Z {@code -Disdd.aggregates.repair=true} liczniki aktywności
+ * z rozbieżnościami są od razu odbudowywane. Przed weryfikacją zadanie wczytuje ponownie reguły
+ * zniżek - zmienione reguły (np. edycja tabeli DISCOUNT_RULE) przeliczają przychód liczników.
+ */
+public final class ActivityAggregates {
+
+    private static final Logger LOGGER = Logger.getLogger(ActivityAggregates.class.getName());
+
+    /** Okres weryfikacji liczników (minuty; 0 wyłącza zadanie). */
+    public static final long VERIFY_MINUTES = Long.getLong("isdd.aggregates.verifyMinutes", 60L);
+
+    /** Czy weryfikacja ma od razu odbudować liczniki z rozbieżnościami. */
+    private static final boolean REPAIR = Boolean.getBoolean("isdd.aggregates.repair");
+
+    /** Dopuszczalna różnica przychodu (zaokrąglenia sum zmiennoprzecinkowych). */
+    private static final double REVENUE_TOLERANCE = 0.005;
+
+    /** Wątek zadań weryfikacji (wspólny dla wszystkich baz). */
+    private static ScheduledExecutorService scheduler;
+
+    private final SessionFactory sessionFactory;
+    private final ActivityAggregateDAO aggregateDAO = new ActivityAggregateDAO();
+    private volatile boolean initialized;
+    private ScheduledFuture<?> verification;
+
+    private ActivityAggregates(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Zwraca liczniki statystyk dla podanej fabryki sesji.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @return Współdzielony obiekt liczników.
+     */
+    public static ActivityAggregates forSessionFactory(SessionFactory sessionFactory) {
+        return SessionFactoryScope.get(sessionFactory, ActivityAggregates.class, ActivityAggregates::new);
+    }
+
+    /**
+     * Zakłada tabelę liczników, w razie potrzeby buduje liczniki od zera i planuje
+     * zadanie weryfikacji (raz na fabrykę sesji). Wywoływane w tle po otwarciu okna
+     * głównego ({@link StartupTasks}).
+     */
+    public synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        boolean built = Transactions.createTable(sessionFactory, "ACTIVITY_AGGREGATE",
+                aggregateDAO::createTableIfMissing, session -> {
+                    if (aggregateDAO.needsRebuild(session)) {
+                        long start = System.nanoTime();
+                        int rows = aggregateDAO.rebuildAll(session);
+                        LOGGER.info(String.format("Zbudowano liczniki statystyk aktywności: %d wierszy w %d ms.",
+                                rows, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+                    } else {
+                        // Liczniki sprzed liczenia klientów bez kategorii - odbudowa tylko tych aktywności
+                        List<String> uncounted = aggregateDAO.uncountedActivities(session);
+                        uncounted.forEach(aId -> aggregateDAO.rebuild(session, aId));
+                        if (!uncounted.isEmpty()) {
+                            LOGGER.info("Odbudowano liczniki aktywności z klientami bez kategorii: " + uncounted);
+                        }
+                        // Reguły zniżek mogły się zmienić od poprzedniego logowania
+                        logRepriced(aggregateDAO.repriceAll(session));
+                    }
+                });
+        if (!built) {
+            // Liczniki budowane równolegle przez inne stanowisko
+            LOGGER.warning("Nie zbudowano liczników statystyk aktywności.");
+        }
+        if (VERIFY_MINUTES > 0) {
+            verification = scheduler().scheduleWithFixedDelay(this::scheduledVerify,
+                    VERIFY_MINUTES, VERIFY_MINUTES, TimeUnit.MINUTES);
+        }
+        initialized = true;
+    }
+
+    /**
+     * Przelicza liczniki z wierszy PERFORMS i porównuje je z zapisanymi (jedna transakcja -
+     * spójny obraz obu tabel). Rozbieżności zapisywane są w logu;
+     * przy {@code -Disdd.aggregates.repair=true} liczniki tych aktywności są odbudowywane.
+     * @return Liczba aktywności z rozbieżnościami.
+     */
+    public int verify() {
+        Map<String, List<String>> drift = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        Transactions.run(sessionFactory, session -> {
+            Map<String, Counters> stored = byKey(aggregateDAO.findAllCounters(session));
+            Map<String, Counters> expected = byKey(aggregateDAO.recomputeAll(session));
+            Set<String> keys = new TreeSet<>(stored.keySet());
+            keys.addAll(expected.keySet());
+            for (String key : keys) {
+                Counters s = stored.get(key);
+                Counters e = expected.get(key);
+                if (!matches(s, e)) {
+                    Counters any = s != null ? s : e;
+                    drift.computeIfAbsent(any.activityId(), k -> new ArrayList<>())
+                            .add(String.format("%c: zapisane %s, przeliczone %s", any.category(), describe(s), describe(e)));
+                }
+            }
+        });
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (drift.isEmpty()) {
+            LOGGER.info("Weryfikacja liczników statystyk aktywności: zgodne (" + millis + " ms).");
+            return 0;
+        }
+        StringBuilder sb = new StringBuilder(String.format(
+                "Rozbieżności liczników statystyk aktywności: %d aktywności (%d ms)", drift.size(), millis));
+        drift.forEach((aId, lines) -> lines.forEach(line ->
+                sb.append(System.lineSeparator()).append("  ").append(aId).append(' ').append(line)));
+        LOGGER.warning(sb.toString());
+        if (REPAIR) {
+            for (String aId : drift.keySet()) {
+                Transactions.run(sessionFactory, session -> aggregateDAO.rebuild(session, aId));
+            }
+            LOGGER.info("Odbudowano liczniki " + drift.size() + " aktywności.");
+        }
+        return drift.size();
+    }
+
+    /** Zadanie okresowe: kończy się po zamknięciu fabryki sesji (wylogowanie, zamknięcie aplikacji). */
+    private void scheduledVerify() {
+        if (sessionFactory.isClosed()) {
+            synchronized (this) {
+                verification.cancel(false);
+            }
+            return;
+        }
+        try {
+            if (PricingEngine.forSessionFactory(sessionFactory).reload()) {
+                LOGGER.info("Zmieniono reguły zniżek - przeliczanie przychodu liczników.");
+                Transactions.run(sessionFactory, session -> logRepriced(aggregateDAO.repriceAll(session)));
+            }
+            verify();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Weryfikacja liczników statystyk aktywności nie powiodła się.", e);
+        }
+    }
+
+    private static void logRepriced(int rows) {
+        if (rows > 0) {
+            LOGGER.info("Przeliczono przychód " + rows + " wierszy liczników statystyk aktywności.");
+        }
+    }
+
+    /** Liczniki według klucza aktywność/kategoria; wiersze różniące się wielkością litery są sumowane. */
+    private static Map<String, Counters> byKey(List<Counters> counters) {
+        Map<String, Counters> result = new HashMap<>();
+        for (Counters c : counters) {
+            result.merge(c.activityId() + '\u0000' + c.category(), c, (a, b) -> new Counters(a.activityId(), a.category(),
+                    a.enrolled() + b.enrolled(), a.birthYearSum() + b.birthYearSum(),
+                    a.birthDates() + b.birthDates(), a.revenue() + b.revenue()));
+        }
+        return result;
+    }
+
+    private static boolean matches(Counters stored, Counters expected) {
+        if (stored == null || expected == null) {
+            return false;
+        }
+        return stored.enrolled() == expected.enrolled()
+                && stored.birthYearSum() == expected.birthYearSum()
+                && stored.birthDates() == expected.birthDates()
+                && Math.abs(stored.revenue() - expected.revenue()) < REVENUE_TOLERANCE;
+    }
+
+    private static String describe(Counters c) {
+        return c == null ? "(brak)" : String.format("[zapisani %d, suma lat %d, daty %d, przychód %.2f]",
+                c.enrolled(), c.birthYearSum(), c.birthDates(), c.revenue());
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "aggregate-verify");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return scheduler;
+    }
+}
@@ -1,16 +1,23 @@
 package Utils;
 
+import Config.JfrEvents;
 import Models.Activity;
+import Models.ActivityAggregateDAO;
 import Models.ActivityDAO;
+import Models.ActivityRow;
+import Models.ActivityStatistics;
+import Models.ActivityStatisticsRow;
+import Models.TableVersionDAO;
+import Views.ActivityStatisticsWindow;
 import Views.CalculateWindow;
 import Views.MainWindow;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 
 import javax.swing.JOptionPane;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -31,9 +38,27 @@ public class ActivityControllerTable {
     /** Główne okno aplikacji, w którym wyświetlana jest tabela. */
     private final MainWindow view;
     
+    /** Nagłówki kolumn tabeli aktywności. */
+    static final String[] COLUMNS = {"ID", "Nazwa", "Opis/Typ", "Cena", "Dzień", "Godzina", "Trener"};
+
+    /** Klucz zadania ładującego tabelę (scalanie wielokrotnych kliknięć menu). */
+    private static final String TASK_KEY = AsyncExecutor.TABLE_PREFIX + "Activities";
+
     /** Obiekt dostępu do danych dla aktywności. */
     private final ActivityDAO activityDAO = new ActivityDAO();
 
+    /** Zmaterializowane liczniki statystyk aktywności (odczyt po kluczu głównym). */
+    private final ActivityAggregateDAO aggregateDAO = new ActivityAggregateDAO();
+
+    /** Liczniki wersji tabel bieżącej bazy. */
+    private final TableVersions versions;
+
+    /** Zapamiętany model tabeli aktywności (wczytywany ponownie po zmianie wersji ACTIVITY). */
+    private final TableViewCache cache = new TableViewCache();
+
+    /** Otwarte okno zestawienia statystyk wszystkich aktywności (null, jeśli zamknięte). */
+    private ActivityStatisticsWindow statsWindow;
+
     /**
      * Konstruktor inicjalizujący kontroler tabeli aktywności.
      * * @param sessionFactory Fabryka sesji Hibernate.
@@ -42,6 +67,7 @@ public class ActivityControllerTable {
     public ActivityControllerTable(SessionFactory sessionFactory, MainWindow view) {
         this.sessionFactory = sessionFactory;
         this.view = view;
+        this.versions = TableVersions.forSessionFactory(sessionFactory);
         initController();
     }
 
@@ -54,8 +80,9 @@ public class ActivityControllerTable {
     }
 
     /**
-     * Pobiera dane o uczestnikach zaznaczonej aktywności i wylicza statystyki zbiorcze.
-     * Obliczenia obejmują:
+     * Pobiera w tle statystyki zbiorcze zaznaczonej aktywności z liczników ACTIVITY_AGGREGATE
+     * (kilka wierszy odczytanych po kluczu głównym, niezależnie od liczby zapisów).
+     * Wynik obejmuje:
      * 1. Całkowitą liczbę zapisanych klientów.
      * 2. Średni wiek uczestników na podstawie ich dat urodzenia.
      * 3. Przychód całkowity z uwzględnieniem zniżek przypisanych do kategorii klientów.
@@ -69,154 +96,220 @@ public class ActivityControllerTable {
             return;
         }
 
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            // Pobranie surowych danych statystycznych z bazy
-            Object[] rawData = new Models.ClientDAO().getStatisticsForActivity(session, selectedId);
-
-            long totalClients = (long) rawData[0];
-            java.util.List<String> birthdates = (java.util.List<String>) rawData[1];
-            java.util.List<Object[]> revenueData = (java.util.List<Object[]>) rawData[2];
-
-            // 1. Obliczanie średniego wieku
-            double avgAge = 0;
-            int currentYear = java.util.Calendar.getInstance().get(java.util.Calendar.YEAR);
-            int validDates = 0;
-            for (String bday : birthdates) {
-                if (bday != null && bday.length() >= 10) {
-                    try {
-                        int birthYear = Integer.parseInt(bday.substring(6, 10));
-                        avgAge += (currentYear - birthYear);
-                        validDates++;
-                    } catch (Exception e) {}
-                }
-            }
-            if (validDates > 0) avgAge /= validDates;
-
-            // 2. Obliczanie przychodu z uwzględnieniem rabatów (Kategoria B=10%, C=20%, D=30%)
-            java.util.Map<Character, Integer> categoryCounts = new java.util.HashMap<>();
-            double totalRevenue = 0;
-
-            for (Object[] row : revenueData) {
-                Character cat = (Character) row[0];
-                double price = ((Number) row[1]).doubleValue(); 
-                
-                double discount = 0.0;
-                switch (Character.toUpperCase(cat)) {
-                    case 'B': discount = 0.10; break;
-                    case 'C': discount = 0.20; break;
-                    case 'D': discount = 0.30; break;
-                    default:  discount = 0.0;  break;
-                }
-                totalRevenue += (price * (1.0 - discount));
-                categoryCounts.put(cat, categoryCounts.getOrDefault(cat, 0) + 1);
-            }
-
-            // 3. Wyznaczanie najczęstszej kategorii
-            String topCategory = "Brak";
-            if (!categoryCounts.isEmpty()) {
-                topCategory = categoryCounts.entrySet().stream()
-                    .max((e1, e2) -> {
-                        int res = e1.getValue().compareTo(e2.getValue());
-                        if (res == 0) return e1.getKey().compareTo(e2.getKey());
-                        return res;
-                    })
-                    .map(e -> e.getKey().toString()).orElse("Brak");
+        // Zapytanie w tle; ponowne kliknięcie dla tej samej aktywności jest ignorowane (jedno okno wyników)
+        String taskKey = "stats:" + selectedId;
+        if (AsyncExecutor.isRunning(taskKey)) {
+            return;
+        }
+        AsyncExecutor.submit(taskKey, view, () -> {
+            StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+            try (Session session = sessionFactory.openSession()) {
+                return aggregateDAO.find(session, selectedId);
             }
-
-            // 4. Prezentacja wyników w nowym oknie
+        }, stats -> {
+            // Prezentacja wyników w nowym oknie
             CalculateWindow calcWin = new CalculateWindow();
             calcWin.setTitle("Statystyki dla: " + selectedId);
             calcWin.setDefaultCloseOperation(javax.swing.JFrame.DISPOSE_ON_CLOSE);
-            calcWin.setResults((int) totalClients, avgAge, topCategory, totalRevenue);
+            calcWin.setResults((int) stats.participants(), stats.averageAge(), stats.topCategory(), stats.revenue());
             calcWin.setVisible(true);
-
-        } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Błąd statystyk", ex);
-            JOptionPane.showMessageDialog(view, "Błąd: " + ex.getMessage());
-        } finally {
-            if (session != null) session.close();
-        }
+        });
     }
 
     /**
-     * Pobiera pełny obiekt {@link Activity} na podstawie wiersza aktualnie zaznaczonego w tabeli.
-     * Metoda jest kluczowa dla procesu edycji, pozwalając na pobranie danych z bazy 
-     * przed otwarciem formularza aktualizacji.
-     * * @return Obiekt Activity lub null, jeśli nie dokonano wyboru.
+     * Otwiera (lub przywołuje) okno zestawienia statystyk wszystkich aktywności i odświeża je.
+     * Zestawienie składane jest z liczników ACTIVITY_AGGREGATE ({@link ActivityAggregateDAO#findAll}),
+     * więc odświeżenie nie zależy od liczby zapisów i obejmuje tysiące aktywności naraz.
      */
-    public Activity getSelectedActivity() {
-        String activityId = view.getSelectedActivityCode();
-
-        if (activityId == null || activityId.trim().isEmpty()) {
-            return null;
+    public void showAllStatistics() {
+        if (statsWindow == null || !statsWindow.isDisplayable()) {
+            statsWindow = new ActivityStatisticsWindow();
+            statsWindow.addRefreshListener(e -> {
+                try (JfrEvents.Action action = JfrEvents.action("ActivityStats", e.getActionCommand(), "Activity")) {
+                    refreshAllStatistics();
+                }
+            });
+            statsWindow.setVisible(true);
+        } else {
+            statsWindow.toFront();
         }
+        refreshAllStatistics();
+    }
 
-        Session session = null;
-        Activity activity = null;
-        try {
-            session = sessionFactory.openSession();
-            activity = activityDAO.findActivityById(session, activityId);
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd pobierania Aktywności o ID: " + activityId, e);
-        } finally {
-            if (session != null && session.isOpen()) {
-                session.close();
+    /**
+     * Odczytuje zestawienie w tle; czas obliczeń (zapytanie i złożenie wierszy) pokazywany jest w pasku stanu.
+     */
+    private void refreshAllStatistics() {
+        ActivityStatisticsWindow window = statsWindow;
+        AsyncExecutor.submit("stats:all", window, () -> {
+            long start = System.nanoTime();
+            List<ActivityStatisticsRow> rows;
+            StartupTasks.forSessionFactory(sessionFactory).await(StartupTasks.Phase.AGGREGATES);
+            try (Session session = sessionFactory.openSession()) {
+                rows = aggregateDAO.findAll(session);
             }
-        }
-        return activity;
+            Object[][] data = new Object[rows.size()][];
+            for (int i = 0; i < data.length; i++) {
+                ActivityStatistics stats = rows.get(i).statistics();
+                data[i] = new Object[]{stats.activityId(), rows.get(i).activityName(), stats.participants(),
+                    Math.round(stats.averageAge() * 10) / 10.0, stats.topCategory(),
+                    Math.round(stats.revenue() * 100) / 100.0};
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new StatisticsTable(data, String.format("Aktywności: %d, obliczono w %d ms", data.length, millis));
+        }, table -> window.setStatistics(table.rows(), table.status()));
     }
-public void addNewRowToTable(Object[] rowData) {
-    javax.swing.table.DefaultTableModel model = (javax.swing.table.DefaultTableModel) view.dataTable.getModel();
-    model.addRow(rowData);
-    
-    // Zaznacz nowy wiersz na końcu
-    int lastRow = model.getRowCount() - 1;
-    view.dataTable.setRowSelectionInterval(lastRow, lastRow);
-    view.dataTable.scrollRectToVisible(view.dataTable.getCellRect(lastRow, 0, true));
-    
-    // Dopasuj szerokość kolumn do nowej treści
-    view.autoResizeColumns();
-}
+
+    /** Wiersze zestawienia statystyk i tekst paska stanu. */
+    private record StatisticsTable(Object[][] rows, String status) {
+    }
+
     /**
      * Pobiera listę wszystkich aktywności z bazy danych i odświeża widok tabeli 
      * w oknie głównym aplikacji. Metoda mapuje listę obiektów na format dwuwymiarowej 
-     * tablicy akceptowanej przez model tabeli Swing.
+     * tablicy akceptowanej przez model tabeli Swing. Unieważnia przy tym
+     * {@link TrainerScheduleIndex}, aby uwzględnić zmiany z innych stanowisk.
      */
     public void showActivities() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
+        // Lista pokazuje także zmiany z innych stanowisk - indeks grafiku wczyta je przy następnym sprawdzeniu
+        TrainerScheduleIndex.forSessionFactory(sessionFactory).invalidate();
+        submitLoad();
+    }
 
-            Query<Activity> query = session.createQuery("FROM Activity", Activity.class);
-            List<Activity> activities = query.getResultList();
-            LOGGER.info("Pobrano " + activities.size() + " aktywności.");
+    /**
+     * Wymusza ponowne wczytanie całej tabeli z pominięciem zapamiętanego modelu -
+     * trwające ładowanie mogło rozpocząć się przed zatwierdzeniem transakcji, więc nie jest scalane.
+     * Indeks grafiku jest już aktualny (zaktualizowany przez kontroler zapisu).
+     */
+    public void reloadActivities() {
+        cache.invalidate();
+        AsyncExecutor.cancel(TASK_KEY);
+        submitLoad();
+    }
+
+    /**
+     * Odświeża wiersz aktywności po zatwierdzonym dodaniu lub edycji (bez przeładowania całej listy).
+     * @param aId Identyfikator zapisanej aktywności.
+     */
+    public void activitySaved(String aId) {
+        cache.refreshRow(view, aId, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                long version = versions.current(session, TableVersionDAO.ACTIVITY);
+                ActivityRow row = activityDAO.findActivityRow(session, aId);
+                return new TableViewCache.RowChange(version, row != null ? toRow(row) : null);
+            }
+        }, this::reloadActivities);
+    }
 
-            String[] columns = {"ID", "Nazwa", "Opis/Typ", "Cena", "Dzień", "Godzina", "Trener"};
-            Object[][] data = new Object[activities.size()][7];
-
-            for (int i = 0; i < activities.size(); i++) {
-                Activity a = activities.get(i);
-                data[i][0] = a.getAId();
-                data[i][1] = a.getAName();
-                data[i][2] = a.getADescription();
-                data[i][3] = a.getAPrice();
-                data[i][4] = a.getADay();
-                data[i][5] = a.getAHour();
-                data[i][6] = a.getAtrainerInCharge() != null ? a.getAtrainerInCharge().getTName() : "N/A";
+    /**
+     * Usuwa wiersz aktywności z tabeli po zatwierdzonym usunięciu.
+     * @param aId Identyfikator usuniętej aktywności.
+     */
+    public void activityDeleted(String aId) {
+        cache.refreshRow(view, aId, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return new TableViewCache.RowChange(versions.current(session, TableVersionDAO.ACTIVITY), null);
             }
+        }, this::reloadActivities);
+    }
 
+    private void submitLoad() {
+        AsyncExecutor.submit(TASK_KEY, view, this::loadActivitiesModel, model -> {
             view.setViewName("Activities");
-            view.setTableData(columns, data);
-
-        } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Błąd podczas wyświetlania listy Aktywności.", ex);
-            JOptionPane.showMessageDialog(view, "Błąd pobierania danych: " + ex.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE);
-        } finally {
-            if (session != null && session.isOpen()) {
-                session.close();
+            view.setTableModel(model);
+            view.setupTableSorter();
+        }, ex -> JOptionPane.showMessageDialog(view, "Błąd pobierania danych: " + ex.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Buduje model tabeli aktywności (wywoływane w wątku tła) lub zwraca zapamiętany,
+     * jeśli wersja tabeli się nie zmieniła.
+     */
+    private TableModel loadActivitiesModel() {
+        try (Session session = sessionFactory.openSession()) {
+            // Wersja odczytywana przed wierszami - zmiana w trakcie ładowania wymusi kolejne wczytanie
+            long version = versions.current(session, TableVersionDAO.ACTIVITY);
+            TableModel cached = cache.reusable(version);
+            if (cached != null) {
+                LOGGER.fine("Tabela aktywności bez zmian (wersja " + version + ").");
+                return cached;
+            }
+
+            long total = activityDAO.countActivities(session);
+
+            // Duże tabele: wiersze pobierane stronami na żądanie zamiast pełnej listy encji
+            if (total > PagedTableModel.PAGING_THRESHOLD) {
+                LOGGER.info("Aktywności: " + total + " - tryb stronicowany.");
+                PagedTableModel paged = new PagedTableModel(COLUMNS, 0, (int) total, new ActivityPageLoader());
+                paged.preload(0);
+                cache.store(paged, version);
+                return paged;
+            }
+
+            // Projekcja z jednym złączeniem z trenerem - bez encji i bez zapytań N+1
+            List<ActivityRow> activities = activityDAO.findAllActivityRows(session);
+            LOGGER.info("Pobrano " + activities.size() + " aktywności.");
+
+            List<Object[]> rows = new ArrayList<>(activities.size());
+            for (ActivityRow a : activities) {
+                rows.add(toRow(a));
+            }
+            RowCacheTableModel model = new RowCacheTableModel(COLUMNS, rows);
+            cache.store(model, version);
+            return model;
+        }
+    }
+
+    /**
+     * Mapuje projekcję {@link ActivityRow} na wiersz tabeli widoku.
+     */
+    static Object[] toRow(ActivityRow a) {
+        return new Object[]{
+            a.aId(),
+            a.aName(),
+            a.aDescription(),
+            a.aPrice(),
+            a.aDay(),
+            a.aHour(),
+            a.trainerName() != null ? a.trainerName() : "N/A"
+        };
+    }
+
+    /**
+     * Źródło stron dla {@link PagedTableModel}: paginacja po identyfikatorze aktywności (a_id),
+     * każda strona pobierana w osobnej, krótkiej sesji.
+     */
+    private class ActivityPageLoader implements PagedTableModel.PageLoader {
+
+        @Override
+        public int countRows(PagedTableModel.Filter filter) {
+            try (Session session = sessionFactory.openSession()) {
+                long count = filter == null ? activityDAO.countActivities(session)
+                        : activityDAO.countActivityRows(session, filter.column(), filter.text());
+                return (int) Math.min(Integer.MAX_VALUE, count);
+            }
+        }
+
+        @Override
+        public List<Object[]> loadPage(PagedTableModel.Filter filter, Object afterKey, int limit) {
+            try (Session session = sessionFactory.openSession()) {
+                List<ActivityRow> activities = filter == null
+                        ? activityDAO.findActivityRowsPage(session, (String) afterKey, limit)
+                        : activityDAO.findActivityRowsPage(session, (String) afterKey, limit, filter.column(), filter.text());
+                List<Object[]> rows = new ArrayList<>(activities.size());
+                for (ActivityRow a : activities) {
+                    rows.add(toRow(a));
+                }
+                return rows;
+            }
+        }
+
+        @Override
+        public Object findKeyAt(PagedTableModel.Filter filter, int offset) {
+            try (Session session = sessionFactory.openSession()) {
+                return filter == null ? activityDAO.findActivityKeyAt(session, offset)
+                        : activityDAO.findActivityKeyAt(session, offset, filter.column(), filter.text());
             }
         }
     }
-}
\ No newline at end of file
+}
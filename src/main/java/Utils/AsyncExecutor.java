@@ -0,0 +1,339 @@
+package Utils;
+
+import Config.JfrEvents;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Window;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Warstwa asynchronicznego wykonywania operacji bazodanowych poza wątkiem EDT.
+ * Zadanie uruchamiane jest w tle (wątki wirtualne, jeśli JVM je udostępnia,
+ * w przeciwnym razie pula wątków demonów), a jego wynik lub błąd publikowany
+ * jest z powrotem w wątku EDT przez {@link SwingUtilities#invokeLater(Runnable)}.
+ * <p>
+ * Dodatkowo klasa zapewnia:
+ * <ul>
+ * <li>scalanie duplikatów - zadanie z kluczem, dla którego inne zadanie jest w toku,
+ * nie jest uruchamiane ponownie: jego obsługa wyniku i błędu dołączana jest do zadania
+ * trwającego (każdy zlecający otrzymuje ten sam wynik, domyślny komunikat błędu wyświetlany
+ * jest raz). Klucz musi więc wyznaczać pracę jednoznacznie (np. zawierać plik eksportu),
+ * a akcje użytkownika, których skutki nie mogą się powtórzyć (zapis formularza, usunięcie),
+ * sprawdzają {@link #isRunning(String)} i ignorują ponowne kliknięcie,</li>
+ * <li>anulowanie - wynik anulowanego zadania nie trafia do interfejsu,</li>
+ * <li>wskaźnik zajętości - kursor oczekiwania na oknie, dopóki trwa choć jedno jego zadanie.</li>
+ * </ul>
+ * Każde zadanie musi otwierać własną sesję Hibernate - sesje nie są współdzielone między wątkami.
+ */
+public final class AsyncExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncExecutor.class.getName());
+
+    /** Prefiks kluczy zadań ładujących główną tabelę (anulowanych przy zmianie widoku). */
+    public static final String TABLE_PREFIX = "table:";
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    /** Zadania w toku według klucza (do scalania duplikatów i anulowania). */
+    private static final Map<String, Handle> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /** Liczba aktywnych zadań na okno; modyfikowana wyłącznie w wątku EDT. */
+    private static final Map<Window, Integer> BUSY = new WeakHashMap<>();
+
+    private AsyncExecutor() {
+    }
+
+    /**
+     * Uchwyt uruchomionego zadania.
+     */
+    public static final class Handle {
+
+        private final String key;
+        private final Window window;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        /** Obsługa wyniku i błędu zlecających (pierwszego i scalonych); chroniona monitorem uchwytu. */
+        private final List<Callbacks> callbacks = new ArrayList<>();
+        /** Wynik lub błąd został już przekazany do publikacji - nie można dołączyć obsługi. */
+        private boolean completed;
+
+        private Handle(String key, Window window) {
+            this.key = key;
+            this.window = window;
+        }
+
+        /**
+         * Dołącza obsługę wyniku i błędu zlecającego.
+         * @return false, jeśli zadanie zakończyło się lub zostało anulowane.
+         */
+        private synchronized boolean attach(Callbacks c) {
+            if (completed || cancelled) {
+                return false;
+            }
+            callbacks.add(c);
+            return true;
+        }
+
+        /** Zamyka listę obsługi (wynik gotowy do publikacji) i zwraca ją. */
+        private synchronized List<Callbacks> complete() {
+            completed = true;
+            return List.copyOf(callbacks);
+        }
+
+        /**
+         * Anuluje zadanie. Wątek roboczy jest przerywany, a wynik (także błąd)
+         * nie zostanie opublikowany w interfejsie.
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+            finish();
+        }
+
+        /**
+         * Sprawdza, czy zadanie zostało anulowane.
+         * @return true, jeśli wywołano {@link #cancel()}.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Sprawdza, czy zadanie zostało zakończone (wynikiem, błędem lub anulowaniem).
+         * @return true, jeśli zadanie nie jest już w toku.
+         */
+        public boolean isDone() {
+            return finished.get();
+        }
+
+        /** Zwalnia klucz i wskaźnik zajętości - dokładnie raz. */
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                if (key != null) {
+                    IN_FLIGHT.remove(key, this);
+                }
+                onEdt(() -> endBusy(window));
+            }
+        }
+    }
+
+    /** Obsługa wyniku i błędu jednego zlecającego (onError null - obsługa domyślna). */
+    private record Callbacks(Consumer<Object> onSuccess, Consumer<? super Throwable> onError, Component parent) {
+    }
+
+    /**
+     * Uruchamia zadanie w tle z domyślną obsługą błędów (log + komunikat).
+     *
+     * @param <T> Typ wyniku.
+     * @param key Klucz scalania duplikatów lub null, jeśli każde wywołanie ma być wykonane.
+     * @param busyTarget Komponent, na którego oknie wyświetlany jest kursor oczekiwania (może być null).
+     * @param work Operacja wykonywana poza EDT.
+     * @param onSuccess Odbiorca wyniku wywoływany w EDT (dla duplikatu - wyniku zadania trwającego).
+     * @return Uchwyt zadania (dla duplikatu - uchwyt zadania już trwającego).
+     */
+    public static <T> Handle submit(String key, Component busyTarget, Callable<T> work,
+            Consumer<? super T> onSuccess) {
+        return submit(key, busyTarget, work, onSuccess, null);
+    }
+
+    /**
+     * Uruchamia zadanie w tle.
+     *
+     * @param <T> Typ wyniku.
+     * @param key Klucz scalania duplikatów lub null, jeśli każde wywołanie ma być wykonane.
+     * @param busyTarget Komponent, na którego oknie wyświetlany jest kursor oczekiwania (może być null).
+     * @param work Operacja wykonywana poza EDT.
+     * @param onSuccess Odbiorca wyniku wywoływany w EDT (dla duplikatu - wyniku zadania trwającego).
+     * @param onError Obsługa błędu wywoływana w EDT lub null dla obsługi domyślnej.
+     * @return Uchwyt zadania (dla duplikatu - uchwyt zadania już trwającego).
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Handle submit(String key, Component busyTarget, Callable<T> work,
+            Consumer<? super T> onSuccess, Consumer<? super Throwable> onError) {
+        Window window = busyTarget == null ? null
+                : busyTarget instanceof Window w ? w : SwingUtilities.getWindowAncestor(busyTarget);
+        Handle handle = new Handle(key, window);
+        // Wynik zadania o danym kluczu ma typ oczekiwany przez każdego zlecającego (ta sama praca)
+        Callbacks callbacks = new Callbacks((Consumer<Object>) onSuccess, onError, busyTarget);
+        handle.attach(callbacks);
+
+        if (key != null) {
+            Handle existing;
+            while ((existing = IN_FLIGHT.putIfAbsent(key, handle)) != null) {
+                if (existing.attach(callbacks)) {
+                    LOGGER.fine("Scalono zadanie w toku: " + key);
+                    return existing;
+                }
+                // Zadanie właśnie publikuje wynik - klucz zwalniany jest dla nowego zadania
+                IN_FLIGHT.remove(key, existing);
+            }
+        }
+
+        onEdt(() -> beginBusy(window));
+        // Zadanie liczone jest do akcji użytkownika, która je zleciła (zdarzenia JFR)
+        JfrEvents.Action action = JfrEvents.fork();
+
+        handle.future = EXECUTOR.submit(() -> {
+            try (JfrEvents.Scope scope = JfrEvents.join(action)) {
+                T result = work.call();
+                List<Callbacks> all = handle.complete();
+                publish(handle, () -> all.forEach(c -> c.onSuccess().accept(result)));
+            } catch (Throwable e) {
+                if (!handle.cancelled) {
+                    LOGGER.log(Level.SEVERE, "Błąd zadania w tle" + (key != null ? " (" + key + ")" : ""), e);
+                }
+                List<Callbacks> all = handle.complete();
+                publish(handle, () -> publishError(all, e));
+            } finally {
+                handle.finish();
+            }
+        });
+        // Anulowanie mogło nastąpić przed przypisaniem future
+        if (handle.cancelled) {
+            handle.future.cancel(true);
+        }
+        return handle;
+    }
+
+    /**
+     * Sprawdza, czy zadanie o podanym kluczu jest w toku (np. aby zignorować ponowne
+     * kliknięcie przycisku, którego skutki nie mogą się powtórzyć).
+     * @param key Klucz zadania.
+     * @return true, jeśli zadanie jest w toku.
+     */
+    public static boolean isRunning(String key) {
+        Handle handle = IN_FLIGHT.get(key);
+        return handle != null && !handle.isDone();
+    }
+
+    /**
+     * Anuluje zadanie w toku o podanym kluczu (jeśli istnieje).
+     * @param key Klucz zadania.
+     */
+    public static void cancel(String key) {
+        Handle handle = IN_FLIGHT.get(key);
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    /**
+     * Anuluje wszystkie zadania w toku, których klucz zaczyna się od podanego prefiksu
+     * (np. ładowanie poprzedniego widoku po przełączeniu menu).
+     * @param keyPrefix Prefiks klucza.
+     */
+    public static void cancelAll(String keyPrefix) {
+        IN_FLIGHT.forEach((key, handle) -> {
+            if (key.startsWith(keyPrefix)) {
+                handle.cancel();
+            }
+        });
+    }
+
+    /**
+     * Anuluje zadania w toku i zatrzymuje wątki robocze. Wywoływane przy zamykaniu aplikacji.
+     */
+    public static void shutdown() {
+        IN_FLIGHT.values().forEach(Handle::cancel);
+        EXECUTOR.shutdownNow();
+    }
+
+    private static void publish(Handle handle, Runnable action) {
+        SwingUtilities.invokeLater(() -> {
+            if (!handle.cancelled) {
+                action.run();
+            }
+        });
+    }
+
+    /** Przekazuje błąd każdemu zlecającemu; domyślny komunikat wyświetlany jest raz. */
+    private static void publishError(List<Callbacks> all, Throwable e) {
+        Component defaultParent = null;
+        boolean showDefault = false;
+        for (Callbacks c : all) {
+            if (c.onError() != null) {
+                c.onError().accept(e);
+            } else if (!showDefault) {
+                showDefault = true;
+                defaultParent = c.parent();
+            }
+        }
+        if (showDefault) {
+            showError(defaultParent, e);
+        }
+    }
+
+    private static void showError(Component parent, Throwable e) {
+        JOptionPane.showMessageDialog(parent, "Błąd: " + e.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static void beginBusy(Window window) {
+        if (window == null) {
+            return;
+        }
+        if (BUSY.merge(window, 1, Integer::sum) == 1) {
+            window.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+
+    private static void endBusy(Window window) {
+        if (window == null) {
+            return;
+        }
+        Integer remaining = BUSY.computeIfPresent(window, (w, n) -> n > 1 ? n - 1 : null);
+        if (remaining == null) {
+            window.setCursor(Cursor.getDefaultCursor());
+        }
+    }
+
+    private static void onEdt(Runnable action) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            action.run();
+        } else {
+            SwingUtilities.invokeLater(action);
+        }
+    }
+
+    /**
+     * Tworzy executor na wątkach wirtualnych (Java 21+). Projekt kompilowany jest
+     * dla Javy 17, dlatego fabryka wyszukiwana jest refleksyjnie; przy jej braku
+     * używana jest nieograniczona pula wątków demonów (liczbę równoległych zapytań
+     * i tak ogranicza pula połączeń).
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            LOGGER.info("AsyncExecutor: zadania w tle na wątkach wirtualnych.");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.info("AsyncExecutor: wątki wirtualne niedostępne - pula wątków demonów.");
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "isdd-async-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -1,31 +1,40 @@
 package Utils;
 
 import Models.Client;
+import Models.ClientDAO;
+import Models.ClientRow;
+import Models.TableVersionDAO;
 import Views.MainWindow;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 
 import javax.swing.JOptionPane;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Kontroler pomocniczy odpowiedzialny za pobieranie i prezentację danych encji {@link Client} 
  * w głównym oknie aplikacji ({@link MainWindow}).
- * Klasa optymalizuje dostęp do danych poprzez przechowywanie aktualnie wyświetlanej listy 
- * obiektów w pamięci podręcznej (cache), co pozwala na szybkie uzyskiwanie pełnych 
- * referencji do obiektów podczas operacji edycji lub usuwania bez konieczności 
- * ponownego odpytywania bazy danych.
+ * Przy dużej liczbie klientów tabela korzysta z {@link PagedTableModel}, który pobiera
+ * wiersze stronami na żądanie, zamiast materializować wszystkie encje w pamięci.
+ * Wczytany model jest zapamiętywany ({@link TableViewCache}) i wczytywany ponownie tylko
+ * po zmianie wersji tabeli CLIENT; zapisy z tego stanowiska zmieniają pojedyncze wiersze.
  */
 public class ClientControllerTable {
     
     /** Obiekt loggera do rejestrowania operacji na danych klientów. */
     private static final Logger LOGGER = Logger.getLogger(ClientControllerTable.class.getName());
     
-    /** Lista klientów przechowywana w pamięci, zsynchronizowana z aktualnym widokiem tabeli. */
-    private List<Client> currentClients; 
+    /** Nagłówki kolumn tabeli klientów. */
+    static final String[] COLUMNS = {"NUM", "Nazwisko/Imię", "ID (PESEL/DNI)", "Data Urodzenia", "Telefon", "E-mail", "Data Przyjęcia", "Kategoria"};
+
+    /** Klucz zadania ładującego tabelę (scalanie wielokrotnych kliknięć menu). */
+    private static final String TASK_KEY = AsyncExecutor.TABLE_PREFIX + "Clients";
+
+    /** Obiekt dostępu do danych klientów. */
+    private final ClientDAO clientDAO = new ClientDAO();
     
     /** Fabryka sesji Hibernate. */
     private final SessionFactory sessionFactory;
@@ -33,6 +42,12 @@ public class ClientControllerTable {
     /** Referencja do głównego okna aplikacji. */
     private final MainWindow view;
 
+    /** Liczniki wersji tabel bieżącej bazy. */
+    private final TableVersions versions;
+
+    /** Zapamiętany model tabeli klientów. */
+    private final TableViewCache cache = new TableViewCache();
+
     /**
      * Konstruktor inicjalizujący kontroler tabeli klientów.
      * * @param sessionFactory Fabryka sesji Hibernate przekazana z kontrolera głównego.
@@ -40,7 +55,8 @@ public class ClientControllerTable {
      */
     public ClientControllerTable(SessionFactory sessionFactory, MainWindow view) {
         this.sessionFactory = sessionFactory;
-        this.view = view;   
+        this.view = view;
+        this.versions = TableVersions.forSessionFactory(sessionFactory);
     }
     
     // =========================================================================
@@ -48,89 +64,149 @@ public class ClientControllerTable {
     // =========================================================================
 
     /**
-     * Pobiera listę wszystkich klientów z bazy danych za pomocą zapytania HQL, 
-     * odświeża zawartość tabeli w widoku oraz aktualizuje wewnętrzną listę buforową.
+     * Pobiera listę klientów z bazy danych (w tle) i odświeża zawartość tabeli w widoku.
+     * Powyżej progu {@link PagedTableModel#PAGING_THRESHOLD} wierszy tabela
+     * przechodzi w tryb stronicowany (paginacja po kluczu m_num).
      * Metoda mapuje pola obiektu {@link Client} na kolumny tabeli widoku:
      * numer członkowski, imię i nazwisko, identyfikator, data urodzenia, telefon, 
      * e-mail, data przyjęcia oraz kategoria.
      */
     public void showClients() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            Query<Client> query = session.createQuery("FROM Client", Client.class);
-            List<Client> clients = query.getResultList();
-            LOGGER.info("Pobrano " + clients.size() + " klientów.");
+        AsyncExecutor.submit(TASK_KEY, view, this::loadClientsModel, model -> {
+            // Aktualizacja komponentu widoku (EDT)
+            view.setViewName("Clients");
+            view.setTableModel(model);
+            view.setupTableSorter();
+        }, ex -> JOptionPane.showMessageDialog(view, "Błąd pobierania danych: " + ex.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Wymusza ponowne wczytanie całej tabeli z pominięciem zapamiętanego modelu -
+     * trwające ładowanie mogło rozpocząć się przed zatwierdzeniem transakcji, więc nie jest scalane.
+     */
+    public void reloadClients() {
+        cache.invalidate();
+        AsyncExecutor.cancel(TASK_KEY);
+        showClients();
+    }
+
+    /**
+     * Odświeża wiersz klienta po zatwierdzonym dodaniu lub edycji (bez przeładowania całej listy).
+     * @param mNum Numer członkowski zapisanego klienta.
+     */
+    public void clientSaved(String mNum) {
+        cache.refreshRow(view, mNum, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                long version = versions.current(session, TableVersionDAO.CLIENT);
+                ClientRow row = clientDAO.findClientRow(session, mNum);
+                return new TableViewCache.RowChange(version, row != null ? toRow(row) : null);
+            }
+        }, this::reloadClients);
+    }
 
-            // Zapisz listę klientów do pamięci operacyjnej dla operacji CRUD
-            this.currentClients = clients; 
-
-            // Mapowanie danych do modelu tabeli Swing (Object[][])
-            String[] columns = {"NUM", "Nazwisko/Imię", "ID (PESEL/DNI)","Data Urodzenia", "Telefon", "E-mail", "Data Przyjęcia", "Kategoria"};
-            Object[][] data = new Object[clients.size()][8];
-
-            for (int i = 0; i < clients.size(); i++) {
-                Client c = clients.get(i);
-                data[i][0] = c.getMNum();
-                data[i][1] = c.getMName();
-                data[i][2] = c.getMId();
-                data[i][3] = c.getMBirthdate();
-                data[i][4] = c.getMPhone();
-                data[i][5] = c.getMemailMember();
-                data[i][6] = c.getMstartingDateMember();
-                data[i][7] = c.getMcategoryMember();
+    /**
+     * Usuwa wiersz klienta z tabeli po zatwierdzonym usunięciu.
+     * @param mNum Numer członkowski usuniętego klienta.
+     */
+    public void clientDeleted(String mNum) {
+        cache.refreshRow(view, mNum, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return new TableViewCache.RowChange(versions.current(session, TableVersionDAO.CLIENT), null);
             }
+        }, this::reloadClients);
+    }
 
-            // Aktualizacja komponentu widoku
-            view.setViewName("Clients");
-            view.setTableData(columns, data);
+    /**
+     * Buduje model tabeli klientów (wywoływane w wątku tła) lub zwraca zapamiętany,
+     * jeśli wersja tabeli się nie zmieniła.
+     */
+    private TableModel loadClientsModel() {
+        try (Session session = sessionFactory.openSession()) {
+            // Wersja odczytywana przed wierszami - zmiana w trakcie ładowania wymusi kolejne wczytanie
+            long version = versions.current(session, TableVersionDAO.CLIENT);
+            TableModel cached = cache.reusable(version);
+            if (cached != null) {
+                LOGGER.fine("Tabela klientów bez zmian (wersja " + version + ").");
+                return cached;
+            }
+
+            long total = clientDAO.countClients(session);
+
+            // Duże tabele: wiersze pobierane stronami na żądanie zamiast pełnej listy encji
+            if (total > PagedTableModel.PAGING_THRESHOLD) {
+                LOGGER.info("Klientów: " + total + " - tryb stronicowany.");
+                PagedTableModel paged = new PagedTableModel(COLUMNS, 0, (int) total, new ClientPageLoader());
+                paged.preload(0);
+                cache.store(paged, version);
+                return paged;
+            }
 
-        } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Błąd podczas wyświetlania listy Klientów.", ex);
-            JOptionPane.showMessageDialog(view, "Błąd pobierania danych: " + ex.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE);
-        } finally {
-            if (session != null && session.isOpen()) session.close();
+            // Projekcja tylko do odczytu - bez encji i kolekcji zapisów w kontekście sesji
+            List<ClientRow> clients = clientDAO.findAllClientRows(session);
+            LOGGER.info("Pobrano " + clients.size() + " klientów.");
+
+            // Mapowanie danych do modelu tabeli z indeksem wierszy według numeru członkowskiego
+            List<Object[]> rows = new ArrayList<>(clients.size());
+            for (ClientRow c : clients) {
+                rows.add(toRow(c));
+            }
+            RowCacheTableModel model = new RowCacheTableModel(COLUMNS, rows);
+            cache.store(model, version);
+            return model;
         }
     }
-    
-    // =========================================================================
-    // POBIERANIE ZAZNACZONEJ ENCJ (DO EDYCJI/USUWANIA)
-    // =========================================================================
 
     /**
-     * Zwraca pełny obiekt {@link Client} odpowiadający wierszowi aktualnie zaznaczonemu 
-     * przez użytkownika w interfejsie graficznym.
-     * Metoda synchronizuje indeks zaznaczenia tabeli z wewnętrzną listą {@code currentClients}.
-     * * @return Zaznaczony obiekt {@link Client} lub null, jeśli żaden wiersz nie jest wybrany 
-     * lub lista buforowa jest pusta.
+     * Mapuje projekcję {@link ClientRow} na wiersz tabeli widoku.
      */
-    public Client getSelectedClient() {
-        int selectedRow = view.getSelectedRow(); 
-        
-        if (selectedRow != -1 && currentClients != null && selectedRow < currentClients.size()) {
-            LOGGER.info("Pobrano klienta z wiersza: " + selectedRow);
-            return currentClients.get(selectedRow);
+    static Object[] toRow(ClientRow c) {
+        return new Object[]{
+            c.mNum(),
+            c.mName(),
+            c.mId(),
+            c.mBirthdate(),
+            c.mPhone(),
+            c.memailMember(),
+            c.mstartingDateMember(),
+            c.mcategoryMember()
+        };
+    }
+
+    /**
+     * Źródło stron dla {@link PagedTableModel}: każda strona pobierana jest w osobnej,
+     * krótkiej sesji z użyciem paginacji po numerze członkowskim (m_num).
+     */
+    private class ClientPageLoader implements PagedTableModel.PageLoader {
+
+        @Override
+        public int countRows(PagedTableModel.Filter filter) {
+            try (Session session = sessionFactory.openSession()) {
+                long count = filter == null ? clientDAO.countClients(session)
+                        : clientDAO.countClientRows(session, filter.column(), filter.text());
+                return (int) Math.min(Integer.MAX_VALUE, count);
+            }
+        }
+
+        @Override
+        public List<Object[]> loadPage(PagedTableModel.Filter filter, Object afterKey, int limit) {
+            try (Session session = sessionFactory.openSession()) {
+                List<ClientRow> clients = filter == null
+                        ? clientDAO.findClientRowsPage(session, (String) afterKey, limit)
+                        : clientDAO.findClientRowsPage(session, (String) afterKey, limit, filter.column(), filter.text());
+                List<Object[]> rows = new ArrayList<>(clients.size());
+                for (ClientRow c : clients) {
+                    rows.add(toRow(c));
+                }
+                return rows;
+            }
+        }
+
+        @Override
+        public Object findKeyAt(PagedTableModel.Filter filter, int offset) {
+            try (Session session = sessionFactory.openSession()) {
+                return filter == null ? clientDAO.findClientKeyAt(session, offset)
+                        : clientDAO.findClientKeyAt(session, offset, filter.column(), filter.text());
+            }
         }
-        LOGGER.fine("Nie zaznaczono żadnego klienta.");
-        return null;
     }
-    
-    
-    
-    public void addNewRowToTable(Object[] rowData) {
-    // Pobieramy model z tabeli znajdującej się w widoku głównym
-    javax.swing.table.DefaultTableModel model = (javax.swing.table.DefaultTableModel) view.dataTable.getModel();
-    
-    // Dodajemy wiersz do modelu - JTable odświeży się automatycznie
-    model.addRow(rowData);
-    
-    // Opcjonalnie: przesuń widok do nowego wiersza i zaznacz go
-    int lastRow = model.getRowCount() - 1;
-    view.dataTable.setRowSelectionInterval(lastRow, lastRow);
-    view.dataTable.scrollRectToVisible(view.dataTable.getCellRect(lastRow, 0, true));
-    
-    // Ważne: zaktualizuj rozmiar kolumn po dodaniu nowych danych
-    view.autoResizeColumns();
 }
-    
-}
\ No newline at end of file
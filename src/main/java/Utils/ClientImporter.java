@@ -0,0 +1,374 @@
+package Utils;
+
+import Models.Client;
+import Models.ClientDAO;
+import Models.TableVersionDAO;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+/**
+ * Import zbiorczy klientów z pliku CSV (migracja członków nowej siłowni).
+ * Przetwarzanie odbywa się w etapach:
+ * <ol>
+ * <li>parsowanie strumienia CSV (nagłówek z nazwami kolumn, cudzysłowy wg RFC 4180),</li>
+ * <li>równoległa walidacja wierszy regułami formularza ({@link ClientValidator}),</li>
+ * <li>odrzucenie numerów ID powtórzonych w pliku lub istniejących w bazie - jedno
+ *     zapytanie zbiorowe zamiast {@code existDNI} dla każdego wiersza,</li>
+ * <li>zapis wsadowy ({@code hibernate.jdbc.batch_size}) z okresowym flush/clear,
+ *     w transakcjach po {@value #COMMIT_INTERVAL} wierszy.</li>
+ * </ol>
+ * Numery członkowskie rezerwowane są jednym blokiem w {@link CodeGenerator}.
+ * Wynik zawiera czasy etapów, przepustowość i listę błędów z numerami rekordów.
+ * <p>
+ * Kolumny pliku (kolejność dowolna, wielkość liter bez znaczenia):
+ * {@code name, id, birthdate, phone, email, startingDate, category}; daty w formacie
+ * dd/MM/yyyy lub yyyy-MM-dd. Kolumny {@code phone}, {@code email} i {@code startingDate}
+ * są opcjonalne (domyślna data przyjęcia - dzień importu).
+ */
+public final class ClientImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(ClientImporter.class.getName());
+
+    /** Liczba wierszy wysyłanych jednym wsadem JDBC (zgodna z hibernate.jdbc.batch_size). */
+    public static final int BATCH_SIZE = Integer.getInteger("isdd.import.batchSize", 50);
+
+    /** Liczba wierszy zatwierdzanych jedną transakcją. */
+    public static final int COMMIT_INTERVAL = 500;
+
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "id", "birthdate", "category");
+
+    private ClientImporter() {
+    }
+
+    /**
+     * Błąd dotyczący jednego wiersza pliku.
+     *
+     * @param line Numer rekordu w pliku (nagłówek to rekord 1).
+     * @param message Opis błędu.
+     */
+    public record RowError(int line, String message) {
+
+        @Override
+        public String toString() {
+            return "Wiersz " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Wynik importu.
+     *
+     * @param rows Liczba wierszy danych w pliku.
+     * @param imported Liczba zapisanych klientów.
+     * @param errors Błędy wierszy (odrzucone lub niezapisane).
+     * @param phaseMillis Czas poszczególnych etapów (ms) w kolejności wykonania.
+     */
+    public record ImportReport(int rows, int imported, List<RowError> errors, Map<String, Long> phaseMillis) {
+
+        /** @return Łączny czas importu w milisekundach. */
+        public long totalMillis() {
+            return phaseMillis.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /** @return Przepustowość: liczba wierszy pliku przetworzonych na sekundę. */
+        public double rowsPerSecond() {
+            long ms = totalMillis();
+            return ms == 0 ? rows : rows * 1000.0 / ms;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Zaimportowano %d z %d wierszy (%d błędów) w %d ms - %.0f wierszy/s, etapy: %s",
+                    imported, rows, errors.size(), totalMillis(), rowsPerSecond(), phaseMillis);
+        }
+    }
+
+    /** Wiersz po walidacji, gotowy do zapisu. */
+    private record Draft(int line, String name, String id, LocalDate birthdate, String phone,
+            String email, LocalDate startingDate, char category) {
+    }
+
+    /** Wynik walidacji pojedynczego wiersza: szkic lub komunikat błędu. */
+    private record Validated(Draft draft, RowError error) {
+    }
+
+    /**
+     * Importuje klientów z pliku CSV (rozszerzenie .gz - plik skompresowany).
+     *
+     * @param sessionFactory Fabryka sesji Hibernate.
+     * @param file Plik CSV w kodowaniu UTF-8.
+     * @return Raport importu.
+     * @throws IOException Błąd odczytu, nieprawidłowy nagłówek lub przerwanie importu.
+     */
+    public static ImportReport importCsv(SessionFactory sessionFactory, Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return importCsv(sessionFactory, reader);
+        }
+    }
+
+    /**
+     * Importuje klientów ze strumienia CSV.
+     *
+     * @param sessionFactory Fabryka sesji Hibernate.
+     * @param in Strumień znaków CSV (zamykany przez wywołującego).
+     * @return Raport importu.
+     * @throws IOException Błąd odczytu, nieprawidłowy nagłówek lub przerwanie importu.
+     */
+    public static ImportReport importCsv(SessionFactory sessionFactory, Reader in) throws IOException {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        List<RowError> errors = new ArrayList<>();
+
+        // 1. Parsowanie
+        long t = System.nanoTime();
+        BufferedReader reader = in instanceof BufferedReader b ? b : new BufferedReader(in, 64 * 1024);
+        List<String> header = readRecord(reader);
+        if (header == null) {
+            throw new IOException("Plik CSV jest pusty.");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Znacznik BOM dodawany przez arkusze kalkulacyjne nie jest częścią nazwy kolumny
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("Brak wymaganej kolumny '" + required + "' w nagłówku CSV.");
+            }
+        }
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = readRecord(reader)) != null) {
+            records.add(record);
+        }
+        phases.put("parsowanie", elapsedMs(t));
+
+        // 2. Walidacja równoległa (reguły bezstanowe, kolejność wyników zachowana)
+        t = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        List<Validated> validated = IntStream.range(0, records.size()).parallel()
+                .mapToObj(i -> validate(i + 2, records.get(i), columns, today))
+                .toList();
+        phases.put("walidacja", elapsedMs(t));
+
+        // 3. Duplikaty w pliku i w bazie
+        t = System.nanoTime();
+        Map<String, Draft> byId = new LinkedHashMap<>();
+        for (Validated v : validated) {
+            if (v.error() != null) {
+                errors.add(v.error());
+                continue;
+            }
+            Draft previous = byId.putIfAbsent(v.draft().id(), v.draft());
+            if (previous != null) {
+                errors.add(new RowError(v.draft().line(), "ID " + v.draft().id() + " powtórzone w pliku (wiersz " + previous.line() + ")."));
+            }
+        }
+        Set<String> existing;
+        try (Session session = sessionFactory.openSession()) {
+            existing = new ClientDAO().findExistingIds(session, byId.keySet());
+        }
+        List<Draft> toInsert = new ArrayList<>(byId.size());
+        for (Draft d : byId.values()) {
+            if (existing.contains(d.id())) {
+                errors.add(new RowError(d.line(), "ID " + d.id() + " już istnieje w bazie."));
+            } else {
+                toInsert.add(d);
+            }
+        }
+        phases.put("deduplikacja", elapsedMs(t));
+
+        // 4. Zapis wsadowy
+        t = System.nanoTime();
+        List<String> memberNumbers = CodeGenerator.forSessionFactory(sessionFactory).nextMemberNumbers(toInsert.size());
+        int imported = 0;
+        for (int from = 0; from < toInsert.size(); from += COMMIT_INTERVAL) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Import przerwany po zapisaniu " + imported + " klientów.");
+            }
+            int to = Math.min(from + COMMIT_INTERVAL, toInsert.size());
+            try {
+                insertChunk(sessionFactory, toInsert.subList(from, to), memberNumbers.subList(from, to));
+                imported += to - from;
+            } catch (RuntimeException e) {
+                LOGGER.warning("Nie zapisano wierszy " + toInsert.get(from).line() + "-" + toInsert.get(to - 1).line() + ": " + e.getMessage());
+                for (Draft d : toInsert.subList(from, to)) {
+                    errors.add(new RowError(d.line(), "Błąd zapisu: " + e.getMessage()));
+                }
+            }
+        }
+        phases.put("zapis", elapsedMs(t));
+
+        errors.sort((a, b) -> Integer.compare(a.line(), b.line()));
+        ImportReport report = new ImportReport(records.size(), imported, errors, phases);
+        LOGGER.info(report.toString());
+        return report;
+    }
+
+    /**
+     * Zapisuje jedną porcję klientów w osobnej transakcji. Encje wysyłane są wsadami
+     * po {@link #BATCH_SIZE}, a kontekst utrwalania czyszczony po każdym wsadzie.
+     */
+    private static void insertChunk(SessionFactory sessionFactory, List<Draft> drafts, List<String> memberNumbers) {
+        ClientDAO clientDAO = new ClientDAO();
+        Session session = null;
+        Transaction tr = null;
+        try {
+            session = sessionFactory.openSession();
+            session.setJdbcBatchSize(BATCH_SIZE);
+            // Importowane encje nie trafiają do cache drugiego poziomu
+            session.setCacheMode(CacheMode.IGNORE);
+            tr = session.beginTransaction();
+            for (int i = 0; i < drafts.size(); i++) {
+                Draft d = drafts.get(i);
+                Client client = new Client(memberNumbers.get(i), d.name(), d.id(), d.startingDate(), d.category());
+                client.setMBirthdate(d.birthdate());
+                client.setMPhone(d.phone());
+                client.setMemailMember(d.email());
+                clientDAO.insertClient(session, client);
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            // Jeden wzrost wersji na porcję - otwarte widoki klientów przeładują się przy następnym pokazaniu
+            TableVersions.forSessionFactory(sessionFactory).bump(session, TableVersionDAO.CLIENT);
+            tr.commit();
+        } catch (RuntimeException e) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw e;
+        } catch (Exception e) {
+            if (tr != null && tr.isActive()) tr.rollback();
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            if (session != null) session.close();
+        }
+    }
+
+    /** Waliduje jeden wiersz pliku (wywoływane równolegle). */
+    private static Validated validate(int line, List<String> record, Map<String, Integer> columns, LocalDate today) {
+        String name = field(record, columns, "name");
+        String id = field(record, columns, "id");
+        String category = field(record, columns, "category");
+        String phone = field(record, columns, "phone");
+        String email = field(record, columns, "email");
+        if (name == null || id == null) {
+            return new Validated(null, new RowError(line, "Pola name i id są wymagane."));
+        }
+        if (category != null) {
+            category = category.toUpperCase(Locale.ROOT);
+        }
+
+        LocalDate birthDate;
+        LocalDate startingDate;
+        try {
+            birthDate = ClientValidator.parseDate(field(record, columns, "birthdate"));
+            String start = field(record, columns, "startingdate");
+            startingDate = start == null ? today : ClientValidator.parseDate(start);
+        } catch (DateTimeParseException e) {
+            return new Validated(null, new RowError(line, "Nieprawidłowa data: " + e.getParsedString()));
+        }
+
+        String error = ClientValidator.checkDni(id);
+        if (error == null) error = ClientValidator.checkEmail(email);
+        if (error == null) error = ClientValidator.checkAge(birthDate, today);
+        if (error == null) error = ClientValidator.checkCategory(category);
+        if (error != null) {
+            return new Validated(null, new RowError(line, error));
+        }
+        return new Validated(new Draft(line, name, id, birthDate, phone, email,
+                startingDate, category.charAt(0)), null);
+    }
+
+    /** Zwraca przyciętą wartość kolumny lub null, jeśli kolumna nie istnieje lub jest pusta. */
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Czyta jeden rekord CSV (pola w cudzysłowach mogą zawierać przecinki i końce linii).
+     * @return Lista pól lub null na końcu strumienia.
+     */
+    private static List<String> readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        // Puste linie między rekordami są pomijane
+        while (c == '\r' || c == '\n') {
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,82 @@
+package Utils;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+/**
+ * Reguły walidacji danych klienta wspólne dla formularza ({@code ClientDataController}),
+ * importu zbiorczego ({@link ClientImporter}) i klienta konsolowego. Metody {@code check*}
+ * zwracają komunikat błędu lub null, gdy wartość jest poprawna; są bezstanowe i bezpieczne wątkowo.
+ */
+public final class ClientValidator {
+
+    /** Numer DNI: 8 cyfr i jedna wielka litera. */
+    private static final Pattern DNI = Pattern.compile("\\d{8}[A-Z]");
+
+    /** Standardowy wzór adresu e-mail. */
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,6}$");
+
+    /** Format dat formularza (dd/MM/yyyy), akceptowany obok ISO (yyyy-MM-dd). */
+    private static final DateTimeFormatter FORM_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /** Minimalny wiek klienta. */
+    public static final int MIN_AGE = 18;
+
+    private ClientValidator() {
+    }
+
+    /**
+     * @param mId Numer identyfikacyjny (DNI).
+     * @return Komunikat błędu lub null.
+     */
+    public static String checkDni(String mId) {
+        return DNI.matcher(mId).matches() ? null : "Format ID (DNI) musi zawierać 8 cyfr i jedną wielką literę.";
+    }
+
+    /**
+     * @param email Adres e-mail lub null (pole opcjonalne).
+     * @return Komunikat błędu lub null.
+     */
+    public static String checkEmail(String email) {
+        return email == null || EMAIL.matcher(email).matches() ? null : "Podany adres e-mail ma nieprawidłowy format.";
+    }
+
+    /**
+     * @param birthDate Data urodzenia (wymagana).
+     * @param today Data bieżąca.
+     * @return Komunikat błędu lub null.
+     */
+    public static String checkAge(LocalDate birthDate, LocalDate today) {
+        if (birthDate == null) {
+            return "Data urodzenia jest wymagana.";
+        }
+        int age = Period.between(birthDate, today).getYears();
+        return age >= MIN_AGE ? null : "Klient musi mieć ukończone " + MIN_AGE + " lat (Obecny wiek: " + age + ").";
+    }
+
+    /**
+     * @param category Kategoria członkostwa (wymagana; zapisywany jest pierwszy znak).
+     * @return Komunikat błędu lub null.
+     */
+    public static String checkCategory(String category) {
+        return category == null || category.isBlank() ? "Kategoria jest wymagana." : null;
+    }
+
+    /**
+     * Odczytuje datę wpisaną przez użytkownika w jednym z formatów, które sprowadza
+     * migracja kolumn dat: dd/MM/yyyy (formularz) lub yyyy-MM-dd (klient konsolowy).
+     * @param value Tekst daty (przycinany) lub null.
+     * @return Data lub null dla pustej wartości.
+     * @throws DateTimeParseException Gdy tekst nie jest datą w żadnym z formatów.
+     */
+    public static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        return text.indexOf('-') > 0 ? LocalDate.parse(text) : LocalDate.parse(text, FORM_DATE);
+    }
+}
@@ -0,0 +1,200 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Config.Transactions;
+import Models.ActivityDAO;
+import Models.ClientDAO;
+import Models.CodeSequenceDAO;
+import Models.TrainerDAO;
+import jakarta.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Generator kodów nowych rekordów (numery członkowskie, kody trenerów i aktywności)
+ * w schemacie hi/lo. Proces rezerwuje w tabeli CODE_SEQUENCE blok kolejnych wartości
+ * ({@link #BLOCK_SIZE}) i wydaje z niego kody w pamięci - zapytanie do bazy wykonywane
+ * jest dopiero po wyczerpaniu bloku. Rezerwacja jest atomowa, więc stanowiska
+ * otwierające formularze jednocześnie otrzymują różne kody.
+ * <p>
+ * Niewykorzystane wartości bloku (np. po zamknięciu aplikacji lub anulowaniu
+ * formularza) przepadają - kody pozostają unikalne, ale nie muszą być ciągłe.
+ * Przy pierwszym użyciu sekwencja inicjowana jest wartością następującą po
+ * najwyższym kodzie istniejącym w bazie.
+ * <p>
+ * Szerokość części liczbowej jest minimalna - po jej wyczerpaniu (np. import zbiorczy
+ * po S999) kody są dłuższe (S1000). Najwyższy kod w bazie oraz kolejność kodów w widokach
+ * wyznaczane są więc liczbowo: numery członkowskie według indeksowanej kolumny części liczbowej
+ * ({@link Models.MemberSequenceDAO}), a kody trenerów i aktywności - najpierw długość, potem
+ * wartość ({@link #CODE_ORDER}, sorter tabel wczytywanych w całości).
+ */
+public final class CodeGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(CodeGenerator.class.getName());
+
+    /** Liczba wartości rezerwowanych jednym zapytaniem. Nadpisywana właściwością {@code -Disdd.codes.blockSize}. */
+    public static final int BLOCK_SIZE = Integer.getInteger("isdd.codes.blockSize", 10);
+
+    /** Porządek kodów zgodny z liczbowym (S999 przed S1000), np. dla sortera kolumny klucza. */
+    public static final Comparator<Object> CODE_ORDER
+            = Comparator.comparingInt((Object code) -> code.toString().length()).thenComparing(Object::toString);
+
+    /**
+     * Rodzaje kodów: nazwa sekwencji, prefiks, szerokość części liczbowej
+     * oraz zapytanie o najwyższy istniejący kod (inicjalizacja sekwencji).
+     */
+    private enum Kind {
+        MEMBER("member", "S", 3, s -> new ClientDAO().getMaxMemberNumber(s)),
+        TRAINER("trainer", "T", 3, s -> new TrainerDAO().getMaxTrainerCode(s)),
+        ACTIVITY("activity", "AC", 2, s -> new ActivityDAO().getMaxActivityCode(s));
+
+        private final String sequenceName;
+        private final String prefix;
+        private final int width;
+        private final Function<Session, String> maxCode;
+
+        Kind(String sequenceName, String prefix, int width, Function<Session, String> maxCode) {
+            this.sequenceName = sequenceName;
+            this.prefix = prefix;
+            this.width = width;
+            this.maxCode = maxCode;
+        }
+
+        String format(long value) {
+            return prefix + String.format("%0" + width + "d", value);
+        }
+
+        /** Wartość następująca po najwyższym kodzie w bazie (1 dla pustej tabeli). */
+        long firstFree(Session session) {
+            String max = maxCode.apply(session);
+            if (max == null || !max.startsWith(prefix)) {
+                return 1;
+            }
+            try {
+                return Long.parseLong(max.substring(prefix.length())) + 1;
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+    }
+
+    /** Zarezerwowany zakres wartości [next, limit). */
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+
+    private final SessionFactory sessionFactory;
+    private final CodeSequenceDAO sequenceDAO = new CodeSequenceDAO();
+    private final Map<Kind, Block> blocks = new EnumMap<>(Kind.class);
+    private boolean tableChecked;
+
+    private CodeGenerator(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        for (Kind kind : Kind.values()) {
+            blocks.put(kind, new Block());
+        }
+    }
+
+    /**
+     * Zwraca generator kodów dla podanej fabryki sesji.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @return Współdzielony generator.
+     */
+    public static CodeGenerator forSessionFactory(SessionFactory sessionFactory) {
+        return SessionFactoryScope.get(sessionFactory, CodeGenerator.class, CodeGenerator::new);
+    }
+
+    /**
+     * Wydaje kolejny numer członkowski klienta (np. "S012").
+     * @return Nowy, nieużyty numer.
+     */
+    public String nextMemberNumber() {
+        return next(Kind.MEMBER);
+    }
+
+    /**
+     * Wydaje kolejny kod trenera (np. "T004").
+     * @return Nowy, nieużyty kod.
+     */
+    public String nextTrainerCode() {
+        return next(Kind.TRAINER);
+    }
+
+    /**
+     * Wydaje kolejny kod aktywności (np. "AC07").
+     * @return Nowy, nieużyty kod.
+     */
+    public String nextActivityCode() {
+        return next(Kind.ACTIVITY);
+    }
+
+    /**
+     * Wydaje podaną liczbę kolejnych numerów członkowskich, rezerwując je jednym
+     * zapytaniem (import zbiorczy). Bieżący blok w pamięci nie jest naruszany.
+     * @param count Liczba numerów.
+     * @return Lista nowych, nieużytych numerów.
+     */
+    public List<String> nextMemberNumbers(int count) {
+        List<String> codes = new ArrayList<>(count);
+        if (count > 0) {
+            long start = reserve(Kind.MEMBER, count);
+            for (long v = start; v < start + count; v++) {
+                codes.add(Kind.MEMBER.format(v));
+            }
+        }
+        return codes;
+    }
+
+    private synchronized String next(Kind kind) {
+        Block block = blocks.get(kind);
+        if (block.next >= block.limit) {
+            block.next = reserve(kind, BLOCK_SIZE);
+            block.limit = block.next + BLOCK_SIZE;
+        }
+        return kind.format(block.next++);
+    }
+
+    /**
+     * Rezerwuje nowy blok {@code size} wartości w bazie. Jeśli sekwencja nie istnieje,
+     * zakłada ją; gdy w tym samym czasie założył ją inny proces, rezerwacja jest ponawiana.
+     */
+    private synchronized long reserve(Kind kind, int size) {
+        ensureTable();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                long start = Transactions.call(sessionFactory, session -> {
+                    long reserved = sequenceDAO.reserveBlock(session, kind.sequenceName, size);
+                    if (reserved < 0) {
+                        reserved = kind.firstFree(session);
+                        sequenceDAO.insertSequence(session, kind.sequenceName, reserved + size);
+                        LOGGER.info("Utworzono sekwencję kodów '" + kind.sequenceName + "' od " + kind.format(reserved) + ".");
+                    }
+                    return reserved;
+                });
+                LOGGER.fine("Zarezerwowano blok kodów " + kind.format(start) + "-" + kind.format(start + size - 1) + ".");
+                return start;
+            } catch (PersistenceException e) {
+                if (attempt > 0) {
+                    throw e;
+                }
+                LOGGER.fine("Sekwencja '" + kind.sequenceName + "' założona równolegle - ponowna rezerwacja.");
+            }
+        }
+    }
+
+    private void ensureTable() {
+        if (tableChecked) {
+            return;
+        }
+        Transactions.run(sessionFactory, sequenceDAO::createTableIfMissing);
+        tableChecked = true;
+    }
+}
@@ -0,0 +1,179 @@
+package Utils;
+
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Insets;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.Icon;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableModel;
+
+/**
+ * Dobór szerokości kolumn tabeli na podstawie ograniczonej próbki wierszy.
+ * Mierzone są: nagłówek, pierwsze i ostatnie {@link #SAMPLE_ROWS} wierszy oraz - jeśli model
+ * je wskazuje ({@link LongestValues}) - wiersz z najdłuższą wartością w każdej kolumnie.
+ * Koszt nie zależy więc od liczby wierszy tabeli.
+ * <p>
+ * Szerokość tekstu liczona jest z metryk czcionki zapamiętanych dla każdego typu kolumny,
+ * zamiast przygotowywania renderera dla każdej komórki; renderery innych komponentów
+ * niż etykieta (np. ikony) mierzone są jak dotychczas przez {@code prepareRenderer}.
+ * Po dodaniu lub zmianie pojedynczych wierszy mierzone są tylko te wiersze, a kolumny
+ * są wyłącznie poszerzane. Metody wywoływane są w EDT.
+ */
+public final class ColumnWidthEstimator {
+
+    /** Liczba wierszy mierzonych od początku i od końca tabeli. */
+    public static final int SAMPLE_ROWS = Integer.getInteger("isdd.table.widthSample", 25);
+
+    /** Dodatkowy odstęp nagłówka (jak w dotychczasowym pomiarze). */
+    private static final int HEADER_PADDING = 20;
+
+    /** Dodatkowy odstęp komórki (jak w dotychczasowym pomiarze). */
+    private static final int CELL_PADDING = 10;
+
+    /**
+     * Model wskazujący wiersz z najdłuższą wartością tekstową w kolumnie
+     * (utrzymywany przy budowie modelu w wątku tła, bez skanowania w EDT).
+     */
+    public interface LongestValues {
+
+        /**
+         * @param column Indeks kolumny modelu.
+         * @return Indeks wiersza modelu lub -1, jeśli nieznany.
+         */
+        int longestRow(int column);
+    }
+
+    /** Metryki czcionki i marginesy renderera dla jednego typu kolumny. */
+    private record TextMetrics(FontMetrics metrics, int insets) {
+    }
+
+    /** Znacznik typu kolumny, którego renderer nie jest etykietą tekstową. */
+    private static final TextMetrics NOT_TEXT = new TextMetrics(null, 0);
+
+    private final JTable table;
+    private final Map<Class<?>, TextMetrics> metricsByType = new HashMap<>();
+    private final TableModelListener rowListener = this::rowsChanged;
+    private TableModel model;
+
+    /**
+     * @param table Tabela, której kolumny są dopasowywane.
+     */
+    public ColumnWidthEstimator(JTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Dopasowuje szerokości wszystkich kolumn bieżącego modelu tabeli i zaczyna śledzić
+     * zmiany pojedynczych wierszy tego modelu.
+     */
+    public void resizeAll() {
+        TableModel current = table.getModel();
+        if (current != model) {
+            if (model != null) {
+                model.removeTableModelListener(rowListener);
+            }
+            model = current;
+            model.addTableModelListener(rowListener);
+        }
+
+        int rows = table.getRowCount();
+        // Tabela stronicowana: tylko pierwsza (wczytana) strona - inne strony pobierane byłyby z bazy
+        int tailStart = model instanceof PagedTableModel ? rows : Math.max(SAMPLE_ROWS, rows - SAMPLE_ROWS);
+        int headEnd = Math.min(rows, SAMPLE_ROWS);
+
+        for (int column = 0; column < table.getColumnCount(); column++) {
+            TableColumn tableColumn = table.getColumnModel().getColumn(column);
+            TableCellRenderer headerRenderer = table.getTableHeader().getDefaultRenderer();
+            Component header = headerRenderer.getTableCellRendererComponent(
+                    table, tableColumn.getHeaderValue(), false, false, 0, column);
+            int width = header.getPreferredSize().width + HEADER_PADDING;
+
+            for (int row = 0; row < headEnd; row++) {
+                width = Math.max(width, cellWidth(row, column));
+            }
+            for (int row = tailStart; row < rows; row++) {
+                width = Math.max(width, cellWidth(row, column));
+            }
+            if (model instanceof LongestValues longest) {
+                int modelRow = longest.longestRow(table.convertColumnIndexToModel(column));
+                int viewRow = modelRow >= 0 && modelRow < model.getRowCount() ? table.convertRowIndexToView(modelRow) : -1;
+                if (viewRow >= 0) {
+                    width = Math.max(width, cellWidth(viewRow, column));
+                }
+            }
+            tableColumn.setPreferredWidth(width);
+        }
+    }
+
+    /** Zmiana pojedynczych wierszy: kolumny są poszerzane, jeśli nowe wartości są dłuższe. */
+    private void rowsChanged(TableModelEvent e) {
+        if (e.getType() == TableModelEvent.DELETE || e.getFirstRow() < 0
+                || e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE
+                || e.getLastRow() - e.getFirstRow() >= 2 * SAMPLE_ROWS) {
+            // Zmiana całych danych lub usunięcie - szerokości pozostają bez zmian do następnego pełnego pomiaru
+            return;
+        }
+        // Wartości czytane wprost z modelu - sorter mógł jeszcze nie przeliczyć pozycji nowych wierszy
+        int last = Math.min(e.getLastRow(), model.getRowCount() - 1);
+        int spacing = table.getIntercellSpacing().width + CELL_PADDING;
+        for (int column = 0; column < table.getColumnCount(); column++) {
+            TextMetrics text = metricsByType.get(table.getColumnClass(column));
+            if (text == null || text == NOT_TEXT) {
+                continue;
+            }
+            TableColumn tableColumn = table.getColumnModel().getColumn(column);
+            int modelColumn = table.convertColumnIndexToModel(column);
+            int width = tableColumn.getPreferredWidth();
+            for (int modelRow = e.getFirstRow(); modelRow <= last; modelRow++) {
+                width = Math.max(width, textWidth(text, model.getValueAt(modelRow, modelColumn)) + spacing);
+            }
+            if (width > tableColumn.getPreferredWidth()) {
+                tableColumn.setPreferredWidth(width);
+            }
+        }
+    }
+
+    private int cellWidth(int row, int column) {
+        int spacing = table.getIntercellSpacing().width + CELL_PADDING;
+        Object value = table.getValueAt(row, column);
+        TextMetrics text = metricsFor(row, column);
+        if (text != NOT_TEXT && !(value instanceof Icon)) {
+            return textWidth(text, value) + spacing;
+        }
+        Component c = table.prepareRenderer(table.getCellRenderer(row, column), row, column);
+        return c.getPreferredSize().width + spacing;
+    }
+
+    private static int textWidth(TextMetrics text, Object value) {
+        return text.metrics().stringWidth(value == null ? "" : value.toString()) + text.insets();
+    }
+
+    /**
+     * Metryki czcionki renderera typu kolumny - przygotowywane raz dla każdego typu.
+     * @return Metryki lub {@link #NOT_TEXT}, jeśli renderer nie jest etykietą tekstową.
+     */
+    private TextMetrics metricsFor(int row, int column) {
+        Class<?> type = table.getColumnClass(column);
+        TextMetrics cached = metricsByType.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        Component c = table.prepareRenderer(table.getCellRenderer(row, column), row, column);
+        TextMetrics metrics = NOT_TEXT;
+        if (c instanceof JLabel label && label.getIcon() == null) {
+            Font font = label.getFont();
+            Insets insets = label.getInsets();
+            metrics = new TextMetrics(label.getFontMetrics(font), insets.left + insets.right);
+        }
+        metricsByType.put(type, metrics);
+        return metrics;
+    }
+}
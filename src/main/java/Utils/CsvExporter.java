@@ -0,0 +1,195 @@
+package Utils;
+
+import Models.ActivityDAO;
+import Models.ActivityRow;
+import Models.ClientDAO;
+import Models.ClientRow;
+import Models.PerformsDAO;
+import Models.TrainerDAO;
+import Models.TrainerRow;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+/**
+ * Strumieniowy eksport widoków tabel (Klienci, Trenerzy, Aktywności, Zapisy) do pliku CSV.
+ * Wiersze czytane są kursorem {@link ScrollableResults} w sesji bezstanowej i od razu
+ * zapisywane do buforowanego kanału pliku (opcjonalnie skompresowanego gzip), więc
+ * zużycie pamięci jest stałe niezależnie od liczby rekordów.
+ * <p>
+ * Plik zapisywany jest najpierw pod nazwą tymczasową ({@code .part}) i przenoszony na
+ * miejsce docelowe dopiero po zakończeniu - przerwany eksport nie zostawia niepełnego pliku.
+ * Eksport można anulować przerwaniem wątku (np. {@link AsyncExecutor#cancel(String)}).
+ */
+public final class CsvExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(CsvExporter.class.getName());
+
+    /** Liczba wierszy pobieranych z bazy w jednej porcji (nadpisywana -Disdd.export.fetchSize). */
+    public static final int FETCH_SIZE = Integer.getInteger("isdd.export.fetchSize", 1_000);
+
+    /** Rozmiar bufora zapisu (bajty/znaki). */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Co ile wierszy sprawdzane jest przerwanie wątku. */
+    private static final int CANCEL_CHECK_INTERVAL = 4_096;
+
+    private CsvExporter() {
+    }
+
+    /**
+     * Eksportowalne widoki tabel wraz z nagłówkiem i źródłem wierszy.
+     */
+    public enum Table {
+        CLIENTS("clients", ClientControllerTable.COLUMNS) {
+            @Override
+            long writeRows(StatelessSession session, Writer out) throws IOException {
+                try (ScrollableResults<ClientRow> rows = new ClientDAO().scrollClientRows(session, FETCH_SIZE)) {
+                    return copy(rows, ClientControllerTable::toRow, out);
+                }
+            }
+        },
+        TRAINERS("trainers", TrainerControllerTable.COLUMN_NAMES) {
+            @Override
+            long writeRows(StatelessSession session, Writer out) throws IOException {
+                try (ScrollableResults<TrainerRow> rows = new TrainerDAO().scrollTrainerRows(session, FETCH_SIZE)) {
+                    return copy(rows, TrainerControllerTable::toRow, out);
+                }
+            }
+        },
+        ACTIVITIES("activities", ActivityControllerTable.COLUMNS) {
+            @Override
+            long writeRows(StatelessSession session, Writer out) throws IOException {
+                try (ScrollableResults<ActivityRow> rows = new ActivityDAO().scrollActivityRows(session, FETCH_SIZE)) {
+                    return copy(rows, ActivityControllerTable::toRow, out);
+                }
+            }
+        },
+        // Kolumny jak w widoku zapisów (Controllers.PerformsControllerTable)
+        PERFORMS("performs", new String[]{"ID Aktywności", "Nazwa Aktywności", "Nr Klienta (ID)",
+            "Imię i Nazwisko", "Dokument (PESEL/DNI)"}) {
+            @Override
+            long writeRows(StatelessSession session, Writer out) throws IOException {
+                try (ScrollableResults<Object[]> rows = new PerformsDAO().scrollEnrollmentRows(session, FETCH_SIZE)) {
+                    return copy(rows, Function.identity(), out);
+                }
+            }
+        };
+
+        private final String fileName;
+        private final String[] header;
+
+        Table(String fileName, String[] header) {
+            this.fileName = fileName;
+            this.header = header;
+        }
+
+        /** @return Proponowana nazwa pliku eksportu (bez rozszerzenia). */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /** Zapisuje wszystkie wiersze widoku (bez nagłówka) i zwraca ich liczbę. */
+        abstract long writeRows(StatelessSession session, Writer out) throws IOException;
+    }
+
+    /**
+     * Eksportuje widok tabeli do pliku CSV (UTF-8, separator przecinek, cudzysłowy wg RFC 4180).
+     * Plik z rozszerzeniem {@code .gz} jest kompresowany.
+     *
+     * @param sessionFactory Fabryka sesji Hibernate.
+     * @param table Eksportowany widok.
+     * @param target Plik docelowy (nadpisywany).
+     * @return Liczba wyeksportowanych wierszy (bez nagłówka).
+     * @throws IOException Błąd zapisu lub przerwanie eksportu ({@link InterruptedIOException}).
+     */
+    public static long export(SessionFactory sessionFactory, Table table, Path target) throws IOException {
+        boolean gzip = target.getFileName().toString().toLowerCase().endsWith(".gz");
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long start = System.nanoTime();
+        long rows;
+        try {
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                    Writer out = newWriter(channel, gzip);
+                    StatelessSession session = sessionFactory.openStatelessSession()) {
+                writeRecord(out, table.header);
+                rows = table.writeRows(session, out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        LOGGER.info(String.format("Eksport %s: %d wierszy do %s w %d ms.",
+                table, rows, target, (System.nanoTime() - start) / 1_000_000));
+        return rows;
+    }
+
+    /**
+     * Buforowany zapis znaków do kanału pliku, opcjonalnie przez kompresję gzip.
+     */
+    private static Writer newWriter(FileChannel channel, boolean gzip) throws IOException {
+        OutputStream stream = Channels.newOutputStream(channel);
+        stream = gzip ? new GZIPOutputStream(stream, BUFFER_SIZE) : new BufferedOutputStream(stream, BUFFER_SIZE);
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static <T> long copy(ScrollableResults<T> rows, Function<T, Object[]> toRecord, Writer out)
+            throws IOException {
+        long count = 0;
+        while (rows.next()) {
+            writeRecord(out, toRecord.apply(rows.get()));
+            if (++count % CANCEL_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Eksport przerwany po " + count + " wierszach.");
+            }
+        }
+        return count;
+    }
+
+    /** Zapisuje jeden rekord CSV zakończony CRLF. */
+    private static void writeRecord(Writer out, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                writeField(out, values[i].toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    /** Pole ujmowane w cudzysłowy tylko wtedy, gdy zawiera separator, cudzysłów lub koniec linii. */
+    private static void writeField(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
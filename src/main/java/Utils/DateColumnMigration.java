@@ -0,0 +1,78 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Config.Transactions;
+import Models.DateColumnDAO;
+import Models.DateColumnDAO.DateColumn;
+import jakarta.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+
+/**
+ * Jednorazowa migracja tekstowych kolumn dat do typu DATE ({@link DateColumnDAO}).
+ * Wykonywana po zalogowaniu, zanim okno główne odczyta pierwsze wiersze - encje
+ * mapują te kolumny jako {@link java.time.LocalDate}.
+ * <p>
+ * Dla każdej kolumny: jeśli nie jest jeszcze typu DATE, wartości sprowadzane są do
+ * formatu ISO (transakcja danych), a typ zmieniany jest instrukcją ALTER (osobna
+ * transakcja); następnie zakładany jest brakujący indeks. Wszystkie kroki są
+ * idempotentne - równoległe logowanie z innego stanowiska niczego nie psuje.
+ */
+public final class DateColumnMigration {
+
+    private static final Logger LOGGER = Logger.getLogger(DateColumnMigration.class.getName());
+
+    private static final DateColumnDAO DAO = new DateColumnDAO();
+
+    private DateColumnMigration() {
+    }
+
+    /** Stan migracji w rejestrze fabryki sesji (po ponownym logowaniu - nowa baza). */
+    private static final class State {
+        private boolean migrated;
+    }
+
+    /**
+     * Migruje kolumny dat bazy podanej fabryki sesji (raz na fabrykę). Błąd jednej
+     * kolumny nie przerywa migracji pozostałych, ale migracja jest uznana za wykonaną
+     * tylko wtedy, gdy powiodła się dla wszystkich kolumn - encje mapują je jako
+     * {@link java.time.LocalDate}, więc z kolumną tekstową logowanie nie może być kontynuowane.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @throws PersistenceException Gdy migracja którejś kolumny nie powiodła się
+     *         (pozostałe błędy dołączone jako wyjątki stłumione).
+     */
+    public static synchronized void migrate(SessionFactory sessionFactory) {
+        State state = SessionFactoryScope.get(sessionFactory, State.class, sf -> new State());
+        if (state.migrated) {
+            return;
+        }
+        List<String> failed = new ArrayList<>();
+        List<PersistenceException> errors = new ArrayList<>();
+        for (DateColumn column : DateColumnDAO.COLUMNS) {
+            String name = column.table() + "." + column.column();
+            try {
+                if (!Transactions.call(sessionFactory, session -> DAO.isDateType(session, column))) {
+                    int changed = Transactions.call(sessionFactory, session -> DAO.normalize(session, column));
+                    Transactions.run(sessionFactory, session -> DAO.alterToDate(session, column));
+                    LOGGER.info("Kolumna " + name + " zmieniona na DATE (poprawione wartości: " + changed + ").");
+                }
+                Transactions.run(sessionFactory, session -> DAO.createIndexIfMissing(session, column));
+            } catch (PersistenceException e) {
+                LOGGER.log(Level.SEVERE, "Migracja kolumny " + name + " nie powiodła się.", e);
+                failed.add(name);
+                errors.add(e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            // Kolejna próba przy następnym logowaniu
+            PersistenceException error = new PersistenceException(
+                    "Migracja kolumn dat nie powiodła się: " + String.join(", ", failed) + ".", errors.get(0));
+            errors.subList(1, errors.size()).forEach(error::addSuppressed);
+            throw error;
+        }
+        state.migrated = true;
+    }
+}
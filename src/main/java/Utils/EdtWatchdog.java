@@ -0,0 +1,271 @@
+package Utils;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import javax.swing.AbstractButton;
+
+/**
+ * Wykrywanie zablokowania wątku EDT (np. operacji bazodanowej wykonanej w listenerze).
+ * <p>
+ * Kolejka zdarzeń zastępowana jest podklasą {@link EventQueue}, która zapamiętuje obsługiwane
+ * właśnie zdarzenie i czas jego rozpoczęcia. Wątek tła co {@link #CHECK_MS} ms sprawdza,
+ * czy obsługa trwa dłużej niż {@link #STALL_MS} ms - jeśli tak, pobiera stos wątku EDT.
+ * Po zakończeniu obsługi próbka (czas, widok {@code MainController}, polecenie akcji,
+ * listener i stos) zapisywana jest przez wątek tła do rotowanego pliku
+ * ({@code -Disdd.edt.logFile}, domyślnie {@code ~/isdd-edt-stalls.N.log}).
+ * <p>
+ * Listener wyznaczany jest ze stosu: dwie pierwsze ramki kodu aplikacji licząc od pętli
+ * zdarzeń (np. {@code ActivityControllerTable.lambda$new$0 > ActivityControllerTable.handleCalculateStats}).
+ * Zestawienie najgorszych listenerów zapisuje {@link #logSummary()}. Oczekiwanie w oknie
+ * modalnym (pętla zdarzeń zagnieżdżona w listenerze) nie jest traktowane jako blokada.
+ * Watchdog wyłącza {@code -Disdd.edt.watchdog=false}.
+ */
+public final class EdtWatchdog {
+
+    private static final Logger LOGGER = Logger.getLogger(EdtWatchdog.class.getName());
+
+    /** Dziennik próbek (osobny plik, bez przekazywania do konsoli). */
+    private static final Logger STALL_LOG = Logger.getLogger(EdtWatchdog.class.getName() + ".stalls");
+
+    /** Czas obsługi zdarzenia, od którego EDT uznawany jest za zablokowany (ms). */
+    public static final long STALL_MS = Long.getLong("isdd.edt.stallMs", 300L);
+
+    /** Okres sprawdzania wątku EDT (ms). */
+    public static final long CHECK_MS = Long.getLong("isdd.edt.checkMs", 50L);
+
+    /** Pakiety kodu aplikacji (rozpoznawanie listenerów na stosie). */
+    private static final String[] APP_PACKAGES = {"Controllers.", "Utils.", "Views."};
+
+    /** Liczba listenerów w zestawieniu. */
+    private static final int SUMMARY_SIZE = 10;
+
+    private static final Queue<Sample> FINISHED = new ConcurrentLinkedQueue<>();
+    private static final Map<String, Offender> OFFENDERS = new ConcurrentHashMap<>();
+
+    private static volatile String currentView = "Init";
+    private static volatile MonitoredQueue queue;
+
+    private EdtWatchdog() {
+    }
+
+    /**
+     * Instaluje kolejkę zdarzeń z pomiarem i uruchamia wątek sprawdzający (raz na proces).
+     * Wywoływane w {@code main} przed utworzeniem pierwszego okna.
+     */
+    public static synchronized void install() {
+        if (queue != null || !Boolean.parseBoolean(System.getProperty("isdd.edt.watchdog", "true"))) {
+            return;
+        }
+        try {
+            FileHandler file = new FileHandler(System.getProperty("isdd.edt.logFile", "%h/isdd-edt-stalls.%g.log"),
+                    Integer.getInteger("isdd.edt.logLimit", 1_000_000), 5, true);
+            file.setFormatter(new SimpleFormatter());
+            STALL_LOG.addHandler(file);
+            STALL_LOG.setUseParentHandlers(false);
+        } catch (IOException | SecurityException e) {
+            // Bez pliku próbki trafiają do logu aplikacji
+            LOGGER.log(Level.WARNING, "Nie otwarto pliku próbek EDT - zapis do logu aplikacji.", e);
+        }
+        queue = new MonitoredQueue();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+
+        Thread checker = new Thread(EdtWatchdog::run, "edt-watchdog");
+        checker.setDaemon(true);
+        checker.start();
+        LOGGER.info("Watchdog EDT: próg " + STALL_MS + " ms, sprawdzanie co " + CHECK_MS + " ms.");
+    }
+
+    /**
+     * Ustawia nazwę bieżącego widoku okna głównego (znacznik próbek).
+     * @param view Nazwa widoku ({@code MainController.currentView}).
+     */
+    public static void setView(String view) {
+        currentView = view;
+    }
+
+    /** Zapisuje zestawienie listenerów o największym łącznym czasie blokady EDT. */
+    public static synchronized void logSummary() {
+        drain();
+        List<Offender> worst = new ArrayList<>(OFFENDERS.values());
+        if (worst.isEmpty()) {
+            return;
+        }
+        worst.sort(Comparator.comparingLong((Offender o) -> o.totalMs).reversed());
+        StringBuilder sb = new StringBuilder("Najdłużej blokujące EDT listenery:");
+        for (Offender o : worst.subList(0, Math.min(SUMMARY_SIZE, worst.size()))) {
+            sb.append(System.lineSeparator()).append(String.format("  %s: %d blokad, łącznie %d ms, max %d ms",
+                    o.listener, o.count, o.totalMs, o.maxMs));
+        }
+        STALL_LOG.warning(sb.toString());
+        LOGGER.info(sb.toString());
+    }
+
+    /** Pętla wątku sprawdzającego. */
+    private static void run() {
+        long stallNanos = TimeUnit.MILLISECONDS.toNanos(STALL_MS);
+        while (true) {
+            try {
+                Thread.sleep(CHECK_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            MonitoredQueue q = queue;
+            Dispatch d = q.current;
+            if (d != null && !d.checked && System.nanoTime() - d.start > stallNanos) {
+                d.checked = true;
+                StackTraceElement[] stack = q.edt.getStackTrace();
+                // Pusta pętla okna modalnego czeka na zdarzenie - to nie jest blokada
+                if (!waitingForEvents(stack)) {
+                    d.stack = stack;
+                }
+            }
+            drain();
+        }
+    }
+
+    /** Zapisuje zakończone próbki (wątek tła lub zestawienie). */
+    private static synchronized void drain() {
+        Sample s;
+        while ((s = FINISHED.poll()) != null) {
+            String listener = listenerOf(s.stack());
+            OFFENDERS.computeIfAbsent(listener, Offender::new).add(s.millis());
+            StringBuilder sb = new StringBuilder(String.format("EDT zablokowany %d ms; widok=%s, akcja=%s, listener=%s",
+                    s.millis(), s.view(), s.command(), listener));
+            for (StackTraceElement frame : s.stack()) {
+                sb.append(System.lineSeparator()).append("    at ").append(frame);
+            }
+            STALL_LOG.warning(sb.toString());
+        }
+    }
+
+    private static boolean waitingForEvents(StackTraceElement[] stack) {
+        for (int i = 0; i < Math.min(stack.length, 8); i++) {
+            if ("java.awt.EventQueue".equals(stack[i].getClassName()) && "getNextEvent".equals(stack[i].getMethodName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Dwie pierwsze ramki kodu aplikacji licząc od dna stosu (pętli zdarzeń). */
+    private static String listenerOf(StackTraceElement[] stack) {
+        StringBuilder sb = new StringBuilder();
+        int found = 0;
+        for (int i = stack.length - 1; i >= 0 && found < 2; i--) {
+            if (isApp(stack[i].getClassName())) {
+                String frame = simpleName(stack[i].getClassName()) + "." + stack[i].getMethodName();
+                if (found == 0 || !sb.toString().equals(frame)) {
+                    sb.append(found == 0 ? "" : " > ").append(frame);
+                    found++;
+                }
+            }
+        }
+        return found == 0 ? "(poza kodem aplikacji)" : sb.toString();
+    }
+
+    private static boolean isApp(String className) {
+        if (className.startsWith(EdtWatchdog.class.getName())) {
+            return false;
+        }
+        for (String pkg : APP_PACKAGES) {
+            if (className.startsWith(pkg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /** Polecenie akcji zdarzenia: przycisku lub pozycji menu, na której zdarzenie wystąpiło. */
+    private static String commandOf(AWTEvent event) {
+        if (event instanceof ActionEvent action) {
+            return action.getActionCommand();
+        }
+        if (event.getSource() instanceof AbstractButton button) {
+            return button.getActionCommand();
+        }
+        return event.getClass().getSimpleName();
+    }
+
+    /** Obsługa jednego zdarzenia w EDT. */
+    private static final class Dispatch {
+        private final AWTEvent event;
+        private final String view = currentView;
+        private volatile long start;
+        private volatile boolean checked;
+        private volatile StackTraceElement[] stack;
+
+        Dispatch(AWTEvent event, long start) {
+            this.event = event;
+            this.start = start;
+        }
+    }
+
+    /** Zakończona obsługa zdarzenia, podczas której EDT był zablokowany. */
+    private record Sample(long millis, String view, String command, StackTraceElement[] stack) {
+    }
+
+    /** Łączne blokady jednego listenera (aktualizowane w {@link #drain()}). */
+    private static final class Offender {
+        private final String listener;
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        Offender(String listener) {
+            this.listener = listener;
+        }
+
+        void add(long millis) {
+            count++;
+            totalMs += millis;
+            maxMs = Math.max(maxMs, millis);
+        }
+    }
+
+    /** Kolejka zdarzeń zapamiętująca obsługiwane zdarzenie. */
+    private static final class MonitoredQueue extends EventQueue {
+        private volatile Dispatch current;
+        private volatile Thread edt;
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            edt = Thread.currentThread();
+            Dispatch previous = current;
+            Dispatch d = new Dispatch(event, System.nanoTime());
+            current = d;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                current = previous;
+                if (previous != null) {
+                    // Zagnieżdżona pętla (okno modalne) - czas zewnętrznego zdarzenia liczony od nowa
+                    previous.start = System.nanoTime();
+                }
+                StackTraceElement[] stack = d.stack;
+                if (stack != null) {
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - d.start);
+                    FINISHED.add(new Sample(millis, d.view, commandOf(d.event), stack));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Config.Transactions;
+import Models.MemberSequenceDAO;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+
+/**
+ * Migracja kolumny części liczbowej numeru członkowskiego (CLIENT.m_numSeq, {@link MemberSequenceDAO}).
+ * Wykonywana po zalogowaniu, zanim okno główne odczyta pierwsze wiersze - encja
+ * {@link Models.Client} mapuje tę kolumnę, a strony tabeli klientów są według niej porządkowane.
+ * <p>
+ * Brakująca kolumna jest dodawana (osobna transakcja), wiersze bez wartości - zapisane
+ * przed migracją lub przez starszą wersję aplikacji - są wypełniane, a następnie zakładany
+ * jest brakujący indeks. Wszystkie kroki są idempotentne.
+ */
+public final class MemberSequenceMigration {
+
+    private static final Logger LOGGER = Logger.getLogger(MemberSequenceMigration.class.getName());
+
+    private static final MemberSequenceDAO DAO = new MemberSequenceDAO();
+
+    private MemberSequenceMigration() {
+    }
+
+    /** Stan migracji w rejestrze fabryki sesji (po ponownym logowaniu - nowa baza). */
+    private static final class State {
+        private boolean migrated;
+    }
+
+    /**
+     * Migruje kolumnę bazy podanej fabryki sesji (raz na fabrykę).
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @throws jakarta.persistence.PersistenceException Gdy kolumny nie udało się założyć
+     *         lub wypełnić - strony tabeli klientów nie byłyby kompletne.
+     */
+    public static synchronized void migrate(SessionFactory sessionFactory) {
+        State state = SessionFactoryScope.get(sessionFactory, State.class, sf -> new State());
+        if (state.migrated) {
+            return;
+        }
+        if (!Transactions.call(sessionFactory, DAO::hasColumn)) {
+            Transactions.run(sessionFactory, DAO::addColumn);
+            LOGGER.info("Dodano kolumnę CLIENT.m_numSeq.");
+        }
+        int assigned = Transactions.call(sessionFactory, DAO::assignAll);
+        if (assigned > 0) {
+            LOGGER.info("Wypełniono część liczbową numeru członkowskiego: " + assigned + " wierszy.");
+        }
+        Transactions.run(sessionFactory, DAO::createIndexIfMissing);
+        state.migrated = true;
+    }
+}
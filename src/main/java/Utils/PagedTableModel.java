@@ -0,0 +1,280 @@
+package Utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Leniwy model tabeli pobierający wiersze stronami na żądanie.
+ * Strony ładowane są przez {@link PageLoader} z użyciem paginacji po kluczu
+ * (keyset: {@code WHERE klucz > :ostatni ORDER BY klucz}), dzięki czemu koszt
+ * pobrania strony nie zależy od jej pozycji w tabeli.
+ * W pamięci przechowywane jest jedynie kilka ostatnio używanych stron (LRU),
+ * co pozwala przewijać miliony wierszy przy stałym zużyciu pamięci.
+ * Brakujące strony pobierane są w tle przez {@link AsyncExecutor}; do czasu ich
+ * wczytania komórki są puste, a po wczytaniu tabela odświeża odpowiednie wiersze.
+ * <p>
+ * Wyszukiwanie w modelu stronicowanym wykonuje baza danych: {@link #setFilter(Filter)}
+ * przekazuje warunek do {@link PageLoader}, a model zlicza i stronicuje tylko pasujące wiersze.
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    private static final Logger LOGGER = Logger.getLogger(PagedTableModel.class.getName());
+
+    /**
+     * Liczba wierszy, powyżej której widoki korzystają z modelu stronicowanego
+     * zamiast pełnego {@code DefaultTableModel}. Nadpisywana właściwością
+     * {@code -Disdd.table.pagingThreshold}.
+     */
+    public static final int PAGING_THRESHOLD = Integer.getInteger("isdd.table.pagingThreshold", 5000);
+
+    /** Domyślna liczba wierszy na stronę. */
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("isdd.table.pageSize", 200);
+
+    /** Domyślna liczba stron trzymanych w pamięci. */
+    public static final int DEFAULT_MAX_PAGES = Integer.getInteger("isdd.table.maxPages", 8);
+
+    /**
+     * Warunek wyszukiwania przekazywany do bazy danych.
+     * @param column Indeks przeszukiwanej kolumny.
+     * @param text Szukany fragment (bez rozróżniania wielkości liter).
+     */
+    public record Filter(int column, String text) {
+    }
+
+    /**
+     * Źródło danych dla modelu stronicowanego. Implementacje odpytują bazę
+     * danych w osobnej, krótkiej sesji dla każdego wywołania; metody wywoływane
+     * są w wątkach tła, nigdy w EDT.
+     */
+    public interface PageLoader {
+
+        /**
+         * Zwraca łączną liczbę wierszy.
+         * @param filter Warunek wyszukiwania lub null (wszystkie wiersze).
+         * @return Liczba wierszy w tabeli.
+         */
+        int countRows(Filter filter);
+
+        /**
+         * Pobiera kolejne wiersze uporządkowane rosnąco według klucza.
+         * @param filter Warunek wyszukiwania lub null.
+         * @param afterKey Klucz ostatniego wiersza poprzedniej strony lub null dla pierwszej strony.
+         * @param limit Maksymalna liczba wierszy.
+         * @return Wiersze tabeli (kolumny w kolejności nagłówków).
+         */
+        List<Object[]> loadPage(Filter filter, Object afterKey, int limit);
+
+        /**
+         * Zwraca klucz wiersza o podanej pozycji (używane przy skoku do dalekiej strony,
+         * której poprzedniczka nie była jeszcze wczytana). Zapytanie obejmuje tylko indeks klucza.
+         * @param filter Warunek wyszukiwania lub null.
+         * @param offset Pozycja wiersza (od 0).
+         * @return Klucz wiersza lub null, jeśli pozycja wykracza poza tabelę.
+         */
+        Object findKeyAt(Filter filter, int offset);
+    }
+
+    private final String[] columnNames;
+    private final int keyColumn;
+    private final PageLoader loader;
+    private final int pageSize;
+    private final Map<Integer, List<Object[]>> pages;
+
+    /** Klucz ostatniego wiersza strony p-1, czyli punkt startowy strony p (zapisywany w wątkach tła). */
+    private volatile Map<Integer, Object> pageStartKeys = new ConcurrentHashMap<>();
+
+    /** Prefiks kluczy zadań tego modelu w {@link AsyncExecutor}. */
+    private final String taskKey = "page:" + Integer.toHexString(System.identityHashCode(this)) + ":";
+
+    private int rowCount;
+
+    /** Numer wersji danych; strony wczytane przed {@link #refresh()} są odrzucane. */
+    private int generation;
+
+    /** Bieżący warunek wyszukiwania (null - wszystkie wiersze); odczytywany w wątkach tła. */
+    private volatile Filter filter;
+
+    /**
+     * Tworzy model z domyślnym rozmiarem strony i okna LRU.
+     *
+     * @param columnNames Nagłówki kolumn.
+     * @param keyColumn Indeks kolumny zawierającej klucz paginacji.
+     * @param rowCount Liczba wierszy (wynik {@link PageLoader#countRows(Filter)} lub zapytania COUNT).
+     * @param loader Źródło danych.
+     */
+    public PagedTableModel(String[] columnNames, int keyColumn, int rowCount, PageLoader loader) {
+        this(columnNames, keyColumn, rowCount, loader, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Tworzy model stronicowany.
+     *
+     * @param columnNames Nagłówki kolumn.
+     * @param keyColumn Indeks kolumny zawierającej klucz paginacji.
+     * @param rowCount Liczba wierszy.
+     * @param loader Źródło danych.
+     * @param pageSize Liczba wierszy na stronę.
+     * @param maxPages Maksymalna liczba stron przechowywanych w pamięci.
+     */
+    public PagedTableModel(String[] columnNames, int keyColumn, int rowCount, PageLoader loader, int pageSize, int maxPages) {
+        this.columnNames = columnNames.clone();
+        this.keyColumn = keyColumn;
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                return size() > maxPages;
+            }
+        };
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Wczytuje stronę synchronicznie. Przeznaczone do wywołania w wątku tła
+     * przed podłączeniem modelu do tabeli (np. pierwsza strona, aby tabela
+     * i dopasowanie kolumn miały dane od razu po wyświetleniu).
+     *
+     * @param pageIndex Numer strony.
+     */
+    public void preload(int pageIndex) {
+        List<Object[]> rows = loadPage(pageIndex);
+        pages.put(pageIndex, rows);
+    }
+
+    /**
+     * Ponownie zlicza wiersze (w tle) i unieważnia wszystkie wczytane strony
+     * (np. po dodaniu lub usunięciu rekordu).
+     */
+    public void refresh() {
+        Filter current = filter;
+        AsyncExecutor.submit(taskKey + "count", null, () -> loader.countRows(current), count -> {
+            generation++;
+            pages.clear();
+            // Nowa mapa zamiast clear(): zadania sprzed odświeżenia zapisują do starej
+            pageStartKeys = new ConcurrentHashMap<>();
+            rowCount = count;
+            fireTableDataChanged();
+        });
+    }
+
+    /**
+     * Ustawia warunek wyszukiwania wykonywanego w bazie i wczytuje model od nowa.
+     * Trwające zliczanie dla poprzedniego warunku jest anulowane.
+     *
+     * @param filter Warunek lub null, aby pokazać wszystkie wiersze.
+     */
+    public void setFilter(Filter filter) {
+        if (Objects.equals(this.filter, filter)) {
+            return;
+        }
+        this.filter = filter;
+        AsyncExecutor.cancel(taskKey + "count");
+        refresh();
+    }
+
+    /**
+     * Zwraca bieżący warunek wyszukiwania.
+     * @return Warunek lub null.
+     */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Zwraca rozmiar strony.
+     * @return Liczba wierszy na stronę.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        List<Object[]> page = getPage(row / pageSize);
+        int index = row % pageSize;
+        // Wiersz mógł zniknąć z bazy od czasu zliczenia - pokazujemy pustą komórkę
+        return index < page.size() ? page.get(index)[column] : null;
+    }
+
+    private List<Object[]> getPage(int pageIndex) {
+        List<Object[]> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return List.of();
+        }
+        return page;
+    }
+
+    /**
+     * Zleca wczytanie strony w tle. Wielokrotne żądania tej samej strony
+     * (każda komórka odmalowywanego wiersza) są scalane w jedno zapytanie.
+     */
+    private void requestPage(int pageIndex) {
+        int requestedGeneration = generation;
+        AsyncExecutor.submit(taskKey + requestedGeneration + ":" + pageIndex, null, () -> loadPage(pageIndex), rows -> {
+            if (requestedGeneration != generation) {
+                return;
+            }
+            pages.put(pageIndex, rows);
+            int first = pageIndex * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (first <= last) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, e -> {
+            // Po błędzie odczytu strona pozostaje pusta do wywołania refresh(),
+            // aby każde odmalowanie komórki nie ponawiało zapytania
+            if (requestedGeneration == generation) {
+                pages.put(pageIndex, List.of());
+            }
+        });
+    }
+
+    private List<Object[]> loadPage(int pageIndex) {
+        Map<Integer, Object> startKeys = pageStartKeys;
+        Filter current = filter;
+        Object afterKey = null;
+        if (pageIndex > 0) {
+            afterKey = startKeys.get(pageIndex);
+            if (afterKey == null) {
+                afterKey = loader.findKeyAt(current, pageIndex * pageSize - 1);
+                if (afterKey == null) {
+                    return List.of();
+                }
+                startKeys.put(pageIndex, afterKey);
+            }
+        }
+        List<Object[]> rows = loader.loadPage(current, afterKey, pageSize);
+        if (rows.size() == pageSize) {
+            startKeys.put(pageIndex + 1, rows.get(rows.size() - 1)[keyColumn]);
+        }
+        LOGGER.fine("Wczytano stronę " + pageIndex + " (" + rows.size() + " wierszy).");
+        return rows;
+    }
+}
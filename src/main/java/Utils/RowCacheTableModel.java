@@ -0,0 +1,165 @@
+package Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Model tabeli tylko do odczytu z indeksem wierszy według klucza głównego (kolumna 0).
+ * Zmiany pojedynczych rekordów stosowane są metodami {@link #upsert} i {@link #remove},
+ * które zgłaszają zdarzenia dotyczące jednego wiersza ({@code fireTableRowsInserted},
+ * {@code fireTableRowsUpdated}, {@code fireTableRowsDeleted}) - koszt zmiany nie zależy
+ * od liczby wierszy, a tabela nie przebudowuje całego widoku.
+ * <p>
+ * Kolejność wierszy w modelu nie jest utrzymywana (usunięcie przenosi ostatni wiersz
+ * na miejsce usuniętego); widok porządkuje je sorterem według klucza
+ * (zob. {@code MainWindow.setupTableSorter()}). Metody wywoływane są wyłącznie w EDT,
+ * z wyjątkiem konstruktora (budowa modelu w wątku tła).
+ * <p>
+ * Model zapamiętuje też wiersz z najdłuższą wartością każdej kolumny, aby
+ * {@link ColumnWidthEstimator} nie musiał przeglądać wszystkich wierszy.
+ */
+public class RowCacheTableModel extends AbstractTableModel implements ColumnWidthEstimator.LongestValues {
+
+    private final String[] columnNames;
+    private final List<Object[]> rows;
+    private final Map<Object, Integer> indexByKey;
+
+    /** Indeks wiersza z najdłuższą wartością tekstową w kolumnie (-1 - nieznany). */
+    private final int[] longestRow;
+    private final int[] longestLength;
+
+    /**
+     * @param columnNames Nagłówki kolumn.
+     * @param rows Wiersze tabeli (kolumna 0 - klucz główny).
+     */
+    public RowCacheTableModel(String[] columnNames, List<Object[]> rows) {
+        this.columnNames = columnNames;
+        this.rows = new ArrayList<>(rows);
+        this.indexByKey = new HashMap<>(rows.size() * 4 / 3 + 1);
+        this.longestRow = new int[columnNames.length];
+        this.longestLength = new int[columnNames.length];
+        Arrays.fill(longestRow, -1);
+        for (int i = 0; i < this.rows.size(); i++) {
+            indexByKey.put(this.rows.get(i)[0], i);
+            trackLongest(i);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return rows.get(row)[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public int longestRow(int column) {
+        return longestRow[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        // Jak w MainWindow.createTableModel - typ wartości w pierwszym wierszu
+        if (!rows.isEmpty() && rows.get(0)[column] != null) {
+            return rows.get(0)[column].getClass();
+        }
+        return Object.class;
+    }
+
+    /**
+     * @param key Klucz główny.
+     * @return Indeks wiersza w modelu lub -1.
+     */
+    public int indexOf(Object key) {
+        Integer index = indexByKey.get(key);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Zastępuje wiersz o tym samym kluczu lub dopisuje nowy na końcu modelu.
+     * @param row Nowe wartości kolumn (kolumna 0 - klucz główny).
+     * @return Indeks wiersza w modelu.
+     */
+    public int upsert(Object[] row) {
+        Integer index = indexByKey.get(row[0]);
+        if (index != null) {
+            rows.set(index, row);
+            trackLongest(index);
+            fireTableRowsUpdated(index, index);
+            return index;
+        }
+        int added = rows.size();
+        rows.add(row);
+        indexByKey.put(row[0], added);
+        trackLongest(added);
+        fireTableRowsInserted(added, added);
+        return added;
+    }
+
+    /**
+     * Usuwa wiersz o podanym kluczu. Ostatni wiersz modelu przenoszony jest na zwolnione
+     * miejsce, dzięki czemu nie trzeba przesuwać pozostałych wierszy ani ich indeksów.
+     * @param key Klucz główny.
+     * @return true, jeśli wiersz istniał.
+     */
+    public boolean remove(Object key) {
+        Integer index = indexByKey.remove(key);
+        if (index == null) {
+            return false;
+        }
+        int last = rows.size() - 1;
+        Object[] moved = rows.remove(last);
+        for (int column = 0; column < longestRow.length; column++) {
+            if (longestRow[column] == index) {
+                // Najdłuższa wartość usunięta - następna zostanie znaleziona przy kolejnym pełnym wczytaniu
+                longestRow[column] = -1;
+                longestLength[column] = 0;
+            } else if (longestRow[column] == last) {
+                longestRow[column] = index;
+            }
+        }
+        if (index != last) {
+            rows.set(index, moved);
+            indexByKey.put(moved[0], index);
+            fireTableRowsDeleted(last, last);
+            fireTableRowsUpdated(index, index);
+        } else {
+            fireTableRowsDeleted(last, last);
+        }
+        return true;
+    }
+
+    /** Uwzględnia wiersz przy wyznaczaniu najdłuższych wartości kolumn. */
+    private void trackLongest(int index) {
+        Object[] row = rows.get(index);
+        for (int column = 0; column < longestRow.length; column++) {
+            int length = row[column] == null ? 0 : row[column].toString().length();
+            if (length > longestLength[column]) {
+                longestLength[column] = length;
+                longestRow[column] = index;
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Config.StartupTimeline;
+import Models.PricingEngine;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hibernate.SessionFactory;
+
+/**
+ * Przygotowanie bazy wykonywane w tle po zalogowaniu, gdy okno główne jest już widoczne.
+ * Kroki podzielone są na dwie fazy, a każda blokuje tylko funkcje, które jej wymagają:
+ * <ul>
+ * <li>{@link Phase#SCHEMA} - migracja kolumn dat ({@link DateColumnMigration}) i części liczbowej
+ * numerów członkowskich ({@link MemberSequenceMigration}). Encje mapują te kolumny, dlatego sesje
+ * fabryki zwracanej przez {@link #gated()} otwierane są dopiero po zakończeniu fazy.</li>
+ * <li>{@link Phase#AGGREGATES} - reguły zniżek ({@link PricingEngine}) i liczniki statystyk
+ * ({@link ActivityAggregates}). Statystyki aktywności i zapisy aktualizujące liczniki
+ * (zapis na zajęcia, wypisanie, usunięcie, zmiana kategorii lub ceny) wywołują
+ * {@link #await(Phase)} przed otwarciem transakcji.</li>
+ * </ul>
+ * Fazy wykonywane są raz na fabrykę sesji, w jednym wątku tła, w podanej kolejności.
+ */
+public final class StartupTasks {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupTasks.class.getName());
+
+    /** Fazy przygotowania bazy (w kolejności wykonywania). */
+    public enum Phase {
+        /** Migracje kolumn mapowanych przez encje. */
+        SCHEMA("Migracja bazy danych nie powiodła się"),
+        /** Reguły zniżek i liczniki statystyk aktywności. */
+        AGGREGATES("Przygotowanie statystyk aktywności nie powiodło się");
+
+        private final String failure;
+
+        Phase(String failure) {
+            this.failure = failure;
+        }
+    }
+
+    private final SessionFactory sessionFactory;
+    private final CompletableFuture<Void> schema = new CompletableFuture<>();
+    private final CompletableFuture<Void> aggregates = new CompletableFuture<>();
+    private boolean started;
+
+    private StartupTasks(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Zwraca fazy przygotowania bazy podanej fabryki sesji (jeden obiekt na fabrykę).
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @return Fazy przygotowania bazy.
+     */
+    public static StartupTasks forSessionFactory(SessionFactory sessionFactory) {
+        return SessionFactoryScope.get(sessionFactory, StartupTasks.class, StartupTasks::new);
+    }
+
+    /**
+     * Uruchamia fazy w tle (tylko przy pierwszym wywołaniu).
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Thread t = new Thread(this::runPhases, "isdd-startup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void runPhases() {
+        try {
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("date-migration")) {
+                DateColumnMigration.migrate(sessionFactory);
+            }
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("member-sequence")) {
+                MemberSequenceMigration.migrate(sessionFactory);
+            }
+            schema.complete(null);
+        } catch (RuntimeException | Error e) {
+            LOGGER.log(Level.SEVERE, Phase.SCHEMA.failure, e);
+            schema.completeExceptionally(e);
+            aggregates.completeExceptionally(e);
+            return;
+        }
+        try {
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("pricing-rules")) {
+                PricingEngine.forSessionFactory(sessionFactory).reload();
+            }
+            try (StartupTimeline.Phase phase = StartupTimeline.begin("activity-aggregates")) {
+                ActivityAggregates.forSessionFactory(sessionFactory).initialize();
+            }
+            aggregates.complete(null);
+        } catch (RuntimeException | Error e) {
+            LOGGER.log(Level.SEVERE, Phase.AGGREGATES.failure, e);
+            aggregates.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Zwraca przyszły wynik fazy (np. do obsługi błędu migracji w wątku EDT).
+     * @param phase Faza.
+     * @return Wynik fazy - zakończony wyjątkiem, jeśli faza się nie powiodła.
+     */
+    public CompletableFuture<Void> phase(Phase phase) {
+        return phase == Phase.SCHEMA ? schema : aggregates;
+    }
+
+    /**
+     * Czeka na zakończenie fazy (uruchamia fazy, jeśli jeszcze nie zostały uruchomione).
+     * Wywoływane w wątku tła, przed otwarciem sesji lub transakcji.
+     * @param phase Faza wymagana przez funkcję.
+     * @throws IllegalStateException Gdy faza się nie powiodła (przyczyna w {@code getCause()}).
+     */
+    public void await(Phase phase) {
+        start();
+        try {
+            phase(phase).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException(phase.failure + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Zwraca fabrykę sesji, która przed otwarciem sesji czeka na fazę {@link Phase#SCHEMA}.
+     * Pozostałe metody (m.in. {@code unwrap}, {@code close}, statystyki) działają bez czekania.
+     * @return Fabryka sesji przekazywana kontrolerom okna głównego.
+     */
+    public SessionFactory gated() {
+        return (SessionFactory) Proxy.newProxyInstance(SessionFactory.class.getClassLoader(),
+                new Class<?>[]{SessionFactory.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("equals") && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if (name.equals("hashCode") && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    // openSession, withOptions, getCurrentSession, inTransaction, fromSession...
+                    if (name.startsWith("open") || name.startsWith("with") || name.startsWith("from")
+                            || name.startsWith("in") || name.equals("getCurrentSession")) {
+                        await(Phase.SCHEMA);
+                    }
+                    try {
+                        return method.invoke(sessionFactory, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
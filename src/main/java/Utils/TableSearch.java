@@ -0,0 +1,193 @@
+package Utils;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import javax.swing.JComboBox;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.RowFilter;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * Wyszukiwarka głównej tabeli (pole tekstowe + wybór kolumny).
+ * <ul>
+ * <li>Pisanie jest opóźniane ({@link #DEBOUNCE_MS}) - wyszukiwanie rusza dopiero po przerwie
+ * w pisaniu, a nie przy każdym znaku.</li>
+ * <li>Model w pamięci: dla przeszukiwanej kolumny budowany jest w tle {@link TableSearchIndex};
+ * zapytanie wykonywane jest w tle, a do sortera trafia tylko gotowy zbiór indeksów wierszy.</li>
+ * <li>Model stronicowany ({@link PagedTableModel}): wyszukiwanie przekazywane jest do bazy
+ * ({@link PagedTableModel#setFilter}), o ile nie wyłączono go właściwością
+ * {@code -Disdd.search.serverSide=false}.</li>
+ * </ul>
+ * Szukany tekst traktowany jest dosłownie (fragment wartości, bez rozróżniania wielkości liter).
+ * Wszystkie metody publiczne wywoływane są w EDT.
+ */
+public final class TableSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(TableSearch.class.getName());
+
+    /** Opóźnienie wyszukiwania po ostatnim naciśnięciu klawisza (ms). */
+    public static final int DEBOUNCE_MS = Integer.getInteger("isdd.search.debounceMs", 200);
+
+    /** Czy tabela stronicowana przeszukiwana jest po stronie bazy danych. */
+    public static final boolean SERVER_SIDE = Boolean.parseBoolean(System.getProperty("isdd.search.serverSide", "true"));
+
+    /** Klucz zadania wyszukiwania w {@link AsyncExecutor}. */
+    private static final String TASK_KEY = "search";
+
+    private final JTable table;
+    private final JTextField textField;
+    private final JComboBox<String> columnBox;
+    private final Timer debounce;
+
+    /** Indeksy kolumn bieżącego modelu (tylko EDT); czyszczone przy każdej zmianie modelu. */
+    private final Map<Integer, TableSearchIndex> indexes = new HashMap<>();
+    private final TableModelListener invalidator = e -> modelChanged();
+
+    private TableModel model;
+    private TableRowSorter<TableModel> sorter;
+
+    /** Numer zapytania - wyniki starszych zapytań są odrzucane. */
+    private int sequence;
+
+    /**
+     * @param table Przeszukiwana tabela.
+     * @param textField Pole szukanego tekstu.
+     * @param columnBox Wybór przeszukiwanej kolumny (indeks pozycji = indeks kolumny modelu).
+     */
+    public TableSearch(JTable table, JTextField textField, JComboBox<String> columnBox) {
+        this.table = table;
+        this.textField = textField;
+        this.columnBox = columnBox;
+        this.debounce = new Timer(DEBOUNCE_MS, e -> search());
+        this.debounce.setRepeats(false);
+
+        textField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+        });
+        columnBox.addActionListener(e -> debounce.restart());
+    }
+
+    /**
+     * Podłącza wyszukiwarkę do nowo ustawionego modelu tabeli.
+     * @param sorter Sorter tabeli lub null (model stronicowany).
+     */
+    public void attach(TableRowSorter<TableModel> sorter) {
+        if (model != null) {
+            model.removeTableModelListener(invalidator);
+        }
+        model = table.getModel();
+        this.sorter = sorter;
+        indexes.clear();
+        sequence++;
+        // Model stronicowany zgłasza zdarzenia przy każdej wczytanej stronie - nie jest indeksowany
+        if (!(model instanceof PagedTableModel)) {
+            model.addTableModelListener(invalidator);
+        }
+        search();
+    }
+
+    /** Czyści pole wyszukiwania i natychmiast zdejmuje filtr. */
+    public void clear() {
+        textField.setText("");
+        debounce.stop();
+        search();
+    }
+
+    /** Wykonuje wyszukiwanie dla bieżącego tekstu i kolumny. */
+    private void search() {
+        debounce.stop();
+        int requested = ++sequence;
+        String text = textField.getText().trim();
+        int column = columnBox.getSelectedIndex();
+
+        if (model instanceof PagedTableModel paged) {
+            if (SERVER_SIDE) {
+                paged.setFilter(text.isEmpty() || column < 0 ? null : new PagedTableModel.Filter(column, text));
+            }
+            return;
+        }
+        if (sorter == null) {
+            return;
+        }
+        AsyncExecutor.cancel(TASK_KEY);
+        if (column < 0 || column >= model.getColumnCount()) {
+            sorter.setRowFilter(null);
+            return;
+        }
+        if (text.isEmpty()) {
+            sorter.setRowFilter(null);
+            // Indeks wybranej kolumny budowany zawczasu, zanim użytkownik zacznie pisać
+            if (!indexes.containsKey(column)) {
+                Object[] cells = snapshot(column);
+                AsyncExecutor.submit(TASK_KEY, null, () -> TableSearchIndex.build(cells), index -> {
+                    if (requested == sequence) {
+                        indexes.put(column, index);
+                    }
+                });
+            }
+            return;
+        }
+
+        TableSearchIndex index = indexes.get(column);
+        // Migawka wartości kolumny (same referencje) - indeks budowany jest w tle bez dostępu do modelu
+        Object[] cells = index == null ? snapshot(column) : null;
+        TableRowSorter<TableModel> target = sorter;
+        AsyncExecutor.submit(TASK_KEY, null, () -> {
+            TableSearchIndex used = index != null ? index : TableSearchIndex.build(cells);
+            return new Result(used, used.search(text));
+        }, result -> {
+            if (requested != sequence || target != sorter) {
+                return;
+            }
+            indexes.put(column, result.index());
+            target.setRowFilter(new RowFilter<TableModel, Integer>() {
+                @Override
+                public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                    return result.matches().get(entry.getIdentifier());
+                }
+            });
+            LOGGER.fine("Wyszukiwanie '" + text + "': " + result.matches().cardinality() + " wierszy.");
+        });
+    }
+
+    private Object[] snapshot(int column) {
+        Object[] cells = new Object[model.getRowCount()];
+        for (int row = 0; row < cells.length; row++) {
+            cells[row] = model.getValueAt(row, column);
+        }
+        return cells;
+    }
+
+    /** Dane zmienione (np. zapis pojedynczego wiersza) - indeksy są nieaktualne, aktywny filtr jest ponawiany. */
+    private void modelChanged() {
+        indexes.clear();
+        sequence++;
+        if (!textField.getText().trim().isEmpty()) {
+            debounce.restart();
+        }
+    }
+
+    private record Result(TableSearchIndex index, BitSet matches) {
+    }
+}
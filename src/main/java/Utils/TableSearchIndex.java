@@ -0,0 +1,141 @@
+package Utils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Indeks wyszukiwania jednej kolumny tabeli: wartości komórek zapisane małymi literami
+ * oraz listy wierszy dla każdego trigramu (trzech kolejnych znaków) występującego w kolumnie.
+ * <p>
+ * Zapytanie o fragment tekstu (bez rozróżniania wielkości liter) wybiera kandydatów
+ * przez przecięcie list trigramów zapytania, a dopiero kandydaci są sprawdzani
+ * porównaniem {@link String#contains}. Zapytania krótsze niż trigram przeszukują
+ * przygotowane wcześniej wartości małymi literami, bez wyrażeń regularnych.
+ * <p>
+ * Obiekt jest niezmienny - budowany i odpytywany w wątku tła, bez dostępu do modelu tabeli.
+ */
+public final class TableSearchIndex {
+
+    /** Długość n-gramu. */
+    static final int GRAM = 3;
+
+    private final String[] values;
+    private final Map<Long, int[]> postings;
+
+    private TableSearchIndex(String[] values, Map<Long, int[]> postings) {
+        this.values = values;
+        this.postings = postings;
+    }
+
+    /**
+     * Buduje indeks z wartości kolumny.
+     * @param cells Wartości komórek w kolejności wierszy modelu (null - pusta komórka).
+     * @return Indeks kolumny.
+     */
+    public static TableSearchIndex build(Object[] cells) {
+        String[] values = new String[cells.length];
+        Map<Long, IntList> lists = new HashMap<>();
+        for (int row = 0; row < cells.length; row++) {
+            String value = cells[row] == null ? "" : cells[row].toString().toLowerCase(Locale.ROOT);
+            values[row] = value;
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                IntList list = lists.computeIfAbsent(gram(value, i), k -> new IntList());
+                // Trigram powtarzający się w jednej komórce zapisywany jest raz
+                if (list.size == 0 || list.items[list.size - 1] != row) {
+                    list.add(row);
+                }
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+        lists.forEach((key, list) -> postings.put(key, Arrays.copyOf(list.items, list.size)));
+        return new TableSearchIndex(values, postings);
+    }
+
+    /**
+     * @return Liczba zaindeksowanych wierszy.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Wyszukuje wiersze, których wartość zawiera podany tekst (bez rozróżniania wielkości liter).
+     * @param query Szukany fragment.
+     * @return Zbiór indeksów wierszy modelu.
+     */
+    public BitSet search(String query) {
+        String q = query.toLowerCase(Locale.ROOT);
+        BitSet matches = new BitSet(values.length);
+        if (q.length() < GRAM) {
+            for (int row = 0; row < values.length; row++) {
+                if (values[row].contains(q)) {
+                    matches.set(row);
+                }
+            }
+            return matches;
+        }
+
+        // Kandydaci: przecięcie list wierszy wszystkich trigramów zapytania, od najkrótszej
+        int[][] lists = new int[q.length() - GRAM + 1][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(gram(q, i));
+            if (lists[i] == null) {
+                return matches;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = lists[0];
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists[i]);
+        }
+
+        // Trigramy nie gwarantują kolejności - ostateczne sprawdzenie na wartości
+        for (int row : candidates) {
+            if (values[row].contains(q)) {
+                matches.set(row);
+            }
+        }
+        return matches;
+    }
+
+    /** Przecięcie dwóch rosnących list wierszy. */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Trzy znaki od pozycji {@code i} spakowane w jedną liczbę. */
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /** Rosnąca lista int bez opakowywania wartości. */
+    private static final class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+    }
+}
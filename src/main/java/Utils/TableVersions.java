@@ -0,0 +1,85 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Config.Transactions;
+import Models.TableVersionDAO;
+import java.util.logging.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Liczniki zmian tabel prezentowanych w oknie głównym (tabela TABLE_VERSION).
+ * Kontrolery zapisu zwiększają licznik w transakcji zapisu ({@link #bump}), a tabele
+ * widoku porównują go z wersją, przy której wczytały wiersze ({@link #current}) -
+ * pełne przeładowanie listy potrzebne jest tylko wtedy, gdy licznik zmienił się
+ * bez wiedzy danego okna (np. zapis z innego stanowiska).
+ * <p>
+ * Tabela i wiersze liczników zakładane są leniwie, w osobnej transakcji, przy pierwszym użyciu.
+ */
+public final class TableVersions {
+
+    private static final Logger LOGGER = Logger.getLogger(TableVersions.class.getName());
+
+    private final SessionFactory sessionFactory;
+    private final TableVersionDAO versionDAO = new TableVersionDAO();
+    private volatile boolean tableChecked;
+
+    private TableVersions(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Zwraca liczniki wersji dla podanej fabryki sesji.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @return Współdzielony obiekt liczników.
+     */
+    public static TableVersions forSessionFactory(SessionFactory sessionFactory) {
+        return SessionFactoryScope.get(sessionFactory, TableVersions.class, TableVersions::new);
+    }
+
+    /**
+     * Zwiększa liczniki podanych tabel. Wywoływane przed zatwierdzeniem transakcji zapisu,
+     * dzięki czemu zmiana danych i zmiana wersji są widoczne jednocześnie.
+     * @param session Sesja z aktywną transakcją zapisu.
+     * @param tables Nazwy liczników ({@link TableVersionDAO#CLIENT} itd.).
+     */
+    public void bump(Session session, String... tables) {
+        ensureTable();
+        for (String table : tables) {
+            if (!versionDAO.bump(session, table)) {
+                LOGGER.warning("Brak licznika wersji tabeli " + table + ".");
+            }
+        }
+    }
+
+    /**
+     * Odczytuje bieżącą wersję tabeli.
+     * @param session Aktualna sesja Hibernate.
+     * @param table Nazwa licznika.
+     * @return Wersja lub {@link TableVersionDAO#UNKNOWN}.
+     */
+    public long current(Session session, String table) {
+        ensureTable();
+        return versionDAO.currentVersion(session, table);
+    }
+
+    private void ensureTable() {
+        if (tableChecked) {
+            return;
+        }
+        synchronized (this) {
+            if (tableChecked) {
+                return;
+            }
+            // Liczniki założone równolegle przez inne stanowisko - wynik bez znaczenia
+            Transactions.createTable(sessionFactory, "TABLE_VERSION", versionDAO::createTableIfMissing, session -> {
+                for (String table : TableVersionDAO.TABLES) {
+                    if (versionDAO.currentVersion(session, table) == TableVersionDAO.UNKNOWN) {
+                        versionDAO.insertVersion(session, table);
+                    }
+                }
+            });
+            tableChecked = true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package Utils;
+
+import Models.TableVersionDAO;
+import Views.MainWindow;
+import java.util.concurrent.Callable;
+import javax.swing.table.TableModel;
+
+/**
+ * Pamięć podręczna modelu jednego widoku tabeli (Klienci, Trenerzy, Aktywności) wraz
+ * z wersją z tabeli TABLE_VERSION, przy której model został wczytany.
+ * <ul>
+ * <li>Przełączenie widoku: jeśli wersja w bazie się nie zmieniła, model jest używany ponownie
+ * bez odpytywania tabeli ({@link #reusable}).</li>
+ * <li>Zapis z tego stanowiska: jeśli wersja wzrosła dokładnie o jeden (tylko o własny zapis),
+ * zmiana stosowana jest jako zdarzenie jednego wiersza ({@link #upsert}, {@link #remove});
+ * w przeciwnym razie tabela zmieniła się także z zewnątrz i pamięć jest unieważniana.</li>
+ * </ul>
+ * Model stronicowany ({@link PagedTableModel}) nie przechowuje wszystkich wierszy - zmiana
+ * odświeża go tak jak dotychczas ({@link PagedTableModel#refresh()}).
+ */
+final class TableViewCache {
+
+    /**
+     * Stan rekordu po zatwierdzonym zapisie.
+     * @param version Wersja tabeli odczytana po zatwierdzeniu.
+     * @param row Wartości wiersza widoku lub null, jeśli rekord nie istnieje (usunięcie).
+     */
+    record RowChange(long version, Object[] row) {
+    }
+
+    private TableModel model;
+    private long version = TableVersionDAO.UNKNOWN;
+
+    /**
+     * Zwraca zapamiętany model, jeśli jest aktualny (wywoływane w wątku tła).
+     * @param current Bieżąca wersja tabeli.
+     * @return Model lub null, jeśli trzeba go wczytać ponownie.
+     */
+    synchronized TableModel reusable(long current) {
+        return model != null && current != TableVersionDAO.UNKNOWN && current == version ? model : null;
+    }
+
+    /**
+     * Zapamiętuje nowo wczytany model.
+     * @param model Model tabeli.
+     * @param version Wersja odczytana przed pobraniem wierszy.
+     */
+    synchronized void store(TableModel model, long version) {
+        this.model = model;
+        this.version = version;
+    }
+
+    /** Unieważnia zapamiętany model (następne wyświetlenie wczyta tabelę od nowa). */
+    synchronized void invalidate() {
+        model = null;
+        version = TableVersionDAO.UNKNOWN;
+    }
+
+    /**
+     * Stosuje zapis pojedynczego wiersza (EDT).
+     * @param current Wersja odczytana po zatwierdzeniu zapisu.
+     * @param key Klucz główny zapisanego wiersza.
+     * @param row Aktualne wartości wiersza lub null, jeśli rekord już nie istnieje.
+     * @return false, gdy pamięć była nieaktualna i została unieważniona - należy przeładować tabelę.
+     */
+    synchronized boolean upsert(long current, Object key, Object[] row) {
+        // Równa wersja: model wczytano już po zapisie - ponowne zastosowanie zmiany niczego nie psuje
+        boolean inSync = model != null && version != TableVersionDAO.UNKNOWN
+                && (current == version || current == version + 1);
+        if (!inSync) {
+            invalidate();
+            return false;
+        }
+        version = current;
+        if (model instanceof RowCacheTableModel rows) {
+            if (row != null) {
+                rows.upsert(row);
+            } else {
+                rows.remove(key);
+            }
+        } else {
+            ((PagedTableModel) model).refresh();
+        }
+        return true;
+    }
+
+    /**
+     * Stosuje usunięcie pojedynczego wiersza (EDT).
+     * @param current Wersja odczytana po zatwierdzeniu usunięcia.
+     * @param key Klucz główny usuniętego wiersza.
+     * @return false, gdy pamięć była nieaktualna i została unieważniona - należy przeładować tabelę.
+     */
+    synchronized boolean remove(long current, Object key) {
+        return upsert(current, key, null);
+    }
+
+    /**
+     * @param key Klucz główny.
+     * @return Indeks wiersza w zapamiętanym modelu lub -1 (brak wiersza, model stronicowany).
+     */
+    synchronized int indexOf(Object key) {
+        return model instanceof RowCacheTableModel rows ? rows.indexOf(key) : -1;
+    }
+
+    /**
+     * Odświeża jeden wiersz widoku po zapisie z tego stanowiska: w tle pobiera wersję tabeli
+     * i wiersz po kluczu, a w EDT stosuje zmianę w modelu. Gdy pamięć jest nieaktualna,
+     * wyświetlana tabela przeładowywana jest w całości; niewyświetlana - przy następnym pokazaniu.
+     * @param view Okno główne.
+     * @param key Klucz główny zmienionego rekordu.
+     * @param lookup Odczyt stanu rekordu (wykonywany w wątku tła, we własnej sesji).
+     * @param reload Pełne przeładowanie tabeli.
+     */
+    void refreshRow(MainWindow view, Object key, Callable<RowChange> lookup, Runnable reload) {
+        // Bez klucza scalania - kolejne zapisy tego samego rekordu nie mogą zostać pominięte
+        AsyncExecutor.submit(null, view, lookup, change -> {
+            boolean showing = isShowing(view.dataTable.getModel());
+            if (!upsert(change.version(), key, change.row())) {
+                if (showing) {
+                    reload.run();
+                }
+                return;
+            }
+            if (showing && change.row() != null) {
+                view.selectModelRow(indexOf(key));
+            }
+        });
+    }
+
+    private synchronized boolean isShowing(TableModel displayed) {
+        return model != null && model == displayed;
+    }
+}
@@ -2,21 +2,24 @@ package Utils;
 
 import Models.Trainer;
 import Models.TrainerDAO;
+import Models.TrainerRow;
+import Models.TableVersionDAO;
 import Views.MainWindow;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 
 import javax.swing.JOptionPane;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Kontroler pomocniczy odpowiedzialny za pobieranie i prezentację danych encji {@link Trainer}
  * w głównym oknie aplikacji ({@link MainWindow}).
- * Klasa pośredniczy w procesie odświeżania tabeli trenerów oraz umożliwia pobieranie 
- * szczegółowych danych o wybranym z listy instruktorze na potrzeby edycji.
+ * Klasa pośredniczy w procesie odświeżania tabeli trenerów; dane pobierane są
+ * w tle przez {@link AsyncExecutor}, a wczytany model jest zapamiętywany
+ * ({@link TableViewCache}) do czasu zmiany wersji tabeli TRAINER.
  */
 public class TrainerControllerTable {
 
@@ -32,8 +35,17 @@ public class TrainerControllerTable {
     /** Obiekt dostępu do danych (DAO) dla trenerów. */
     private final TrainerDAO trainerDAO = new TrainerDAO(); 
 
+    /** Liczniki wersji tabel bieżącej bazy. */
+    private final TableVersions versions;
+
+    /** Zapamiętany model tabeli trenerów. */
+    private final TableViewCache cache = new TableViewCache();
+
+    /** Klucz zadania ładującego tabelę (scalanie wielokrotnych kliknięć menu). */
+    private static final String TASK_KEY = AsyncExecutor.TABLE_PREFIX + "Trainers";
+
     /** Statyczna definicja nazw kolumn dla tabeli trenerów w interfejsie graficznym. */
-    private static final String[] COLUMN_NAMES = {"Kod", "Imię i Nazwisko", "ID (Numer)", "Telefon", "E-mail", "Data zatrudnienia", "Nick"};
+    static final String[] COLUMN_NAMES = {"Kod", "Imię i Nazwisko", "ID (Numer)", "Telefon", "E-mail", "Data zatrudnienia", "Nick"};
 
     /**
      * Konstruktor inicjalizujący kontroler tabeli trenerów.
@@ -43,102 +55,153 @@ public class TrainerControllerTable {
     public TrainerControllerTable(SessionFactory sessionFactory, MainWindow view) {
         this.sessionFactory = sessionFactory;
         this.view = view;
-        
+        this.versions = TableVersions.forSessionFactory(sessionFactory);
     }
 
     // =========================================================================
-    // POBIERANIE POJEDYNCZEJ ENCJ (DO EDYCJI)
+    // WYŚWIETLANIE WSZYSTKICH DANYCH (READ)
     // =========================================================================
 
     /**
-     * Pobiera pełny obiekt {@link Trainer} na podstawie kodu zaznaczonego w tabeli interfejsu.
-     * Metoda jest wykorzystywana przez kontroler główny do załadowania danych przed otwarciem 
-     * okna edycji.
-     * * @return Obiekt Trainer lub null, jeśli żaden wiersz nie został zaznaczony lub wystąpił błąd sesji.
+     * Pobiera listę wszystkich trenerów z bazy danych (w tle) i odświeża główną tabelę w aplikacji.
+     * Metoda wykonuje zapytanie HQL, a następnie mapuje listę obiektów na dwuwymiarową tablicę 
+     * typu Object, która jest przesyłana do widoku w celu aktualizacji komponentu JTable.
      */
-    public Trainer getSelectedTrainer() {
-        // Pobranie unikalnego kodu trenera (tCod) bezpośrednio z modelu tabeli widoku
-        String trainerCod = view.getSelectedTrainerCode(); 
+    public void showTrainers() {
+        AsyncExecutor.submit(TASK_KEY, view, this::loadTrainersModel, model -> {
+            // Przesłanie gotowego modelu do komponentu graficznego (EDT)
+            view.setViewName("Trainers");
+            view.setTableModel(model);
+            view.setupTableSorter();
+        }, ex -> JOptionPane.showMessageDialog(view, "Błąd pobierania danych: " + ex.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE));
+    }
 
-        if (trainerCod == null || trainerCod.trim().isEmpty()) {
-            return null;
-        }
+    /**
+     * Wymusza ponowne wczytanie całej tabeli z pominięciem zapamiętanego modelu -
+     * trwające ładowanie mogło rozpocząć się przed zatwierdzeniem transakcji, więc nie jest scalane.
+     */
+    public void reloadTrainers() {
+        cache.invalidate();
+        AsyncExecutor.cancel(TASK_KEY);
+        showTrainers();
+    }
 
-        Session session = null;
-        Trainer trainer = null;
-        try {
-            session = sessionFactory.openSession();
-            // Delegowanie pobrania obiektu po kluczu głównym do warstwy DAO
-            trainer = trainerDAO.getTrainerByCod(session, trainerCod); 
-            
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Błąd pobierania Trenera o kodzie: " + trainerCod, e);
-        } finally {
-            if (session != null && session.isOpen()) {
-                session.close();
+    /**
+     * Odświeża wiersz trenera po zatwierdzonym dodaniu lub edycji (bez przeładowania całej listy).
+     * @param tCod Kod zapisanego trenera.
+     */
+    public void trainerSaved(String tCod) {
+        cache.refreshRow(view, tCod, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                long version = versions.current(session, TableVersionDAO.TRAINER);
+                TrainerRow row = trainerDAO.findTrainerRow(session, tCod);
+                return new TableViewCache.RowChange(version, row != null ? toRow(row) : null);
             }
-        }
-        return trainer;
+        }, this::reloadTrainers);
     }
-    
-    
-    public void addNewRowToTable(Object[] rowData) {
-    javax.swing.table.DefaultTableModel model = (javax.swing.table.DefaultTableModel) view.dataTable.getModel();
-    model.addRow(rowData);
-    
-    // Zaznacz nowy wiersz na końcu
-    int lastRow = model.getRowCount() - 1;
-    view.dataTable.setRowSelectionInterval(lastRow, lastRow);
-    view.dataTable.scrollRectToVisible(view.dataTable.getCellRect(lastRow, 0, true));
-    
-    // Dopasuj szerokość kolumn do nowej treści
-    view.autoResizeColumns();
-}
 
-    // =========================================================================
-    // WYŚWIETLANIE WSZYSTKICH DANYCH (READ)
-    // =========================================================================
+    /**
+     * Usuwa wiersz trenera z tabeli po zatwierdzonym usunięciu.
+     * @param tCod Kod usuniętego trenera.
+     */
+    public void trainerDeleted(String tCod) {
+        cache.refreshRow(view, tCod, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return new TableViewCache.RowChange(versions.current(session, TableVersionDAO.TRAINER), null);
+            }
+        }, this::reloadTrainers);
+    }
 
     /**
-     * Pobiera listę wszystkich trenerów z bazy danych i odświeża główną tabelę w aplikacji.
-     * Metoda wykonuje zapytanie HQL, a następnie mapuje listę obiektów na dwuwymiarową tablicę 
-     * typu Object, która jest przesyłana do widoku w celu aktualizacji komponentu JTable.
+     * Buduje model tabeli trenerów (wywoływane w wątku tła) lub zwraca zapamiętany,
+     * jeśli wersja tabeli się nie zmieniła.
      */
-    public void showTrainers() {
-        Session session = null;
-        try {
-            session = sessionFactory.openSession();
-            // Wykonanie zapytania o wszystkich trenerów
-            Query<Trainer> query = session.createQuery("FROM Trainer", Trainer.class);
-            List<Trainer> trainers = query.getResultList();
+    private TableModel loadTrainersModel() {
+        try (Session session = sessionFactory.openSession()) {
+            // Wersja odczytywana przed wierszami - zmiana w trakcie ładowania wymusi kolejne wczytanie
+            long version = versions.current(session, TableVersionDAO.TRAINER);
+            TableModel cached = cache.reusable(version);
+            if (cached != null) {
+                LOGGER.fine("Tabela trenerów bez zmian (wersja " + version + ").");
+                return cached;
+            }
+
+            long total = trainerDAO.countTrainers(session);
+
+            // Duże tabele: wiersze pobierane stronami na żądanie zamiast pełnej listy encji
+            if (total > PagedTableModel.PAGING_THRESHOLD) {
+                LOGGER.info("Trenerów: " + total + " - tryb stronicowany.");
+                PagedTableModel paged = new PagedTableModel(COLUMN_NAMES, 0, (int) total, new TrainerPageLoader());
+                paged.preload(0);
+                cache.store(paged, version);
+                return paged;
+            }
+
+            // Projekcja tylko do odczytu - bez encji i kolekcji aktywności w kontekście sesji
+            List<TrainerRow> trainers = trainerDAO.findAllTrainerRows(session);
             LOGGER.info("Pobrano " + trainers.size() + " trenerów.");
 
-            String[] columns = COLUMN_NAMES; 
-            Object[][] data = new Object[trainers.size()][7];
-
-            // Mapowanie atrybutów encji Trainer na komórki tabeli
-            for (int i = 0; i < trainers.size(); i++) {
-                Trainer t = trainers.get(i);
-                data[i][0] = t.getTCod();
-                data[i][1] = t.getTName();
-                data[i][2] = t.getTidNumber();
-                data[i][3] = t.getTphoneNumber();
-                data[i][4] = t.getTEmail();
-                data[i][5] = t.getTDate();
-                data[i][6] = t.getTNick();
+            // Mapowanie atrybutów na komórki tabeli z indeksem wierszy według kodu trenera
+            List<Object[]> rows = new ArrayList<>(trainers.size());
+            for (TrainerRow t : trainers) {
+                rows.add(toRow(t));
             }
+            RowCacheTableModel model = new RowCacheTableModel(COLUMN_NAMES, rows);
+            cache.store(model, version);
+            return model;
+        }
+    }
 
-            // Przesłanie sformatowanych danych do komponentu graficznego
-            view.setViewName("Trainers");
-            view.setTableData(columns, data);
-
-        } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Błąd podczas wyświetlania listy Trenerów.", ex);
-            JOptionPane.showMessageDialog(view, "Błąd pobierania danych: " + ex.getMessage(), "Błąd DB", JOptionPane.ERROR_MESSAGE);
-        } finally {
-            if (session != null && session.isOpen()) {
-                session.close();
+    /**
+     * Mapuje projekcję {@link TrainerRow} na wiersz tabeli widoku.
+     */
+    static Object[] toRow(TrainerRow t) {
+        return new Object[]{
+            t.tCod(),
+            t.tName(),
+            t.tidNumber(),
+            t.tphoneNumber(),
+            t.tEmail(),
+            t.tDate(),
+            t.tNick()
+        };
+    }
+
+    /**
+     * Źródło stron dla {@link PagedTableModel}: paginacja po kodzie trenera (t_cod),
+     * każda strona pobierana w osobnej, krótkiej sesji.
+     */
+    private class TrainerPageLoader implements PagedTableModel.PageLoader {
+
+        @Override
+        public int countRows(PagedTableModel.Filter filter) {
+            try (Session session = sessionFactory.openSession()) {
+                long count = filter == null ? trainerDAO.countTrainers(session)
+                        : trainerDAO.countTrainerRows(session, filter.column(), filter.text());
+                return (int) Math.min(Integer.MAX_VALUE, count);
+            }
+        }
+
+        @Override
+        public List<Object[]> loadPage(PagedTableModel.Filter filter, Object afterKey, int limit) {
+            try (Session session = sessionFactory.openSession()) {
+                List<TrainerRow> trainers = filter == null
+                        ? trainerDAO.findTrainerRowsPage(session, (String) afterKey, limit)
+                        : trainerDAO.findTrainerRowsPage(session, (String) afterKey, limit, filter.column(), filter.text());
+                List<Object[]> rows = new ArrayList<>(trainers.size());
+                for (TrainerRow t : trainers) {
+                    rows.add(toRow(t));
+                }
+                return rows;
+            }
+        }
+
+        @Override
+        public Object findKeyAt(PagedTableModel.Filter filter, int offset) {
+            try (Session session = sessionFactory.openSession()) {
+                return filter == null ? trainerDAO.findTrainerKeyAt(session, offset)
+                        : trainerDAO.findTrainerKeyAt(session, offset, filter.column(), filter.text());
             }
         }
     }
-}
\ No newline at end of file
+}
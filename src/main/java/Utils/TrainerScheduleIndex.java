@@ -0,0 +1,293 @@
+package Utils;
+
+import Config.SessionFactoryScope;
+import Models.ActivityDAO;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Indeks zajętości grafiku trenerów przechowywany w pamięci.
+ * Tydzień dzieli się na {@link #SLOT_COUNT} terminów (7 dni × 14 godzin zajęć
+ * z formularza aktywności), a zajętość każdego trenera zapisana jest w jednym
+ * {@link BitSet} - bit terminu ustawiony oznacza prowadzone zajęcia.
+ * Sprawdzenie konfliktu to odczyt jednego bitu, a zapytania zbiorcze (wolne terminy
+ * trenera, wszystkie konflikty w grafiku) nie odpytują tabeli ACTIVITY.
+ * <p>
+ * Indeks ładowany jest jednym zapytaniem przy pierwszym użyciu i aktualizowany przez
+ * kontrolery po każdym zapisie lub usunięciu aktywności. Zmiany wprowadzone z innych
+ * stanowisk widoczne są po {@link #invalidate()} (wywoływanym przy odświeżeniu listy aktywności),
+ * dlatego indeks służy tylko do wstępnego sprawdzenia - zapis aktywności weryfikuje termin
+ * ponownie w bazie ({@code ActivityDAO.isTrainerOccupied}).
+ * Wszystkie metody są bezpieczne wątkowo.
+ */
+public final class TrainerScheduleIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(TrainerScheduleIndex.class.getName());
+
+    /** Dni tygodnia w kolejności indeksu (wartości kolumny a_day i listy w formularzu). */
+    public static final String[] DAYS = {
+        "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
+    };
+
+    /** Pierwsza godzina zajęć. */
+    public static final int FIRST_HOUR = 8;
+
+    /** Liczba godzinnych terminów w ciągu dnia (08:00-21:00). */
+    public static final int HOURS_PER_DAY = 14;
+
+    /** Liczba terminów w tygodniu. */
+    public static final int SLOT_COUNT = DAYS.length * HOURS_PER_DAY;
+
+    /**
+     * Termin w grafiku.
+     *
+     * @param day Dzień tygodnia.
+     * @param hour Godzina rozpoczęcia.
+     */
+    public record Slot(String day, int hour) {
+    }
+
+    /**
+     * Konflikt w grafiku: kilka aktywności jednego trenera w tym samym terminie.
+     *
+     * @param trainerCod Kod trenera.
+     * @param slot Termin.
+     * @param activityIds Identyfikatory kolidujących aktywności.
+     */
+    public record Conflict(String trainerCod, Slot slot, List<String> activityIds) {
+    }
+
+    /** Położenie aktywności w indeksie. */
+    private record Placement(String trainerCod, int slot) {
+    }
+
+    private final SessionFactory sessionFactory;
+    private final ActivityDAO activityDAO = new ActivityDAO();
+
+    /** Zajęte terminy według kodu trenera. */
+    private final Map<String, BitSet> occupied = new HashMap<>();
+
+    /** Terminy zajęte przez więcej niż jedną aktywność (dane sprzed walidacji lub z innych klientów). */
+    private final Map<String, BitSet> shared = new HashMap<>();
+
+    /** Termin każdej aktywności z przypisanym trenerem. */
+    private final Map<String, Placement> placements = new HashMap<>();
+
+    private boolean loaded;
+
+    private TrainerScheduleIndex(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Zwraca indeks grafiku dla podanej fabryki sesji.
+     * @param sessionFactory Fabryka sesji bieżącej bazy danych.
+     * @return Współdzielony indeks.
+     */
+    public static TrainerScheduleIndex forSessionFactory(SessionFactory sessionFactory) {
+        return SessionFactoryScope.get(sessionFactory, TrainerScheduleIndex.class, TrainerScheduleIndex::new);
+    }
+
+    /**
+     * Wyznacza numer terminu.
+     * @param day Dzień tygodnia.
+     * @param hour Godzina rozpoczęcia.
+     * @return Numer terminu lub -1, jeśli termin leży poza siatką grafiku.
+     */
+    public static int slotOf(String day, int hour) {
+        int hourIndex = hour - FIRST_HOUR;
+        if (hourIndex < 0 || hourIndex >= HOURS_PER_DAY) {
+            return -1;
+        }
+        for (int d = 0; d < DAYS.length; d++) {
+            if (DAYS[d].equalsIgnoreCase(day)) {
+                return d * HOURS_PER_DAY + hourIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static Slot toSlot(int slot) {
+        return new Slot(DAYS[slot / HOURS_PER_DAY], FIRST_HOUR + slot % HOURS_PER_DAY);
+    }
+
+    /**
+     * Sprawdza, czy trener prowadzi inną aktywność w danym terminie.
+     * @param trainerCod Kod trenera.
+     * @param day Dzień tygodnia.
+     * @param hour Godzina rozpoczęcia.
+     * @param currentActivityId Identyfikator edytowanej aktywności (pomijanej) lub null.
+     * @return {@code true}, jeśli termin jest zajęty przez inną aktywność.
+     */
+    public synchronized boolean isOccupied(String trainerCod, String day, int hour, String currentActivityId) {
+        ensureLoaded();
+        int slot = slotOf(day, hour);
+        BitSet bits = occupied.get(trainerCod);
+        if (slot < 0 || bits == null || !bits.get(slot)) {
+            return false;
+        }
+        // Termin zajmuje wyłącznie edytowana aktywność - brak konfliktu
+        Placement current = currentActivityId != null ? placements.get(currentActivityId) : null;
+        boolean onlyCurrent = current != null && current.trainerCod().equals(trainerCod) && current.slot() == slot;
+        return !onlyCurrent || isShared(trainerCod, slot);
+    }
+
+    /**
+     * Sprawdza termin i - jeśli jest wolny - od razu zajmuje go dla aktywności (jedna operacja
+     * pod blokadą indeksu, więc dwa równoległe zapisy nie zajmą tego samego terminu).
+     * Jeśli zapis w bazie się nie powiedzie, należy wywołać {@link #invalidate()}.
+     * @param activityId Identyfikator zapisywanej aktywności (jej dotychczasowy termin jest pomijany).
+     * @param trainerCod Kod trenera.
+     * @param day Dzień tygodnia.
+     * @param hour Godzina rozpoczęcia.
+     * @return {@code false}, jeśli termin jest zajęty przez inną aktywność.
+     */
+    public synchronized boolean tryPlace(String activityId, String trainerCod, String day, int hour) {
+        if (isOccupied(trainerCod, day, hour, activityId)) {
+            return false;
+        }
+        place(activityId, trainerCod, day, hour);
+        return true;
+    }
+
+    /**
+     * Zapisuje (lub przenosi) termin aktywności po zatwierdzeniu zmian w bazie.
+     * @param activityId Identyfikator aktywności.
+     * @param trainerCod Kod trenera lub null, jeśli aktywność nie ma prowadzącego.
+     * @param day Dzień tygodnia.
+     * @param hour Godzina rozpoczęcia.
+     */
+    public synchronized void place(String activityId, String trainerCod, String day, int hour) {
+        if (!loaded) {
+            // Stan zostanie odczytany z bazy (już po zmianie) przy pierwszym użyciu
+            return;
+        }
+        removePlacement(activityId);
+        int slot = slotOf(day, hour);
+        if (trainerCod != null && slot >= 0) {
+            addPlacement(activityId, trainerCod, slot);
+        }
+    }
+
+    /**
+     * Usuwa termin aktywności po jej usunięciu z bazy.
+     * @param activityId Identyfikator aktywności.
+     */
+    public synchronized void remove(String activityId) {
+        if (loaded) {
+            removePlacement(activityId);
+        }
+    }
+
+    /**
+     * Unieważnia indeks - zostanie ponownie wczytany z bazy przy następnym użyciu.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        occupied.clear();
+        shared.clear();
+        placements.clear();
+    }
+
+    /**
+     * Zwraca wolne terminy trenera w kolejności dni i godzin.
+     * @param trainerCod Kod trenera.
+     * @return Lista wolnych terminów.
+     */
+    public synchronized List<Slot> findFreeSlots(String trainerCod) {
+        ensureLoaded();
+        BitSet free = new BitSet(SLOT_COUNT);
+        free.set(0, SLOT_COUNT);
+        BitSet bits = occupied.get(trainerCod);
+        if (bits != null) {
+            free.andNot(bits);
+        }
+        List<Slot> result = new ArrayList<>(free.cardinality());
+        for (int s = free.nextSetBit(0); s >= 0; s = free.nextSetBit(s + 1)) {
+            result.add(toSlot(s));
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca wszystkie konflikty w grafiku (terminy trenerów zajęte przez kilka aktywności).
+     * @return Lista konfliktów; pusta, jeśli grafik jest spójny.
+     */
+    public synchronized List<Conflict> findConflicts() {
+        ensureLoaded();
+        List<Conflict> conflicts = new ArrayList<>();
+        shared.forEach((trainerCod, bits) -> {
+            for (int s = bits.nextSetBit(0); s >= 0; s = bits.nextSetBit(s + 1)) {
+                conflicts.add(new Conflict(trainerCod, toSlot(s), activitiesAt(trainerCod, s)));
+            }
+        });
+        return conflicts;
+    }
+
+    private boolean isShared(String trainerCod, int slot) {
+        BitSet bits = shared.get(trainerCod);
+        return bits != null && bits.get(slot);
+    }
+
+    private void addPlacement(String activityId, String trainerCod, int slot) {
+        BitSet bits = occupied.computeIfAbsent(trainerCod, k -> new BitSet(SLOT_COUNT));
+        if (bits.get(slot)) {
+            shared.computeIfAbsent(trainerCod, k -> new BitSet(SLOT_COUNT)).set(slot);
+        }
+        bits.set(slot);
+        placements.put(activityId, new Placement(trainerCod, slot));
+    }
+
+    private void removePlacement(String activityId) {
+        Placement old = placements.remove(activityId);
+        if (old == null) {
+            return;
+        }
+        if (!isShared(old.trainerCod(), old.slot())) {
+            occupied.get(old.trainerCod()).clear(old.slot());
+            return;
+        }
+        // Rzadki przypadek terminu współdzielonego - przeliczenie pozostałych aktywności
+        if (activitiesAt(old.trainerCod(), old.slot()).size() < 2) {
+            shared.get(old.trainerCod()).clear(old.slot());
+        }
+    }
+
+    private List<String> activitiesAt(String trainerCod, int slot) {
+        List<String> ids = new ArrayList<>();
+        placements.forEach((id, p) -> {
+            if (p.slot() == slot && p.trainerCod().equals(trainerCod)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        List<Object[]> rows;
+        try (Session session = sessionFactory.openSession()) {
+            rows = activityDAO.findTrainerPlacements(session);
+        }
+        int outside = 0;
+        for (Object[] row : rows) {
+            int slot = slotOf((String) row[2], ((Number) row[3]).intValue());
+            if (slot < 0) {
+                outside++;
+                continue;
+            }
+            addPlacement((String) row[0], (String) row[1], slot);
+        }
+        loaded = true;
+        LOGGER.info("Wczytano indeks grafiku: " + placements.size() + " terminów, " + occupied.size() + " trenerów"
+                + (outside > 0 ? ", " + outside + " poza siatką grafiku." : "."));
+    }
+}
@@ -0,0 +1,74 @@
+package Views;
+
+/**
+ * Okno zestawienia statystyk wszystkich aktywności (liczba uczestników, średni wiek,
+ * dominująca kategoria, przychód po zniżkach). Tabela sortowana jest kliknięciem
+ * w nagłówek kolumny - kolumny liczbowe sortowane są według wartości, nie tekstu.
+ * Okno budowane jest w kodzie (bez pliku .form); dane ustawia kontroler.
+ */
+public class ActivityStatisticsWindow extends javax.swing.JFrame {
+
+    /** Nagłówki kolumn zestawienia. */
+    public static final String[] COLUMNS = {"ID", "Nazwa", "Uczestnicy", "Średni wiek", "Dominująca kategoria", "Przychód (PLN)"};
+
+    /** Typy kolumn (sortowanie i wyrównanie liczb). */
+    private static final Class<?>[] COLUMN_TYPES = {String.class, String.class, Long.class, Double.class, String.class, Double.class};
+
+    private final javax.swing.JTable table = new javax.swing.JTable();
+    private final javax.swing.JButton refreshButton = new javax.swing.JButton("Odśwież");
+    private final javax.swing.JLabel statusLabel = new javax.swing.JLabel(" ");
+
+    /**
+     * Tworzy okno zestawienia (bez danych).
+     */
+    public ActivityStatisticsWindow() {
+        setTitle("Statystyki wszystkich aktywności");
+        setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
+
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+        setStatistics(new Object[0][], " ");
+
+        javax.swing.JPanel bottom = new javax.swing.JPanel(new java.awt.BorderLayout(8, 0));
+        bottom.setBorder(javax.swing.BorderFactory.createEmptyBorder(6, 8, 6, 8));
+        bottom.add(statusLabel, java.awt.BorderLayout.CENTER);
+        bottom.add(refreshButton, java.awt.BorderLayout.EAST);
+
+        getContentPane().add(new javax.swing.JScrollPane(table), java.awt.BorderLayout.CENTER);
+        getContentPane().add(bottom, java.awt.BorderLayout.SOUTH);
+        setSize(800, 500);
+        setLocationByPlatform(true);
+    }
+
+    /**
+     * Ustawia wiersze zestawienia, zachowując wybrane sortowanie.
+     * @param rows Wiersze w kolejności kolumn {@link #COLUMNS}.
+     * @param status Tekst paska stanu (np. liczba aktywności i czas obliczeń).
+     */
+    public void setStatistics(Object[][] rows, String status) {
+        java.util.List<? extends javax.swing.RowSorter.SortKey> sortKeys =
+                table.getRowSorter() != null ? table.getRowSorter().getSortKeys() : java.util.List.of();
+        table.setModel(new javax.swing.table.DefaultTableModel(rows, COLUMNS) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return COLUMN_TYPES[column];
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        });
+        table.getRowSorter().setSortKeys(sortKeys);
+        statusLabel.setText(status);
+    }
+
+    /**
+     * Podpina obsługę przycisku odświeżania.
+     * @param al Słuchacz przycisku "Odśwież".
+     */
+    public void addRefreshListener(java.awt.event.ActionListener al) {
+        refreshButton.setActionCommand("RefreshActivityStats");
+        refreshButton.addActionListener(al);
+    }
+}
@@ -34,6 +34,7 @@ public class ConnectionView extends javax.swing.JFrame {
         jTextField1 = new javax.swing.JTextField();
         jButton1 = new javax.swing.JButton();
         jButton2 = new javax.swing.JButton();
+        jComboBox1 = new javax.swing.JComboBox<>();
         messi = new javax.swing.JLabel();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
@@ -80,6 +81,9 @@ public class ConnectionView extends javax.swing.JFrame {
         jButton2.setForeground(new java.awt.Color(0, 0, 0));
         jButton2.setText("Login");
 
+        jComboBox1.setFont(new java.awt.Font("Segoe UI", 0, 14)); // NOI18N
+        jComboBox1.setToolTipText("Database profile");
+
         messi.setIcon(new javax.swing.ImageIcon(getClass().getResource("/MessiGoat.jpg"))); // NOI18N
         messi.setName(""); // NOI18N
 
@@ -97,6 +101,8 @@ public class ConnectionView extends javax.swing.JFrame {
                         .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
+                                .addComponent(jComboBox1, javax.swing.GroupLayout.PREFERRED_SIZE, 180, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                                 .addComponent(jButton2, javax.swing.GroupLayout.PREFERRED_SIZE, 120, javax.swing.GroupLayout.PREFERRED_SIZE)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                                 .addComponent(jButton1, javax.swing.GroupLayout.PREFERRED_SIZE, 120, javax.swing.GroupLayout.PREFERRED_SIZE))
@@ -131,7 +137,8 @@ public class ConnectionView extends javax.swing.JFrame {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(jButton1, javax.swing.GroupLayout.PREFERRED_SIZE, 30, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton2, javax.swing.GroupLayout.PREFERRED_SIZE, 30, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addComponent(jButton2, javax.swing.GroupLayout.PREFERRED_SIZE, 30, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(jComboBox1, javax.swing.GroupLayout.PREFERRED_SIZE, 30, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addGap(15, 15, 15))
             .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                 .addGroup(layout.createSequentialGroup()
@@ -150,6 +157,7 @@ public class ConnectionView extends javax.swing.JFrame {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton jButton1;
     private javax.swing.JButton jButton2;
+    private javax.swing.JComboBox<Config.DatasourceProfile> jComboBox1;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JLabel jLabel3;
@@ -166,6 +174,29 @@ public class ConnectionView extends javax.swing.JFrame {
         return new String(jPasswordField1.getPassword());
     }
 
+    /**
+     * Wypełnia listę wyboru profili źródła danych i zaznacza podany profil.
+     * Przy jednym profilu lista jest ukryta.
+     */
+    public void setProfiles(java.util.List<Config.DatasourceProfile> profiles, Config.DatasourceProfile selected) {
+        jComboBox1.removeAllItems();
+        for (Config.DatasourceProfile profile : profiles) {
+            jComboBox1.addItem(profile);
+        }
+        jComboBox1.setSelectedItem(selected);
+        jComboBox1.setVisible(profiles.size() > 1);
+    }
+
+    /** @return Profil źródła danych wybrany w oknie logowania. */
+    public Config.DatasourceProfile getSelectedProfile() {
+        return (Config.DatasourceProfile) jComboBox1.getSelectedItem();
+    }
+
+    public void addProfileListener(java.awt.event.ActionListener al) {
+        jComboBox1.setActionCommand("ProfileChanged");
+        jComboBox1.addActionListener(al);
+    }
+
     public void addConnectListener(java.awt.event.ActionListener al) {
         jButton2.setActionCommand("AppEntry");
         jButton2.addActionListener(al);
@@ -377,6 +377,21 @@ public class MainWindow extends javax.swing.JFrame {
         initMenuItem.setActionCommand("ShowInit");
         initMenuItem.addActionListener(al);
     }
+    public void addImportClientsMenuListener(java.awt.event.ActionListener al) {
+        importClientsMenuItem.setActionCommand("ImportClients");
+        importClientsMenuItem.addActionListener(al);
+    }
+
+    public void addExportMenuListener(java.awt.event.ActionListener al) {
+        exportMenuItem.setActionCommand("ExportCsv");
+        exportMenuItem.addActionListener(al);
+    }
+
+    public void addActivityStatsMenuListener(java.awt.event.ActionListener al) {
+        activityStatsMenuItem.setActionCommand("ShowActivityStats");
+        activityStatsMenuItem.addActionListener(al);
+    }
+
   public void addPerformsMenuListener(java.awt.event.ActionListener al) {
         performsMenuItem.setActionCommand("ShowPerforms");
         performsMenuItem.addActionListener(al);
@@ -416,6 +431,9 @@ public class MainWindow extends javax.swing.JFrame {
     private javax.swing.JMenuItem activitiesManagerMenuItem; // dla Activities
     private javax.swing.JMenuItem initMenuItem; // dla Main (Init)
     private javax.swing.JMenuItem performsMenuItem; 
+    private javax.swing.JMenuItem exportMenuItem; // dla Main (eksport CSV)
+    private javax.swing.JMenuItem importClientsMenuItem; // dla Clients (import CSV)
+    private javax.swing.JMenuItem activityStatsMenuItem; // dla Activities (zestawienie statystyk)
     // ...
 // =================================================================
     // API WIDOKU - Metody do komunikacji z Kontrolerem
@@ -435,25 +453,11 @@ public class MainWindow extends javax.swing.JFrame {
   public void setTableData(String[] columnNames, Object[][] data) {
     // --- POPRAWKA: Wyłączamy stary sorter, aby nie gryzł się z nowymi danymi ---
     dataTable.setRowSorter(null);
+    sorter = null;
     // -------------------------------------------------------------------------
 
-    javax.swing.table.DefaultTableModel model = new javax.swing.table.DefaultTableModel(data, columnNames) {
-        @Override
-        public boolean isCellEditable(int row, int column) {
-            return false;
-        }
-
-        @Override
-        public Class<?> getColumnClass(int column) {
-            // Sprawdzamy, co jest w pierwszej komórce danej kolumny
-            if (getRowCount() > 0 && getValueAt(0, column) != null) {
-                return getValueAt(0, column).getClass();
-            }
-            return Object.class;
-        }
-    };
-    
-    dataTable.setModel(model);
+    dataTable.setModel(createTableModel(columnNames, data));
+    search.attach(null);
 
     if (data.length > 0 && data[0][0] instanceof javax.swing.Icon) {
         javax.swing.Icon icon = (javax.swing.Icon) data[0][0];
@@ -478,6 +482,45 @@ public class MainWindow extends javax.swing.JFrame {
 }
     
 
+    /**
+     * Tworzy model tabeli tylko do odczytu z pełnej macierzy danych.
+     * Metoda nie dotyka komponentów Swing, więc może być wywołana w wątku tła;
+     * gotowy model przekazuje się do {@link #setTableModel}.
+     */
+    public static javax.swing.table.DefaultTableModel createTableModel(String[] columnNames, Object[][] data) {
+        return new javax.swing.table.DefaultTableModel(data, columnNames) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+
+            @Override
+            public Class<?> getColumnClass(int column) {
+                // Sprawdzamy, co jest w pierwszej komórce danej kolumny
+                if (getRowCount() > 0 && getValueAt(0, column) != null) {
+                    return getValueAt(0, column).getClass();
+                }
+                return Object.class;
+            }
+        };
+    }
+
+    /**
+     * Ustawia gotowy model tabeli (pełny lub stronicowany {@link Utils.PagedTableModel}).
+     * Sorter jest odpinany; kontroler konfiguruje go ponownie przez
+     * {@link #setupTableSorter()} (dla modelu stronicowanego sortowanie pozostaje wyłączone).
+     */
+    public void setTableModel(javax.swing.table.TableModel model) {
+        dataTable.setRowSorter(null);
+        sorter = null;
+        dataTable.setModel(model);
+
+        dataTable.setRowHeight(25);
+        dataTable.getTableHeader().setVisible(true);
+        jScrollPane1.setColumnHeaderView(dataTable.getTableHeader());
+        autoResizeColumns();
+    }
+
     /**
      * Zwraca numer zaznaczonego wiersza w tabeli.
      *
@@ -541,6 +584,11 @@ public class MainWindow extends javax.swing.JFrame {
             Clients.add(clientManagerMenuItem); // Dodaj element do menu Clients
         }
 
+        if (importClientsMenuItem == null) {
+            importClientsMenuItem = new javax.swing.JMenuItem("Import from CSV...");
+            Clients.add(importClientsMenuItem);
+        }
+
         if (trainerManagerMenuItem == null) {
             trainerManagerMenuItem = new javax.swing.JMenuItem("Trainer Manager");
             Trainers.add(trainerManagerMenuItem);
@@ -550,6 +598,11 @@ public class MainWindow extends javax.swing.JFrame {
             activitiesManagerMenuItem = new javax.swing.JMenuItem("Activities Manager");
             Activities.add(activitiesManagerMenuItem);
         }
+
+        if (activityStatsMenuItem == null) {
+            activityStatsMenuItem = new javax.swing.JMenuItem("Statistics (all activities)");
+            Activities.add(activityStatsMenuItem);
+        }
         if (performsMenuItem == null) {
             performsMenuItem = new javax.swing.JMenuItem("Performs Activity");
             Performs.add(performsMenuItem);
@@ -559,6 +612,11 @@ public class MainWindow extends javax.swing.JFrame {
             initMenuItem = new javax.swing.JMenuItem("Initialize");
             Main.add(initMenuItem);
         }
+
+        if (exportMenuItem == null) {
+            exportMenuItem = new javax.swing.JMenuItem("Export to CSV...");
+            Main.add(exportMenuItem);
+        }
     }
 public String getSelectedClientCode() {
         Object value = getSelectedValueAt(0); // Zakładamy, że ID jest w kolumnie 0
@@ -583,68 +641,56 @@ public String getSelectedClientCode() {
         return (value != null) ? value.toString() : null;
     }
     
-    private javax.swing.table.TableRowSorter<javax.swing.table.DefaultTableModel> sorter;
+    private javax.swing.table.TableRowSorter<javax.swing.table.TableModel> sorter;
 
 /**
- * Konfiguruje sorter tabeli i wypełnia JComboBox nazwami kolumn.
+ * Konfiguruje sorter tabeli, wypełnia JComboBox nazwami kolumn i podłącza wyszukiwarkę.
+ * Dla modelu stronicowanego sorter nie jest tworzony - sortowanie wymagałoby
+ * wczytania wszystkich stron; wyszukiwanie wykonuje wtedy baza danych.
  */
 public void setupTableSorter() {
-    javax.swing.table.DefaultTableModel model = (javax.swing.table.DefaultTableModel) dataTable.getModel();
-    sorter = new javax.swing.table.TableRowSorter<>(model);
-    dataTable.setRowSorter(sorter);
+    javax.swing.table.TableModel model = dataTable.getModel();
+    if (model instanceof Utils.PagedTableModel) {
+        sorter = null;
+        dataTable.setRowSorter(null);
+    } else {
+        sorter = new javax.swing.table.TableRowSorter<>(model);
+        if (model instanceof Utils.RowCacheTableModel) {
+            // Model z pamięcią wierszy nie utrzymuje kolejności - porządek według klucza zapewnia sorter,
+            // a zmienione wiersze są przestawiane pojedynczo
+            sorter.setSortsOnUpdates(true);
+            // Kody porządkowane liczbowo (S999 przed S1000), jak w zapytaniach stronicowanych
+            sorter.setComparator(0, Utils.CodeGenerator.CODE_ORDER);
+            sorter.setSortKeys(java.util.List.of(new javax.swing.RowSorter.SortKey(0, javax.swing.SortOrder.ASCENDING)));
+        }
+        dataTable.setRowSorter(sorter);
+    }
 
     // Automatyczne wypełnienie ComboBoxa aktualnymi nazwami kolumn
     jSearchBox.removeAllItems();
     for (int i = 0; i < model.getColumnCount(); i++) {
         jSearchBox.addItem(model.getColumnName(i));
     }
+    search.attach(sorter);
 }
 
+/** Wyszukiwarka tabeli (opóźnione wyszukiwanie z indeksem kolumn lub filtrem w bazie). */
+private Utils.TableSearch search;
+
 /**
- * Logika filtrowania wierszy.
+ * Podłącza wyszukiwarkę do pola tekstowego i wyboru kolumny. Wywołaj to w konstruktorze MainWindow.
  */
-private void filterTable() {
-    if (sorter == null) return;
-
-    String text = jSearchText.getText();
-    int columnIndex = jSearchBox.getSelectedIndex();
-
-    if (text.trim().isEmpty()) {
-        sorter.setRowFilter(null);
-    } else {
-        // (?i) oznacza ignorowanie wielkości liter
-        try {
-            sorter.setRowFilter(javax.swing.RowFilter.regexFilter("(?i)" + text, columnIndex));
-        } catch (java.util.regex.PatternSyntaxException e) {
-            // W razie błędu w składni regex nie rób nic
-        }
-    }
+public void initSearchListeners() {
+    search = new Utils.TableSearch(dataTable, jSearchText, jSearchBox);
 }
 
 /**
- * Dodaje listenery do pól wyszukiwania. Wywołaj to w konstruktorze MainWindow.
+ * Czyści pole wyszukiwania i zdejmuje filtr (np. przy zmianie widoku).
  */
-public void initSearchListeners() {
-    // Reaguj na pisanie w polu tekstowym
-    jSearchText.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-        public void changedUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-        public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-        public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-    });
-
-    // Reaguj na zmianę kolumny w ComboBox
-    jSearchBox.addActionListener(e -> filterTable());
-}
 public void clearSearchFields() {
-    // 1. Czyścimy pole tekstowe
-    jSearchText.setText("");
-    
-    // 2. Resetujemy filtr sortera (żeby pokazać wszystkie wiersze w nowym widoku)
-    if (sorter != null) {
-        sorter.setRowFilter(null);
-    }
-    
-    // 3. Opcjonalnie: ustawiamy wybór w ComboBox na pierwszą pozycję
+    search.clear();
+
+    // Ustawiamy wybór w ComboBox na pierwszą pozycję
     if (jSearchBox.getItemCount() > 0) {
         jSearchBox.setSelectedIndex(0);
     }
@@ -669,41 +715,36 @@ public void addTableSelectionListener(javax.swing.event.ListSelectionListener ls
     dataTable.getSelectionModel().addListSelectionListener(lsl);
 }
 
-public void autoResizeColumns() {
-    dataTable.setAutoResizeMode(javax.swing.JTable.AUTO_RESIZE_OFF);
-    
-    // Pobieramy liczbę wierszy i kolumn raz, aby uniknąć niespójności
-    int rowCount = dataTable.getRowCount();
-    int columnCount = dataTable.getColumnCount();
+/**
+ * Zaznacza wiersz o podanym indeksie modelu i przewija do niego tabelę
+ * (indeks przeliczany jest na pozycję w widoku posortowanym/filtrowanym).
+ * @param modelRow Indeks wiersza w modelu lub -1 (brak akcji).
+ */
+public void selectModelRow(int modelRow) {
+    if (modelRow < 0 || modelRow >= dataTable.getModel().getRowCount()) {
+        return;
+    }
+    int viewRow = dataTable.convertRowIndexToView(modelRow);
+    if (viewRow >= 0) {
+        dataTable.setRowSelectionInterval(viewRow, viewRow);
+        dataTable.scrollRectToVisible(dataTable.getCellRect(viewRow, 0, true));
+    }
+}
 
-    for (int column = 0; column < columnCount; column++) {
-        javax.swing.table.TableColumn tableColumn = dataTable.getColumnModel().getColumn(column);
-        
-        // 1. Szerokość NAGŁÓWKA
-        javax.swing.table.TableCellRenderer headerRenderer = dataTable.getTableHeader().getDefaultRenderer();
-        java.awt.Component headerComp = headerRenderer.getTableCellRendererComponent(
-                dataTable, tableColumn.getHeaderValue(), false, false, 0, column);
-        int width = headerComp.getPreferredSize().width + 20;
-
-        // 2. Szerokość KOMÓREK - dodajemy zabezpieczenie rowCount
-        for (int row = 0; row < rowCount; row++) {
-            try {
-                // Sprawdzamy dodatkowo, czy wiersz nadal istnieje w modelu
-                if (row < dataTable.getModel().getRowCount()) {
-                    javax.swing.table.TableCellRenderer cellRenderer = dataTable.getCellRenderer(row, column);
-                    java.awt.Component c = dataTable.prepareRenderer(cellRenderer, row, column);
-                    int cellWidth = c.getPreferredSize().width + dataTable.getIntercellSpacing().width + 10;
-                    width = Math.max(width, cellWidth);
-                }
-            } catch (Exception e) {
-                // Jeśli w trakcie pętli dane się zmienią, przerywamy pomiar dla tej kolumny
-                break; 
-            }
-        }
+/** Dobór szerokości kolumn na podstawie próbki wierszy (tworzony po initComponents). */
+private Utils.ColumnWidthEstimator columnWidths;
 
-        // 3. Ustawienie szerokości
-        tableColumn.setPreferredWidth(width);
+/**
+ * Dopasowuje szerokości kolumn do nagłówków i próbki wierszy (pierwsze, ostatnie
+ * i najdłuższe wartości). Później dodawane lub zmieniane wiersze poszerzają kolumny
+ * przyrostowo, bez ponownego pomiaru całej tabeli.
+ */
+public void autoResizeColumns() {
+    dataTable.setAutoResizeMode(javax.swing.JTable.AUTO_RESIZE_OFF);
+    if (columnWidths == null) {
+        columnWidths = new Utils.ColumnWidthEstimator(dataTable);
     }
+    columnWidths.resizeAll();
 }
 }
 